@@ -0,0 +1,123 @@
+package CSV;
+
+/**
+ * Totals of an employee's attendance over a period, added up in one scan of their rows.
+ * Gross pay, late deductions and days worked are all calculated from these totals, so they follow the same
+ * rules, which ShiftEvaluator applies to each row:
+ * - A valid day has a log in and a log out, and the log out is not before the log in. Its hours worked are
+ *   the time between them minus the unpaid lunch break, and hours beyond the standard 8 are overtime.
+ * - Any other row is an invalid day and adds no hours.
+ * - A log in after the 8:10 grace period is late, and the lateness counts from the 8:00 start of the shift.
+ *   This applies to every row with a log in, valid or not.
+ * Totals are kept in whole minutes, so they are exact, and the scan creates no objects per row.
+ */
+public final class AttendanceAggregate {
+
+    private final long workedMinutes;
+    private final long overtimeMinutes;
+    private final long lateMinutes;
+    private final int validDays;
+    private final int invalidDays;
+
+    private AttendanceAggregate(long workedMinutes, long overtimeMinutes, long lateMinutes, int validDays, int invalidDays) {
+        this.workedMinutes = workedMinutes;
+        this.overtimeMinutes = overtimeMinutes;
+        this.lateMinutes = lateMinutes;
+        this.validDays = validDays;
+        this.invalidDays = invalidDays;
+    }
+
+    /**
+     * Adds up the rows of a cursor.
+     * @param attendance A cursor over one employee's rows for the period; it is read to the end
+     * @return The totals
+     */
+    public static AttendanceAggregate of(AttendanceTable.Cursor attendance) {
+        long workedMinutes = 0;
+        long overtimeMinutes = 0;
+        long lateMinutes = 0;
+        int validDays = 0;
+        int invalidDays = 0;
+
+        while (attendance.next()) {
+            int logInMinute = attendance.logInMinute();
+            int logOutMinute = attendance.logOutMinute();
+            lateMinutes += ShiftEvaluator.lateMinutes(logInMinute);
+
+            if (!ShiftEvaluator.isValidDay(logInMinute, logOutMinute)) {
+                invalidDays++;
+                continue;
+            }
+            validDays++;
+            int dayMinutes = ShiftEvaluator.workedMinutes(logInMinute, logOutMinute);
+            workedMinutes += dayMinutes;
+            overtimeMinutes += ShiftEvaluator.overtimeMinutes(dayMinutes);
+        }
+        return new AttendanceAggregate(workedMinutes, overtimeMinutes, lateMinutes, validDays, invalidDays);
+    }
+
+    /**
+     * Minutes worked on valid days, lunch breaks excluded and overtime included.
+     * @return The worked minutes
+     */
+    public long getWorkedMinutes() {
+        return workedMinutes;
+    }
+
+    public double getHoursWorked() {
+        return workedMinutes / 60.0;
+    }
+
+    /**
+     * Minutes worked beyond the standard work day, added up per day.
+     * @return The overtime minutes
+     */
+    public long getOvertimeMinutes() {
+        return overtimeMinutes;
+    }
+
+    public double getOvertimeHours() {
+        return overtimeMinutes / 60.0;
+    }
+
+    /**
+     * Minutes late, counted from the start of the shift on each day logged in after the grace period.
+     * @return The late minutes
+     */
+    public long getLateMinutes() {
+        return lateMinutes;
+    }
+
+    public double getLateHours() {
+        return lateMinutes / 60.0;
+    }
+
+    /**
+     * Days with a usable log in and log out; these are the days worked.
+     * @return The valid day count
+     */
+    public int getValidDays() {
+        return validDays;
+    }
+
+    /**
+     * Rows with a missing log in or log out, or a log out before the log in.
+     * @return The invalid day count
+     */
+    public int getInvalidDays() {
+        return invalidDays;
+    }
+
+    /**
+     * @return Number of rows scanned
+     */
+    public int getRows() {
+        return validDays + invalidDays;
+    }
+
+    @Override
+    public String toString() {
+        return "AttendanceAggregate{workedMinutes=" + workedMinutes + ", overtimeMinutes=" + overtimeMinutes
+                + ", lateMinutes=" + lateMinutes + ", validDays=" + validDays + ", invalidDays=" + invalidDays + "}";
+    }
+}
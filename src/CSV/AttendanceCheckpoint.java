@@ -0,0 +1,109 @@
+package CSV;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Records how far the attendance file has been read so that a reload only has to parse appended rows.
+ * The checkpoint holds the byte offset just after the last complete record together with a CRC of every
+ * byte before it. If the file did not grow, or no longer starts with the same prefix (it was edited or
+ * rewritten rather than appended to), the checkpoint no longer applies and the file has to be read in full.
+ */
+class AttendanceCheckpoint {
+
+    // Read size of the sequential pass that computes the fingerprint
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final String filePath;
+    private final long offset;         // just after the last newline-terminated record
+    private final int pendingRows;     // rows read from after the offset (a last line with no newline)
+    private final long fileLength;
+    private final long lastModified;
+    private final long fingerprint;
+
+    private AttendanceCheckpoint(String filePath, long offset, int pendingRows, long fileLength,
+                                 long lastModified, long fingerprint) {
+        this.filePath = filePath;
+        this.offset = offset;
+        this.pendingRows = pendingRows;
+        this.fileLength = fileLength;
+        this.lastModified = lastModified;
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * Creates a checkpoint after a scan of the given file.
+     * @param file The attendance file that was scanned
+     * @param result The result of the scan
+     * @param lastModified The file's modification time before the scan
+     * @return The checkpoint
+     * @throws IOException If the file cannot be read
+     */
+    static AttendanceCheckpoint after(File file, MappedAttendanceScanner.ScanResult result, long lastModified) throws IOException {
+        return new AttendanceCheckpoint(file.getAbsolutePath(), result.completeEnd, result.pendingRows,
+                result.fileLength, lastModified, fingerprint(file, result.completeEnd));
+    }
+
+    /**
+     * Checks whether the file has not changed at all since this checkpoint was taken.
+     */
+    boolean isUnchanged(File file) {
+        return isSameFile(file) && file.length() == fileLength && file.lastModified() == lastModified;
+    }
+
+    /**
+     * Checks whether the file was appended to: it grew, and still begins with the prefix this checkpoint
+     * has read, meaning that only the bytes from the offset onward need to be parsed.
+     * A file that was changed without growing was edited in place, so it never counts as appended to.
+     */
+    boolean isPrefixOf(File file) {
+        if (!isSameFile(file) || file.length() <= fileLength) {
+            return false;
+        }
+        try {
+            return fingerprint(file, offset) == fingerprint;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    long getOffset() {
+        return offset;
+    }
+
+    int getPendingRows() {
+        return pendingRows;
+    }
+
+    private boolean isSameFile(File file) {
+        return filePath.equals(file.getAbsolutePath());
+    }
+
+    /**
+     * CRC32 over every byte of [0, length), plus the length itself, read in one sequential pass.
+     * Sampling only part of the prefix would miss an edit in the unsampled middle that keeps the length.
+     */
+    private static long fingerprint(File file, long length) throws IOException {
+        CRC32 crc = new CRC32();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect((int) Math.min(BUFFER_BYTES, Math.max(length, 1)));
+            long position = 0;
+            while (position < length) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), length - position));
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    throw new IOException("File ended before the checkpoint offset");
+                }
+                buffer.flip();
+                crc.update(buffer);
+                position += read;
+            }
+        }
+        return crc.getValue() ^ (length * 31);
+    }
+}
@@ -0,0 +1,125 @@
+package CSV;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Index over an AttendanceTable, keyed by employee ID.
+ * Built once after the attendance CSV is loaded. Each employee's row numbers are kept sorted by date
+ * so that employee lookups are a single hash lookup and date ranges can use binary search.
+ * An index never changes once built; loading more rows builds a new one, so older dataset versions keep theirs.
+ */
+class AttendanceIndex {
+
+    private static final int[] NO_ROWS = new int[0];
+
+    private final AttendanceTable table;
+
+    // Employee ID -> that employee's row numbers, sorted by date
+    private final Map<Integer, int[]> rowsByEmployee = new HashMap<>();
+
+    /**
+     * Creates an index over an empty table.
+     */
+    AttendanceIndex() {
+        this(new AttendanceTable());
+    }
+
+    /**
+     * Builds the index from every row of the table.
+     * @param attendanceTable The loaded attendance table; it must not change afterwards
+     */
+    AttendanceIndex(AttendanceTable attendanceTable) {
+        this.table = attendanceTable;
+
+        // Count rows per employee so each array is allocated once; slot [1] is the next free position
+        Map<Integer, int[]> counts = new HashMap<>();
+        for (int row = 0; row < table.size(); row++) {
+            counts.computeIfAbsent(table.getEmployeeId(row), k -> new int[2])[0]++;
+        }
+
+        // Sort keys hold the epoch day in the high bits and the row number in the low bits,
+        // so rows on the same date keep their file order
+        Map<Integer, long[]> keys = new HashMap<>();
+        for (Map.Entry<Integer, int[]> entry : counts.entrySet()) {
+            keys.put(entry.getKey(), new long[entry.getValue()[0]]);
+        }
+        for (int row = 0; row < table.size(); row++) {
+            int employeeId = table.getEmployeeId(row);
+            keys.get(employeeId)[counts.get(employeeId)[1]++] = ((long) table.getEpochDay(row) << 32) | row;
+        }
+
+        for (Map.Entry<Integer, long[]> entry : keys.entrySet()) {
+            long[] sortKeys = entry.getValue();
+            Arrays.sort(sortKeys);
+            int[] rows = new int[sortKeys.length];
+            for (int i = 0; i < sortKeys.length; i++) {
+                rows[i] = (int) sortKeys[i];
+            }
+            rowsByEmployee.put(entry.getKey(), rows);
+        }
+    }
+
+    /**
+     * Returns a cursor over all rows for an employee, sorted by date.
+     * @param employeeId The employee's ID
+     * @return A cursor over the employee's rows (empty if none)
+     */
+    AttendanceTable.Cursor cursor(String employeeId) {
+        int[] rows = rowsFor(employeeId);
+        return new AttendanceTable.Cursor(table, rows, 0, rows.length);
+    }
+
+    /**
+     * Returns a cursor over the rows for an employee that fall within a date range (inclusive on both ends).
+     * @param employeeId The employee's ID
+     * @param startDate First date of the range
+     * @param endDate Last date of the range
+     * @return A cursor over the matching rows, sorted by date (empty if none)
+     */
+    AttendanceTable.Cursor cursor(String employeeId, LocalDate startDate, LocalDate endDate) {
+        int[] rows = rowsFor(employeeId);
+        if (startDate.isAfter(endDate)) {
+            return new AttendanceTable.Cursor(table, rows, 0, 0);
+        }
+        int from = firstIndexOnOrAfter(rows, startDate.toEpochDay());
+        int to = firstIndexOnOrAfter(rows, endDate.toEpochDay() + 1);
+        return new AttendanceTable.Cursor(table, rows, from, to);
+    }
+
+    /**
+     * Returns the table this index was built over.
+     */
+    AttendanceTable getTable() {
+        return table;
+    }
+
+    private int[] rowsFor(String employeeId) {
+        try {
+            int[] rows = rowsByEmployee.get(Integer.parseInt(employeeId.trim()));
+            return rows == null ? NO_ROWS : rows;
+        } catch (NumberFormatException e) {
+            return NO_ROWS; // attendance rows only ever carry numeric IDs
+        }
+    }
+
+    /**
+     * Binary search for the first position whose row date is on or after the given epoch day.
+     * Rows without a date compare greater than every date.
+     */
+    private int firstIndexOnOrAfter(int[] rows, long epochDay) {
+        int low = 0;
+        int high = rows.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (table.getEpochDay(rows[mid]) < epochDay) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
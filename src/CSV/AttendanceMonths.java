@@ -0,0 +1,61 @@
+package CSV;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The attendance rows by month, as a reload left them, for telling which months changed since.
+ * Each month has a version that changes whenever its rows are catalogued again, and once loaded, the range
+ * of its rows in the table. Tables are replaced rather than changed, so holding one keeps the rows as they were.
+ */
+final class AttendanceMonths {
+
+    private final AttendanceTable rows;
+    private final Map<Integer, Month> months; // month key -> month, in month order
+
+    AttendanceMonths(AttendanceTable rows, Map<Integer, Month> months) {
+        this.rows = rows;
+        this.months = Collections.unmodifiableMap(new TreeMap<>(months));
+    }
+
+    /**
+     * The rows of a table that is not split into months, as one month with a version of its own.
+     * @param rows The table
+     * @return Months holding every row of the table under the UNDATED key
+     */
+    static AttendanceMonths whole(AttendanceTable rows) {
+        return new AttendanceMonths(rows, Collections.singletonMap(AttendanceSegmentCatalog.UNDATED,
+                new Month(AttendanceSegmentCatalog.newVersion(), 0, rows.size())));
+    }
+
+    AttendanceTable getRows() {
+        return rows;
+    }
+
+    /**
+     * Every catalogued month, loaded or not, by month key in month order.
+     */
+    Map<Integer, Month> getMonths() {
+        return months;
+    }
+
+    /**
+     * One month: its version, and where its rows are in the table if it is loaded.
+     */
+    static final class Month {
+        final long version;
+        final int firstRow;
+        final int rowCount; // -1 if the month is not loaded
+
+        Month(long version, int firstRow, int rowCount) {
+            this.version = version;
+            this.firstRow = firstRow;
+            this.rowCount = rowCount;
+        }
+
+        boolean isLoaded() {
+            return rowCount >= 0;
+        }
+    }
+}
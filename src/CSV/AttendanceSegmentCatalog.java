@@ -0,0 +1,409 @@
+package CSV;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Attendance rows stored as one segment per month.
+ * A segment is the list of byte ranges that hold one month's rows, across one or more yearly attendance files
+ * ("Attendance Record 2024.csv", "Attendance Record 2025.csv", ...). The catalog of segments comes from a pass
+ * that decodes only each row's date and is kept in each file's snapshot, so later runs skip that pass too.
+ * A segment's rows are parsed the first time a query needs its month: a screen showing June never parses December.
+ * Loaded months are kept together in one table, in month order.
+ */
+class AttendanceSegmentCatalog {
+
+    /** Month key of rows without a valid date; sorts after every month, as NO_DATE sorts after every date. */
+    static final int UNDATED = Integer.MAX_VALUE;
+
+    // Segment versions are unique across catalogs, so a new catalog's months never look unchanged
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    // Catalogued files in the order their rows are combined, oldest year first
+    private final List<SourceFile> sources = new ArrayList<>();
+
+    // Month key -> segment
+    private final NavigableMap<Integer, Segment> segments = new TreeMap<>();
+
+    // Rows of the loaded segments, in month order
+    private AttendanceTable rows = new AttendanceTable();
+
+    /**
+     * Month key of an epoch day: months since year 0, or UNDATED.
+     */
+    static int monthKey(int epochDay) {
+        if (epochDay == AttendanceTable.NO_DATE) {
+            return UNDATED;
+        }
+        LocalDate date = FieldDecoder.toLocalDate(epochDay);
+        return date.getYear() * 12 + date.getMonthValue() - 1;
+    }
+
+    /**
+     * A version no segment has had yet.
+     */
+    static long newVersion() {
+        return VERSIONS.incrementAndGet();
+    }
+
+    /**
+     * Month key of a date.
+     */
+    static int monthKey(LocalDate date) {
+        return date.getYear() * 12 + date.getMonthValue() - 1;
+    }
+
+    /**
+     * Brings the catalog up to date with the given files. Unchanged files are left alone; for a file that was only
+     * appended to, just the appended rows are catalogued. Segments whose rows changed are unloaded, to be parsed
+     * again when next needed.
+     * @param files The attendance files to catalog, in the order their rows are combined
+     * @param useSnapshots Whether catalogs may be read from and saved to snapshots
+     * @param parallelism Number of threads for the partition pass over large files
+     * @return true if anything changed; false if every file was already catalogued as it is now
+     * @throws IOException If a file could not be read
+     */
+    boolean refresh(List<File> files, boolean useSnapshots, int parallelism) throws IOException {
+        boolean changed = false;
+        Map<String, SourceFile> existing = new HashMap<>();
+        for (SourceFile source : sources) {
+            existing.put(source.file.getAbsolutePath(), source);
+        }
+
+        List<SourceFile> refreshed = new ArrayList<>();
+        for (File file : files) {
+            SourceFile source = existing.remove(file.getAbsolutePath());
+            if (source != null && source.checkpoint.isUnchanged(file)) {
+                refreshed.add(source);
+                continue;
+            }
+            changed = true;
+            long length = file.length();
+            long lastModified = file.lastModified();
+            if (source != null && source.checkpoint.isPrefixOf(file)) {
+                // Appended to: the last line may have had no newline, so catalog again from the last complete record
+                dropRanges(source, source.checkpoint.getOffset(), source.checkpoint.getPendingRows());
+                MappedAttendanceScanner.Partition appended = MappedAttendanceScanner.partitionFile(
+                        file, source.checkpoint.getOffset(), parallelism);
+                addRanges(source, appended.ranges);
+                source.checkpoint = AttendanceCheckpoint.after(file, appended.result, lastModified);
+                System.out.println("Catalogued " + appended.result.rows + " appended records of " + file.getName());
+                if (useSnapshots) {
+                    DatasetSnapshot.saveSegmentsInBackground(file, length, lastModified, rangesOf(source), appended.result);
+                }
+            } else {
+                if (source != null) {
+                    dropRanges(source, 0, 0);
+                }
+                source = new SourceFile(file);
+                MappedAttendanceScanner.Partition partition = useSnapshots ? DatasetSnapshot.readSegments(file) : null;
+                if (partition != null) {
+                    System.out.println("Loaded catalog of " + partition.result.rows + " records from snapshot of " + file.getName());
+                } else {
+                    partition = MappedAttendanceScanner.partitionFile(file, 0, parallelism);
+                    System.out.println("Catalogued " + partition.result.rows + " records of " + file.getName());
+                    if (useSnapshots) {
+                        DatasetSnapshot.saveSegmentsInBackground(file, length, lastModified, partition.ranges, partition.result);
+                    }
+                }
+                addRanges(source, partition.ranges);
+                source.checkpoint = AttendanceCheckpoint.after(file, partition.result, lastModified);
+            }
+            refreshed.add(source);
+        }
+
+        // Files that are gone or no longer listed
+        for (SourceFile removed : existing.values()) {
+            dropRanges(removed, 0, 0);
+            changed = true;
+        }
+        sources.clear();
+        sources.addAll(refreshed);
+        for (int i = 0; i < sources.size(); i++) {
+            sources.get(i).order = i;
+        }
+        for (Segment segment : segments.values()) {
+            segment.ranges.sort(RANGE_ORDER);
+        }
+        if (changed) {
+            combineLoadedSegments(new HashMap<>());
+        }
+        return changed;
+    }
+
+    /**
+     * Checks whether every catalogued file is unchanged and the files to catalog are still the same.
+     * @param files The attendance files that would be catalogued now
+     */
+    boolean isCurrent(List<File> files) {
+        if (files.size() != sources.size()) {
+            return false;
+        }
+        for (int i = 0; i < files.size(); i++) {
+            if (!sources.get(i).checkpoint.isUnchanged(files.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether any segment of the months in [fromKey, toKey] still has to be parsed.
+     */
+    boolean hasUnloaded(int fromKey, int toKey) {
+        for (Segment segment : segments.subMap(fromKey, true, toKey, true).values()) {
+            if (!segment.loaded) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Parses the segments of the months in [fromKey, toKey] that are not loaded yet.
+     * @param fromKey First month key
+     * @param toKey Last month key
+     * @param parallelism Number of threads for parsing large segments
+     * @return true if any segment was loaded, so the combined rows changed
+     * @throws IOException If a file could not be read; segments loaded before the failure are kept
+     */
+    boolean load(int fromKey, int toKey, int parallelism) throws IOException {
+        return loadSegments(segments.subMap(fromKey, true, toKey, true).values(), parallelism);
+    }
+
+    /**
+     * Parses the segments of the given months that are not loaded yet. Months that are not catalogued are skipped.
+     * @param monthKeys The month keys
+     * @param parallelism Number of threads for parsing large segments
+     * @return true if any segment was loaded, so the combined rows changed
+     * @throws IOException If a file could not be read; segments loaded before the failure are kept
+     */
+    boolean load(Collection<Integer> monthKeys, int parallelism) throws IOException {
+        List<Segment> requested = new ArrayList<>();
+        for (Integer monthKey : monthKeys) {
+            Segment segment = segments.get(monthKey);
+            if (segment != null) {
+                requested.add(segment);
+            }
+        }
+        return loadSegments(requested, parallelism);
+    }
+
+    private boolean loadSegments(Collection<Segment> requested, int parallelism) throws IOException {
+        Map<Segment, AttendanceTable> parsed = new HashMap<>();
+        try {
+            for (Segment segment : requested) {
+                if (segment.loaded) {
+                    continue;
+                }
+                AttendanceTable table = new AttendanceTable();
+                for (Range range : segment.ranges) {
+                    MappedAttendanceScanner.scanRange(range.source.file, range.start, range.end, table, parallelism);
+                }
+                parsed.put(segment, table);
+                System.out.println("Loaded " + table.size() + " attendance records for " + describe(segment.monthKey));
+            }
+        } finally {
+            if (!parsed.isEmpty()) {
+                combineLoadedSegments(parsed);
+            }
+        }
+        return !parsed.isEmpty();
+    }
+
+    /**
+     * Rows of the loaded segments, in month order. The table is replaced, not changed, when segments are loaded.
+     */
+    AttendanceTable getRows() {
+        return rows;
+    }
+
+    /**
+     * Every catalogued month with its version, and where its rows are in getRows() if it is loaded.
+     */
+    AttendanceMonths getMonths() {
+        Map<Integer, AttendanceMonths.Month> months = new TreeMap<>();
+        for (Segment segment : segments.values()) {
+            months.put(segment.monthKey, new AttendanceMonths.Month(segment.version, segment.firstRow,
+                    segment.loaded ? segment.loadedRows : -1));
+        }
+        return new AttendanceMonths(rows, months);
+    }
+
+    /**
+     * Number of rows in every catalogued segment, loaded or not.
+     */
+    int getRowCount() {
+        int count = 0;
+        for (Segment segment : segments.values()) {
+            count += segment.rowCount();
+        }
+        return count;
+    }
+
+    int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Names a segment for log messages, such as "2024-06".
+     */
+    static String describe(int monthKey) {
+        return monthKey == UNDATED ? "rows without a date" : YearMonth.of(monthKey / 12, monthKey % 12 + 1).toString();
+    }
+
+    /**
+     * Rebuilds the combined rows from the loaded segments, in month order, taking each newly parsed
+     * segment from the given map and every other loaded segment from the current combined rows.
+     */
+    private void combineLoadedSegments(Map<Segment, AttendanceTable> parsed) {
+        AttendanceTable combined = new AttendanceTable();
+        for (Segment segment : segments.values()) {
+            AttendanceTable table = parsed.get(segment);
+            int firstRow = combined.size();
+            if (table != null) {
+                combined.addAll(table);
+                segment.loaded = true;
+            } else if (segment.loaded) {
+                combined.addAll(rows, segment.firstRow, segment.firstRow + segment.loadedRows);
+            }
+            segment.firstRow = firstRow;
+            segment.loadedRows = combined.size() - firstRow;
+        }
+        rows = combined;
+    }
+
+    /**
+     * Removes a file's ranges from the byte offset on. Segments that lose ranges are unloaded, and
+     * segments left without ranges are removed.
+     * @param source The file
+     * @param offset Byte offset from which ranges are removed; a range that spans it is cut short
+     * @param pendingRows Rows of the cut-short range that lay past the offset
+     */
+    private void dropRanges(SourceFile source, long offset, int pendingRows) {
+        Iterator<Segment> segmentIterator = segments.values().iterator();
+        while (segmentIterator.hasNext()) {
+            Segment segment = segmentIterator.next();
+            Iterator<Range> rangeIterator = segment.ranges.iterator();
+            while (rangeIterator.hasNext()) {
+                Range range = rangeIterator.next();
+                if (range.source != source || range.end <= offset) {
+                    continue;
+                }
+                if (range.start >= offset) {
+                    rangeIterator.remove();
+                } else {
+                    range.end = offset;
+                    range.rows -= pendingRows;
+                }
+                segment.loaded = false;
+                segment.version = newVersion();
+            }
+            if (segment.ranges.isEmpty()) {
+                segmentIterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Adds a file's month ranges to their segments, unloading segments that were loaded without them.
+     */
+    private void addRanges(SourceFile source, List<MappedAttendanceScanner.MonthRange> ranges) {
+        for (MappedAttendanceScanner.MonthRange monthRange : ranges) {
+            Segment segment = segments.computeIfAbsent(monthRange.monthKey, Segment::new);
+            segment.ranges.add(new Range(source, monthRange.start, monthRange.end, monthRange.rows));
+            segment.loaded = false;
+            segment.version = newVersion();
+        }
+    }
+
+    /**
+     * A file's ranges in file order, in the form the snapshot stores them.
+     */
+    private List<MappedAttendanceScanner.MonthRange> rangesOf(SourceFile source) {
+        List<MappedAttendanceScanner.MonthRange> ranges = new ArrayList<>();
+        for (Segment segment : segments.values()) {
+            for (Range range : segment.ranges) {
+                if (range.source == source) {
+                    MappedAttendanceScanner.MonthRange monthRange =
+                            new MappedAttendanceScanner.MonthRange(segment.monthKey, range.start, range.end);
+                    monthRange.rows = range.rows;
+                    ranges.add(monthRange);
+                }
+            }
+        }
+        ranges.sort(Comparator.comparingLong(range -> range.start));
+        return ranges;
+    }
+
+    // Ranges of a segment are parsed in file order, then byte order
+    private static final Comparator<Range> RANGE_ORDER =
+            Comparator.<Range>comparingInt(range -> range.source.order).thenComparingLong(range -> range.start);
+
+    /**
+     * One catalogued attendance file.
+     */
+    private static final class SourceFile {
+        final File file;
+        AttendanceCheckpoint checkpoint;
+        int order;
+
+        SourceFile(File file) {
+            this.file = file;
+        }
+    }
+
+    /**
+     * Byte range of one month's rows in one file.
+     */
+    private static final class Range {
+        final SourceFile source;
+        final long start;
+        long end;
+        int rows;
+
+        Range(SourceFile source, long start, long end, int rows) {
+            this.source = source;
+            this.start = start;
+            this.end = end;
+            this.rows = rows;
+        }
+    }
+
+    /**
+     * One month's rows: where they are, and where they are in the combined rows once loaded.
+     * The version changes whenever the segment's ranges do.
+     */
+    private static final class Segment {
+        final int monthKey;
+        final List<Range> ranges = new ArrayList<>();
+        long version;
+        boolean loaded;
+        int firstRow;
+        int loadedRows;
+
+        Segment(int monthKey) {
+            this.monthKey = monthKey;
+        }
+
+        int rowCount() {
+            int count = 0;
+            for (Range range : ranges) {
+                count += range.rows;
+            }
+            return count;
+        }
+    }
+}
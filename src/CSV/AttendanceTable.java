@@ -0,0 +1,314 @@
+package CSV;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Columnar store for attendance rows.
+ * Each row is kept as primitives in parallel arrays (employee ID, epoch day, log in minute, log out minute)
+ * instead of a HashMap of boxed LocalDate/LocalTime values. Employee names are stored once per distinct
+ * (last name, first name) pair and referenced by index from each row.
+ */
+public class AttendanceTable {
+
+    // Marker values for missing cells
+    public static final int NO_DATE = Integer.MAX_VALUE; // sorts after every real date
+    public static final int NO_TIME = -1;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    // Column arrays, one entry per row
+    private int[] employeeIds = new int[INITIAL_CAPACITY];
+    private int[] epochDays = new int[INITIAL_CAPACITY];
+    private short[] logInMinutes = new short[INITIAL_CAPACITY];
+    private short[] logOutMinutes = new short[INITIAL_CAPACITY];
+    private int[] nameRefs = new int[INITIAL_CAPACITY];
+    private int size;
+
+    // Distinct (last name, first name) pairs referenced by nameRefs
+    private final List<String[]> names = new ArrayList<>();
+    private final Map<String, Map<String, Integer>> nameLookup = new HashMap<>(); // last name -> first name -> ref
+
+    /**
+     * Appends a row to the table.
+     * @param employeeId The employee's numeric ID
+     * @param epochDay The attendance date as an epoch day, or NO_DATE
+     * @param logInMinute Minute of day of the log in, or NO_TIME
+     * @param logOutMinute Minute of day of the log out, or NO_TIME
+     * @param lastName The employee's last name as written on the row
+     * @param firstName The employee's first name as written on the row
+     */
+    public void add(int employeeId, int epochDay, int logInMinute, int logOutMinute, String lastName, String firstName) {
+        ensureCapacity(size + 1);
+        employeeIds[size] = employeeId;
+        epochDays[size] = epochDay;
+        logInMinutes[size] = (short) logInMinute;
+        logOutMinutes[size] = (short) logOutMinute;
+        nameRefs[size] = nameRef(lastName, firstName);
+        size++;
+    }
+
+    /**
+     * Appends every row of another table, keeping their order.
+     * @param other The table whose rows are appended
+     */
+    public void addAll(AttendanceTable other) {
+        addAll(other, 0, other.size);
+    }
+
+    /**
+     * Appends rows [fromRow, toRow) of another table, keeping their order.
+     * @param other The table whose rows are appended
+     * @param fromRow First row to append
+     * @param toRow Row after the last row to append
+     */
+    public void addAll(AttendanceTable other, int fromRow, int toRow) {
+        if (fromRow < 0 || toRow > other.size || fromRow > toRow) {
+            throw new IndexOutOfBoundsException("Rows " + fromRow + "-" + toRow + " of " + other.size);
+        }
+        int count = toRow - fromRow;
+        ensureCapacity(size + count);
+        System.arraycopy(other.employeeIds, fromRow, employeeIds, size, count);
+        System.arraycopy(other.epochDays, fromRow, epochDays, size, count);
+        System.arraycopy(other.logInMinutes, fromRow, logInMinutes, size, count);
+        System.arraycopy(other.logOutMinutes, fromRow, logOutMinutes, size, count);
+
+        // Name references are local to each table, so map the other table's names onto ours
+        int[] refMapping = new int[other.names.size()];
+        for (int i = 0; i < refMapping.length; i++) {
+            String[] name = other.names.get(i);
+            refMapping[i] = nameRef(name[0], name[1]);
+        }
+        for (int row = 0; row < count; row++) {
+            nameRefs[size + row] = refMapping[other.nameRefs[fromRow + row]];
+        }
+        size += count;
+    }
+
+    /**
+     * Drops rows from the end of the table so that it holds only the first newSize rows.
+     * @param newSize The number of rows to keep
+     */
+    public void truncate(int newSize) {
+        if (newSize < 0 || newSize > size) {
+            throw new IllegalArgumentException("Cannot truncate " + size + " rows to " + newSize);
+        }
+        size = newSize;
+    }
+
+    /**
+     * Removes all rows and names from the table.
+     */
+    public void clear() {
+        size = 0;
+        names.clear();
+        nameLookup.clear();
+    }
+
+    /**
+     * Replaces the stored names with the shared instances of a string pool, so they are also shared with the
+     * other datasets, and counts the per-row copies the table avoids by storing each name once.
+     * @param session The pool session of this load
+     */
+    void internNames(StringPool.Session session) {
+        int[] references = new int[names.size()];
+        for (int row = 0; row < size; row++) {
+            references[nameRefs[row]]++;
+        }
+        nameLookup.clear();
+        for (int ref = 0; ref < names.size(); ref++) {
+            String[] name = names.get(ref);
+            name[0] = session.intern(name[0]);
+            name[1] = session.intern(name[1]);
+            session.countShared(name[0], references[ref] - 1);
+            session.countShared(name[1], references[ref] - 1);
+            nameLookup.computeIfAbsent(name[0], k -> new HashMap<>()).put(name[1], ref);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Column accessors by row number
+    public int getEmployeeId(int row) { return employeeIds[row]; }
+    public int getEpochDay(int row) { return epochDays[row]; }
+    public int getLogInMinute(int row) { return logInMinutes[row]; }
+    public int getLogOutMinute(int row) { return logOutMinutes[row]; }
+    public String getLastName(int row) { return names.get(nameRefs[row])[0]; }
+    public String getFirstName(int row) { return names.get(nameRefs[row])[1]; }
+
+    /**
+     * Builds the map form of a row, using the same keys and value types as the attendance CSV columns.
+     * @param row The row number
+     * @return A new map holding the row's values
+     */
+    public Map<String, Object> toRecordMap(int row) {
+        Map<String, Object> record = new HashMap<>();
+        record.put("Employee ID", String.valueOf(employeeIds[row]));
+        record.put("Last Name", getLastName(row));
+        record.put("First Name", getFirstName(row));
+        record.put("Date", toLocalDate(epochDays[row]));
+        record.put("Log In", toLocalTime(logInMinutes[row]));
+        record.put("Log Out", toLocalTime(logOutMinutes[row]));
+        return record;
+    }
+
+    /**
+     * Compares this table with another row by row.
+     * @param other The table to compare against
+     * @return The first row number where the tables differ, or -1 if they hold exactly the same rows
+     */
+    public int firstDifference(AttendanceTable other) {
+        int common = Math.min(size, other.size);
+        for (int row = 0; row < common; row++) {
+            if (employeeIds[row] != other.employeeIds[row]
+                    || epochDays[row] != other.epochDays[row]
+                    || logInMinutes[row] != other.logInMinutes[row]
+                    || logOutMinutes[row] != other.logOutMinutes[row]
+                    || !getLastName(row).equals(other.getLastName(row))
+                    || !getFirstName(row).equals(other.getFirstName(row))) {
+                return row;
+            }
+        }
+        return size == other.size ? -1 : common;
+    }
+
+    /**
+     * Returns a cursor over every row in table order.
+     * @return A cursor positioned before the first row
+     */
+    public Cursor cursor() {
+        return new Cursor(this, null, 0, size);
+    }
+
+    /**
+     * Returns a cursor over the rows in [fromRow, toRow), in table order.
+     * @param fromRow First row number
+     * @param toRow Row number after the last row
+     * @return A cursor positioned before the first row
+     */
+    public Cursor cursor(int fromRow, int toRow) {
+        return new Cursor(this, null, fromRow, toRow);
+    }
+
+    /**
+     * Converts an epoch day column value to a LocalDate.
+     * @param epochDay The stored epoch day
+     * @return The date, or null for NO_DATE
+     */
+    public static LocalDate toLocalDate(int epochDay) {
+        return epochDay == NO_DATE ? null : FieldDecoder.toLocalDate(epochDay);
+    }
+
+    /**
+     * Converts a minute of day column value to a LocalTime.
+     * @param minuteOfDay The stored minute of day
+     * @return The time, or null for NO_TIME
+     */
+    public static LocalTime toLocalTime(int minuteOfDay) {
+        return minuteOfDay == NO_TIME ? null : LocalTime.of(minuteOfDay / 60, minuteOfDay % 60);
+    }
+
+    private int nameRef(String lastName, String firstName) {
+        Map<String, Integer> byFirstName = nameLookup.computeIfAbsent(lastName, k -> new HashMap<>());
+        Integer ref = byFirstName.get(firstName);
+        if (ref == null) {
+            ref = names.size();
+            names.add(new String[]{lastName, firstName});
+            byFirstName.put(firstName, ref);
+        }
+        return ref;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= employeeIds.length) {
+            return;
+        }
+        int capacity = Math.max(required, employeeIds.length * 2);
+        employeeIds = Arrays.copyOf(employeeIds, capacity);
+        epochDays = Arrays.copyOf(epochDays, capacity);
+        logInMinutes = Arrays.copyOf(logInMinutes, capacity);
+        logOutMinutes = Arrays.copyOf(logOutMinutes, capacity);
+        nameRefs = Arrays.copyOf(nameRefs, capacity);
+    }
+
+    /**
+     * Forward-only cursor over a set of rows.
+     * Reading the current row's columns does not allocate; call next() before reading the first row.
+     */
+    public static final class Cursor {
+        private final AttendanceTable table;
+        private final int[] rows; // row numbers to visit, or null to visit rows in table order
+        private final int start;
+        private final int end;
+        private int position;
+        private int row = -1;
+
+        Cursor(AttendanceTable table, int[] rows, int start, int end) {
+            this.table = table;
+            this.rows = rows;
+            this.start = start;
+            this.position = start;
+            this.end = end;
+        }
+
+        /**
+         * Returns a new cursor over the same rows, positioned before the first row.
+         * @return The new cursor
+         */
+        public Cursor duplicate() {
+            return new Cursor(table, rows, start, end);
+        }
+
+        /**
+         * Returns the number of rows the cursor visits in total.
+         * @return The row count
+         */
+        public int size() {
+            return end - start;
+        }
+
+        /**
+         * Moves to the next row.
+         * @return true if there is a current row, false once the cursor is exhausted
+         */
+        public boolean next() {
+            if (position >= end) {
+                row = -1;
+                return false;
+            }
+            row = rows == null ? position : rows[position];
+            position++;
+            return true;
+        }
+
+        public int employeeId() { return table.employeeIds[row]; }
+        public int epochDay() { return table.epochDays[row]; }
+        public int logInMinute() { return table.logInMinutes[row]; }
+        public int logOutMinute() { return table.logOutMinutes[row]; }
+        public boolean hasDate() { return table.epochDays[row] != NO_DATE; }
+        public boolean hasLogIn() { return table.logInMinutes[row] != NO_TIME; }
+        public boolean hasLogOut() { return table.logOutMinutes[row] != NO_TIME; }
+        public String lastName() { return table.getLastName(row); }
+        public String firstName() { return table.getFirstName(row); }
+
+        // Object views of the current row; these allocate and are meant for display code
+        public LocalDate date() { return toLocalDate(epochDay()); }
+        public LocalTime logIn() { return toLocalTime(logInMinute()); }
+        public LocalTime logOut() { return toLocalTime(logOutMinute()); }
+
+        /**
+         * Returns the row number of the current row in the table.
+         * @return The row number
+         */
+        public int row() {
+            return row;
+        }
+    }
+}
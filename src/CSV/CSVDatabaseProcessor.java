@@ -1,17 +1,17 @@
 package CSV;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.file.Files;
 import java.time.LocalDate;
-import java.time.LocalTime;
 import java.time.YearMonth;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.function.Consumer;
 import oop.classes.actors.Employee;
 
 /**
@@ -25,7 +25,7 @@ public class CSVDatabaseProcessor {
     protected static final String CSV_ATTENDANCE_RECORDS = "Attendance Record 2024.csv";
     protected static final String CSV_LEAVE_REQUESTS = "OOP CSV Database - Leave Requests.csv";
     protected static final String CSV_USER_CREDENTIALS = "OOP CSV Database - User Credentials.csv";
-    
+
     //Getter
    public String getEmployeeDetailsFilePath() {
         return CSV_EMPLOYEE_DETAILS;
@@ -34,15 +34,62 @@ public class CSVDatabaseProcessor {
     // Base directory for CSV files
     private String csvDirectory = "src/CSV/";
 
-    // Formatters for parsing dates and times from CSV
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("MM/dd/yyyy");
-    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("H:mm");
+    // Set -Dcsv.attendance.verify=true to check the memory-mapped attendance reader against the line reader on every load
+    private boolean verifyAttendanceScan = Boolean.getBoolean("csv.attendance.verify");
+
+    // Parsed datasets are cached in binary snapshots in the data directory (see CsvDataDirectory);
+    // set -Dcsv.snapshot=false to turn this off
+    private boolean useSnapshots = Boolean.parseBoolean(System.getProperty("csv.snapshot", "true"));
+
+    // Threads used to parse large attendance files; set -Dcsv.ingest.parallelism=N to override
+    private int ingestParallelism = Integer.getInteger("csv.ingest.parallelism", Runtime.getRuntime().availableProcessors());
+
+    // Loaded records of each dataset. A published list is never changed: every load or edit publishes a new
+    // unmodifiable list of unmodifiable rows, so views handed out earlier keep iterating the rows they started with
+    private volatile List<Map<String, String>> employeeRecords = Collections.emptyList();
+    private volatile List<Map<String, String>> leaveRequestRecords = Collections.emptyList();
+    private volatile List<Map<String, String>> userCredentialRecords = Collections.emptyList();
+
+    // Each distinct field value of the loaded datasets is kept once and shared by every row using it
+    private final StringPool stringPool = new StringPool();
+
+    // Sequence number of the newest leave request log entry included in leaveRequestRecords
+    private long leaveLogApplied;
+
+    // Employee file the employee records were last loaded from
+    private String employeeResourcePath = CSV_EMPLOYEE_DETAILS;
+
+    // Employee rows changed in memory but not yet written: indexes into employeeRecords, or the whole file
+    private final Set<Integer> pendingEmployeeRows = new TreeSet<>();
+    private boolean employeeRewritePending;
+
+    // Employee rows as last read from or written to the employee file. A save compares them with the rows in the
+    // file to find the rows other users saved meanwhile
+    private List<Map<String, String>> employeeFileRecords = Collections.emptyList();
+
+    // Typed employee records by Employee ID, decoded once per load, and the same records in file order
+    // Replaced, never changed in place, so pinned dataset versions can share them
+    private Map<String, EmployeeRecord> employeesById = new LinkedHashMap<>();
+    private List<EmployeeRecord> employees = Collections.emptyList();
+
+    // Who reports to whom, by Employee ID, resolved from the "Immediate Supervisor" names once per load
+    private final OrgHierarchyIndex orgHierarchy = new OrgHierarchyIndex();
+
+    // Attendance rows of the months loaded so far, kept in primitive columns rather than one map per row
+    private AttendanceTable attendanceTable = new AttendanceTable();
+
+    // Employee ID -> date-sorted attendance rows, rebuilt whenever attendance rows are loaded
+    private AttendanceIndex attendanceIndex = new AttendanceIndex();
+
+    // The published dataset versions that readers have pinned
+    private final DatasetVersionTracker versions = new DatasetVersionTracker();
 
-    // Lists to store processed records
-    private final List<Map<String, String>> employeeRecords = new ArrayList<>();
-    private final List<Map<String, Object>> attendanceRecords = new ArrayList<>();
-    private final List<Map<String, String>> leaveRequestRecords = new ArrayList<>();
-    private final List<Map<String, String>> userCredentialRecords = new ArrayList<>();
+    // Where each month's attendance rows are in the attendance files, and which months are loaded
+    private AttendanceSegmentCatalog attendanceCatalog;
+    private String attendanceResourcePath;
+
+    // Dataset name -> file stamp it was last loaded from, so unchanged files are not parsed again
+    private final Map<String, LoadedSource> loadedSources = new HashMap<>();
 
     // Maps to store column index mappings for dynamic CSV parsing
     private final Map<String, Integer> employeeColumnIndexMap = new HashMap<>();
@@ -100,12 +147,293 @@ public class CSVDatabaseProcessor {
      * Loads employee data from a specified file path.
      * @param resourcePath
      */
-    public void loadEmployeeCSVData(String resourcePath) {
-        loadCSVData(resourcePath, this::parseEmployeeRecord, this::defineEmployeeColumnMapping, employeeRecords);
+    public synchronized void loadEmployeeCSVData(String resourcePath) {
+        File file = resolveCSVFile(resourcePath);
+        if (file != null && CsvFileWriter.hasPatchJournal(file)) {
+            // Another user is patching the file, or a patch was interrupted: wait for the writer, then finish the
+            // patch if it is still there. Loads take no lock otherwise
+            try {
+                CsvFileLock lock = CsvFileLock.acquire(file);
+                try {
+                    CsvFileWriter.recoverPatches(file);
+                } finally {
+                    lock.close();
+                }
+            } catch (IOException e) {
+                System.err.println("Could not lock " + file.getName() + " - " + e.getMessage());
+            }
+        }
+        if (loadCSVData("employee", resourcePath, () -> loadEmployeeCSVData(resourcePath),
+                this::parseEmployeeRecord, this::defineEmployeeColumnMapping, records -> employeeRecords = records)) {
+            if (employeeRewritePending || !pendingEmployeeRows.isEmpty()) {
+                System.err.println("Employee file changed on disk; discarding unsaved employee changes");
+            }
+            employeeResourcePath = resourcePath;
+            employeeRewritePending = false;
+            pendingEmployeeRows.clear();
+            employeeFileRecords = employeeRecords;
+            indexEmployeeRecords();
+        }
+    }
+
+    /**
+     * Replaces one employee's row in memory; every screen sees the change right away.
+     * The change reaches the employee file on the next saveEmployeeRecords().
+     * @param employeeId The Employee ID the row has now
+     * @param record The new row, keyed by column name; its Employee ID may differ from employeeId
+     * @return true if the employee was found
+     */
+    public synchronized boolean updateEmployeeRecord(String employeeId, Map<String, String> record) {
+        for (int i = 0; i < employeeRecords.size(); i++) {
+            if (employeeId.equals(employeeRecords.get(i).get("Employee ID"))) {
+                EmployeeRecord previous = employeesById.get(employeeId);
+                List<Map<String, String>> updated = new ArrayList<>(employeeRecords);
+                updated.set(i, internRecord(record, stringPool.startSession()));
+                employeeRecords = Collections.unmodifiableList(updated);
+                pendingEmployeeRows.add(i);
+                EmployeeRecord current = decodeEmployeeRecord(i, previous);
+                updateOrgHierarchy(previous, current);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Replaces every employee row in memory, for example after employees were added or removed.
+     * The rows reach the employee file on the next saveEmployeeRecords().
+     * @param records The new rows, keyed by column name, in file order
+     */
+    public synchronized void setEmployeeRecords(List<Map<String, String>> records) {
+        StringPool.Session session = stringPool.startSession();
+        List<Map<String, String>> shared = new ArrayList<>(records.size());
+        for (Map<String, String> record : records) {
+            shared.add(internRecord(record, session));
+        }
+        employeeRecords = Collections.unmodifiableList(shared);
+        employeeRewritePending = true;
+        pendingEmployeeRows.clear();
+        indexEmployeeRecords();
+    }
+
+    /**
+     * Writes the changes made with updateEmployeeRecord and setEmployeeRecords to the employee file.
+     * Other users may save the same file at the same time, so the save takes the file's write lock, reads the file
+     * and compares each row's version with the row as this processor last read it. Rows other users changed
+     * meanwhile are merged with the changes made here instead of being overwritten; a row changed on both sides
+     * fails the save, so no change is ever lost.
+     * Changed rows whose new text is exactly as long as the old are patched in place. Otherwise the whole file
+     * is written to a temporary file, synced and renamed over the old one, so a crash never leaves a half-written
+     * file. The records in memory are then current, so the file is not parsed again.
+     * @throws CsvWriteConflictException If a changed row was also changed by another user; nothing is written
+     * @throws IOException If the file could not be written; the changes stay pending
+     */
+    public synchronized void saveEmployeeRecords() throws IOException {
+        if (!employeeRewritePending && pendingEmployeeRows.isEmpty()) {
+            return;
+        }
+        File file = new File(csvDirectory + employeeResourcePath);
+        CsvFileLock lock = CsvFileLock.acquire(file);
+        try {
+            CsvFileWriter.RecordSpans spans = null;
+            if (file.isFile()) {
+                CsvFileWriter.recoverPatches(file);
+                byte[] content = Files.readAllBytes(file.toPath());
+                spans = CsvFileWriter.scanRecordSpans(content);
+                List<Map<String, String>> fileRecords = parseEmployeeRows(content, spans);
+                if (!sameRowVersions(fileRecords, employeeFileRecords)) {
+                    mergeEmployeeRecords(fileRecords);
+                }
+            }
+
+            int changedRows = employeeRewritePending ? employeeRecords.size() : pendingEmployeeRows.size();
+            if (!employeeRewritePending && patchEmployeeRows(file, spans)) {
+                System.out.println("Patched " + changedRows + " rows of " + employeeResourcePath + " in place");
+            } else {
+                List<String> rows = new ArrayList<>(employeeRecords.size());
+                for (Map<String, String> record : employeeRecords) {
+                    rows.add(formatEmployeeRecord(record));
+                }
+                CsvFileWriter.writeAtomically(file, String.join(",", Dataset.EMPLOYEE.columns()), rows);
+                System.out.println("Saved " + rows.size() + " rows to " + employeeResourcePath);
+            }
+            employeeRewritePending = false;
+            pendingEmployeeRows.clear();
+            employeeFileRecords = employeeRecords;
+
+            // The file now holds exactly the rows in memory: stamp it and refresh its snapshot instead of parsing it.
+            // The stamp is taken before the lock is released, so it cannot pick up another user's save
+            String resourcePath = employeeResourcePath;
+            LoadedSource source = new LoadedSource(resourcePath, file, () -> loadEmployeeCSVData(resourcePath));
+            loadedSources.put("employee", source);
+            if (useSnapshots) {
+                DatasetSnapshot.saveRecordsInBackground(file, source.length, source.lastModified, employeeRecords);
+            }
+        } finally {
+            lock.close();
+        }
+    }
+
+    /**
+     * Patches the pending employee rows in place if every changed row keeps its length in bytes.
+     * @param spans Where each row is in the file, or null if there is no file
+     * @return true if the rows were patched, false if the file must be rewritten
+     */
+    private boolean patchEmployeeRows(File file, CsvFileWriter.RecordSpans spans) throws IOException {
+        if (spans == null || spans.size() != employeeRecords.size()) {
+            return false;
+        }
+        List<Long> offsets = new ArrayList<>();
+        List<byte[]> replacements = new ArrayList<>();
+        for (int row : pendingEmployeeRows) {
+            byte[] replacement = formatEmployeeRecord(employeeRecords.get(row)).getBytes(CsvFileWriter.CHARSET);
+            if (replacement.length != spans.lengths[row]) {
+                return false;
+            }
+            offsets.add(spans.offsets[row]);
+            replacements.add(replacement);
+        }
+        CsvFileWriter.patchRecords(file, offsets, replacements);
+        return true;
+    }
+
+    /**
+     * Parses the employee rows of the employee file's content.
+     * @param spans Where each row is in the content
+     */
+    private List<Map<String, String>> parseEmployeeRows(byte[] content, CsvFileWriter.RecordSpans spans) throws IOException {
+        List<Map<String, String>> records = new ArrayList<>(spans.size());
+        for (int i = 0; i < spans.size(); i++) {
+            String text = new String(content, (int) spans.offsets[i], spans.lengths[i], CsvFileWriter.CHARSET);
+            CsvTokenizer record = new CsvTokenizer(new StringReader(text));
+            if (record.next()) {
+                records.add(parseEmployeeRecord(record));
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Merges the rows other users saved since this processor last read the employee file into the records in
+     * memory, matching rows by Employee ID. A row only they changed takes their version and a row only changed
+     * here keeps this version, as do deletions on either side; rows they added are kept and rows added here are
+     * appended. The merged records are published and the whole file is rewritten.
+     * A row changed on both sides is a conflict even if both made the same change: the change made here may have
+     * been computed from the old row, like a counter incremented twice.
+     * @param fileRecords The rows now in the file
+     * @throws CsvWriteConflictException If a row was changed on both sides; nothing is merged then
+     */
+    private void mergeEmployeeRecords(List<Map<String, String>> fileRecords) throws CsvWriteConflictException {
+        Map<String, Long> base = rowVersionsById(employeeFileRecords);
+        Map<String, Map<String, String>> mine = new LinkedHashMap<>();
+        for (Map<String, String> record : employeeRecords) {
+            mine.put(record.get("Employee ID"), record);
+        }
+
+        List<String> conflicts = new ArrayList<>();
+        StringPool.Session session = stringPool.startSession();
+        List<Map<String, String>> merged = new ArrayList<>(Math.max(fileRecords.size(), mine.size()));
+        for (Map<String, String> their : fileRecords) {
+            String id = their.get("Employee ID");
+            Long baseVersion = base.get(id);
+            Map<String, String> my = mine.remove(id);
+            long theirVersion = rowVersion(their);
+            boolean theyChanged = baseVersion == null || baseVersion != theirVersion;
+            boolean iChanged = my == null ? baseVersion != null : baseVersion == null || baseVersion != rowVersion(my);
+            if (!iChanged) {
+                merged.add(internRecord(their, session));
+            } else if (!theyChanged) {
+                if (my != null) {
+                    merged.add(my);
+                }
+            } else {
+                conflicts.add(id);
+            }
+        }
+        for (Map.Entry<String, Map<String, String>> entry : mine.entrySet()) {
+            Long baseVersion = base.get(entry.getKey());
+            if (baseVersion == null) {
+                merged.add(entry.getValue());         // added here
+            } else if (baseVersion != rowVersion(entry.getValue())) {
+                conflicts.add(entry.getKey());        // changed here, deleted by them
+            }
+        }
+        if (!conflicts.isEmpty()) {
+            // Make the next load parse the file again even if its stamp happens to look unchanged
+            loadedSources.remove("employee");
+            throw new CsvWriteConflictException(employeeResourcePath, conflicts);
+        }
+
+        System.out.println("Merging changes other users saved to " + employeeResourcePath);
+        employeeRecords = Collections.unmodifiableList(merged);
+        employeeRewritePending = true;
+        pendingEmployeeRows.clear();
+        indexEmployeeRecords();
+    }
+
+    /**
+     * Whether two lists hold the same employee rows in the same order, by their row versions.
+     */
+    private static boolean sameRowVersions(List<Map<String, String>> a, List<Map<String, String>> b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            if (rowVersion(a.get(i)) != rowVersion(b.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Map<String, Long> rowVersionsById(List<Map<String, String>> records) {
+        Map<String, Long> versions = new HashMap<>(records.size() * 2);
+        for (Map<String, String> record : records) {
+            versions.put(record.get("Employee ID"), rowVersion(record));
+        }
+        return versions;
+    }
+
+    /**
+     * Version stamp of an employee row: a 64-bit FNV-1a hash of the row as it is written to the file, so any
+     * change to any field gives a different stamp.
+     */
+    private static long rowVersion(Map<String, String> record) {
+        String row = formatEmployeeRecord(record);
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < row.length(); i++) {
+            hash ^= row.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Formats an employee row the way the employee file is written: addresses and supervisors are always
+     * quoted, and any other field is quoted when it contains a comma, such as amounts like "90,000".
+     */
+    private static String formatEmployeeRecord(Map<String, String> record) {
+        String[] columns = Dataset.EMPLOYEE.columns();
+        StringBuilder row = new StringBuilder();
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                row.append(',');
+            }
+            String column = columns[i];
+            String value = record.getOrDefault(column, "");
+            if (column.equals("Address") || column.equals("Immediate Supervisor")) {
+                row.append(CsvFormat.quoteField(value));
+            } else {
+                row.append(CsvFormat.formatField(value));
+            }
+        }
+        return row.toString();
     }
 
     /**
      * Loads attendance data from the default file path.
+     * Only the catalog of monthly segments is brought up to date; a month's rows are parsed when a query first
+     * needs them. If the file has only been appended to since the last load, only the new rows are catalogued.
      */
     public void loadAttendanceData() {
         loadAttendanceCSVData(CSV_ATTENDANCE_RECORDS);
@@ -113,56 +441,440 @@ public class CSVDatabaseProcessor {
 
     /**
      * Loads attendance data from a specified file path.
+     * For a yearly file such as "Attendance Record 2024.csv", the other years' files next to it are catalogued
+     * too. Resources that are not files on disk are read in full with the line reader.
      * @param resourcePath
      */
-    public void loadAttendanceCSVData(String resourcePath) {
-        loadCSVData(resourcePath, this::parseAttendanceRecord, this::defineAttendanceColumnMapping, attendanceRecords);
+    public synchronized void loadAttendanceCSVData(String resourcePath) {
+        File file = resolveCSVFile(resourcePath);
+        CSVDatasetRegistry registry = CSVDatasetRegistry.getInstance();
+        long startTime = System.nanoTime();
+
+        if (file != null) {
+            if (attendanceCatalog == null || !resourcePath.equals(attendanceResourcePath) || verifyAttendanceScan) {
+                attendanceCatalog = new AttendanceSegmentCatalog();
+            }
+            try {
+                defineAttendanceColumnMapping();
+                List<File> files = attendanceFiles(file);
+                attendanceResourcePath = resourcePath;
+                if (!attendanceCatalog.refresh(files, useSnapshots && !verifyAttendanceScan, ingestParallelism)) {
+                    registry.recordHit(resourcePath);
+                    System.out.println("Attendance data is up to date: " + resourcePath);
+                    return;
+                }
+                System.out.println("Catalogued " + attendanceCatalog.getRowCount() + " attendance records in "
+                        + attendanceCatalog.getSegmentCount() + " monthly segments from " + files.size() + " file(s)");
+                registry.recordLoad(resourcePath, attendanceCatalog.getRowCount(), System.nanoTime() - startTime);
+                showLoadedAttendance();
+                if (verifyAttendanceScan) {
+                    for (File attendanceFile : files) {
+                        compareAttendanceLoadPaths(attendanceFile.getName());
+                    }
+                }
+                return;
+            } catch (IOException e) {
+                System.err.println("Memory-mapped read failed for " + resourcePath + ", using line reader - " + e.getMessage());
+                attendanceCatalog = null;
+            }
+        }
+
+        AttendanceTable table = new AttendanceTable();
+        if (readCSVData(resourcePath, record -> parseAttendanceRecord(record, table), this::defineAttendanceColumnMapping)) {
+            System.out.println("Successfully loaded " + table.size() + " records from " + resourcePath);
+            registry.recordLoad(resourcePath, table.size(), System.nanoTime() - startTime);
+        }
+        attendanceTable = table;
+        attendanceResourcePath = resourcePath;
+        deduplicateAttendanceNames(resourcePath);
+        attendanceIndex = new AttendanceIndex(attendanceTable);
+        versions.changed();
+    }
+
+    /**
+     * Makes sure the attendance rows of every month that overlaps [startDate, endDate] are loaded,
+     * parsing the segments of months not needed before.
+     * @param startDate First date, or null for no lower bound
+     * @param endDate Last date, or null for no upper bound (which includes rows without a valid date)
+     */
+    private void ensureAttendanceLoaded(LocalDate startDate, LocalDate endDate) {
+        if (attendanceCatalog == null) {
+            return;
+        }
+        int fromKey = startDate == null ? Integer.MIN_VALUE : AttendanceSegmentCatalog.monthKey(startDate);
+        int toKey = endDate == null ? AttendanceSegmentCatalog.UNDATED : AttendanceSegmentCatalog.monthKey(endDate);
+        if (fromKey > toKey || !attendanceCatalog.hasUnloaded(fromKey, toKey)) {
+            return;
+        }
+
+        // Byte ranges are only valid for the files as they were catalogued
+        File file = resolveCSVFile(attendanceResourcePath);
+        if (file == null || !attendanceCatalog.isCurrent(attendanceFiles(file))) {
+            loadAttendanceCSVData(attendanceResourcePath);
+            if (attendanceCatalog == null) {
+                return;
+            }
+        }
+        try {
+            attendanceCatalog.load(fromKey, toKey, ingestParallelism);
+        } catch (IOException e) {
+            System.err.println("Could not read attendance from " + attendanceResourcePath + " - " + e.getMessage());
+        }
+        showLoadedAttendance();
+    }
+
+    /**
+     * Makes the catalog's loaded months the attendance rows every query reads.
+     */
+    private void showLoadedAttendance() {
+        AttendanceTable rows = attendanceCatalog.getRows();
+        if (rows != attendanceTable) {
+            attendanceTable = rows;
+            deduplicateAttendanceNames(attendanceResourcePath);
+            attendanceIndex = new AttendanceIndex(attendanceTable);
+            versions.changed();
+        }
     }
 
     /**
-     * Loads leave request data from the default file path.
+     * The attendance files to catalog for a file: every "&lt;prefix&gt;&lt;year&gt;.csv" next to a yearly file
+     * such as "Attendance Record 2024.csv", oldest year first, or else just the file itself.
      */
-    public void loadLeaveRequestData() {
-        loadCSVData(CSV_LEAVE_REQUESTS, this::parseLeaveRequestRecord, this::defineLeaveRequestColumnMapping, leaveRequestRecords);
+    private static List<File> attendanceFiles(File file) {
+        String name = file.getName();
+        File directory = file.getAbsoluteFile().getParentFile();
+        if (!isYearlyFileName(name) || directory == null) {
+            return Collections.singletonList(file);
+        }
+        String prefix = name.substring(0, name.length() - YEARLY_SUFFIX_LENGTH);
+        File[] yearlyFiles = directory.listFiles(candidate -> candidate.isFile()
+                && candidate.getName().startsWith(prefix)
+                && candidate.getName().length() == name.length()
+                && isYearlyFileName(candidate.getName()));
+        if (yearlyFiles == null || yearlyFiles.length == 0) {
+            return Collections.singletonList(file);
+        }
+        Arrays.sort(yearlyFiles, Comparator.comparing(File::getName));
+        return Arrays.asList(yearlyFiles);
+    }
+
+    // Length of "yyyy.csv" at the end of a yearly file name
+    private static final int YEARLY_SUFFIX_LENGTH = 8;
+
+    private static boolean isYearlyFileName(String name) {
+        if (name.length() <= YEARLY_SUFFIX_LENGTH || !name.toLowerCase(Locale.ROOT).endsWith(".csv")) {
+            return false;
+        }
+        for (int i = name.length() - YEARLY_SUFFIX_LENGTH; i < name.length() - 4; i++) {
+            if (name.charAt(i) < '0' || name.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Comparison mode for the memory-mapped attendance reader.
+     * Loads the attendance file through both the memory-mapped scanner and the line reader and checks
+     * that they produce exactly the same rows. The processor's loaded data is not changed.
+     * @param resourcePath The attendance CSV file name
+     * @return true if both paths produced identical rows
+     */
+    public synchronized boolean compareAttendanceLoadPaths(String resourcePath) {
+        File file = resolveCSVFile(resourcePath);
+        if (file == null) {
+            System.err.println("Cannot compare attendance load paths, file not found on disk: " + resourcePath);
+            return false;
+        }
+
+        AttendanceTable mapped = new AttendanceTable();
+        AttendanceTable lineRead = new AttendanceTable();
+        try {
+            defineAttendanceColumnMapping();
+            MappedAttendanceScanner.scanFile(file, mapped, ingestParallelism);
+        } catch (IOException e) {
+            System.err.println("Memory-mapped read failed for " + resourcePath + " - " + e.getMessage());
+            return false;
+        }
+        readCSVData(resourcePath, record -> parseAttendanceRecord(record, lineRead), this::defineAttendanceColumnMapping);
+
+        int mismatch = mapped.firstDifference(lineRead);
+        if (mismatch >= 0) {
+            System.err.println("Attendance load paths differ at row " + mismatch + " of " + resourcePath
+                    + " (mapped " + mapped.size() + " rows, line reader " + lineRead.size() + " rows)");
+            return false;
+        }
+        System.out.println("Attendance load paths match: " + mapped.size() + " rows from " + resourcePath);
+        return true;
+    }
+
+    /**
+     * Sets how many threads are used to parse large attendance files.
+     * Files smaller than a few megabytes are always parsed on the calling thread.
+     * @param parallelism Number of parsing threads (1 disables parallel loading)
+     */
+    public void setIngestParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1: " + parallelism);
+        }
+        this.ingestParallelism = parallelism;
+    }
+
+    /**
+     * Turns the binary snapshot cache on or off for later loads.
+     * @param enabled true to load from and save snapshots in the data directory
+     */
+    public synchronized void setUseSnapshots(boolean enabled) {
+        this.useSnapshots = enabled;
+    }
+
+    /**
+     * Turns the attendance comparison mode on or off for later loads.
+     * @param verify true to compare the memory-mapped reader against the line reader on every load
+     */
+    public void setVerifyAttendanceScan(boolean verify) {
+        this.verifyAttendanceScan = verify;
+    }
+
+    /**
+     * Loads leave request data from the default file path, followed by the submitted requests
+     * that are still in the leave request log and not yet merged into the file.
+     */
+    public synchronized void loadLeaveRequestData() {
+        LeaveRequestLog log = openLeaveRequestLog();
+        if (log == null) {
+            loadCSVData("leave", CSV_LEAVE_REQUESTS, this::loadLeaveRequestData, this::parseLeaveRequestRecord, this::defineLeaveRequestColumnMapping, records -> leaveRequestRecords = records);
+            return;
+        }
+        // Hold the log while reading the file, so a merge cannot happen between reading the file and the log
+        synchronized (log) {
+            if (loadCSVData("leave", CSV_LEAVE_REQUESTS, this::loadLeaveRequestData, this::parseLeaveRequestRecord, this::defineLeaveRequestColumnMapping, records -> leaveRequestRecords = records)) {
+                leaveLogApplied = log.getMergedSequence();
+            }
+            List<Map<String, String>> logged = new ArrayList<>();
+            leaveLogApplied = log.replay(leaveLogApplied, line -> {
+                try {
+                    CsvTokenizer record = new CsvTokenizer(new StringReader(line));
+                    if (record.next()) {
+                        logged.add(internRecord(parseLeaveRequestRecord(record), stringPool.startSession()));
+                    }
+                } catch (IOException e) {
+                    System.err.println("Error reading logged leave request: " + line);
+                }
+            });
+            if (!logged.isEmpty()) {
+                List<Map<String, String>> combined = new ArrayList<>(leaveRequestRecords.size() + logged.size());
+                combined.addAll(leaveRequestRecords);
+                combined.addAll(logged);
+                leaveRequestRecords = Collections.unmodifiableList(combined);
+                versions.changed();
+            }
+        }
+    }
+
+    /**
+     * Saves a new leave request. The request is written to the leave request log and synced to disk before
+     * this returns, and is merged into the leave request CSV file later in the background. Requests submitted
+     * at the same time from several threads are synced together.
+     * @param leaveRequest The request, keyed by leave request column name; missing columns are saved empty
+     * @throws IOException If the request could not be saved
+     */
+    public void submitLeaveRequest(Map<String, String> leaveRequest) throws IOException {
+        LeaveRequestLog log;
+        synchronized (this) {
+            log = openLeaveRequestLog();
+        }
+        if (log == null) {
+            throw new IOException("Leave request file not found: " + csvDirectory + CSV_LEAVE_REQUESTS);
+        }
+        String[] columns = Dataset.LEAVE_REQUEST.columns();
+        String[] fields = new String[columns.length];
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = leaveRequest.getOrDefault(columns[i], "");
+        }
+        // Not synchronized on this processor while waiting, so concurrent submissions can share a sync
+        log.append(CsvFormat.formatRecord(fields));
+        loadLeaveRequestData();
+    }
+
+    /**
+     * Returns the log of the leave request file, or null if the file is not on disk or its log is unreadable.
+     */
+    private LeaveRequestLog openLeaveRequestLog() {
+        File file = resolveCSVFile(CSV_LEAVE_REQUESTS);
+        if (file == null) {
+            return null;
+        }
+        try {
+            return LeaveRequestLog.forFile(file);
+        } catch (IOException e) {
+            System.err.println("Error opening leave request log: " + e.getMessage());
+            return null;
+        }
     }
 
     /**
      * Loads user credential data from the default file path.
      */
-    public void loadUserCredentialData() {
-        loadCSVData(CSV_USER_CREDENTIALS, this::parseUserCredentialRecord, this::defineUserCredentialColumnMapping, userCredentialRecords);
+    public synchronized void loadUserCredentialData() {
+        loadCSVData("credential", CSV_USER_CREDENTIALS, this::loadUserCredentialData, this::parseUserCredentialRecord, this::defineUserCredentialColumnMapping, records -> userCredentialRecords = records);
+    }
+
+    /**
+     * Reloads every dataset that has been loaded before and whose file changed on disk since.
+     * Datasets that were never loaded are left alone.
+     */
+    public synchronized void reloadChangedData() {
+        for (LoadedSource source : new ArrayList<>(loadedSources.values())) {
+            if (!source.isCurrent(resolveCSVFile(source.resourcePath))) {
+                source.reload.run();
+            }
+        }
+        if (attendanceCatalog != null) {
+            File file = resolveCSVFile(attendanceResourcePath);
+            if (file == null || !attendanceCatalog.isCurrent(attendanceFiles(file))) {
+                loadAttendanceCSVData(attendanceResourcePath);
+            }
+        }
+    }
+
+    /**
+     * Reads every loaded dataset again in full, whether or not its file stamp changed.
+     * Call this after writing a CSV file, since a rewrite within the file system's timestamp
+     * resolution that keeps the same length cannot be detected from the file stamp.
+     */
+    public synchronized void invalidate() {
+        List<LoadedSource> sources = new ArrayList<>(loadedSources.values());
+        loadedSources.clear();
+        for (LoadedSource source : sources) {
+            source.reload.run();
+        }
+        if (attendanceResourcePath != null) {
+            attendanceCatalog = null;
+            loadAttendanceCSVData(attendanceResourcePath);
+        }
+    }
+
+    /**
+     * Pins the current version of the loaded datasets, with every attendance month loaded, for reading
+     * without locks while other screens edit or reload data. Close it when done.
+     * @return The pinned version
+     */
+    public DatasetVersion pinVersion() {
+        return pinVersion(null, null);
+    }
+
+    /**
+     * Pins the current version of the loaded datasets after loading the attendance of a payroll month.
+     * @param payrollMonth The month whose attendance the reader needs
+     * @return The pinned version
+     */
+    public DatasetVersion pinVersion(YearMonth payrollMonth) {
+        return pinVersion(payrollMonth.atDay(1), payrollMonth.atEndOfMonth());
     }
 
-     /**
-     * Groups employees by their immediate supervisor using supervisor names.
+    /**
+     * Pins the current version of the loaded datasets after loading the attendance months that overlap a
+     * date range. Attendance of other months is in the version only if it was already loaded.
+     * @param startDate First date the reader needs attendance for, or null for no lower bound
+     * @param endDate Last date the reader needs attendance for, or null for no upper bound
+     * @return The pinned version
+     */
+    public synchronized DatasetVersion pinVersion(LocalDate startDate, LocalDate endDate) {
+        ensureAttendanceLoaded(startDate, endDate);
+        return versions.pin(number -> new DatasetVersion.Contents(number, versions, employeeRecords,
+                employeesById, employees, leaveRequestRecords, userCredentialRecords, attendanceIndex));
+    }
+
+    /**
+     * Number of dataset versions that readers still have pinned, the current one included.
+     * @return The pinned version count
+     */
+    public int getPinnedVersionCount() {
+        return versions.getPinnedCount();
+    }
+
+    /**
+     * Groups employees by their immediate supervisor, as resolved by the reporting-line index.
      *
      * @return A map where the key is the supervisor and the value is the list of subordinates.
      */
-    public Map<Employee, List<Employee>> groupEmployeesBySupervisor() {
+    public synchronized Map<Employee, List<Employee>> groupEmployeesBySupervisor() {
         Map<Employee, List<Employee>> hierarchy = new HashMap<>();
-        Map<String, Employee> employeeNameMap = new HashMap<>(); // Map to store employees by their full name
+        Map<String, Employee> employees = new LinkedHashMap<>(); // Employee ID -> Employee
 
-        // First, create a map of Employee full name to Employee object
-        for (Map<String, String> record : employeeRecords) {
-            Employee employee = Employee.createEmployeeFromCSVRecord(record);
-            String fullName = employee.getFullName();
-            employeeNameMap.put(fullName, employee);
+        for (EmployeeRecord record : employeesById.values()) {
+            employees.put(record.getEmployeeId(), Employee.createEmployeeFromRecord(record));
         }
 
         // Assign supervisors and build the hierarchy
-        for (Employee employee : employeeNameMap.values()) {
-            String supervisorName = employee.getSupervisorName();
-            if (supervisorName != null && !supervisorName.isEmpty() && !supervisorName.equals("N/A")) {
-                Employee supervisor = employeeNameMap.get(supervisorName);
-                if (supervisor != null) {
-                    employee.setSupervisor(supervisor);
-                    hierarchy.computeIfAbsent(supervisor, k -> new ArrayList<>()).add(employee);
-                }
+        for (Map.Entry<String, Employee> entry : employees.entrySet()) {
+            String supervisorId = orgHierarchy.getSupervisorId(entry.getKey());
+            if (supervisorId != null) {
+                Employee supervisor = employees.get(supervisorId);
+                entry.getValue().setSupervisor(supervisor);
+                hierarchy.computeIfAbsent(supervisor, k -> new ArrayList<>()).add(entry.getValue());
             }
         }
 
         return hierarchy;
     }
+
+    /**
+     * Returns the Employee ID of an employee's immediate supervisor.
+     * @param employeeId The employee
+     * @return The supervisor's ID, or null if the employee has no supervisor that matches an employee
+     */
+    public synchronized String getSupervisorId(String employeeId) {
+        return orgHierarchy.getSupervisorId(employeeId);
+    }
+
+    /**
+     * Returns the Employee IDs of the employees whose immediate supervisor is the given employee.
+     * @param supervisorId The supervisor
+     * @return The IDs of the direct reports; empty if there are none
+     */
+    public synchronized List<String> getDirectReportIds(String supervisorId) {
+        return orgHierarchy.getDirectReports(supervisorId);
+    }
+
+    /**
+     * Returns the Employee IDs of everyone who reports to the given employee, directly or through other supervisors.
+     * @param supervisorId The supervisor
+     * @return The IDs of the whole team, each supervisor before their own reports; empty if there are none
+     */
+    public synchronized List<String> getAllReportIds(String supervisorId) {
+        return orgHierarchy.getAllReports(supervisorId);
+    }
+
+    /**
+     * Returns the number of employees who report to the given employee, directly or indirectly.
+     * @param supervisorId The supervisor
+     * @return The team size, not counting the supervisor
+     */
+    public synchronized int countAllReports(String supervisorId) {
+        return orgHierarchy.countAllReports(supervisorId);
+    }
+
+    /**
+     * Checks whether an employee is in a supervisor's team, directly or through other supervisors.
+     * @param supervisorId The supervisor
+     * @param employeeId The employee
+     * @return true if the employee reports to the supervisor; false for the supervisor themselves
+     */
+    public synchronized boolean isInTeamOf(String supervisorId, String employeeId) {
+        return orgHierarchy.isInTeam(supervisorId, employeeId);
+    }
+
+    /**
+     * Checks whether an employee's immediate supervisor is the given employee.
+     * @param supervisorId The supervisor
+     * @param employeeId The employee
+     * @return true if the employee reports to the supervisor directly; false for the supervisor themselves
+     */
+    public synchronized boolean isDirectReportOf(String supervisorId, String employeeId) {
+        return supervisorId.equals(orgHierarchy.getSupervisorId(employeeId));
+    }
         
     /**
      * Helper class to accept pay period dates ; this retrieves attendance records within a date range
@@ -172,54 +884,246 @@ public class CSVDatabaseProcessor {
      * @param endDate
      * @return 
      */    
-    public List<Map<String, Object>> getAttendanceRecordsByEmployeeIdAndDateRange(String employeeId, LocalDate startDate, LocalDate endDate) {
-        List<Map<String, Object>> filteredRecords = new ArrayList<>();
-        for (Map<String, Object> record : attendanceRecords) {
-            if (employeeId.equals(record.get("Employee ID"))) {//empl ID used here as it's the common key between Attendance and Employee Details CSV
-                LocalDate recordDate = (LocalDate) record.get("Date");
-                if (recordDate != null && !recordDate.isBefore(startDate) && !recordDate.isAfter(endDate)) {
-                    filteredRecords.add(record);
+    public synchronized List<Map<String, Object>> getAttendanceRecordsByEmployeeIdAndDateRange(String employeeId, LocalDate startDate, LocalDate endDate) {
+        ensureAttendanceLoaded(startDate, endDate);
+        //empl ID used here as it's the common key between Attendance and Employee Details CSV
+        return toRecordMaps(attendanceIndex.cursor(employeeId, startDate, endDate));
+    }
+
+    /**
+     * Generic method for reading and processing CSV files into a list of records.
+     * The file is only parsed again if it is a different file, or its size or modification time changed,
+     * since the records were last loaded for this dataset. A valid binary snapshot is used instead of parsing
+     * when there is one; otherwise a new snapshot is written in the background after parsing.
+     *
+     * @param reload Loads the dataset again through its public load method when its file changes
+     * @return true if the records were replaced, false if the loaded records were already current
+     */
+    private boolean loadCSVData(String dataset, String resourcePath, Runnable reload,
+                                CSVRecordParser<Map<String, String>> recordParser,
+                                ColumnMappingDefinition columnMappingDefinition,
+                                Consumer<List<Map<String, String>>> publisher) {
+        CSVDatasetRegistry registry = CSVDatasetRegistry.getInstance();
+        File file = resolveCSVFile(resourcePath);
+        LoadedSource previous = loadedSources.get(dataset);
+        if (previous != null && previous.resourcePath.equals(resourcePath) && previous.isCurrent(file)) {
+            registry.recordHit(resourcePath);
+            return false;
+        }
+        long startTime = System.nanoTime();
+
+        // Stamp the file before reading it, so a change made during the read is picked up next time
+        LoadedSource source = file == null ? null : new LoadedSource(resourcePath, file, reload);
+
+        // Clear any existing records to prevent duplication
+        publisher.accept(Collections.emptyList());
+        loadedSources.remove(dataset);
+        versions.changed();
+
+        if (source != null && useSnapshots) {
+            List<Map<String, String>> snapshot = DatasetSnapshot.readRecords(file);
+            if (snapshot != null) {
+                columnMappingDefinition.defineColumnMapping();
+                System.out.println("Loaded " + snapshot.size() + " records from snapshot of " + resourcePath);
+                publisher.accept(deduplicateRecords(resourcePath, snapshot));
+                registry.recordLoad(resourcePath, snapshot.size(), System.nanoTime() - startTime);
+                loadedSources.put(dataset, source);
+                return true;
+            }
+        }
+
+        List<Map<String, String>> recordList = new ArrayList<>();
+        boolean loaded = readCSVData(resourcePath, csvRecord -> {
+            Map<String, String> record = recordParser.parseRecord(csvRecord);
+            if (record != null) {
+                recordList.add(record);
+            }
+        }, columnMappingDefinition);
+
+        if (loaded) {
+            System.out.println("Successfully loaded " + recordList.size() + " records from " + resourcePath);
+            List<Map<String, String>> records = deduplicateRecords(resourcePath, recordList);
+            publisher.accept(records);
+            registry.recordLoad(resourcePath, recordList.size(), System.nanoTime() - startTime);
+            // Resources read from the classpath have no file stamp and are simply read again next time
+            if (source != null) {
+                loadedSources.put(dataset, source);
+                if (useSnapshots) {
+                    DatasetSnapshot.saveRecordsInBackground(file, source.length, source.lastModified, records);
                 }
             }
         }
-        return filteredRecords;
+        return true;
     }
 
     /**
-     * Generic method for reading and processing CSV files.
+     * Replaces the values (and column names) of loaded rows with their shared instances and reports the
+     * memory this saves compared with every row holding its own copies.
+     * @return The rows to publish: an unmodifiable list of unmodifiable rows
+     */
+    private List<Map<String, String>> deduplicateRecords(String resourcePath, List<Map<String, String>> recordList) {
+        StringPool.Session session = stringPool.startSession();
+        List<Map<String, String>> shared = new ArrayList<>(recordList.size());
+        for (Map<String, String> record : recordList) {
+            shared.add(internRecord(record, session));
+        }
+        reportDeduplication(resourcePath, session);
+        return Collections.unmodifiableList(shared);
+    }
+
+    /**
+     * Copies a row with its column names and values replaced by their shared instances.
+     * The copy is unmodifiable, since loaded rows are handed to every screen through dataset views.
+     */
+    private static Map<String, String> internRecord(Map<String, String> record, StringPool.Session session) {
+        Map<String, String> shared = new HashMap<>(Math.max(16, record.size() * 4 / 3 + 1));
+        for (Map.Entry<String, String> field : record.entrySet()) {
+            shared.put(session.intern(field.getKey()), session.intern(field.getValue()));
+        }
+        return Collections.unmodifiableMap(shared);
+    }
+
+    /**
+     * Shares the attendance table's names with the other datasets and reports the memory saved by
+     * storing each name once instead of on every row.
+     */
+    private void deduplicateAttendanceNames(String resourcePath) {
+        StringPool.Session session = stringPool.startSession();
+        attendanceTable.internNames(session);
+        reportDeduplication(resourcePath, session);
+    }
+
+    private void reportDeduplication(String resourcePath, StringPool.Session session) {
+        System.out.println(String.format("Shared %d of %d values in %s, saving about %.1f KB",
+                session.getSharedCount(), session.getFieldCount(), resourcePath, session.getSavedBytes() / 1024.0));
+        CSVDatasetRegistry.getInstance().recordDeduplication(resourcePath, session.getSavedBytes());
+    }
+
+    /**
+     * Rebuilds the typed employee records and the reporting lines from the loaded employee rows.
+     * Rows with a missing or numeric Position get an inferred position, as getEmployeeRecordsByEmployeeId does.
+     */
+    private void indexEmployeeRecords() {
+        decodeEmployeeRecords();
+        orgHierarchy.rebuild(employeesById.values());
+    }
+
+    private void decodeEmployeeRecords() {
+        Map<String, EmployeeRecord> decoded = new LinkedHashMap<>();
+        for (Map<String, String> record : employeeRecords) {
+            decoded.putIfAbsent(record.getOrDefault("Employee ID", ""), toEmployeeRecord(record));
+        }
+        employeesById = decoded;
+        employees = Collections.unmodifiableList(new ArrayList<>(decoded.values()));
+        versions.changed();
+    }
+
+    /**
+     * Decodes one changed employee row and puts it in place of the record it replaces, without decoding the
+     * other rows again. Falls back to decoding every row when Employee IDs are not one per row, since then the
+     * row's place among the typed records is not its row index.
+     * @param row Index of the changed row in employeeRecords
+     * @param previous The record the row had before the change, or null
+     * @return The row's new record
+     */
+    private EmployeeRecord decodeEmployeeRecord(int row, EmployeeRecord previous) {
+        EmployeeRecord current = toEmployeeRecord(employeeRecords.get(row));
+        String id = current.getEmployeeId();
+        boolean sameId = previous != null && previous.getEmployeeId().equals(id);
+        if (previous == null || employees.size() != employeeRecords.size() || employees.get(row) != previous
+                || (!sameId && employeesById.containsKey(id))) {
+            decodeEmployeeRecords();
+            return employeesById.get(id);
+        }
+        List<EmployeeRecord> updated = new ArrayList<>(employees);
+        updated.set(row, current);
+        Map<String, EmployeeRecord> byId;
+        if (sameId) {
+            byId = new LinkedHashMap<>(employeesById);
+            byId.put(id, current); // keeps the employee's place in file order
+        } else {
+            byId = new LinkedHashMap<>();
+            for (EmployeeRecord record : updated) {
+                byId.put(record.getEmployeeId(), record);
+            }
+        }
+        employeesById = byId;
+        employees = Collections.unmodifiableList(updated);
+        versions.changed();
+        return current;
+    }
+
+    /**
+     * Decodes an employee row. Rows with a missing or numeric Position get an inferred position.
+     */
+    private EmployeeRecord toEmployeeRecord(Map<String, String> record) {
+        String position = record.get("Position");
+        if (position == null || position.isEmpty() || isNumeric(position)) {
+            position = inferPositionFromEmployeeData(record);
+        }
+        return new EmployeeRecord(record, position);
+    }
+
+    /**
+     * Brings the reporting lines up to date after one employee row changed. When only the supervisor changed,
+     * the employee's team is moved under the new supervisor. Any other change can affect how names resolve,
+     * and a new supervisor from within the employee's own team makes a cycle, so then the index is rebuilt.
+     */
+    private void updateOrgHierarchy(EmployeeRecord previous, EmployeeRecord current) {
+        boolean onlySupervisorChanged = previous != null && current != null
+                && previous.getEmployeeId().equals(current.getEmployeeId())
+                && previous.getLastName().equals(current.getLastName())
+                && previous.getFirstName().equals(current.getFirstName());
+        if (!onlySupervisorChanged || !orgHierarchy.setSupervisor(current.getEmployeeId(), current.getImmediateSupervisor())) {
+            orgHierarchy.rebuild(employeesById.values());
+        }
+    }
+
+    /**
+     * Reads a CSV file and hands every data record (header and blank lines skipped) to the record handler.
      * Now with improved file loading that tries multiple methods.
+     *
+     * @return true if the file was found and read
      */
-    private <T> void loadCSVData(String resourcePath, CSVRecordParser<T> recordParser,
-                                 ColumnMappingDefinition columnMappingDefinition, List<T> recordList) {
-        
-        // Clear any existing records to prevent duplication
-        recordList.clear();
-        
+    private boolean readCSVData(String resourcePath, CSVRecordHandler recordHandler,
+                                ColumnMappingDefinition columnMappingDefinition) {
         // First try to load from classpath resources
         try (InputStream inputStream = getInputStreamForResource(resourcePath)) {
             if (inputStream == null) {
                 System.err.println("Failed to load resource: " + resourcePath);
-                return;
+                return false;
             }
             
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream))) {
+            try (Reader reader = new InputStreamReader(inputStream)) {
                 // Define the mapping between column names and their indexes
                 columnMappingDefinition.defineColumnMapping();
 
-                // Read each line, parse it, and add to the records list
-                reader.lines().skip(1)  // Skip header line
-                        .map(recordParser::parseRecord)
-                        .filter(Objects::nonNull)
-                        .forEach(recordList::add);
-
-                System.out.println("Successfully loaded " + recordList.size() + " records from " + resourcePath);
+                // Read each record and hand it to the handler; quoted fields may span lines
+                CsvTokenizer tokenizer = new CsvTokenizer(reader);
+                if (tokenizer.next()) { // Skip header record
+                    while (tokenizer.next()) {
+                        if (!tokenizer.isBlank()) {
+                            recordHandler.handleRecord(tokenizer);
+                        }
+                    }
+                }
+                return true;
             }
         } catch (IOException e) {
             System.err.println("Error reading CSV file: " + resourcePath + " - " + e.getMessage());
             e.printStackTrace();
+            return false;
         }
     }
     
+    /**
+     * Returns the CSV file in the CSV directory if it exists on disk, otherwise null.
+     */
+    private File resolveCSVFile(String resourcePath) {
+        File file = new File(csvDirectory + resourcePath);
+        return file.isFile() ? file : null;
+    }
+
     /**
      * Tries multiple methods to get an input stream for a resource.
      * This helps handle different project structures and deployment scenarios.
@@ -306,41 +1210,28 @@ public class CSVDatabaseProcessor {
      * Defines the columns in the Employee Details CSV
      */
     private void defineEmployeeColumnMapping() {
-        String[] columnNames = {
-                "Employee ID", "Last Name", "First Name", "Birthday", "Address",
-                "Phone Number", "SSS #", "Philhealth #", "TIN #", "Pag-ibig #",
-                "Status", "Position", "Immediate Supervisor",
-                "Basic Salary", "Rice Subsidy", "Phone Allowance", "Clothing Allowance",
-                "Gross Semi-monthly Rate", "Hourly Rate"
-        };
-        createColumnIndexMap(columnNames, employeeColumnIndexMap);
+        createColumnIndexMap(Dataset.EMPLOYEE.columns(), employeeColumnIndexMap);
     }
 
     /**
      * Defines the column mapping for attendance data.
      */
     private void defineAttendanceColumnMapping() {
-        String[] columnNames = {"Employee ID", "Last Name", "First Name", "Date", "Log In", "Log Out"};
-        createColumnIndexMap(columnNames, attendanceColumnIndexMap);
+        createColumnIndexMap(Dataset.ATTENDANCE.columns(), attendanceColumnIndexMap);
     }
 
     /**
      * Defines the column mapping for leave request data.
      */
     private void defineLeaveRequestColumnMapping() {
-        String[] columnNames = {
-                "Date of Submission", "Employee ID", "First Name", "Last Name", "Position", "Status", "Immediate Supervisor",
-                "Type of Leave", "Note", "Start", "End", "Leave Status", "Remaining Vacation Leave", "Remaining Sick Leave"
-        };
-        createColumnIndexMap(columnNames, leaveRequestColumnIndexMap);
+        createColumnIndexMap(Dataset.LEAVE_REQUEST.columns(), leaveRequestColumnIndexMap);
     }
 
     /**
      * Defines the column mapping for user credential data.
      */
     private void defineUserCredentialColumnMapping() {
-        String[] columnNames = {"Employee ID", "Last Name", "First Name", "Email", "Password"};
-        createColumnIndexMap(columnNames, userCredentialColumnIndexMap);
+        createColumnIndexMap(Dataset.USER_CREDENTIAL.columns(), userCredentialColumnIndexMap);
     }
 
     /**
@@ -354,24 +1245,32 @@ public class CSVDatabaseProcessor {
     }
 
     /**
-     * Parses a single line of employee data from the CSV file.
+     * Parses a single record of employee data from the CSV file.
      */
-    private Map<String, String> parseEmployeeRecord(String line) {
-        String[] values = parseCSVLine(line, "employee");
+    private Map<String, String> parseEmployeeRecord(CsvTokenizer record) {
         Map<String, String> employeeData = new HashMap<>();
 
+        // Rows written without quotes have bare commas in addresses and amounts, which only the
+        // layout-aware legacy parser can put back together
+        String[] legacyValues = null;
+        if (!record.hadQuotes() && record.fieldCount() > employeeColumnIndexMap.size()) {
+            legacyValues = LegacyCsvLineParser.parseEmployeeLine(record.recordText());
+        }
+        int valueCount = legacyValues != null ? legacyValues.length : record.fieldCount();
+
         // To handle potential parsing issues with column misalignment
-        if (values.length < employeeColumnIndexMap.size()) {
-            System.err.println("WARNING: CSV line has fewer fields than expected: " + values.length + 
-                               " vs " + employeeColumnIndexMap.size() + ": " + line);
+        if (valueCount < employeeColumnIndexMap.size()) {
+            System.err.println("WARNING: CSV line has fewer fields than expected: " + valueCount + 
+                               " vs " + employeeColumnIndexMap.size() + ": " + record.recordText());
         }
 
         for (Map.Entry<String, Integer> entry : employeeColumnIndexMap.entrySet()) {
             String columnName = entry.getKey();
             int index = entry.getValue();
+            String value = legacyValues != null ? legacyValues[index] : record.field(index);
             
-            if (index < values.length) {
-                employeeData.put(columnName, values[index].trim());
+            if (value != null) {
+                employeeData.put(columnName, value.trim());
             } else {
                 System.err.println("ERROR: Missing value for column " + columnName);
                 employeeData.put(columnName, "");
@@ -432,30 +1331,35 @@ public class CSVDatabaseProcessor {
     }
 
     /**
-     * Parses a single line of attendance data from the CSV file.
+     * Parses a single record of attendance data from the CSV file and appends it to an attendance table.
      */
-    private Map<String, Object> parseAttendanceRecord(String line) {
-        String[] values = parseCSVLine(line, "attendance");
-        Map<String, Object> attendanceData = new HashMap<>();
+    private void parseAttendanceRecord(CsvTokenizer record, AttendanceTable table) {
+        String employeeId = attendanceValue(record, "Employee ID");
+        int numericId;
+        try {
+            numericId = Integer.parseInt(employeeId);
+        } catch (NumberFormatException e) {
+            numericId = -1;
+        }
+        if (numericId < 0) {
+            System.err.println("Skipping attendance row with invalid Employee ID: " + record.recordText().trim());
+            return;
+        }
 
-        for (Map.Entry<String, Integer> entry : attendanceColumnIndexMap.entrySet()) {
-            String columnName = entry.getKey();
-            int index = entry.getValue();
-            String value = index < values.length ? values[index].trim() : "";
+        table.add(numericId,
+                decodeDate(attendanceValue(record, "Date")),
+                decodeTime(attendanceValue(record, "Log In")),
+                decodeTime(attendanceValue(record, "Log Out")),
+                attendanceValue(record, "Last Name"),
+                attendanceValue(record, "First Name"));
+    }
 
-            switch (columnName) {
-                case "Date":
-                    attendanceData.put(columnName, parseDate(value));
-                    break;
-                case "Log In":
-                case "Log Out":
-                    attendanceData.put(columnName, parseTime(value));
-                    break;
-                default:
-                    attendanceData.put(columnName, value);
-            }
-        }
-        return attendanceData;
+    /**
+     * Returns the trimmed value of an attendance column, or an empty string if the record is short.
+     */
+    private String attendanceValue(CsvTokenizer record, String columnName) {
+        String value = record.field(attendanceColumnIndexMap.get(columnName));
+        return value != null ? value.trim() : "";
     }
 
     /**
@@ -464,40 +1368,18 @@ public class CSVDatabaseProcessor {
      * @param payrollMonth
      * @return 
      */
-        public double getTotalLateHours(String employeeId, YearMonth payrollMonth) {
-        List<Map<String, Object>> records = getAttendanceRecordsByEmployeeId(employeeId);
-        double totalLateHours = 0.0;
-
-        LocalTime standardStartTime = LocalTime.of(8, 0); // 8:00 AM
-        LocalTime graceEndTime = LocalTime.of(8, 10);     // 8:10 AM (grace period)
-
-        for (Map<String, Object> record : records) {
-            LocalDate date = (LocalDate) record.get("Date");
-
-            // Check if this record is for the specified month
-            if (date != null && date.getYear() == payrollMonth.getYear() && 
-                date.getMonth() == payrollMonth.getMonth()) {
-
-                LocalTime logIn = (LocalTime) record.get("Log In");
-
-                // Calculate late hours if login time is after grace period
-                if (logIn != null && logIn.isAfter(graceEndTime)) {
-                    // Calculate hours late (difference between actual login and standard start time)
-                    double hoursLate = (double) (logIn.toSecondOfDay() - standardStartTime.toSecondOfDay()) / 3600.0;
-                    totalLateHours += hoursLate;
-                }
-            }
+    public double getTotalLateHours(String employeeId, YearMonth payrollMonth) {
+        // Only the rows for the specified month are loaded and visited
+        try (DatasetVersion version = pinVersion(payrollMonth)) {
+            return version.getTotalLateHours(employeeId, payrollMonth);
         }
-
-        return totalLateHours;
     }
     
     /**
-     * Parses a single line of leave request data from the CSV file.
+     * Parses a single record of leave request data from the CSV file.
      */
-    private Map<String, String> parseLeaveRequestRecord(String line) {
+    private Map<String, String> parseLeaveRequestRecord(CsvTokenizer record) {
         try {
-            String[] values = parseCSVLine(line, "leave");
             Map<String, String> leaveRequestData = new HashMap<>();
 
             // Make sure we only access valid indexes
@@ -505,274 +1387,170 @@ public class CSVDatabaseProcessor {
                 String columnName = entry.getKey();
                 int index = entry.getValue();
 
-                // Only access valid array indexes
-                if (index < values.length) {
-                    leaveRequestData.put(columnName, values[index].trim());
+                // Only access fields the record has
+                String value = record.field(index);
+                if (value != null) {
+                    leaveRequestData.put(columnName, value.trim());
                 } else {
                     // Use empty string for missing values
                     leaveRequestData.put(columnName, "");
-                    System.out.println("Warning: Missing value for column " + columnName + " in line: " + line);
+                    System.out.println("Warning: Missing value for column " + columnName + " in line: " + record.recordText());
                 }
             }
             return leaveRequestData;
         } catch (Exception e) {
-            System.err.println("Error parsing leave request CSV line: " + line);
+            System.err.println("Error parsing leave request CSV line: " + record.recordText());
             e.printStackTrace();
             return new HashMap<>();  // Return empty map instead of null to avoid NPEs
         }
     }
 
     /**
-     * Parses a single line of user credential data from the CSV file.
+     * Parses a single record of user credential data from the CSV file.
      */
-    private Map<String, String> parseUserCredentialRecord(String line) {
-        String[] values = parseCSVLine(line, "credential");
+    private Map<String, String> parseUserCredentialRecord(CsvTokenizer record) {
         Map<String, String> userCredentialData = new HashMap<>();
 
         for (Map.Entry<String, Integer> entry : userCredentialColumnIndexMap.entrySet()) {
             String columnName = entry.getKey();
-            int index = entry.getValue();
-            userCredentialData.put(columnName, (index < values.length) ? values[index].trim() : "");
+            String value = record.field(entry.getValue());
+            userCredentialData.put(columnName, value != null ? value.trim() : "");
         }
         return userCredentialData;
     }
 
     /**
-     * Parses a date string into a LocalDate object.
+     * Decodes an attendance date to an epoch day, or AttendanceTable.NO_DATE if it is blank or invalid.
      */
-    private LocalDate parseDate(String value) {
-        try {
-            return value.isEmpty() ? null : LocalDate.parse(value, DATE_FORMATTER);
-        } catch (DateTimeParseException e) {
+    static int decodeDate(String value) {
+        int epochDay = FieldDecoder.decodeDate(value);
+        if (epochDay == FieldDecoder.INVALID) {
             System.err.println("Error parsing date: " + value);
-            return null;
+            return AttendanceTable.NO_DATE;
         }
+        return epochDay;
     }
 
     /**
-     * Parses a time string into a LocalTime object.
+     * Decodes an attendance time to a minute of day, or AttendanceTable.NO_TIME if it is blank or invalid.
      */
-    private LocalTime parseTime(String value) {
-        try {
-            return value.isEmpty() ? null : LocalTime.parse(value, TIME_FORMATTER);
-        } catch (DateTimeParseException e) {
+    static int decodeTime(String value) {
+        int minuteOfDay = FieldDecoder.decodeTime(value);
+        if (minuteOfDay == FieldDecoder.INVALID) {
             System.err.println("Error parsing time: " + value);
-            return null;
+            return AttendanceTable.NO_TIME;
         }
+        return minuteOfDay;
     }
 
     /**
-     * Original method for backward compatibility
-     * Splits a CSV line into an array of values.
+     * Retrieves all employee records from the employee records list.
+     *
+     * @return A list of maps, where each map represents an employee record.
      */
-    private String[] parseCSVLine(String line) {
-        // Default to a generic context that won't trigger special employee parsing
-        return parseCSVLine(line, "generic");
+    public synchronized List<Map<String, String>> getAllEmployeeRecords() {
+        return copyRecords(this.employeeRecords);
     }
 
     /**
-     * Splits a CSV line into an array of values with context for determining parsing method.
-     * This improved version properly handles commas within fields.
+     * Retrieves all attendance records for a given employee ID, sorted by date.
+     * @param employeeId The ID of the employee.
+     * @return A list of attendance records for the employee.
      */
-    private String[] parseCSVLine(String line, String context) {
-        // Only use special parsing for employee records
-        if (context.equals("employee") && (line.contains("Regular") || line.contains("Probationary"))) {
-            return parseEmployeeCSVLine(line);
-        }
-        
-        List<String> values = new ArrayList<>();
-        StringBuilder currentValue = new StringBuilder();
-        boolean inQuotes = false;
-
-        for (char c : line.toCharArray()) {
-            if (c == '"') {
-                inQuotes = !inQuotes;
-            } else if (c == ',' && !inQuotes) {
-                values.add(currentValue.toString());
-                currentValue.setLength(0);
-            } else {
-                currentValue.append(c);
-            }
-        }
-        values.add(currentValue.toString());
-        return values.toArray(new String[0]);
+    public synchronized List<Map<String, Object>> getAttendanceRecordsByEmployeeId(String employeeId) {
+        ensureAttendanceLoaded(null, null);
+        return toRecordMaps(attendanceIndex.cursor(employeeId));
     }
 
     /**
-     * Special parsing method for employee CSV lines which have a fixed format
-     * and contain numeric fields with commas as thousands separators.
-     * This version preserves commas in monetary values for display purposes.
+     * Returns a read-only view of an employee's attendance records, sorted by date.
+     * The map form of each row is only built as the view is iterated.
+     * @param employeeId The ID of the employee.
+     * @return A view of the employee's attendance records as they are now
      */
-    private String[] parseEmployeeCSVLine(String line) {
-        // We know the exact format of employee data, so we'll parse it according to the expected format
-        String[] result = new String[19]; // 19 columns in the employee CSV
-
-        try {
-            // First check if the line contains quoted fields
-            if (line.contains("\"")) {
-                // Handle quoted fields with a more comprehensive parser
-                List<String> fields = new ArrayList<>();
-                StringBuilder currentField = new StringBuilder();
-                boolean inQuotes = false;
-
-                for (int i = 0; i < line.length(); i++) {
-                    char c = line.charAt(i);
-
-                    if (c == '"') {
-                        inQuotes = !inQuotes;
-                    } else if (c == ',' && !inQuotes) {
-                        // End of a field
-                        fields.add(currentField.toString());
-                        currentField = new StringBuilder();
-                    } else {
-                        currentField.append(c);
-                    }
-                }
-
-                // Add the last field
-                fields.add(currentField.toString());
-
-                // Copy to result array (trimming quotes if needed)
-                for (int i = 0; i < Math.min(fields.size(), result.length); i++) {
-                    String field = fields.get(i);
-                    result[i] = field.replaceAll("^\"|\"$", ""); // Remove surrounding quotes
-                }
-
-                return result;
-            }
-
-            // If no quotes, handle with the existing approach but preserve commas
-            String[] rawSplit = line.split(",");
-
-            // First fields are straightforward
-            result[0] = rawSplit[0]; // Employee ID
-            result[1] = rawSplit[1]; // Last Name
-            result[2] = rawSplit[2]; // First Name
-            result[3] = rawSplit[3]; // Birthday
-
-            // Handle address which may contain commas
-            StringBuilder address = new StringBuilder(rawSplit[4]);
-            int addressEndIndex = 5;
-            // Keep appending parts until we find the phone number pattern
-            while (addressEndIndex < rawSplit.length && 
-                   !rawSplit[addressEndIndex].trim().matches("\\d{3}-\\d{3}-\\d{3}")) {
-                address.append(",").append(rawSplit[addressEndIndex]);
-                addressEndIndex++;
-            }
-            result[4] = address.toString(); // Address
-
-            // Continue with remaining fields
-            result[5] = rawSplit[addressEndIndex++]; // Phone Number
-            result[6] = rawSplit[addressEndIndex++]; // SSS #
-            result[7] = rawSplit[addressEndIndex++]; // Philhealth #
-            result[8] = rawSplit[addressEndIndex++]; // TIN #
-            result[9] = rawSplit[addressEndIndex++]; // Pag-ibig #
-            result[10] = rawSplit[addressEndIndex++]; // Status
-            result[11] = rawSplit[addressEndIndex++]; // Position
-
-            // Supervisor name may contain a comma
-            StringBuilder supervisor = new StringBuilder(rawSplit[addressEndIndex++]);
-            if (addressEndIndex < rawSplit.length && 
-                !rawSplit[addressEndIndex].trim().matches("\\d+")) {
-                supervisor.append(",").append(rawSplit[addressEndIndex++]);
-            }
-            result[12] = supervisor.toString(); // Immediate Supervisor
-
-            // For monetary fields, we need to reconstruct them to preserve the commas
-            // Start with Basic Salary (field 13)
-            if (addressEndIndex < rawSplit.length) {
-                StringBuilder amount = new StringBuilder(rawSplit[addressEndIndex++]);
-                // Look ahead for the next part if it looks like a continuation of a number with commas
-                if (addressEndIndex < rawSplit.length && rawSplit[addressEndIndex].trim().matches("\\d{3}")) {
-                    amount.append(",").append(rawSplit[addressEndIndex++]);
-                }
-                result[13] = amount.toString(); // Basic Salary WITH commas
-            }
-
-            // Rice Subsidy (field 14)
-            if (addressEndIndex < rawSplit.length) {
-                StringBuilder amount = new StringBuilder(rawSplit[addressEndIndex++]);
-                if (addressEndIndex < rawSplit.length && rawSplit[addressEndIndex].trim().matches("\\d{3}")) {
-                    amount.append(",").append(rawSplit[addressEndIndex++]);
-                }
-                result[14] = amount.toString(); // Rice Subsidy WITH commas
-            }
-
-            // Phone Allowance (field 15)
-            if (addressEndIndex < rawSplit.length) {
-                StringBuilder amount = new StringBuilder(rawSplit[addressEndIndex++]);
-                if (addressEndIndex < rawSplit.length && rawSplit[addressEndIndex].trim().matches("\\d{3}")) {
-                    amount.append(",").append(rawSplit[addressEndIndex++]);
-                }
-                result[15] = amount.toString(); // Phone Allowance WITH commas
-            }
-
-            // Clothing Allowance (field 16)
-            if (addressEndIndex < rawSplit.length) {
-                StringBuilder amount = new StringBuilder(rawSplit[addressEndIndex++]);
-                if (addressEndIndex < rawSplit.length && rawSplit[addressEndIndex].trim().matches("\\d{3}")) {
-                    amount.append(",").append(rawSplit[addressEndIndex++]);
+    public synchronized DatasetView<Map<String, Object>> getAttendanceRecordView(String employeeId) {
+        ensureAttendanceLoaded(null, null);
+        AttendanceTable table = attendanceTable;
+        AttendanceTable.Cursor rows = attendanceIndex.cursor(employeeId);
+        return new DatasetView<>(() -> new Iterator<Map<String, Object>>() {
+            private final AttendanceTable.Cursor cursor = rows.duplicate();
+            private boolean ready;
+            private boolean more;
+
+            @Override
+            public boolean hasNext() {
+                if (!ready) {
+                    more = cursor.next();
+                    ready = true;
                 }
-                result[16] = amount.toString(); // Clothing Allowance WITH commas
+                return more;
             }
 
-            // Gross Semi-monthly Rate (field 17)
-            if (addressEndIndex < rawSplit.length) {
-                StringBuilder amount = new StringBuilder(rawSplit[addressEndIndex++]);
-                if (addressEndIndex < rawSplit.length && rawSplit[addressEndIndex].trim().matches("\\d{3}")) {
-                    amount.append(",").append(rawSplit[addressEndIndex++]);
+            @Override
+            public Map<String, Object> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
                 }
-                result[17] = amount.toString(); // Gross Semi-monthly Rate WITH commas
+                ready = false;
+                return table.toRecordMap(cursor.row());
             }
+        }, rows.size());
+    }
 
-            // Hourly Rate (field 18)
-            if (addressEndIndex < rawSplit.length) {
-                StringBuilder amount = new StringBuilder(rawSplit[addressEndIndex++]);
-                if (addressEndIndex < rawSplit.length && rawSplit[addressEndIndex].trim().matches("\\d{3}")) {
-                    amount.append(",").append(rawSplit[addressEndIndex++]);
-                }
-                result[18] = amount.toString(); // Hourly Rate WITH commas
-            }
-
-            return result;
-        } catch (Exception e) {
-            System.err.println("Error parsing employee CSV line: " + line);
-            e.printStackTrace();
-
-            // Fallback to basic parsing if special parsing fails
-            String[] basicSplit = line.split(",");
-
-            // Just copy what we can
-            for (int i = 0; i < Math.min(basicSplit.length, result.length); i++) {
-                result[i] = basicSplit[i];
-            }
+    /**
+     * Returns a cursor over every attendance row, month by month and in file order within a month.
+     * @return A cursor over all attendance rows.
+     */
+    public synchronized AttendanceTable.Cursor getAttendanceCursor() {
+        ensureAttendanceLoaded(null, null);
+        return attendanceTable.cursor();
+    }
 
-            return result;
-        }
+    /**
+     * Returns a cursor over an employee's attendance rows, sorted by date.
+     * Reading rows through the cursor does not allocate per row.
+     * @param employeeId The ID of the employee.
+     * @return A cursor over the employee's attendance rows.
+     */
+    public synchronized AttendanceTable.Cursor getAttendanceCursor(String employeeId) {
+        ensureAttendanceLoaded(null, null);
+        return attendanceIndex.cursor(employeeId);
     }
 
     /**
-     * Retrieves all employee records from the employee records list.
-     *
-     * @return A list of maps, where each map represents an employee record.
+     * Returns a cursor over an employee's attendance rows within a date range (inclusive), sorted by date.
+     * Only the months in the range are parsed.
+     * @param employeeId The ID of the employee.
+     * @param startDate First date of the range.
+     * @param endDate Last date of the range.
+     * @return A cursor over the matching attendance rows.
      */
-    public List<Map<String, String>> getAllEmployeeRecords() {
-        return new ArrayList<>(this.employeeRecords);
+    public synchronized AttendanceTable.Cursor getAttendanceCursor(String employeeId, LocalDate startDate, LocalDate endDate) {
+        ensureAttendanceLoaded(startDate, endDate);
+        return attendanceIndex.cursor(employeeId, startDate, endDate);
     }
 
     /**
-     * Retrieves all attendance records for a given employee ID.
+     * Adds up an employee's attendance within a date range (inclusive) in one scan.
+     * Only the months in the range are parsed.
      * @param employeeId The ID of the employee.
-     * @return A list of attendance records for the employee.
+     * @param startDate First date of the range.
+     * @param endDate Last date of the range.
+     * @return Hours worked, overtime, late minutes and valid and invalid days of the range.
      */
-    public List<Map<String, Object>> getAttendanceRecordsByEmployeeId(String employeeId) {
-        List<Map<String, Object>> filteredRecords = new ArrayList<>();
-        for (Map<String, Object> record : attendanceRecords) {
-            if (employeeId.equals(record.get("Employee ID"))) {
-                filteredRecords.add(record);
-            }
+    public AttendanceAggregate aggregateAttendance(String employeeId, LocalDate startDate, LocalDate endDate) {
+        return AttendanceAggregate.of(getAttendanceCursor(employeeId, startDate, endDate));
+    }
+
+    /**
+     * Builds map-form records for every row of a cursor, for callers that still work with maps.
+     */
+    private List<Map<String, Object>> toRecordMaps(AttendanceTable.Cursor cursor) {
+        List<Map<String, Object>> records = new ArrayList<>();
+        while (cursor.next()) {
+            records.add(attendanceTable.toRecordMap(cursor.row()));
         }
-        return filteredRecords;
+        return records;
     }
 
     /**
@@ -782,7 +1560,7 @@ public class CSVDatabaseProcessor {
      * @param employeeId The employee's unique identifier.
      * @return The employee record if found; otherwise, null.
      */
-    public Map<String, String> getEmployeeRecordsByEmployeeId(String employeeId) {
+    public synchronized Map<String, String> getEmployeeRecordsByEmployeeId(String employeeId) {
         for (Map<String, String> record : employeeRecords) {
             String recordId = record.get("Employee ID");
             if (employeeId.equals(recordId)) {
@@ -815,27 +1593,190 @@ public class CSVDatabaseProcessor {
         return null; // Employee ID not found
     }
 
+    /**
+     * Returns the typed, pre-parsed record of an employee.
+     * @param employeeId The employee's unique identifier.
+     * @return The employee's record, or null if there is none.
+     */
+    public synchronized EmployeeRecord getEmployeeRecord(String employeeId) {
+        return employeesById.get(employeeId);
+    }
+
+    /**
+     * Returns the typed records of all employees, in file order.
+     * @return An unmodifiable list of employee records.
+     */
+    public synchronized List<EmployeeRecord> getAllEmployees() {
+        return employees;
+    }
+
     /**
      * Retrieves all leave request records.
      * @return A list of leave request records.
      */
-    public List<Map<String, String>> getAllLeaveRequestRecords() {
-        return new ArrayList<>(this.leaveRequestRecords);
+    public synchronized List<Map<String, String>> getAllLeaveRequestRecords() {
+        return copyRecords(this.leaveRequestRecords);
     }
 
     /**
      * Retrieves all user credential records.
      * @return A list of user credential records.
      */
-    public List<Map<String, String>> getAllUserCredentialRecords() {
-        return new ArrayList<>(this.userCredentialRecords);
+    public synchronized List<Map<String, String>> getAllUserCredentialRecords() {
+        return copyRecords(this.userCredentialRecords);
+    }
+
+    /**
+     * Returns a read-only view of the employee records, in file order, for visiting them without copying.
+     * Use getAllEmployeeRecords() instead when the records are to be edited.
+     * @return A view of the employee records as they are now
+     */
+    public DatasetView<Map<String, String>> getEmployeeRecordView() {
+        return new DatasetView<>(employeeRecords);
+    }
+
+    /**
+     * Returns a read-only view of the leave request records, in file order followed by submitted requests.
+     * @return A view of the leave request records as they are now
+     */
+    public DatasetView<Map<String, String>> getLeaveRequestRecordView() {
+        return new DatasetView<>(leaveRequestRecords);
+    }
+
+    /**
+     * Returns a read-only view of the user credential records, in file order.
+     * @return A view of the user credential records as they are now
+     */
+    public DatasetView<Map<String, String>> getUserCredentialRecordView() {
+        return new DatasetView<>(userCredentialRecords);
+    }
+
+    /**
+     * Copies each record as well as the list, for callers that edit what they get back.
+     */
+    private static List<Map<String, String>> copyRecords(List<Map<String, String>> records) {
+        List<Map<String, String>> copy = new ArrayList<>(records.size());
+        for (Map<String, String> record : records) {
+            copy.add(new HashMap<>(record));
+        }
+        return copy;
     }
     
+    /**
+     * Returns the file a dataset is kept in; for employees, the file they were last loaded from.
+     * @param dataset The dataset
+     * @return The CSV file
+     */
+    synchronized File getDatasetFile(Dataset dataset) {
+        return new File(csvDirectory + (dataset == Dataset.EMPLOYEE ? employeeResourcePath : dataset.getFileName()));
+    }
+
+    /**
+     * Returns the files attendance is kept in: every yearly file next to the attendance file, oldest year first,
+     * or just the attendance file when it is not split by year.
+     * @return The attendance files
+     */
+    synchronized List<File> getAttendanceFiles() {
+        return attendanceFiles(getDatasetFile(Dataset.ATTENDANCE).getAbsoluteFile());
+    }
+
+    /**
+     * Returns the file attendance rows of a year belong in: "&lt;prefix&gt;&lt;year&gt;.csv" next to a yearly
+     * attendance file, which may not exist yet, or the attendance file itself when it is not split by year.
+     * @param year The year of the rows' dates
+     * @return The attendance file
+     */
+    synchronized File getAttendanceFile(int year) {
+        File file = getDatasetFile(Dataset.ATTENDANCE).getAbsoluteFile();
+        String name = file.getName();
+        if (!isYearlyFileName(name) || year < 1000 || year > 9999) {
+            return file;
+        }
+        return new File(file.getParentFile(), name.substring(0, name.length() - YEARLY_SUFFIX_LENGTH) + year + ".csv");
+    }
+
+    /**
+     * Returns the dataset kept in a file of the CSV directory.
+     * @param fileName The file name, without directory
+     * @return The dataset, or null for other files such as snapshots, lock files and logs
+     */
+    synchronized Dataset getDatasetOfFile(String fileName) {
+        if (fileName.equals(new File(employeeResourcePath).getName())) {
+            return Dataset.EMPLOYEE;
+        }
+        if (fileName.equals(CSV_LEAVE_REQUESTS)) {
+            return Dataset.LEAVE_REQUEST;
+        }
+        if (fileName.equals(CSV_USER_CREDENTIALS)) {
+            return Dataset.USER_CREDENTIAL;
+        }
+        // Attendance may be split into yearly files next to the configured one
+        String attendanceName = new File(attendanceResourcePath != null ? attendanceResourcePath : CSV_ATTENDANCE_RECORDS).getName();
+        if (fileName.equals(attendanceName) || (isYearlyFileName(attendanceName) && isYearlyFileName(fileName)
+                && fileName.length() == attendanceName.length()
+                && fileName.startsWith(attendanceName.substring(0, attendanceName.length() - YEARLY_SUFFIX_LENGTH)))) {
+            return Dataset.ATTENDANCE;
+        }
+        return null;
+    }
+
+    /**
+     * Reloads a map-based dataset if its file changed since it was loaded, and returns its rows for telling what
+     * changed. Only that dataset is parsed again. The rows are the published rows, not copies; callers must not
+     * change them. Attendance is compared by month instead, see reloadAttendanceMonths().
+     * @param dataset The dataset, other than ATTENDANCE
+     * @return The rows, in file order
+     */
+    synchronized List<Map<String, String>> reloadRows(Dataset dataset) {
+        switch (dataset) {
+            case EMPLOYEE:
+                loadEmployeeCSVData(employeeResourcePath);
+                return employeeRecords;
+            case ATTENDANCE:
+                throw new IllegalArgumentException("Attendance rows are reloaded by month");
+            case LEAVE_REQUEST:
+                loadLeaveRequestData();
+                return leaveRequestRecords;
+            default:
+                loadUserCredentialData();
+                return userCredentialRecords;
+        }
+    }
+
+    /**
+     * Reloads attendance if its files changed since they were loaded, and returns its rows by month for telling
+     * what changed. Only the months whose rows changed since the given months, or that they did not have, are
+     * parsed; the other months stay as they were loaded. Attendance read with the line reader is returned as one
+     * month.
+     * @param known The months returned by the previous call, or null to load every month
+     * @return The months, each changed month loaded
+     */
+    synchronized AttendanceMonths reloadAttendanceMonths(AttendanceMonths known) {
+        loadAttendanceCSVData(attendanceResourcePath != null ? attendanceResourcePath : CSV_ATTENDANCE_RECORDS);
+        if (attendanceCatalog == null) {
+            return AttendanceMonths.whole(attendanceTable);
+        }
+        List<Integer> changed = new ArrayList<>();
+        for (Map.Entry<Integer, AttendanceMonths.Month> entry : attendanceCatalog.getMonths().getMonths().entrySet()) {
+            AttendanceMonths.Month month = known == null ? null : known.getMonths().get(entry.getKey());
+            if (month == null || month.version != entry.getValue().version) {
+                changed.add(entry.getKey());
+            }
+        }
+        try {
+            attendanceCatalog.load(changed, ingestParallelism);
+        } catch (IOException e) {
+            System.err.println("Could not read attendance from " + attendanceResourcePath + " - " + e.getMessage());
+        }
+        showLoadedAttendance();
+        return attendanceCatalog.getMonths();
+    }
+
     /**
      * Sets a custom directory for CSV files
      * @param directory The directory path
      */
-    public void setCsvDirectory(String directory) {
+    public synchronized void setCsvDirectory(String directory) {
         this.csvDirectory = directory;
         if (!this.csvDirectory.endsWith("/") && !this.csvDirectory.endsWith("\\")) {
             this.csvDirectory += "/";
@@ -852,9 +1793,39 @@ public class CSVDatabaseProcessor {
         return str.chars().allMatch(Character::isDigit);
     }
 
+    /**
+     * The file a dataset was loaded from, with its size and modification time at load,
+     * and how to load the dataset again.
+     */
+    private static final class LoadedSource {
+        final String resourcePath;
+        final String absolutePath;
+        final long length;
+        final long lastModified;
+        final Runnable reload;
+
+        LoadedSource(String resourcePath, File file, Runnable reload) {
+            this.resourcePath = resourcePath;
+            this.absolutePath = file.getAbsolutePath();
+            this.length = file.length();
+            this.lastModified = file.lastModified();
+            this.reload = reload;
+        }
+
+        boolean isCurrent(File file) {
+            return file != null && absolutePath.equals(file.getAbsolutePath())
+                    && file.length() == length && file.lastModified() == lastModified;
+        }
+    }
+
     @FunctionalInterface
     private interface CSVRecordParser<T> {
-        T parseRecord(String line);
+        T parseRecord(CsvTokenizer record);
+    }
+
+    @FunctionalInterface
+    private interface CSVRecordHandler {
+        void handleRecord(CsvTokenizer record);
     }
 
     @FunctionalInterface
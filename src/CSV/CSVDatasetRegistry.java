@@ -0,0 +1,210 @@
+package CSV;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide registry that hands every screen the same CSVDatabaseProcessor.
+ * Each CSV file is parsed once and then served from memory. The shared processor compares every file's
+ * size and modification time with the ones it was loaded from and reloads only the files that changed.
+ * The registry also keeps load and cache-hit statistics for each file.
+ */
+public final class CSVDatasetRegistry {
+
+    private static final CSVDatasetRegistry INSTANCE = new CSVDatasetRegistry();
+
+    private final Object processorLock = new Object();
+    private volatile CSVDatabaseProcessor processor;
+    private volatile DatasetStorage storage;
+    private CsvDirectoryWatcher watcher; // guarded by processorLock
+
+    // File name -> load/hit counters
+    private final Map<String, DatasetStatistics> statistics = new ConcurrentHashMap<>();
+
+    private CSVDatasetRegistry() {
+    }
+
+    /**
+     * Returns the process-wide registry.
+     * @return The registry instance
+     */
+    public static CSVDatasetRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the shared processor, first reloading any already-loaded file that changed on disk.
+     * Datasets that have not been loaded yet are loaded by calling the processor's load methods as usual;
+     * those calls are cheap when the data is already current.
+     * @return The shared CSV processor
+     */
+    public CSVDatabaseProcessor getProcessor() {
+        CSVDatabaseProcessor shared = processor;
+        if (shared == null) {
+            synchronized (processorLock) {
+                if (processor == null) {
+                    processor = new CSVDatabaseProcessor(); // loads employee data
+                    return processor;
+                }
+                shared = processor;
+            }
+        }
+        shared.reloadChangedData();
+        return shared;
+    }
+
+    /**
+     * Returns the shared dataset storage: the CSV files, through the shared processor.
+     * @return The dataset storage
+     */
+    public DatasetStorage getStorage() {
+        DatasetStorage shared = storage;
+        if (shared == null) {
+            synchronized (processorLock) {
+                if (storage == null) {
+                    storage = new CsvDatasetStorage(getProcessor());
+                }
+                shared = storage;
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * Loads the attendance and leave request data on a background thread, so screens opened after
+     * login find them already in memory instead of parsing them while the user waits.
+     */
+    public void warmUp() {
+        Thread warmUp = new Thread(() -> {
+            CSVDatabaseProcessor shared = getProcessor();
+            shared.loadAttendanceData();
+            shared.loadLeaveRequestData();
+        }, "csv-warm-up");
+        warmUp.setDaemon(true);
+        warmUp.start();
+    }
+
+    /**
+     * Calls a listener with the rows of a dataset that changed whenever its file is changed on disk, by another
+     * process or by this one, so an open screen can update just those rows. The CSV directory is watched from
+     * the first call on. The listener is called on the watcher thread.
+     * @param dataset The dataset to watch
+     * @param listener Receives the added, updated and removed rows
+     */
+    public void addChangeListener(Dataset dataset, DatasetChangeListener listener) {
+        CSVDatabaseProcessor shared = getProcessor();
+        synchronized (processorLock) {
+            if (watcher == null) {
+                try {
+                    watcher = new CsvDirectoryWatcher(shared);
+                } catch (IOException e) {
+                    System.err.println("Cannot watch the CSV directory; open screens will not see changes made "
+                            + "elsewhere - " + e.getMessage());
+                    return;
+                }
+            }
+            watcher.subscribe(dataset, listener);
+        }
+    }
+
+    /**
+     * Stops calling a listener given to addChangeListener().
+     * @param dataset The dataset it was added for
+     * @param listener The listener
+     */
+    public void removeChangeListener(Dataset dataset, DatasetChangeListener listener) {
+        synchronized (processorLock) {
+            if (watcher != null) {
+                watcher.unsubscribe(dataset, listener);
+            }
+        }
+    }
+
+    /**
+     * Forces every dataset of the shared processor to be reparsed on its next load,
+     * for example after the application itself rewrote a CSV file.
+     */
+    public void invalidate() {
+        CSVDatabaseProcessor shared = processor;
+        if (shared != null) {
+            shared.invalidate();
+        }
+    }
+
+    /**
+     * Records that a file was parsed.
+     */
+    void recordLoad(String resourcePath, int records, long nanos) {
+        DatasetStatistics stats = statistics.computeIfAbsent(resourcePath, k -> new DatasetStatistics());
+        stats.loads.incrementAndGet();
+        stats.loadNanos.addAndGet(nanos);
+        stats.records.set(records);
+    }
+
+    /**
+     * Records the memory saved by sharing repeated values when a file was last loaded.
+     */
+    void recordDeduplication(String resourcePath, long savedBytes) {
+        statistics.computeIfAbsent(resourcePath, k -> new DatasetStatistics()).dedupSavedBytes.set(savedBytes);
+    }
+
+    /**
+     * Records that a load request was served from already-parsed data.
+     */
+    void recordHit(String resourcePath) {
+        statistics.computeIfAbsent(resourcePath, k -> new DatasetStatistics()).hits.incrementAndGet();
+    }
+
+    /**
+     * Number of times a file has been parsed.
+     * @param resourcePath The CSV file name
+     * @return The load count
+     */
+    public long getLoadCount(String resourcePath) {
+        DatasetStatistics stats = statistics.get(resourcePath);
+        return stats == null ? 0 : stats.loads.get();
+    }
+
+    /**
+     * Number of load requests for a file that were served without parsing.
+     * @param resourcePath The CSV file name
+     * @return The hit count
+     */
+    public long getHitCount(String resourcePath) {
+        DatasetStatistics stats = statistics.get(resourcePath);
+        return stats == null ? 0 : stats.hits.get();
+    }
+
+    /**
+     * Returns a one-line-per-file summary of loads, hits, hit ratio, time spent parsing and the memory
+     * saved by sharing repeated values.
+     * @return The statistics report
+     */
+    public String getStatistics() {
+        StringBuilder report = new StringBuilder("CSV dataset statistics:\n");
+        for (Map.Entry<String, DatasetStatistics> entry : new TreeMap<>(statistics).entrySet()) {
+            DatasetStatistics stats = entry.getValue();
+            long loads = stats.loads.get();
+            long hits = stats.hits.get();
+            double hitRatio = loads + hits == 0 ? 0.0 : (double) hits / (loads + hits);
+            report.append(String.format("  %s: %d records, %d loads (%.1f ms), %d hits, %.0f%% hit ratio, %.1f KB saved by sharing values%n",
+                    entry.getKey(), stats.records.get(), loads, stats.loadNanos.get() / 1_000_000.0,
+                    hits, hitRatio * 100, stats.dedupSavedBytes.get() / 1024.0));
+        }
+        return report.toString();
+    }
+
+    /**
+     * Counters for one CSV file.
+     */
+    private static final class DatasetStatistics {
+        final AtomicLong loads = new AtomicLong();
+        final AtomicLong hits = new AtomicLong();
+        final AtomicLong loadNanos = new AtomicLong();
+        final AtomicLong records = new AtomicLong();
+        final AtomicLong dedupSavedBytes = new AtomicLong();
+    }
+}
@@ -0,0 +1,78 @@
+package CSV;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Where the files the application keeps for a CSV file at run time go: snapshots, the leave request log, write
+ * locks, patch journals and temporary files. They are kept in a data directory outside the CSV directory, which
+ * in the source tree is src/CSV, so the CSV directory only ever holds the CSV files.
+ * Each CSV directory has a data directory of its own under the root named by the csv.data.dir system property,
+ * by default "&lt;user home&gt;/.OOP_MPH_PayrollSystem/data". Its name is taken from the CSV directory's canonical
+ * path, so every process working on the same CSV files finds the same locks and leave request log.
+ */
+final class CsvDataDirectory {
+
+    static final String ROOT_PROPERTY = "csv.data.dir";
+
+    private CsvDataDirectory() {
+    }
+
+    /**
+     * Returns the file kept for a CSV file under a suffix, "&lt;file name&gt;&lt;suffix&gt;" in the data directory.
+     * The data directory may not exist yet; use createFileFor() to write the file.
+     * @param csvFile The CSV file
+     * @param suffix The suffix, such as ".lock"
+     * @return The file, which may not exist
+     */
+    static File fileFor(File csvFile, String suffix) {
+        File canonical;
+        try {
+            canonical = csvFile.getCanonicalFile();
+        } catch (IOException e) {
+            canonical = csvFile.getAbsoluteFile();
+        }
+        File csvDirectory = canonical.getParentFile();
+        String root = System.getProperty(ROOT_PROPERTY,
+                Paths.get(System.getProperty("user.home"), ".OOP_MPH_PayrollSystem", "data").toString());
+        String name = csvDirectory.getName() + "-" + String.format("%08x", csvDirectory.getPath().hashCode());
+        return new File(new File(root, name), csvFile.getName() + suffix);
+    }
+
+    /**
+     * Returns the file kept for a CSV file under a suffix, creating the data directory if it does not exist.
+     * @param csvFile The CSV file
+     * @param suffix The suffix, such as ".lock"
+     * @return The file, which may not exist
+     * @throws IOException If the data directory could not be created
+     */
+    static File createFileFor(File csvFile, String suffix) throws IOException {
+        File file = fileFor(csvFile, suffix);
+        Files.createDirectories(file.getParentFile().toPath());
+        return file;
+    }
+
+    /**
+     * Moves a file that earlier versions kept next to the CSV file, "&lt;file name&gt;&lt;suffix&gt;" in the CSV
+     * directory, into the data directory. Used for files holding changes that are not in the CSV file yet, so
+     * they are not lost on upgrading. A file already in the data directory is kept, and the old one left alone.
+     * @param csvFile The CSV file
+     * @param suffix The suffix, such as ".wal"
+     * @throws IOException If the file could not be moved
+     */
+    static void adoptLegacyFile(File csvFile, String suffix) throws IOException {
+        File legacy = new File(csvFile.getPath() + suffix);
+        if (!legacy.isFile()) {
+            return;
+        }
+        File file = createFileFor(csvFile, suffix);
+        if (file.exists()) {
+            System.err.println("Ignoring " + legacy + "; the data directory already has " + file);
+            return;
+        }
+        CsvFileWriter.moveIntoPlace(legacy.toPath(), file.toPath());
+        System.out.println("Moved " + legacy + " to " + file);
+    }
+}
@@ -0,0 +1,343 @@
+package CSV;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Dataset storage in the CSV files, read and written through a CSVDatabaseProcessor.
+ * Reads are served from the processor's parsed data. Employee edits and leave requests use the processor's own
+ * write paths (row patches, atomic rewrites and the leave request log); other writes append to the file or
+ * replace it atomically under the file's write lock, and the processor then picks up the change like any other
+ * change on disk. Attendance rows are written to the yearly attendance file of their date.
+ */
+public class CsvDatasetStorage implements DatasetStorage {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("MM/dd/yyyy");
+
+    private final CSVDatabaseProcessor processor;
+
+    /**
+     * @param processor The processor whose CSV directory holds the files
+     */
+    public CsvDatasetStorage(CSVDatabaseProcessor processor) {
+        this.processor = processor;
+    }
+
+    @Override
+    public List<Map<String, String>> readAll(Dataset dataset) {
+        switch (dataset) {
+            case EMPLOYEE:
+                return processor.getAllEmployeeRecords();
+            case ATTENDANCE:
+                processor.loadAttendanceData();
+                synchronized (processor) {
+                    return toRows(processor.getAttendanceCursor());
+                }
+            case LEAVE_REQUEST:
+                processor.loadLeaveRequestData();
+                return processor.getAllLeaveRequestRecords();
+            default:
+                processor.loadUserCredentialData();
+                return processor.getAllUserCredentialRecords();
+        }
+    }
+
+    @Override
+    public List<Map<String, String>> find(Dataset dataset, String column, String value) {
+        if (column.equals("Employee ID") && dataset == Dataset.EMPLOYEE) {
+            Map<String, String> employee = processor.getEmployeeRecordsByEmployeeId(value);
+            List<Map<String, String>> rows = new ArrayList<>();
+            if (employee != null) {
+                rows.add(employee);
+            }
+            return rows;
+        }
+        if (column.equals("Employee ID") && dataset == Dataset.ATTENDANCE) {
+            processor.loadAttendanceData();
+            synchronized (processor) {
+                return toRows(processor.getAttendanceCursor(value));
+            }
+        }
+        if (dataset == Dataset.ATTENDANCE) {
+            List<Map<String, String>> rows = new ArrayList<>();
+            for (Map<String, String> row : readAll(dataset)) {
+                if (value.equals(row.get(column))) {
+                    rows.add(row);
+                }
+            }
+            return rows;
+        }
+        // Only the matching rows are copied
+        List<Map<String, String>> rows = new ArrayList<>();
+        for (Map<String, String> row : recordView(dataset)) {
+            if (value.equals(row.get(column))) {
+                rows.add(new HashMap<>(row));
+            }
+        }
+        return rows;
+    }
+
+    @Override
+    public List<Map<String, String>> findAttendance(String employeeId, LocalDate startDate, LocalDate endDate) {
+        processor.loadAttendanceData();
+        synchronized (processor) {
+            return toRows(processor.getAttendanceCursor(employeeId, startDate, endDate));
+        }
+    }
+
+    @Override
+    public void append(Dataset dataset, Map<String, String> row) throws IOException {
+        switch (dataset) {
+            case EMPLOYEE:
+                synchronized (processor) {
+                    List<Map<String, String>> employees = processor.getAllEmployeeRecords();
+                    employees.add(row);
+                    processor.setEmployeeRecords(employees);
+                    processor.saveEmployeeRecords();
+                }
+                break;
+            case LEAVE_REQUEST:
+                processor.submitLeaveRequest(row);
+                break;
+            default:
+                List<String> records = new ArrayList<>();
+                records.add(formatRow(dataset, row));
+                File file = dataset == Dataset.ATTENDANCE ? attendanceFileOf(row) : processor.getDatasetFile(dataset);
+                CsvFileLock lock = CsvFileLock.acquire(file);
+                try {
+                    if (file.isFile()) {
+                        CsvFileWriter.appendRecords(file, records);
+                    } else {
+                        // The first row of a new year's attendance file
+                        CsvFileWriter.writeAtomically(file, String.join(",", dataset.columns()), records);
+                    }
+                } finally {
+                    lock.close();
+                }
+                reload(dataset);
+                break;
+        }
+    }
+
+    @Override
+    public boolean update(Dataset dataset, String employeeId, Map<String, String> row) throws IOException {
+        if (!dataset.isKeyedByEmployeeId()) {
+            throw new IllegalArgumentException(dataset + " rows cannot be updated by Employee ID");
+        }
+        if (dataset == Dataset.EMPLOYEE) {
+            synchronized (processor) {
+                if (!processor.updateEmployeeRecord(employeeId, row)) {
+                    return false;
+                }
+                processor.saveEmployeeRecords();
+                return true;
+            }
+        }
+        // Read, change and write the rows under one lock, so no other writer's change is lost in between
+        File file = processor.getDatasetFile(dataset);
+        boolean found = false;
+        CsvFileLock lock = CsvFileLock.acquire(file);
+        try {
+            List<Map<String, String>> rows = new ArrayList<>(readAll(dataset));
+            for (int i = 0; i < rows.size() && !found; i++) {
+                if (employeeId.equals(rows.get(i).get("Employee ID"))) {
+                    rows.set(i, row);
+                    found = true;
+                }
+            }
+            if (found) {
+                CsvFileWriter.writeAtomically(file, String.join(",", dataset.columns()), formatRows(dataset, rows));
+            }
+        } finally {
+            lock.close();
+        }
+        if (found) {
+            reload(dataset);
+        }
+        return found;
+    }
+
+    @Override
+    public void replaceAll(Dataset dataset, List<Map<String, String>> rows) throws IOException {
+        if (dataset == Dataset.EMPLOYEE) {
+            synchronized (processor) {
+                processor.setEmployeeRecords(rows);
+                processor.saveEmployeeRecords();
+            }
+            return;
+        }
+        String header = String.join(",", dataset.columns());
+        if (dataset == Dataset.ATTENDANCE) {
+            replaceAttendance(header, rows);
+            reload(dataset);
+            return;
+        }
+        List<String> records = formatRows(dataset, rows);
+        File file = processor.getDatasetFile(dataset);
+        if (dataset == Dataset.LEAVE_REQUEST) {
+            // Merge the requests still in the log first, and keep new ones out until the file is replaced
+            LeaveRequestLog log = LeaveRequestLog.forFile(file);
+            synchronized (log) {
+                log.compact();
+                writeLocked(file, header, records);
+            }
+        } else {
+            writeLocked(file, header, records);
+        }
+        reload(dataset);
+    }
+
+    @Override
+    public String describe() {
+        return "CSV files in " + processor.getDatasetFile(Dataset.EMPLOYEE).getAbsoluteFile().getParent();
+    }
+
+    @Override
+    public void close() {
+        // the processor is shared; nothing to release
+    }
+
+    /**
+     * Writes attendance rows back to the files of their years, keeping their order within each file.
+     * Every attendance file is replaced, a file is created for a year that has none, and a file no row belongs in
+     * is left with just its header. The files are locked in name order and replaced one after another, so readers
+     * see each file's rows all old or all new, but may briefly see some years replaced and others not yet.
+     */
+    private void replaceAttendance(String header, List<Map<String, String>> rows) throws IOException {
+        Map<File, List<String>> recordsByFile = new TreeMap<>();
+        for (File file : processor.getAttendanceFiles()) {
+            recordsByFile.put(file, new ArrayList<>());
+        }
+        for (Map<String, String> row : rows) {
+            recordsByFile.computeIfAbsent(attendanceFileOf(row), file -> new ArrayList<>())
+                    .add(formatRow(Dataset.ATTENDANCE, row));
+        }
+        List<CsvFileLock> locks = new ArrayList<>();
+        try {
+            for (File file : recordsByFile.keySet()) {
+                locks.add(CsvFileLock.acquire(file));
+            }
+            for (Map.Entry<File, List<String>> entry : recordsByFile.entrySet()) {
+                CsvFileWriter.writeAtomically(entry.getKey(), header, entry.getValue());
+            }
+        } finally {
+            for (int i = locks.size() - 1; i >= 0; i--) {
+                locks.get(i).close();
+            }
+        }
+    }
+
+    /**
+     * The attendance file a row belongs in, by the year of its date. Rows without a valid date go in the
+     * attendance file itself.
+     */
+    private File attendanceFileOf(Map<String, String> row) {
+        int epochDay = FieldDecoder.decodeDate(row.getOrDefault("Date", ""));
+        if (epochDay == AttendanceTable.NO_DATE || epochDay == FieldDecoder.INVALID) {
+            return processor.getDatasetFile(Dataset.ATTENDANCE).getAbsoluteFile();
+        }
+        return processor.getAttendanceFile(FieldDecoder.toLocalDate(epochDay).getYear());
+    }
+
+    /**
+     * Loads a map-based dataset if needed and returns a view of its rows.
+     */
+    private DatasetView<Map<String, String>> recordView(Dataset dataset) {
+        switch (dataset) {
+            case EMPLOYEE:
+                return processor.getEmployeeRecordView();
+            case LEAVE_REQUEST:
+                processor.loadLeaveRequestData();
+                return processor.getLeaveRequestRecordView();
+            default:
+                processor.loadUserCredentialData();
+                return processor.getUserCredentialRecordView();
+        }
+    }
+
+    private void reload(Dataset dataset) {
+        switch (dataset) {
+            case ATTENDANCE:
+                processor.loadAttendanceData();
+                break;
+            case LEAVE_REQUEST:
+                processor.loadLeaveRequestData();
+                break;
+            case USER_CREDENTIAL:
+                processor.loadUserCredentialData();
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Replaces a file under its write lock.
+     */
+    private static void writeLocked(File file, String header, List<String> records) throws IOException {
+        CsvFileLock lock = CsvFileLock.acquire(file);
+        try {
+            CsvFileWriter.writeAtomically(file, header, records);
+        } finally {
+            lock.close();
+        }
+    }
+
+    private static List<String> formatRows(Dataset dataset, List<Map<String, String>> rows) {
+        List<String> records = new ArrayList<>(rows.size());
+        for (Map<String, String> row : rows) {
+            records.add(formatRow(dataset, row));
+        }
+        return records;
+    }
+
+    /**
+     * Formats a row as a CSV record with the dataset's columns in file order.
+     */
+    private static String formatRow(Dataset dataset, Map<String, String> row) {
+        String[] columns = dataset.columns();
+        String[] values = new String[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            values[i] = row.getOrDefault(columns[i], "");
+        }
+        return CsvFormat.formatRecord(values);
+    }
+
+    /**
+     * Converts attendance rows to text rows in the attendance file's format. Must be called holding the
+     * processor's lock, since the cursor reads the processor's table directly.
+     */
+    static List<Map<String, String>> toRows(AttendanceTable.Cursor cursor) {
+        List<Map<String, String>> rows = new ArrayList<>();
+        while (cursor.next()) {
+            rows.add(toRow(cursor));
+        }
+        return rows;
+    }
+
+    /**
+     * Converts the cursor's current attendance row to a text row in the attendance file's format.
+     */
+    static Map<String, String> toRow(AttendanceTable.Cursor cursor) {
+        Map<String, String> row = new HashMap<>();
+        row.put("Employee ID", String.valueOf(cursor.employeeId()));
+        row.put("Last Name", cursor.lastName());
+        row.put("First Name", cursor.firstName());
+        row.put("Date", cursor.hasDate() ? cursor.date().format(DATE_FORMATTER) : "");
+        row.put("Log In", cursor.hasLogIn() ? formatTime(cursor.logInMinute()) : "");
+        row.put("Log Out", cursor.hasLogOut() ? formatTime(cursor.logOutMinute()) : "");
+        return row;
+    }
+
+    private static String formatTime(int minuteOfDay) {
+        int minute = minuteOfDay % 60;
+        return (minuteOfDay / 60) + (minute < 10 ? ":0" : ":") + minute;
+    }
+}
@@ -0,0 +1,236 @@
+package CSV;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the CSV directory of a processor and tells listeners which rows changed when a dataset's file is
+ * written, by another process or by this one.
+ * When a file changes, only its dataset is reloaded, and the new rows are compared with the rows the listeners
+ * last saw, so screens can update the rows that changed instead of reloading everything. Attendance is compared
+ * by month: only the months whose byte ranges changed are parsed and compared, column by column, and the rows
+ * last seen are kept as the processor's columnar table rather than as text rows. Events are collected
+ * until the directory has been quiet for QUIET_MILLIS, so a save that writes a file in several steps (a
+ * temporary file and a rename, or a patch journal) is reported once.
+ * Only datasets with listeners are reloaded and compared. Reloads, including loading the rows a new listener's
+ * dataset is compared against, run one at a time on a reload thread, never on the caller's thread. How soon a
+ * change is seen depends on the platform's watch service; where it polls, it can take several seconds.
+ */
+public final class CsvDirectoryWatcher implements AutoCloseable {
+
+    private static final long QUIET_MILLIS = 200;
+
+    private final CSVDatabaseProcessor processor;
+    private final Path directory;
+    private final WatchService watchService;
+    private final Thread thread;
+    private final ExecutorService reloads = Executors.newSingleThreadExecutor(runnable -> {
+        Thread reloadThread = new Thread(runnable, "csv-watcher-reload");
+        reloadThread.setDaemon(true);
+        return reloadThread;
+    });
+
+    // Guarded by this
+    private final Map<Dataset, List<DatasetChangeListener>> listeners = new EnumMap<>(Dataset.class);
+    // Rows each watched map-based dataset had when its listeners were last told; guarded by this
+    private final Map<Dataset, List<Map<String, String>>> lastRows = new EnumMap<>(Dataset.class);
+    // Attendance months as its listeners were last told, or null; guarded by this
+    private AttendanceMonths lastAttendance;
+
+    /**
+     * Starts watching the directory of the processor's CSV files.
+     * @param processor The processor to reload datasets through
+     * @throws IOException If the directory cannot be watched
+     */
+    public CsvDirectoryWatcher(CSVDatabaseProcessor processor) throws IOException {
+        this.processor = processor;
+        this.directory = processor.getDatasetFile(Dataset.EMPLOYEE).getAbsoluteFile().getParentFile().toPath();
+        this.watchService = directory.getFileSystem().newWatchService();
+        try {
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException e) {
+            watchService.close();
+            throw e;
+        }
+        thread = new Thread(this::run, "csv-watcher");
+        thread.setDaemon(true);
+        thread.start();
+        System.out.println("Watching " + directory + " for CSV changes");
+    }
+
+    /**
+     * Starts telling a listener about changed rows of a dataset. The first listener of a dataset has the
+     * dataset loaded on the reload thread; this method does not wait for it.
+     * @param dataset The dataset
+     * @param listener Called on the watcher's reload thread with the rows that changed
+     */
+    public synchronized void subscribe(Dataset dataset, DatasetChangeListener listener) {
+        List<DatasetChangeListener> subscribed = listeners.get(dataset);
+        if (subscribed == null) {
+            subscribed = new CopyOnWriteArrayList<>();
+            listeners.put(dataset, subscribed);
+            reloads.execute(() -> loadBaseline(dataset));
+        }
+        subscribed.add(listener);
+    }
+
+    /**
+     * Stops telling a listener about a dataset. A dataset without listeners is no longer compared.
+     * @param dataset The dataset
+     * @param listener The listener given to subscribe()
+     */
+    public synchronized void unsubscribe(Dataset dataset, DatasetChangeListener listener) {
+        List<DatasetChangeListener> subscribed = listeners.get(dataset);
+        if (subscribed != null && subscribed.remove(listener) && subscribed.isEmpty()) {
+            listeners.remove(dataset);
+            lastRows.remove(dataset);
+            if (dataset == Dataset.ATTENDANCE) {
+                lastAttendance = null;
+            }
+        }
+    }
+
+    /**
+     * Stops watching. Listeners are not called afterwards.
+     */
+    @Override
+    public void close() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            System.err.println("Could not stop watching " + directory + " - " + e.getMessage());
+        }
+        thread.interrupt();
+        reloads.shutdownNow();
+    }
+
+    private void run() {
+        Set<Dataset> changed = EnumSet.noneOf(Dataset.class);
+        try {
+            while (true) {
+                WatchKey key = changed.isEmpty() ? watchService.take() : watchService.poll(QUIET_MILLIS, TimeUnit.MILLISECONDS);
+                if (key == null) {
+                    for (Dataset dataset : changed) {
+                        reloads.execute(() -> publishChanges(dataset));
+                    }
+                    changed.clear();
+                    continue;
+                }
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        // Events were lost: compare every watched dataset
+                        changed.addAll(EnumSet.allOf(Dataset.class));
+                    } else {
+                        Dataset dataset = processor.getDatasetOfFile(((Path) event.context()).getFileName().toString());
+                        if (dataset != null) {
+                            changed.add(dataset);
+                        }
+                    }
+                }
+                if (!key.reset()) {
+                    System.err.println("Stopped watching " + directory + "; it is no longer accessible");
+                    return;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // closed
+        }
+    }
+
+    /**
+     * Loads the rows a newly watched dataset's changes are compared against.
+     */
+    private void loadBaseline(Dataset dataset) {
+        synchronized (this) {
+            if (!listeners.containsKey(dataset)) {
+                return; // unsubscribed meanwhile
+            }
+        }
+        if (dataset == Dataset.ATTENDANCE) {
+            AttendanceMonths months = processor.reloadAttendanceMonths(null);
+            synchronized (this) {
+                if (listeners.containsKey(dataset)) {
+                    lastAttendance = months;
+                }
+            }
+        } else {
+            List<Map<String, String>> rows = processor.reloadRows(dataset);
+            synchronized (this) {
+                if (listeners.containsKey(dataset)) {
+                    lastRows.put(dataset, rows);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reloads a dataset and tells its listeners which rows differ from the rows they last saw.
+     */
+    private void publishChanges(Dataset dataset) {
+        List<DatasetChangeListener> subscribed;
+        List<RowChange> changes;
+        if (dataset == Dataset.ATTENDANCE) {
+            AttendanceMonths before;
+            synchronized (this) {
+                before = lastAttendance;
+                subscribed = listeners.get(dataset);
+            }
+            if (before == null || subscribed == null) {
+                return;
+            }
+            AttendanceMonths after = processor.reloadAttendanceMonths(before);
+            synchronized (this) {
+                if (lastAttendance != before) {
+                    return; // unsubscribed meanwhile
+                }
+                lastAttendance = after;
+            }
+            changes = RowChange.diffAttendance(before, after);
+        } else {
+            List<Map<String, String>> before;
+            synchronized (this) {
+                before = lastRows.get(dataset);
+                subscribed = listeners.get(dataset);
+            }
+            if (before == null || subscribed == null) {
+                return;
+            }
+            List<Map<String, String>> after = processor.reloadRows(dataset);
+            synchronized (this) {
+                if (lastRows.get(dataset) != before) {
+                    return; // unsubscribed meanwhile
+                }
+                lastRows.put(dataset, after);
+            }
+            changes = RowChange.diff(dataset, before, after);
+        }
+        if (changes.isEmpty()) {
+            return;
+        }
+        System.out.println(changes.size() + " rows of " + dataset.getFileName() + " changed on disk");
+        List<RowChange> published = Collections.unmodifiableList(changes);
+        for (DatasetChangeListener listener : subscribed) {
+            try {
+                listener.rowsChanged(dataset, published);
+            } catch (RuntimeException e) {
+                System.err.println("Change listener failed for " + dataset.getFileName() + " - " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package CSV;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Exclusive write lock on a CSV file, shared by every process that uses the same CSV directory.
+ * Writers hold it while they read the file, check it against what they loaded and write their changes, so two
+ * writers never work from the same old file. The lock is taken on a sidecar file ("&lt;file name&gt;.lock" in the
+ * data directory, see CsvDataDirectory) instead of the CSV file itself, because rewrites rename a new file over the CSV file and a lock on the old
+ * file would not cover the new one. Readers never take the lock: a rewrite becomes visible in one rename.
+ * FileChannel locks belong to the whole process, so threads of this process first queue on an in-process lock.
+ * If a process dies holding the lock, the operating system releases it.
+ */
+final class CsvFileLock implements AutoCloseable {
+
+    static final String SUFFIX = ".lock";
+
+    // Lock file path -> lock for the threads of this process
+    private static final Map<String, ReentrantLock> PROCESS_LOCKS = new ConcurrentHashMap<>();
+
+    private final ReentrantLock processLock;
+    private final FileChannel channel;
+    private final FileLock fileLock;
+
+    private CsvFileLock(ReentrantLock processLock, FileChannel channel, FileLock fileLock) {
+        this.processLock = processLock;
+        this.channel = channel;
+        this.fileLock = fileLock;
+    }
+
+    /**
+     * Waits for and takes the write lock of a CSV file. Must not be called by a thread that already holds it.
+     * @param csvFile The CSV file to be written
+     * @return The lock; close it to release it
+     * @throws IOException If the lock file cannot be opened or locked
+     */
+    static CsvFileLock acquire(File csvFile) throws IOException {
+        String lockPath = CsvDataDirectory.createFileFor(csvFile, SUFFIX).getPath();
+        ReentrantLock processLock = PROCESS_LOCKS.computeIfAbsent(lockPath, k -> new ReentrantLock());
+        try {
+            processLock.lockInterruptibly();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting to write " + csvFile.getName(), e);
+        }
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(Paths.get(lockPath), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            return new CsvFileLock(processLock, channel, channel.lock());
+        } catch (IOException | RuntimeException e) {
+            if (channel != null) {
+                channel.close();
+            }
+            processLock.unlock();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            fileLock.release();
+            channel.close();
+        } finally {
+            processLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package CSV;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Crash-safe writes of CSV files.
+ * Whole files are written to a temporary file, synced and renamed over the original, so a crash leaves either
+ * the old or the new file. Records whose new text has the same length in bytes can instead be patched in place;
+ * the patches are first written to a journal ("&lt;file name&gt;.patch"), which recoverPatches() applies again
+ * if a crash interrupted the patching. Temporary files and journals are kept in the data directory (see
+ * CsvDataDirectory), not next to the CSV file.
+ */
+final class CsvFileWriter {
+
+    static final String PATCH_SUFFIX = ".patch";
+
+    // CSV files are read with the platform charset (see CSVDatabaseProcessor.readCSVData), so they are written with it too
+    static final Charset CHARSET = Charset.defaultCharset();
+
+    private static final int PATCH_MAGIC = 0x43535650; // "CSVP"
+
+    private CsvFileWriter() {
+    }
+
+    /**
+     * Byte ranges of the data records of a CSV file, in file order, without line breaks.
+     */
+    static final class RecordSpans {
+        final long[] offsets;
+        final int[] lengths;
+
+        RecordSpans(long[] offsets, int[] lengths) {
+            this.offsets = offsets;
+            this.lengths = lengths;
+        }
+
+        int size() {
+            return offsets.length;
+        }
+    }
+
+    /**
+     * Replaces a file with a header line and records, through a synced temporary file and an atomic rename.
+     * @param target The file to replace
+     * @param header The header line, without a line break
+     * @param records The records, without line breaks
+     * @return Where each record was written
+     * @throws IOException If the file could not be written; the original file is then unchanged
+     */
+    static RecordSpans writeAtomically(File target, String header, List<String> records) throws IOException {
+        long[] offsets = new long[records.size()];
+        int[] lengths = new int[records.size()];
+        Path temp = CsvDataDirectory.createFileFor(target, ".tmp").toPath();
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+            long position = put(out, buffer, (header + "\n").getBytes(CHARSET), 0);
+            for (int i = 0; i < records.size(); i++) {
+                byte[] bytes = records.get(i).getBytes(CHARSET);
+                offsets[i] = position;
+                lengths[i] = bytes.length;
+                position = put(out, buffer, bytes, position);
+                position = put(out, buffer, new byte[]{'\n'}, position);
+            }
+            buffer.flip();
+            writeFully(out, buffer);
+            out.force(true);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        moveIntoPlace(temp, target.toPath());
+        return new RecordSpans(offsets, lengths);
+    }
+
+    /**
+     * Adds records at the end of a file and syncs it, starting a new line first if the file does not end with one.
+     * @param target The CSV file
+     * @param records The records, without line breaks
+     * @throws IOException If the records could not be written
+     */
+    static void appendRecords(File target, List<String> records) throws IOException {
+        try (FileChannel out = FileChannel.open(target.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long position = out.size();
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+            if (position > 0) {
+                ByteBuffer last = ByteBuffer.allocate(1);
+                out.read(last, position - 1);
+                if (last.get(0) != '\n' && last.get(0) != '\r') {
+                    position = put(out, buffer, new byte[]{'\n'}, position);
+                }
+            }
+            out.position(out.size());
+            for (String record : records) {
+                position = put(out, buffer, (record + "\n").getBytes(CHARSET), position);
+            }
+            buffer.flip();
+            writeFully(out, buffer);
+            out.force(false);
+        }
+    }
+
+    /**
+     * Overwrites records in place. Every replacement must be exactly as long as the record it replaces.
+     * The patches are journaled and synced first, so a crash while patching is repaired by recoverPatches().
+     * @param target The CSV file
+     * @param offsets The byte offset of each record to replace
+     * @param replacements The new text of each record, without a line break
+     * @throws IOException If the file could not be patched
+     */
+    static void patchRecords(File target, List<Long> offsets, List<byte[]> replacements) throws IOException {
+        File journal = CsvDataDirectory.createFileFor(target, PATCH_SUFFIX);
+        int size = 8;
+        for (byte[] replacement : replacements) {
+            size += 12 + replacement.length;
+        }
+        ByteBuffer entries = ByteBuffer.allocate(size + 8);
+        entries.putInt(PATCH_MAGIC).putInt(replacements.size());
+        for (int i = 0; i < replacements.size(); i++) {
+            entries.putLong(offsets.get(i)).putInt(replacements.get(i).length).put(replacements.get(i));
+        }
+        CRC32 crc = new CRC32();
+        crc.update(entries.array(), 0, size);
+        entries.putLong(crc.getValue());
+        entries.flip();
+
+        try (FileChannel out = FileChannel.open(journal.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeFully(out, entries);
+            out.force(true);
+        }
+        applyPatches(target, offsets, replacements);
+        Files.delete(journal.toPath());
+    }
+
+    /**
+     * Whether a patch journal exists: another writer is patching the file, or a crash interrupted a patch.
+     * @param target The CSV file
+     */
+    static boolean hasPatchJournal(File target) {
+        // A journal next to the file was left by an earlier version; recoverPatches() moves it
+        return CsvDataDirectory.fileFor(target, PATCH_SUFFIX).isFile() || new File(target.getPath() + PATCH_SUFFIX).isFile();
+    }
+
+    /**
+     * Finishes patches that a crash interrupted. Call before reading the file, holding its write lock so that
+     * the patches of a writer that is still running are left alone.
+     * A journal that was not completely written is discarded, since the file was not touched yet.
+     * @param target The CSV file
+     */
+    static void recoverPatches(File target) {
+        try {
+            CsvDataDirectory.adoptLegacyFile(target, PATCH_SUFFIX);
+        } catch (IOException e) {
+            System.err.println("Could not move the update journal of " + target.getName() + " - " + e.getMessage());
+        }
+        File journal = CsvDataDirectory.fileFor(target, PATCH_SUFFIX);
+        if (!journal.isFile()) {
+            return;
+        }
+        try {
+            ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(journal.toPath()));
+            List<Long> offsets = new ArrayList<>();
+            List<byte[]> replacements = new ArrayList<>();
+            boolean complete = false;
+            try {
+                if (in.getInt() == PATCH_MAGIC) {
+                    int count = in.getInt();
+                    for (int i = 0; i < count; i++) {
+                        offsets.add(in.getLong());
+                        byte[] replacement = new byte[in.getInt()];
+                        in.get(replacement);
+                        replacements.add(replacement);
+                    }
+                    CRC32 crc = new CRC32();
+                    crc.update(in.array(), 0, in.position());
+                    complete = in.getLong() == crc.getValue();
+                }
+            } catch (BufferUnderflowException | NegativeArraySizeException e) {
+                // torn journal
+            }
+            if (complete) {
+                System.out.println("Finishing interrupted update of " + target.getName());
+                applyPatches(target, offsets, replacements);
+            }
+            Files.delete(journal.toPath());
+        } catch (IOException e) {
+            System.err.println("Could not recover interrupted update of " + target.getName() + " - " + e.getMessage());
+        }
+    }
+
+    /**
+     * Finds the byte range of every data record in the content of a CSV file, skipping the header and blank lines.
+     * Line breaks inside quoted fields do not end a record. Works on bytes, which is safe for UTF-8 and the
+     * single-byte charsets because none of their multi-byte characters contains a quote or line break byte.
+     */
+    static RecordSpans scanRecordSpans(byte[] content) {
+        List<long[]> spans = new ArrayList<>();
+        boolean inQuotes = false;
+        boolean header = true;
+        int start = 0;
+        for (int i = 0; i <= content.length; i++) {
+            byte b = i < content.length ? content[i] : (byte) '\n';
+            if (b == '"') {
+                inQuotes = !inQuotes;
+            } else if ((b == '\n' || b == '\r') && (!inQuotes || i == content.length)) {
+                if (header) {
+                    header = false;
+                } else if (!isBlank(content, start, i)) {
+                    spans.add(new long[]{start, i - start});
+                }
+                if (b == '\r' && i + 1 < content.length && content[i + 1] == '\n') {
+                    i++;
+                }
+                start = i + 1;
+            }
+        }
+        long[] offsets = new long[spans.size()];
+        int[] lengths = new int[spans.size()];
+        for (int i = 0; i < spans.size(); i++) {
+            offsets[i] = spans.get(i)[0];
+            lengths[i] = (int) spans.get(i)[1];
+        }
+        return new RecordSpans(offsets, lengths);
+    }
+
+    /**
+     * Renames a fully written file over its target, then syncs the directory so the rename itself is durable.
+     */
+    static void moveIntoPlace(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            // The data directory is on another file system: copy the file next to the target, then rename that
+            Path sibling = target.resolveSibling(target.getFileName() + ".tmp");
+            Files.copy(temp, sibling, StandardCopyOption.REPLACE_EXISTING);
+            try (FileChannel copy = FileChannel.open(sibling, StandardOpenOption.WRITE)) {
+                copy.force(true);
+            }
+            Files.delete(temp);
+            try {
+                Files.move(sibling, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException notAtomic) {
+                Files.move(sibling, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Path directory = target.toAbsolutePath().getParent();
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            // not every platform can open a directory; the rename is still atomic there
+        }
+    }
+
+    static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    private static void applyPatches(File target, List<Long> offsets, List<byte[]> replacements) throws IOException {
+        try (FileChannel out = FileChannel.open(target.toPath(), StandardOpenOption.WRITE)) {
+            for (int i = 0; i < replacements.size(); i++) {
+                ByteBuffer replacement = ByteBuffer.wrap(replacements.get(i));
+                long position = offsets.get(i);
+                while (replacement.hasRemaining()) {
+                    position += out.write(replacement, position);
+                }
+            }
+            out.force(true);
+        }
+    }
+
+    /**
+     * Adds bytes to a write buffer, flushing it to the channel when full.
+     * @return The file position after the bytes
+     */
+    private static long put(FileChannel out, ByteBuffer buffer, byte[] bytes, long position) throws IOException {
+        if (bytes.length > buffer.remaining()) {
+            buffer.flip();
+            writeFully(out, buffer);
+            buffer.clear();
+        }
+        if (bytes.length > buffer.capacity()) {
+            writeFully(out, ByteBuffer.wrap(bytes));
+        } else {
+            buffer.put(bytes);
+        }
+        return position + bytes.length;
+    }
+
+    private static boolean isBlank(byte[] content, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (content[i] != ' ' && content[i] != '\t') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,77 @@
+package CSV;
+
+/**
+ * Writes records in the form CsvTokenizer reads back.
+ * Fields containing a comma, a quote or a line break are quoted, with quotes inside them doubled.
+ */
+public final class CsvFormat {
+
+    private CsvFormat() {
+    }
+
+    /**
+     * Joins fields into one CSV record, without a line break at the end.
+     * @param fields The field values; null is written as an empty field
+     * @return The record text
+     */
+    public static String formatRecord(String... fields) {
+        StringBuilder record = new StringBuilder();
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                record.append(',');
+            }
+            appendField(record, fields[i]);
+        }
+        return record.toString();
+    }
+
+    /**
+     * Formats one field, quoting it only if it contains a comma, a quote or a line break.
+     * @param value The field value; null is written as an empty field
+     * @return The field text
+     */
+    public static String formatField(String value) {
+        StringBuilder field = new StringBuilder();
+        appendField(field, value);
+        return field.toString();
+    }
+
+    /**
+     * Formats one field in quotes, whether or not it needs them.
+     * @param value The field value; null is written as ""
+     * @return The quoted field text
+     */
+    public static String quoteField(String value) {
+        StringBuilder field = new StringBuilder();
+        appendQuoted(field, value == null ? "" : value);
+        return field.toString();
+    }
+
+    private static void appendField(StringBuilder record, String value) {
+        if (value == null) {
+            return;
+        }
+        boolean needsQuotes = false;
+        for (int i = 0; i < value.length() && !needsQuotes; i++) {
+            char c = value.charAt(i);
+            needsQuotes = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (needsQuotes) {
+            appendQuoted(record, value);
+        } else {
+            record.append(value);
+        }
+    }
+
+    private static void appendQuoted(StringBuilder record, String value) {
+        record.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                record.append('"');
+            }
+            record.append(c);
+        }
+        record.append('"');
+    }
+}
@@ -0,0 +1,179 @@
+package CSV;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Single-pass RFC 4180 tokenizer used for every CSV file.
+ * Records are read one at a time from a Reader with a small state machine: quoted fields may contain commas,
+ * line breaks and doubled quotes (""), and records end at LF, CRLF or CR outside quotes. The character buffer,
+ * field buffer and field array are reused from record to record, so the only allocation per field is its String.
+ * <p>
+ * Like the parser it replaced, a quote in the middle of an unquoted field also starts a quoted section
+ * instead of being kept as a literal character.
+ */
+public final class CsvTokenizer {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+
+    // Characters of the field being read
+    private char[] fieldBuffer = new char[256];
+    private int fieldLength;
+
+    // Fields of the current record
+    private String[] fields = new String[32];
+    private int fieldCount;
+    private boolean quoted; // whether any field of the current record had a quoted section
+    private long recordNumber;
+
+    public CsvTokenizer(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Reads the next record.
+     * @return true if a record was read, false at the end of the input
+     * @throws IOException If the reader fails
+     */
+    public boolean next() throws IOException {
+        fieldCount = 0;
+        fieldLength = 0;
+        quoted = false;
+        if (position >= limit && !fill()) {
+            return false;
+        }
+
+        boolean inQuotes = false;
+        while (true) {
+            if (position >= limit && !fill()) {
+                break; // the last record had no line break
+            }
+
+            // Copy the run of ordinary characters up to the next one the state machine cares about
+            int runStart = position;
+            if (inQuotes) {
+                while (position < limit && buffer[position] != '"') {
+                    position++;
+                }
+            } else {
+                while (position < limit) {
+                    char c = buffer[position];
+                    if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                        break;
+                    }
+                    position++;
+                }
+            }
+            appendToField(runStart, position);
+            if (position >= limit) {
+                continue;
+            }
+
+            char c = buffer[position++];
+            if (inQuotes) {
+                // c is a quote: either a doubled quote or the end of the quoted section
+                if ((position < limit || fill()) && buffer[position] == '"') {
+                    appendToField(position, position + 1);
+                    position++;
+                } else {
+                    inQuotes = false;
+                }
+            } else if (c == ',') {
+                endField();
+            } else if (c == '"') {
+                inQuotes = true;
+                quoted = true;
+            } else if (c == '\n') {
+                break;
+            } else {
+                // c is a carriage return, possibly followed by a line feed
+                if ((position < limit || fill()) && buffer[position] == '\n') {
+                    position++;
+                }
+                break;
+            }
+        }
+        endField();
+        recordNumber++;
+        return true;
+    }
+
+    /**
+     * Number of fields in the current record.
+     */
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * Returns a field of the current record.
+     * @param index The zero-based field index
+     * @return The field's value with quotes removed, or null if the record has fewer fields
+     */
+    public String field(int index) {
+        return index < fieldCount ? fields[index] : null;
+    }
+
+    /**
+     * Checks whether the current record is an empty line.
+     */
+    public boolean isBlank() {
+        return fieldCount == 1 && !quoted && fields[0].isBlank();
+    }
+
+    /**
+     * Checks whether any field of the current record contained a quoted section.
+     */
+    public boolean hadQuotes() {
+        return quoted;
+    }
+
+    /**
+     * One-based number of the current record, counting the header.
+     */
+    public long recordNumber() {
+        return recordNumber;
+    }
+
+    /**
+     * Joins the current record's fields with commas, for diagnostic messages.
+     * Quotes are not restored, so this is not necessarily the original text.
+     */
+    public String recordText() {
+        return String.join(",", Arrays.asList(fields).subList(0, fieldCount));
+    }
+
+    private void appendToField(int from, int to) {
+        int count = to - from;
+        if (fieldLength + count > fieldBuffer.length) {
+            fieldBuffer = Arrays.copyOf(fieldBuffer, Math.max(fieldLength + count, fieldBuffer.length * 2));
+        }
+        System.arraycopy(buffer, from, fieldBuffer, fieldLength, count);
+        fieldLength += count;
+    }
+
+    private void endField() {
+        if (fieldCount == fields.length) {
+            fields = Arrays.copyOf(fields, fieldCount * 2);
+        }
+        fields[fieldCount++] = new String(fieldBuffer, 0, fieldLength);
+        fieldLength = 0;
+    }
+
+    private boolean fill() throws IOException {
+        int read = reader.read(buffer, 0, buffer.length);
+        if (read <= 0) {
+            position = limit = 0;
+            return false;
+        }
+        position = 0;
+        limit = read;
+        return true;
+    }
+}
@@ -0,0 +1,35 @@
+package CSV;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Thrown when saving rows that another user changed in the CSV file since they were loaded.
+ * Nothing is written. The caller's changes stay pending; reloading the file discards them, after which the
+ * user can look at the other user's changes and make theirs again.
+ */
+public class CsvWriteConflictException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<String> employeeIds;
+
+    /**
+     * @param fileName The CSV file
+     * @param employeeIds The Employee IDs of the rows changed on both sides
+     */
+    public CsvWriteConflictException(String fileName, List<String> employeeIds) {
+        super("Employee " + String.join(", ", employeeIds) + " in " + fileName
+                + " was changed by another user since it was loaded; reload and make the change again");
+        this.employeeIds = Collections.unmodifiableList(employeeIds);
+    }
+
+    /**
+     * Returns the Employee IDs of the rows that were changed both here and in the file.
+     * @return The conflicting Employee IDs
+     */
+    public List<String> getEmployeeIds() {
+        return employeeIds;
+    }
+}
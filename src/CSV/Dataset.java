@@ -0,0 +1,76 @@
+package CSV;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The four datasets of the payroll system, with the file each is kept in by the CSV storage
+ * and its columns in file order.
+ */
+public enum Dataset {
+    EMPLOYEE(CSVDatabaseProcessor.CSV_EMPLOYEE_DETAILS,
+            "Employee ID", "Last Name", "First Name", "Birthday", "Address",
+            "Phone Number", "SSS #", "Philhealth #", "TIN #", "Pag-ibig #",
+            "Status", "Position", "Immediate Supervisor",
+            "Basic Salary", "Rice Subsidy", "Phone Allowance", "Clothing Allowance",
+            "Gross Semi-monthly Rate", "Hourly Rate"),
+    ATTENDANCE(CSVDatabaseProcessor.CSV_ATTENDANCE_RECORDS,
+            "Employee ID", "Last Name", "First Name", "Date", "Log In", "Log Out"),
+    LEAVE_REQUEST(CSVDatabaseProcessor.CSV_LEAVE_REQUESTS,
+            "Date of Submission", "Employee ID", "First Name", "Last Name", "Position", "Status", "Immediate Supervisor",
+            "Type of Leave", "Note", "Start", "End", "Leave Status", "Remaining Vacation Leave", "Remaining Sick Leave"),
+    USER_CREDENTIAL(CSVDatabaseProcessor.CSV_USER_CREDENTIALS,
+            "Employee ID", "Last Name", "First Name", "Email", "Password");
+
+    private final String fileName;
+    private final String[] columns;
+
+    Dataset(String fileName, String... columns) {
+        this.fileName = fileName;
+        this.columns = columns;
+    }
+
+    /**
+     * Name of the CSV file the dataset is kept in.
+     */
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * Column names in file order.
+     */
+    public List<String> getColumns() {
+        return Collections.unmodifiableList(Arrays.asList(columns));
+    }
+
+    /**
+     * Whether each employee has at most one row, so that rows can be updated by Employee ID.
+     */
+    public boolean isKeyedByEmployeeId() {
+        return this == EMPLOYEE || this == USER_CREDENTIAL;
+    }
+
+    /**
+     * Columns that identify a row across edits, so that a changed row can be told apart from a removed row and
+     * an added one. Several rows may share a key; they are then matched in file order.
+     */
+    String[] keyColumns() {
+        switch (this) {
+            case ATTENDANCE:
+                return new String[]{"Employee ID", "Date"};
+            case LEAVE_REQUEST:
+                return new String[]{"Employee ID", "Date of Submission", "Type of Leave", "Start", "End"};
+            default:
+                return new String[]{"Employee ID"};
+        }
+    }
+
+    /**
+     * Column names in file order, without copying; callers must not change the array.
+     */
+    String[] columns() {
+        return columns;
+    }
+}
@@ -0,0 +1,17 @@
+package CSV;
+
+import java.util.List;
+
+/**
+ * Receives the rows of a dataset that changed on disk; see CSVDatasetRegistry.addChangeListener().
+ * Called on the watcher thread, so screens must move to the event dispatch thread before touching Swing.
+ */
+public interface DatasetChangeListener {
+
+    /**
+     * Called after a dataset was reloaded because its file changed.
+     * @param dataset The dataset that changed
+     * @param changes The added, updated and removed rows; never empty
+     */
+    void rowsChanged(Dataset dataset, List<RowChange> changes);
+}
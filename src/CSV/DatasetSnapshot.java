@@ -0,0 +1,291 @@
+package CSV;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+
+/**
+ * Binary snapshot of a parsed CSV dataset, stored as "&lt;file name&gt;.snap" in the data directory of its CSV
+ * file (see CsvDataDirectory).
+ * A snapshot records the size, modification time and CRC32 of the CSV file it was built from and is only
+ * used while all three still match. Loading a valid snapshot is a single read of the snapshot file with no
+ * text parsing. Stale snapshots are rebuilt on a background thread after the CSV file has been parsed.
+ * Attendance files are not snapshotted row by row: their snapshot holds the byte range of each month's rows,
+ * and the rows of a month are parsed from the CSV file when they are first needed.
+ */
+class DatasetSnapshot {
+
+    static final String SUFFIX = ".snap";
+
+    private static final int MAGIC = 0x43535653; // "CSVS"
+    private static final int VERSION = 3; // bump whenever parsing rules change, so older snapshots are rebuilt
+    private static final byte KIND_RECORDS = 1;
+    private static final byte KIND_SEGMENTS = 3;
+
+    // Checksums are computed over mapped windows of this size so files over 2 GB are handled too
+    private static final long CHECKSUM_WINDOW = 256L * 1024 * 1024;
+
+    // One daemon thread writes snapshots, so saving never delays a screen or keeps the JVM alive
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "csv-snapshot-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private DatasetSnapshot() {
+    }
+
+    /**
+     * Reads the records of a map-based dataset from the snapshot of a CSV file.
+     * @param source The CSV file
+     * @return The records, or null if there is no valid snapshot for the file as it is now
+     */
+    static List<Map<String, String>> readRecords(File source) {
+        ByteBuffer in = openValid(source, KIND_RECORDS);
+        if (in == null) {
+            return null;
+        }
+        try {
+            String[] keys = new String[in.getInt()];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = readString(in);
+            }
+            int rowCount = in.getInt();
+            List<Map<String, String>> records = new ArrayList<>(rowCount);
+            for (int row = 0; row < rowCount; row++) {
+                int entries = in.getInt();
+                Map<String, String> record = new HashMap<>();
+                for (int i = 0; i < entries; i++) {
+                    record.put(keys[in.getInt()], readString(in));
+                }
+                records.add(record);
+            }
+            return records;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException | NegativeArraySizeException e) {
+            System.err.println("Ignoring corrupt snapshot for " + source.getName());
+            return null;
+        }
+    }
+
+    /**
+     * Reads the month ranges of an attendance CSV file from its snapshot.
+     * @param source The attendance CSV file
+     * @return The ranges and the scan position they were found at, or null if there is no valid snapshot
+     */
+    static MappedAttendanceScanner.Partition readSegments(File source) {
+        ByteBuffer in = openValid(source, KIND_SEGMENTS);
+        if (in == null) {
+            return null;
+        }
+        try {
+            int rows = in.getInt();
+            long completeEnd = in.getLong();
+            int pendingRows = in.getInt();
+            long fileLength = in.getLong();
+            int rangeCount = in.getInt();
+            List<MappedAttendanceScanner.MonthRange> ranges = new ArrayList<>(rangeCount);
+            for (int i = 0; i < rangeCount; i++) {
+                MappedAttendanceScanner.MonthRange range = new MappedAttendanceScanner.MonthRange(in.getInt(), in.getLong(), in.getLong());
+                range.rows = in.getInt();
+                if (range.start < 0 || range.end < range.start || range.end > fileLength) {
+                    throw new IllegalArgumentException("Range out of bounds");
+                }
+                ranges.add(range);
+            }
+            return new MappedAttendanceScanner.Partition(ranges,
+                    new MappedAttendanceScanner.ScanResult(rows, completeEnd, pendingRows, fileLength));
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            System.err.println("Ignoring corrupt snapshot for " + source.getName());
+            return null;
+        }
+    }
+
+    /**
+     * Writes a snapshot of map-based records on the background writer thread.
+     * @param source The CSV file the records were parsed from
+     * @param length The file's size before it was parsed
+     * @param lastModified The file's modification time before it was parsed
+     * @param records The parsed records; the list must not be changed afterwards
+     */
+    static void saveRecordsInBackground(File source, long length, long lastModified, List<Map<String, String>> records) {
+        WRITER.execute(() -> save(source, length, lastModified, KIND_RECORDS, out -> {
+            Map<String, Integer> keyIndexes = new HashMap<>();
+            List<String> keys = new ArrayList<>();
+            for (Map<String, String> record : records) {
+                for (String key : record.keySet()) {
+                    if (keyIndexes.putIfAbsent(key, keys.size()) == null) {
+                        keys.add(key);
+                    }
+                }
+            }
+            out.writeInt(keys.size());
+            for (String key : keys) {
+                writeString(out, key);
+            }
+            out.writeInt(records.size());
+            for (Map<String, String> record : records) {
+                out.writeInt(record.size());
+                for (Map.Entry<String, String> entry : record.entrySet()) {
+                    out.writeInt(keyIndexes.get(entry.getKey()));
+                    writeString(out, entry.getValue());
+                }
+            }
+        }));
+    }
+
+    /**
+     * Writes the month ranges of an attendance CSV file on the background writer thread.
+     * @param source The attendance CSV file the ranges were found in
+     * @param length The file's size before it was read
+     * @param lastModified The file's modification time before it was read
+     * @param ranges Every month range of the file, in file order; the list must not be changed afterwards
+     * @param result Where the scan of the file ended
+     */
+    static void saveSegmentsInBackground(File source, long length, long lastModified,
+                                         List<MappedAttendanceScanner.MonthRange> ranges, MappedAttendanceScanner.ScanResult result) {
+        int rows = 0;
+        for (MappedAttendanceScanner.MonthRange range : ranges) {
+            rows += range.rows;
+        }
+        int totalRows = rows;
+        WRITER.execute(() -> save(source, length, lastModified, KIND_SEGMENTS, out -> {
+            out.writeInt(totalRows);
+            out.writeLong(result.completeEnd);
+            out.writeInt(result.pendingRows);
+            out.writeLong(result.fileLength);
+            out.writeInt(ranges.size());
+            for (MappedAttendanceScanner.MonthRange range : ranges) {
+                out.writeInt(range.monthKey);
+                out.writeLong(range.start);
+                out.writeLong(range.end);
+                out.writeInt(range.rows);
+            }
+        }));
+    }
+
+    static File snapshotFile(File source) {
+        return CsvDataDirectory.fileFor(source, SUFFIX);
+    }
+
+    /**
+     * Reads the whole snapshot of a file in one read and checks its header against the file.
+     * @return The snapshot positioned after the header, or null if it is missing, stale or unreadable
+     */
+    private static ByteBuffer openValid(File source, byte kind) {
+        File snapshot = snapshotFile(source);
+        if (!snapshot.isFile() || snapshot.length() > Integer.MAX_VALUE) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(snapshot.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer in = ByteBuffer.allocate((int) channel.size());
+            while (in.hasRemaining() && channel.read(in) >= 0) {
+                // keep reading until the buffer is full
+            }
+            in.flip();
+            if (in.remaining() < 33 || in.getInt() != MAGIC || in.getInt() != VERSION || in.get() != kind) {
+                return null;
+            }
+            long length = in.getLong();
+            long lastModified = in.getLong();
+            long checksum = in.getLong();
+            if (length != source.length() || lastModified != source.lastModified() || checksum != checksum(source)) {
+                System.out.println("Snapshot is out of date for " + source.getName());
+                return null;
+            }
+            return in;
+        } catch (IOException e) {
+            System.err.println("Could not read snapshot for " + source.getName() + " - " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Writes a snapshot to a temporary file and moves it into place, so readers never see a partial snapshot.
+     * The snapshot is dropped if the CSV file changed after it was parsed.
+     */
+    private static void save(File source, long length, long lastModified, byte kind, SnapshotBody body) {
+        File snapshot = snapshotFile(source);
+        File temp = new File(snapshot.getPath() + ".tmp");
+        try {
+            Files.createDirectories(snapshot.getParentFile().toPath());
+            long checksum = checksum(source);
+            if (source.length() != length || source.lastModified() != lastModified) {
+                return; // changed since it was parsed; the next load will build a fresh snapshot
+            }
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeByte(kind);
+                out.writeLong(length);
+                out.writeLong(lastModified);
+                out.writeLong(checksum);
+                body.write(out);
+            }
+            try {
+                Files.move(temp.toPath(), snapshot.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp.toPath(), snapshot.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            System.out.println("Saved snapshot for " + source.getName());
+        } catch (IOException e) {
+            System.err.println("Could not save snapshot for " + source.getName() + " - " + e.getMessage());
+            temp.delete();
+        }
+    }
+
+    /**
+     * CRC32 of a file's full contents.
+     */
+    static long checksum(File file) throws IOException {
+        CRC32 crc = new CRC32();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long position = 0; position < size; position += CHECKSUM_WINDOW) {
+                crc.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(CHECKSUM_WINDOW, size - position)));
+            }
+        }
+        return crc.getValue();
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    @FunctionalInterface
+    private interface SnapshotBody {
+        void write(DataOutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,77 @@
+package CSV;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Where the payroll datasets are stored.
+ * Rows are maps from column name (see Dataset.getColumns()) to the value as text, in the same form the CSV files
+ * hold them, e.g. "90,000" for amounts, MM/dd/yyyy for dates and H:mm for attendance times.
+ * <p>
+ * CsvDatasetStorage keeps the datasets in the CSV files through CSVDatabaseProcessor.
+ */
+public interface DatasetStorage extends Closeable {
+
+    /**
+     * Reads every row of a dataset, in storage order.
+     * @param dataset The dataset
+     * @return The rows
+     * @throws IOException If the dataset could not be read
+     */
+    List<Map<String, String>> readAll(Dataset dataset) throws IOException;
+
+    /**
+     * Reads the rows of a dataset whose column has a given value, in storage order.
+     * @param dataset The dataset
+     * @param column The column name, e.g. "Employee ID" or "Email"
+     * @param value The value to match exactly
+     * @return The matching rows, possibly none
+     * @throws IOException If the dataset could not be read
+     */
+    List<Map<String, String>> find(Dataset dataset, String column, String value) throws IOException;
+
+    /**
+     * Reads an employee's attendance rows within a date range (inclusive), sorted by date.
+     * @param employeeId The ID of the employee
+     * @param startDate First date of the range
+     * @param endDate Last date of the range
+     * @return The matching attendance rows
+     * @throws IOException If the attendance could not be read
+     */
+    List<Map<String, String>> findAttendance(String employeeId, LocalDate startDate, LocalDate endDate) throws IOException;
+
+    /**
+     * Adds a row at the end of a dataset. Missing columns are stored empty.
+     * @param dataset The dataset
+     * @param row The row
+     * @throws IOException If the row could not be stored
+     */
+    void append(Dataset dataset, Map<String, String> row) throws IOException;
+
+    /**
+     * Replaces the row of one employee in a dataset keyed by Employee ID.
+     * @param dataset EMPLOYEE or USER_CREDENTIAL
+     * @param employeeId The Employee ID the row has now
+     * @param row The new row; its Employee ID may differ from employeeId
+     * @return true if the employee's row was found and replaced
+     * @throws IOException If the row could not be stored
+     * @throws IllegalArgumentException If the dataset is not keyed by Employee ID
+     */
+    boolean update(Dataset dataset, String employeeId, Map<String, String> row) throws IOException;
+
+    /**
+     * Replaces every row of a dataset. Readers see either all old rows or all new rows.
+     * @param dataset The dataset
+     * @param rows The new rows, in order
+     * @throws IOException If the rows could not be stored; the old rows are then kept
+     */
+    void replaceAll(Dataset dataset, List<Map<String, String>> rows) throws IOException;
+
+    /**
+     * Short description of where the data is kept, for log messages.
+     */
+    String describe();
+}
@@ -0,0 +1,179 @@
+package CSV;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pinned, unchanging version of the loaded datasets.
+ * A payroll run, payslip batch or report pins one version with CSVDatabaseProcessor.pinVersion() and reads
+ * everything from it, so all of its numbers come from the same data even if another screen edits employees or
+ * a CSV file is reloaded meanwhile. Edits and reloads publish a new version and never change a published one,
+ * so reading a version takes no locks.
+ * Close the version when done, preferably with try-with-resources. Once no reader has a version pinned and a
+ * newer one exists, the processor lets go of it and its rows can be garbage collected.
+ */
+public final class DatasetVersion implements AutoCloseable {
+
+    private final Contents contents;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    DatasetVersion(Contents contents) {
+        this.contents = contents;
+        contents.pins.incrementAndGet();
+    }
+
+    /**
+     * Version number; every change to the loaded datasets gives a higher number.
+     * @return The version number
+     */
+    public long getNumber() {
+        return contents.number;
+    }
+
+    /**
+     * Returns the typed record of an employee.
+     * @param employeeId The employee's unique identifier
+     * @return The employee's record, or null if there is none
+     */
+    public EmployeeRecord getEmployeeRecord(String employeeId) {
+        checkOpen();
+        return contents.employeesById.get(employeeId);
+    }
+
+    /**
+     * Returns the typed records of all employees, in file order.
+     * @return An unmodifiable list of employee records
+     */
+    public List<EmployeeRecord> getAllEmployees() {
+        checkOpen();
+        return contents.employees;
+    }
+
+    /**
+     * Returns a read-only view of the employee rows, in file order.
+     * @return A view of the employee rows of this version
+     */
+    public DatasetView<Map<String, String>> getEmployeeRecordView() {
+        checkOpen();
+        return new DatasetView<>(contents.employeeRecords);
+    }
+
+    /**
+     * Returns a read-only view of the leave request rows, in file order followed by submitted requests.
+     * @return A view of the leave request rows of this version
+     */
+    public DatasetView<Map<String, String>> getLeaveRequestRecordView() {
+        checkOpen();
+        return new DatasetView<>(contents.leaveRequestRecords);
+    }
+
+    /**
+     * Returns a read-only view of the user credential rows, in file order.
+     * @return A view of the user credential rows of this version
+     */
+    public DatasetView<Map<String, String>> getUserCredentialRecordView() {
+        checkOpen();
+        return new DatasetView<>(contents.userCredentialRecords);
+    }
+
+    /**
+     * Returns a cursor over an employee's attendance rows, sorted by date.
+     * Only the months loaded when the version was pinned are included.
+     * @param employeeId The ID of the employee
+     * @return A cursor over the employee's attendance rows
+     */
+    public AttendanceTable.Cursor getAttendanceCursor(String employeeId) {
+        checkOpen();
+        return contents.attendanceIndex.cursor(employeeId);
+    }
+
+    /**
+     * Returns a cursor over an employee's attendance rows within a date range (inclusive), sorted by date.
+     * The months of the range must have been loaded when the version was pinned; see pinVersion(start, end).
+     * @param employeeId The ID of the employee
+     * @param startDate First date of the range
+     * @param endDate Last date of the range
+     * @return A cursor over the matching attendance rows
+     */
+    public AttendanceTable.Cursor getAttendanceCursor(String employeeId, LocalDate startDate, LocalDate endDate) {
+        checkOpen();
+        return contents.attendanceIndex.cursor(employeeId, startDate, endDate);
+    }
+
+    /**
+     * Adds up an employee's attendance within a date range (inclusive) in one scan.
+     * The months of the range must have been loaded when the version was pinned; see pinVersion(start, end).
+     * @param employeeId The ID of the employee
+     * @param startDate First date of the range
+     * @param endDate Last date of the range
+     * @return Hours worked, overtime, late minutes and valid and invalid days of the range
+     */
+    public AttendanceAggregate aggregateAttendance(String employeeId, LocalDate startDate, LocalDate endDate) {
+        return AttendanceAggregate.of(getAttendanceCursor(employeeId, startDate, endDate));
+    }
+
+    /**
+     * Total hours an employee logged in late during a month: every log in after the 8:10 grace period
+     * counts the time since 8:00.
+     * @param employeeId The ID of the employee
+     * @param payrollMonth The month
+     * @return The late hours
+     */
+    public double getTotalLateHours(String employeeId, YearMonth payrollMonth) {
+        return aggregateAttendance(employeeId, payrollMonth.atDay(1), payrollMonth.atEndOfMonth()).getLateHours();
+    }
+
+    /**
+     * Unpins the version. Closing it again has no effect; reading from it afterwards throws IllegalStateException.
+     */
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            contents.tracker.release(contents);
+        }
+    }
+
+    private void checkOpen() {
+        if (closed.get()) {
+            throw new IllegalStateException("Dataset version " + contents.number + " is closed");
+        }
+    }
+
+    /**
+     * The rows of one version, shared by every reader that pins it. Nothing here changes after construction
+     * except the pin count.
+     */
+    static final class Contents {
+        final long number;
+        final DatasetVersionTracker tracker;
+        final List<Map<String, String>> employeeRecords;
+        final Map<String, EmployeeRecord> employeesById;
+        final List<EmployeeRecord> employees;
+        final List<Map<String, String>> leaveRequestRecords;
+        final List<Map<String, String>> userCredentialRecords;
+        final AttendanceIndex attendanceIndex;
+        final AtomicInteger pins = new AtomicInteger();
+
+        /**
+         * @param employeesById Must not be changed afterwards; the lists are published unmodifiable lists
+         */
+        Contents(long number, DatasetVersionTracker tracker,
+                 List<Map<String, String>> employeeRecords, Map<String, EmployeeRecord> employeesById,
+                 List<EmployeeRecord> employees, List<Map<String, String>> leaveRequestRecords, List<Map<String, String>> userCredentialRecords,
+                 AttendanceIndex attendanceIndex) {
+            this.number = number;
+            this.tracker = tracker;
+            this.employeeRecords = employeeRecords;
+            this.employeesById = Collections.unmodifiableMap(employeesById);
+            this.employees = employees;
+            this.leaveRequestRecords = leaveRequestRecords;
+            this.userCredentialRecords = userCredentialRecords;
+            this.attendanceIndex = attendanceIndex;
+        }
+    }
+}
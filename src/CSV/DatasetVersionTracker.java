@@ -0,0 +1,75 @@
+package CSV;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongFunction;
+
+/**
+ * Keeps track of the dataset versions a processor has handed out.
+ * The current version is built the first time a reader pins it after a change, from the rows the processor
+ * has published, so changes nobody pins in between cost nothing. A version stays registered while readers have
+ * it pinned; once the last reader closes it and it is no longer current, it is dropped so its rows can be
+ * garbage collected.
+ * changed() and pin() are called under the processor's lock; release() may be called from any thread.
+ */
+class DatasetVersionTracker {
+
+    private long lastNumber;
+
+    // Version new pins get, or null after a change until the next pin
+    private volatile DatasetVersion.Contents current;
+
+    // Version number -> versions with readers, plus the current one once pinned
+    private final Map<Long, DatasetVersion.Contents> pinned = new ConcurrentHashMap<>();
+
+    /**
+     * Records that the published rows changed, so the next pin gets a new version.
+     */
+    void changed() {
+        DatasetVersion.Contents previous = current;
+        current = null;
+        if (previous != null && previous.pins.get() == 0) {
+            pinned.remove(previous.number);
+        }
+    }
+
+    /**
+     * Pins the current version, building it first if the rows changed since the last pin.
+     * @param build Builds the version's contents from the published rows, given its number
+     * @return A new handle on the current version
+     */
+    DatasetVersion pin(LongFunction<DatasetVersion.Contents> build) {
+        DatasetVersion.Contents contents = current;
+        if (contents == null) {
+            contents = build.apply(++lastNumber);
+            current = contents;
+        }
+        DatasetVersion version = new DatasetVersion(contents);
+        pinned.put(contents.number, contents);
+        return version;
+    }
+
+    /**
+     * Drops a reader's pin, and the version itself if that was the last pin of a version that is no longer current.
+     */
+    void release(DatasetVersion.Contents contents) {
+        // current is written before the pin count is read in changed(), and read after the count is written here,
+        // so at least one of the two sees that the version is both unpinned and replaced
+        if (contents.pins.decrementAndGet() == 0 && contents != current) {
+            pinned.remove(contents.number);
+        }
+    }
+
+    /**
+     * Number of versions that readers have pinned.
+     */
+    int getPinnedCount() {
+        int count = 0;
+        for (DatasetVersion.Contents contents : pinned.values()) {
+            if (contents.pins.get() > 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
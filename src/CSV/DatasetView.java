@@ -0,0 +1,117 @@
+package CSV;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Read-only view of the rows of a loaded dataset, for visiting them without copying.
+ * A view is bound to the rows as they were when it was obtained. The processor never changes a published row
+ * list in place; every load or edit publishes a new list. So a view can be iterated while other threads reload
+ * or edit the dataset, and it never throws ConcurrentModificationException. Get a new view to see later changes.
+ * Rows cannot be modified through a view; use toList() for a copy that can be edited.
+ * @param <T> The row type
+ */
+public final class DatasetView<T> implements Iterable<T> {
+
+    private static final int CHARACTERISTICS = Spliterator.ORDERED | Spliterator.SIZED | Spliterator.NONNULL | Spliterator.IMMUTABLE;
+
+    private final Supplier<Iterator<T>> iterators;
+    private final int size;
+
+    /**
+     * Creates a view of a published row list.
+     * @param rows The rows; the list must never be changed afterwards
+     */
+    DatasetView(List<T> rows) {
+        this(rows::iterator, rows.size());
+    }
+
+    /**
+     * Creates a view whose rows are produced by an iterator, such as one built over an attendance cursor.
+     * @param iterators Supplies a new iterator over the same rows on each call
+     * @param size Number of rows the iterators return
+     */
+    DatasetView(Supplier<Iterator<T>> iterators, int size) {
+        this.iterators = iterators;
+        this.size = size;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return iterators.get();
+    }
+
+    /**
+     * Returns a sequential stream over the rows. Nothing is read until a terminal operation runs, and
+     * short-circuiting operations such as anyMatch or findFirst stop reading at the first match.
+     * @return A stream of the rows
+     */
+    public Stream<T> stream() {
+        return StreamSupport.stream(() -> Spliterators.spliterator(iterator(), size, CHARACTERISTICS), CHARACTERISTICS, false);
+    }
+
+    /**
+     * Visits rows in order until the visitor returns false.
+     * @param visitor Called for each row; returns false to stop
+     * @return true if every row was visited, false if the visitor stopped early
+     */
+    public boolean forEachWhile(Predicate<? super T> visitor) {
+        for (T row : this) {
+            if (!visitor.test(row)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether any row matches, stopping at the first match.
+     * @param predicate The condition
+     * @return true if a row matches
+     */
+    public boolean anyMatch(Predicate<? super T> predicate) {
+        return findFirst(predicate) != null;
+    }
+
+    /**
+     * Returns the first row that matches, stopping there.
+     * @param predicate The condition
+     * @return The first matching row, or null if none matches
+     */
+    public T findFirst(Predicate<? super T> predicate) {
+        for (T row : this) {
+            if (predicate.test(row)) {
+                return row;
+            }
+        }
+        return null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Copies the rows into a new list, for callers that need to sort or edit it.
+     * The rows themselves are not copied.
+     * @return A new modifiable list of the rows
+     */
+    public List<T> toList() {
+        List<T> copy = new ArrayList<>(size);
+        for (T row : this) {
+            copy.add(row);
+        }
+        return copy;
+    }
+}
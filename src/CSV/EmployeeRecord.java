@@ -0,0 +1,127 @@
+package CSV;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import oop.classes.enums.EmploymentStatus;
+
+/**
+ * Immutable, pre-parsed row of the employee CSV.
+ * Numbers, dates and the employment status are decoded once when the file is loaded, so payroll code can read
+ * primitives instead of stripping commas from strings like "90,000" on every use. asMap() gives the row in
+ * the original string form for code that still works with column-name maps.
+ */
+public final class EmployeeRecord {
+
+    private final String employeeId;
+    private final int numericId;          // -1 if the ID is not a number
+    private final String lastName;
+    private final String firstName;
+    private final LocalDate birthday;     // null if missing or invalid
+    private final String position;
+    private final String immediateSupervisor;
+    private final EmploymentStatus status;
+    private final boolean rankAndFile;
+
+    // Amounts; NaN when the column is missing or not a number
+    private final double basicSalary;
+    private final double riceSubsidy;
+    private final double phoneAllowance;
+    private final double clothingAllowance;
+    private final double grossSemiMonthlyRate;
+    private final double hourlyRate;
+
+    private final Map<String, String> fields;
+
+    /**
+     * Decodes a parsed employee row.
+     * @param record The row as column name to value
+     * @param position The position to use, which may have been inferred when the column held bad data
+     */
+    EmployeeRecord(Map<String, String> record, String position) {
+        Map<String, String> copy = new HashMap<>(record);
+        copy.put("Position", position);
+        this.fields = Collections.unmodifiableMap(copy);
+
+        this.employeeId = copy.getOrDefault("Employee ID", "");
+        this.numericId = parseId(employeeId);
+        this.lastName = copy.getOrDefault("Last Name", "");
+        this.firstName = copy.getOrDefault("First Name", "");
+        this.birthday = FieldDecoder.parseDate(copy.get("Birthday"));
+        this.position = position;
+        this.immediateSupervisor = copy.getOrDefault("Immediate Supervisor", "");
+        this.status = EmploymentStatus.fromText(copy.get("Status"));
+        this.rankAndFile = position.toLowerCase().contains("rank and file");
+
+        this.basicSalary = FieldDecoder.decodeAmount(copy.get("Basic Salary"));
+        this.riceSubsidy = FieldDecoder.decodeAmount(copy.get("Rice Subsidy"));
+        this.phoneAllowance = FieldDecoder.decodeAmount(copy.get("Phone Allowance"));
+        this.clothingAllowance = FieldDecoder.decodeAmount(copy.get("Clothing Allowance"));
+        this.grossSemiMonthlyRate = FieldDecoder.decodeAmount(copy.get("Gross Semi-monthly Rate"));
+        this.hourlyRate = FieldDecoder.decodeAmount(copy.get("Hourly Rate"));
+    }
+
+    public String getEmployeeId() { return employeeId; }
+    public int getNumericId() { return numericId; }
+    public String getLastName() { return lastName; }
+    public String getFirstName() { return firstName; }
+    public LocalDate getBirthday() { return birthday; }
+    public String getPosition() { return position; }
+    public String getImmediateSupervisor() { return immediateSupervisor; }
+    public EmploymentStatus getStatus() { return status; }
+
+    /**
+     * Whether the position is a Rank and File one, which makes the employee eligible for overtime pay.
+     */
+    public boolean isRankAndFile() { return rankAndFile; }
+
+    // Amount accessors; each returns NaN if the column was missing or not a number
+    public double getBasicSalary() { return basicSalary; }
+    public double getRiceSubsidy() { return riceSubsidy; }
+    public double getPhoneAllowance() { return phoneAllowance; }
+    public double getClothingAllowance() { return clothingAllowance; }
+    public double getGrossSemiMonthlyRate() { return grossSemiMonthlyRate; }
+    public double getHourlyRate() { return hourlyRate; }
+
+    /**
+     * Returns an amount, or 0 if it was missing or not a number.
+     * @param amount A value returned by one of the amount accessors
+     * @return The amount, or 0.0 for NaN
+     */
+    public static double orZero(double amount) {
+        return Double.isNaN(amount) ? 0.0 : amount;
+    }
+
+    /**
+     * Returns the raw text of a column, as it was in the CSV.
+     * @param columnName The column name, e.g. "Hourly Rate"
+     * @return The value, or null if the column is missing
+     */
+    public String get(String columnName) {
+        return fields.get(columnName);
+    }
+
+    /**
+     * Read-only view of the row keyed by column name, with the same string values the CSV holds.
+     * @return An unmodifiable map
+     */
+    public Map<String, String> asMap() {
+        return fields;
+    }
+
+    private static int parseId(String text) {
+        if (text.isEmpty() || text.length() > 9) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
@@ -0,0 +1,259 @@
+package CSV;
+
+import java.time.LocalDate;
+
+/**
+ * Hand-written decoders for the fixed-format fields of the CSV files: dates, H:mm times and amounts such as
+ * "90,000". They read the characters directly instead of going through DateTimeFormatter or regular
+ * expressions, and do not allocate.
+ * <p>
+ * Dates are written month first by this application (MM/dd/yyyy, always two digits each), but the hand-entered
+ * rows of the leave request file are day first without padding ("14/1/2024", "6/12/2024"). Each date is
+ * resolved on its own: a first part above 12 can only be a day and a second part above 12 can only be a day,
+ * and otherwise zero-padded dates are read month first and unpadded dates day first.
+ */
+public final class FieldDecoder {
+
+    /** Returned for a field that is not blank but cannot be decoded. */
+    public static final int INVALID = Integer.MIN_VALUE;
+
+    // LocalDates handed out for epoch days in this range are shared instead of created per call
+    private static final int CACHE_FIRST_DAY = (int) epochDay(1950, 1, 1);
+    private static final int CACHE_LAST_DAY = (int) epochDay(2049, 12, 31);
+    private static final LocalDate[] DATE_CACHE = new LocalDate[CACHE_LAST_DAY - CACHE_FIRST_DAY + 1];
+
+    // Powers of ten that are exact doubles; dividing an exact mantissa by one rounds the same as Double.parseDouble
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    private FieldDecoder() {
+    }
+
+    /**
+     * Decodes a date such as "06/03/2024" or "14/1/2024" to days since 1970-01-01. Surrounding whitespace is
+     * ignored. A day past the end of its month becomes the month's last day, as with DateTimeFormatter's
+     * default resolving.
+     * @param text The field text
+     * @return The epoch day, AttendanceTable.NO_DATE if the field is blank, or INVALID
+     */
+    public static int decodeDate(CharSequence text) {
+        int start = trimmedStart(text);
+        int end = trimmedEnd(text, start);
+        if (start == end) {
+            return AttendanceTable.NO_DATE;
+        }
+        int firstSlash = indexOf(text, '/', start, end);
+        int secondSlash = firstSlash < 0 ? -1 : indexOf(text, '/', firstSlash + 1, end);
+        if (secondSlash < 0) {
+            return INVALID;
+        }
+        int firstLength = firstSlash - start;
+        int secondLength = secondSlash - firstSlash - 1;
+        if (firstLength < 1 || firstLength > 2 || secondLength < 1 || secondLength > 2 || end - secondSlash - 1 != 4) {
+            return INVALID;
+        }
+        int first = digits(text, start, firstSlash);
+        int second = digits(text, firstSlash + 1, secondSlash);
+        int year = digits(text, secondSlash + 1, end);
+        if (first < 0 || second < 0 || year < 0) {
+            return INVALID;
+        }
+
+        boolean dayFirst;
+        if (first > 12) {
+            dayFirst = true;
+        } else if (second > 12) {
+            dayFirst = false;
+        } else {
+            dayFirst = firstLength == 1 || secondLength == 1;
+        }
+        int month = dayFirst ? second : first;
+        int day = dayFirst ? first : second;
+        if (month < 1 || month > 12 || day < 1 || day > 31) {
+            return INVALID;
+        }
+        return (int) epochDay(year, month, Math.min(day, lengthOfMonth(year, month)));
+    }
+
+    /**
+     * Decodes an H:mm or HH:mm time to minutes since midnight. Surrounding whitespace is ignored.
+     * @param text The field text
+     * @return The minute of day, AttendanceTable.NO_TIME if the field is blank, or INVALID
+     */
+    public static int decodeTime(CharSequence text) {
+        int start = trimmedStart(text);
+        int end = trimmedEnd(text, start);
+        if (start == end) {
+            return AttendanceTable.NO_TIME;
+        }
+        int length = end - start;
+        if ((length != 4 && length != 5) || text.charAt(end - 3) != ':') {
+            return INVALID;
+        }
+        int hour = digits(text, start, end - 3);
+        int minute = digits(text, end - 2, end);
+        if (hour == 24 && minute == 0) {
+            return 0; // midnight written as the end of the day, as DateTimeFormatter reads it
+        }
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59) {
+            return INVALID;
+        }
+        return hour * 60 + minute;
+    }
+
+    /**
+     * Decodes amounts such as "90,000" or "535.71". Thousands separators and any other characters that are
+     * not digits or a decimal point are skipped (the same cleanup the payroll screens did).
+     * @param text The field text, or null
+     * @return The amount, or NaN if there are no digits or more than one decimal point
+     */
+    public static double decodeAmount(CharSequence text) {
+        if (text == null) {
+            return Double.NaN;
+        }
+        long mantissa = 0;
+        int digitCount = 0;
+        int scale = -1; // digits after the decimal point, or -1 before it
+        boolean overflow = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (mantissa >= MAX_EXACT_MANTISSA / 10) {
+                    overflow = true;
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                digitCount++;
+                if (scale >= 0) {
+                    scale++;
+                }
+            } else if (c == '.') {
+                if (scale >= 0) {
+                    return Double.NaN;
+                }
+                scale = 0;
+            }
+        }
+        if (digitCount == 0) {
+            return Double.NaN;
+        }
+        if (scale < 0) {
+            scale = 0;
+        }
+        if (overflow || scale >= POWERS_OF_TEN.length) {
+            return parseCleanedAmount(text);
+        }
+        return mantissa / POWERS_OF_TEN[scale];
+    }
+
+    /**
+     * Returns the LocalDate for an epoch day. Dates from 1950 to 2049 are created once and shared.
+     * @param epochDay Days since 1970-01-01
+     * @return The date
+     */
+    public static LocalDate toLocalDate(int epochDay) {
+        if (epochDay < CACHE_FIRST_DAY || epochDay > CACHE_LAST_DAY) {
+            return LocalDate.ofEpochDay(epochDay);
+        }
+        // LocalDate is immutable, so a racing thread at worst creates an equal instance
+        LocalDate date = DATE_CACHE[epochDay - CACHE_FIRST_DAY];
+        if (date == null) {
+            date = LocalDate.ofEpochDay(epochDay);
+            DATE_CACHE[epochDay - CACHE_FIRST_DAY] = date;
+        }
+        return date;
+    }
+
+    /**
+     * Decodes a date to a LocalDate.
+     * @param text The field text, or null
+     * @return The date, or null if the field is missing, blank or not a date
+     */
+    public static LocalDate parseDate(CharSequence text) {
+        if (text == null) {
+            return null;
+        }
+        int epochDay = decodeDate(text);
+        return epochDay == INVALID || epochDay == AttendanceTable.NO_DATE ? null : toLocalDate(epochDay);
+    }
+
+    static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+                return leap ? 29 : 28;
+            case 4: case 6: case 9: case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * Days since 1970-01-01 for a proleptic Gregorian date, without creating a LocalDate.
+     */
+    static long epochDay(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153L * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    /**
+     * Slow path for amounts too long to decode exactly with a long mantissa.
+     */
+    private static double parseCleanedAmount(CharSequence text) {
+        StringBuilder digits = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if ((c >= '0' && c <= '9') || c == '.') {
+                digits.append(c);
+            }
+        }
+        return Double.parseDouble(digits.toString());
+    }
+
+    /**
+     * Parses a run of ASCII digits, returning -1 if any character is not a digit.
+     */
+    private static int digits(CharSequence text, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static int indexOf(CharSequence text, char c, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int trimmedStart(CharSequence text) {
+        int start = 0;
+        while (start < text.length() && text.charAt(start) <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    private static int trimmedEnd(CharSequence text, int start) {
+        int end = text.length();
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+}
@@ -0,0 +1,487 @@
+package CSV;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead log for new leave requests, stored as "&lt;file name&gt;.wal" in the data directory of the leave
+ * request CSV (see CsvDataDirectory).
+ * <p>
+ * A submitted request is appended to the log as one CSV record and is durable once append() returns.
+ * A single writer thread takes every request queued while it was busy and writes them with one write and
+ * one fsync (group commit), so many employees submitting at once share the cost of a sync instead of each
+ * paying for their own. Logged requests are merged into the CSV file in the background, once the log has
+ * COMPACT_THRESHOLD entries or has been idle for COMPACT_DELAY_MILLIS: the CSV file is copied with the
+ * requests appended, synced and moved into place, and the log is then started over.
+ * <p>
+ * Each log entry carries a CRC32, so an entry torn by a crash is dropped when the log is reopened; its
+ * submitter never got an answer. The log header records the CSV file's size when the log was started, which
+ * tells a log whose requests were already merged (a crash just after the merge) from one still to be merged.
+ * <p>
+ * A log belongs to one process at a time: the first process to use it holds a lock on "&lt;file name&gt;.wal.lock"
+ * for as long as it runs, and only that process recovers, appends to and merges the log. Another process using the
+ * same CSV directory appends its requests straight to the CSV file under the file's write lock instead, and takes
+ * the log over once the owner has exited. The merge holds the CSV file's write lock (see CsvFileLock) from reading
+ * the file until the log is started over, so it does not interleave with other writers of the CSV file itself.
+ */
+public final class LeaveRequestLog {
+
+    static final String SUFFIX = ".wal";
+    static final String OWNER_SUFFIX = ".lock";
+
+    private static final int MAGIC = 0x4C52514C; // "LRQL"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16; // magic, version, CSV size when the log was started
+
+    // Merge into the CSV file once this many requests are logged, or after this long without a submission
+    private static final int COMPACT_THRESHOLD = 256;
+    private static final long COMPACT_DELAY_MILLIS = 5_000;
+
+    // CSV file path -> its log, so every processor in the process appends through the same writer
+    private static final Map<String, LeaveRequestLog> LOGS = new HashMap<>();
+
+    private final File csvFile;
+    private final File logFile;
+
+    // Guarded by this: held while this process owns the log; null while another process does
+    private FileChannel ownerChannel;
+    private FileLock ownerLock;
+
+    // Guarded by this: the open log, and the requests in it that are not in the CSV file yet, oldest first
+    private FileChannel channel; // null until the log file exists
+    private final List<String> entries = new ArrayList<>();
+    private long mergedSequence; // requests up to this sequence number are in the CSV file
+    private long syncCount;
+
+    // Appends waiting for the writer thread
+    private final Object queueLock = new Object();
+    private List<PendingAppend> queue = new ArrayList<>();
+    private Thread writer;
+
+    private LeaveRequestLog(File csvFile) {
+        this.csvFile = csvFile;
+        this.logFile = CsvDataDirectory.fileFor(csvFile, SUFFIX);
+    }
+
+    /**
+     * Returns the log of a leave request CSV file, opening it and recovering its entries on first use.
+     * @param csvFile The leave request CSV file
+     * @return The file's log
+     * @throws IOException If an existing log cannot be read
+     */
+    public static LeaveRequestLog forFile(File csvFile) throws IOException {
+        String key = csvFile.getCanonicalPath();
+        synchronized (LOGS) {
+            LeaveRequestLog log = LOGS.get(key);
+            if (log == null) {
+                log = new LeaveRequestLog(csvFile);
+                if (!log.claim()) {
+                    System.out.println("Leave request log of " + csvFile.getName() + " is in use by another process;"
+                            + " leave requests are written straight to the file");
+                }
+                if (log.hasEntries()) {
+                    synchronized (log.queueLock) {
+                        log.startWriter(); // merges the recovered requests once the log is idle
+                    }
+                }
+                LOGS.put(key, log);
+            }
+            return log;
+        }
+    }
+
+    /**
+     * Appends a leave request and waits until it is synced to disk.
+     * While another process owns the log, the request is appended straight to the CSV file instead.
+     * @param record The request as one CSV record, without a line break
+     * @return The request's sequence number, or the merged sequence number if it went straight to the CSV file
+     * @throws IOException If the request could not be written
+     */
+    public long append(String record) throws IOException {
+        if (!claim()) {
+            CsvFileLock lock = CsvFileLock.acquire(csvFile);
+            try {
+                CsvFileWriter.appendRecords(csvFile, Collections.singletonList(record));
+            } finally {
+                lock.close();
+            }
+            return getMergedSequence();
+        }
+        PendingAppend pending = new PendingAppend(record);
+        synchronized (queueLock) {
+            queue.add(pending);
+            startWriter();
+            queueLock.notifyAll();
+        }
+        try {
+            return pending.done.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while saving leave request", e);
+        }
+    }
+
+    /**
+     * Hands every logged request newer than a sequence number to a consumer, oldest first.
+     * Callers that need the CSV file and the log to agree should hold this log's lock while reading both.
+     * @param afterSequence The last sequence number the caller has already seen
+     * @param consumer Receives each record
+     * @return The sequence number of the newest logged request
+     */
+    public synchronized long replay(long afterSequence, Consumer<String> consumer) {
+        int first = (int) Math.max(0, afterSequence - mergedSequence);
+        for (int i = first; i < entries.size(); i++) {
+            consumer.accept(entries.get(i));
+        }
+        return mergedSequence + entries.size();
+    }
+
+    /**
+     * Sequence number of the newest request that has been merged into the CSV file.
+     */
+    public synchronized long getMergedSequence() {
+        return mergedSequence;
+    }
+
+    /**
+     * Number of fsyncs of the log so far; each one commits a whole group of requests.
+     */
+    public synchronized long getSyncCount() {
+        return syncCount;
+    }
+
+    /**
+     * Merges every logged request into the CSV file now and starts the log over.
+     * @throws IOException If the CSV file could not be rewritten; the requests then stay in the log
+     */
+    public synchronized void compact() throws IOException {
+        if (entries.isEmpty()) {
+            return;
+        }
+        Path csv = csvFile.toPath();
+        Path temp = CsvDataDirectory.createFileFor(csvFile, ".tmp").toPath();
+        // Held until the log is started over, so no other writer changes the file between the copy and the rename
+        CsvFileLock lock = CsvFileLock.acquire(csvFile);
+        try {
+            try (FileChannel in = FileChannel.open(csv, StandardOpenOption.READ);
+                 FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                         StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                long size = in.size();
+                for (long position = 0; position < size; ) {
+                    position += in.transferTo(position, size - position, out);
+                }
+                // The last row of a hand-edited file often has no line break
+                if (size > 0 && !endsWithLineBreak(in, size)) {
+                    CsvFileWriter.writeFully(out, ByteBuffer.wrap(new byte[]{'\n'}));
+                }
+                CsvFileWriter.writeFully(out, ByteBuffer.wrap(mergedBytes()));
+                out.force(true);
+            } catch (IOException e) {
+                Files.deleteIfExists(temp);
+                throw e;
+            }
+            CsvFileWriter.moveIntoPlace(temp, csv);
+
+            System.out.println("Merged " + entries.size() + " leave requests into " + csvFile.getName());
+            mergedSequence += entries.size();
+            entries.clear();
+            startLog(csvFile.length());
+        } finally {
+            lock.close();
+        }
+    }
+
+    /**
+     * Takes ownership of the log if no process owns it yet, recovering its entries.
+     * @return true if this process owns the log
+     * @throws IOException If the log is owned by this process but cannot be read
+     */
+    private synchronized boolean claim() throws IOException {
+        if (ownerLock != null) {
+            return true;
+        }
+        FileChannel lockChannel = FileChannel.open(CsvDataDirectory.createFileFor(csvFile, SUFFIX + OWNER_SUFFIX).toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = lockChannel.tryLock();
+        } catch (IOException | RuntimeException e) {
+            lockChannel.close();
+            throw e;
+        }
+        if (lock == null) {
+            lockChannel.close();
+            return false;
+        }
+        ownerChannel = lockChannel;
+        ownerLock = lock;
+        try {
+            CsvDataDirectory.adoptLegacyFile(csvFile, SUFFIX);
+            recover();
+        } catch (IOException | RuntimeException e) {
+            ownerLock = null;
+            ownerChannel = null;
+            lockChannel.close(); // releases the lock
+            throw e;
+        }
+        return true;
+    }
+
+    /**
+     * Reads the entries of an existing log, dropping a torn entry at its end and any entries that a crash
+     * after a merge left behind.
+     */
+    private synchronized void recover() throws IOException {
+        if (!logFile.isFile()) {
+            return;
+        }
+        channel = FileChannel.open(logFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Leave request log is too large: " + logFile);
+        }
+        ByteBuffer in = ByteBuffer.allocate((int) size);
+        while (in.hasRemaining() && channel.read(in) >= 0) {
+            // keep reading until the buffer is full
+        }
+        in.flip();
+        if (in.remaining() < HEADER_SIZE || in.getInt() != MAGIC || in.getInt() != VERSION) {
+            throw new IOException("Not a leave request log: " + logFile);
+        }
+        long startLength = in.getLong();
+
+        long validEnd = in.position();
+        try {
+            while (in.remaining() >= 8) {
+                int length = in.getInt();
+                int checksum = in.getInt();
+                byte[] bytes = new byte[length];
+                in.get(bytes);
+                if (checksum != checksum(bytes)) {
+                    break;
+                }
+                entries.add(new String(bytes, CsvFileWriter.CHARSET));
+                validEnd = in.position();
+            }
+        } catch (BufferUnderflowException | NegativeArraySizeException e) {
+            // torn entry at the end of the log
+        }
+        if (validEnd < size) {
+            System.err.println("Dropping incomplete entry at the end of " + logFile.getName());
+            channel.truncate(validEnd);
+            channel.force(true);
+        }
+        channel.position(validEnd);
+
+        if (!entries.isEmpty() && isMerged(startLength)) {
+            System.out.println("Leave requests in " + logFile.getName() + " were already merged; starting a new log");
+            mergedSequence += entries.size();
+            entries.clear();
+            startLog(csvFile.length());
+        }
+        if (!entries.isEmpty()) {
+            System.out.println("Recovered " + entries.size() + " leave requests from " + logFile.getName());
+        }
+    }
+
+    /**
+     * Checks whether the logged requests were appended to the CSV file since the log was started.
+     * Other processes may have appended requests of their own after the merge, so the part of the file written
+     * since the log was started is searched for them rather than just its end.
+     */
+    private boolean isMerged(long startLength) throws IOException {
+        byte[] merged = mergedBytes();
+        long length = csvFile.length();
+        if (length - startLength < merged.length || length - startLength > Integer.MAX_VALUE) {
+            return false;
+        }
+        ByteBuffer added = ByteBuffer.allocate((int) (length - startLength));
+        try (FileChannel in = FileChannel.open(csvFile.toPath(), StandardOpenOption.READ)) {
+            while (added.hasRemaining() && in.read(added, startLength + added.position()) >= 0) {
+                // keep reading until the buffer is full
+            }
+        }
+        byte[] bytes = added.array();
+        for (int start = 0; start + merged.length <= bytes.length; start++) {
+            // The merged requests begin on a new line
+            boolean lineStart = start == 0 || bytes[start - 1] == '\n';
+            if (lineStart && Arrays.equals(bytes, start, start + merged.length, merged, 0, merged.length)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Replaces the log with an empty one recording the CSV file's current size.
+     */
+    private void startLog(long csvLength) throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+        Path temp = new File(logFile.getPath() + ".tmp").toPath();
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putLong(csvLength).flip();
+            CsvFileWriter.writeFully(out, header);
+            out.force(true);
+        }
+        CsvFileWriter.moveIntoPlace(temp, logFile.toPath());
+        channel = FileChannel.open(logFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+    }
+
+    /**
+     * Starts the writer thread if it is not running. Must be called holding queueLock.
+     */
+    private void startWriter() {
+        if (writer == null) {
+            writer = new Thread(this::runWriter, "leave-request-log");
+            writer.setDaemon(true);
+            writer.start();
+        }
+    }
+
+    /**
+     * Writer thread: commits queued appends in groups and merges the log into the CSV file when it is
+     * large enough or idle.
+     */
+    private void runWriter() {
+        while (true) {
+            List<PendingAppend> batch = null;
+            synchronized (queueLock) {
+                if (queue.isEmpty()) {
+                    try {
+                        queueLock.wait(hasEntries() ? COMPACT_DELAY_MILLIS : 0);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (!queue.isEmpty()) {
+                    batch = queue;
+                    queue = new ArrayList<>();
+                }
+            }
+            if (batch != null) {
+                commit(batch);
+            }
+            if (batch == null || entryCount() >= COMPACT_THRESHOLD) {
+                try {
+                    compact();
+                } catch (IOException e) {
+                    System.err.println("Could not merge leave requests into " + csvFile.getName() + " - " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes a group of appends with one write and one fsync, then answers every submitter.
+     */
+    private synchronized void commit(List<PendingAppend> batch) {
+        long start = -1;
+        try {
+            if (channel == null) {
+                startLog(csvFile.length());
+            }
+            start = channel.position();
+            int size = 0;
+            for (PendingAppend pending : batch) {
+                size += 8 + pending.bytes.length;
+            }
+            ByteBuffer out = ByteBuffer.allocate(size);
+            for (PendingAppend pending : batch) {
+                out.putInt(pending.bytes.length).putInt(checksum(pending.bytes)).put(pending.bytes);
+            }
+            out.flip();
+            CsvFileWriter.writeFully(channel, out);
+            channel.force(false);
+            syncCount++;
+        } catch (IOException e) {
+            System.err.println("Could not write leave request log " + logFile.getName() + " - " + e.getMessage());
+            if (start >= 0) {
+                try {
+                    channel.truncate(start);
+                    channel.position(start);
+                } catch (IOException ignored) {
+                    // a torn entry is dropped when the log is reopened
+                }
+            }
+            for (PendingAppend pending : batch) {
+                pending.done.completeExceptionally(e);
+            }
+            return;
+        }
+        for (PendingAppend pending : batch) {
+            entries.add(pending.record);
+            pending.done.complete(mergedSequence + entries.size());
+        }
+    }
+
+    private synchronized boolean hasEntries() {
+        return !entries.isEmpty();
+    }
+
+    private synchronized int entryCount() {
+        return entries.size();
+    }
+
+    /**
+     * The logged requests as they are appended to the CSV file, one line each.
+     */
+    private byte[] mergedBytes() {
+        StringBuilder text = new StringBuilder();
+        for (String entry : entries) {
+            text.append(entry).append('\n');
+        }
+        return text.toString().getBytes(CsvFileWriter.CHARSET);
+    }
+
+    private static boolean endsWithLineBreak(FileChannel in, long size) throws IOException {
+        ByteBuffer last = ByteBuffer.allocate(1);
+        in.read(last, size - 1);
+        byte b = last.get(0);
+        return b == '\n' || b == '\r';
+    }
+
+    private static int checksum(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * A record waiting for the writer thread, and the submitter's answer.
+     */
+    private static final class PendingAppend {
+        final String record;
+        final byte[] bytes;
+        final CompletableFuture<Long> done = new CompletableFuture<>();
+
+        PendingAppend(String record) {
+            this.record = record;
+            this.bytes = record.getBytes(CsvFileWriter.CHARSET);
+        }
+    }
+}
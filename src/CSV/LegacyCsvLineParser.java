@@ -0,0 +1,197 @@
+package CSV;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The line-based CSV parsers that CsvTokenizer replaced.
+ * They are kept so that the tokenizer can be benchmarked against them, and for the one case the tokenizer
+ * cannot handle: employee rows written without quotes, where addresses and amounts contain bare commas
+ * and have to be stitched back together from the known column layout.
+ */
+public final class LegacyCsvLineParser {
+
+    private LegacyCsvLineParser() {
+    }
+
+    /**
+     * Splits a CSV line into an array of values with context for determining parsing method.
+     * This improved version properly handles commas within fields.
+     */
+    public static String[] parseLine(String line, String context) {
+        // Only use special parsing for employee records
+        if (context.equals("employee") && (line.contains("Regular") || line.contains("Probationary"))) {
+            return parseEmployeeLine(line);
+        }
+        
+        List<String> values = new ArrayList<>();
+        StringBuilder currentValue = new StringBuilder();
+        boolean inQuotes = false;
+
+        for (char c : line.toCharArray()) {
+            if (c == '"') {
+                inQuotes = !inQuotes;
+            } else if (c == ',' && !inQuotes) {
+                values.add(currentValue.toString());
+                currentValue.setLength(0);
+            } else {
+                currentValue.append(c);
+            }
+        }
+        values.add(currentValue.toString());
+        return values.toArray(new String[0]);
+    }
+
+    /**
+     * Special parsing method for employee CSV lines which have a fixed format
+     * and contain numeric fields with commas as thousands separators.
+     * This version preserves commas in monetary values for display purposes.
+     */
+    public static String[] parseEmployeeLine(String line) {
+        // We know the exact format of employee data, so we'll parse it according to the expected format
+        String[] result = new String[19]; // 19 columns in the employee CSV
+
+        try {
+            // First check if the line contains quoted fields
+            if (line.contains("\"")) {
+                // Handle quoted fields with a more comprehensive parser
+                List<String> fields = new ArrayList<>();
+                StringBuilder currentField = new StringBuilder();
+                boolean inQuotes = false;
+
+                for (int i = 0; i < line.length(); i++) {
+                    char c = line.charAt(i);
+
+                    if (c == '"') {
+                        inQuotes = !inQuotes;
+                    } else if (c == ',' && !inQuotes) {
+                        // End of a field
+                        fields.add(currentField.toString());
+                        currentField = new StringBuilder();
+                    } else {
+                        currentField.append(c);
+                    }
+                }
+
+                // Add the last field
+                fields.add(currentField.toString());
+
+                // Copy to result array (trimming quotes if needed)
+                for (int i = 0; i < Math.min(fields.size(), result.length); i++) {
+                    String field = fields.get(i);
+                    result[i] = field.replaceAll("^\"|\"$", ""); // Remove surrounding quotes
+                }
+
+                return result;
+            }
+
+            // If no quotes, handle with the existing approach but preserve commas
+            String[] rawSplit = line.split(",");
+
+            // First fields are straightforward
+            result[0] = rawSplit[0]; // Employee ID
+            result[1] = rawSplit[1]; // Last Name
+            result[2] = rawSplit[2]; // First Name
+            result[3] = rawSplit[3]; // Birthday
+
+            // Handle address which may contain commas
+            StringBuilder address = new StringBuilder(rawSplit[4]);
+            int addressEndIndex = 5;
+            // Keep appending parts until we find the phone number pattern
+            while (addressEndIndex < rawSplit.length && 
+                   !rawSplit[addressEndIndex].trim().matches("\\d{3}-\\d{3}-\\d{3}")) {
+                address.append(",").append(rawSplit[addressEndIndex]);
+                addressEndIndex++;
+            }
+            result[4] = address.toString(); // Address
+
+            // Continue with remaining fields
+            result[5] = rawSplit[addressEndIndex++]; // Phone Number
+            result[6] = rawSplit[addressEndIndex++]; // SSS #
+            result[7] = rawSplit[addressEndIndex++]; // Philhealth #
+            result[8] = rawSplit[addressEndIndex++]; // TIN #
+            result[9] = rawSplit[addressEndIndex++]; // Pag-ibig #
+            result[10] = rawSplit[addressEndIndex++]; // Status
+            result[11] = rawSplit[addressEndIndex++]; // Position
+
+            // Supervisor name may contain a comma
+            StringBuilder supervisor = new StringBuilder(rawSplit[addressEndIndex++]);
+            if (addressEndIndex < rawSplit.length && 
+                !rawSplit[addressEndIndex].trim().matches("\\d+")) {
+                supervisor.append(",").append(rawSplit[addressEndIndex++]);
+            }
+            result[12] = supervisor.toString(); // Immediate Supervisor
+
+            // For monetary fields, we need to reconstruct them to preserve the commas
+            // Start with Basic Salary (field 13)
+            if (addressEndIndex < rawSplit.length) {
+                StringBuilder amount = new StringBuilder(rawSplit[addressEndIndex++]);
+                // Look ahead for the next part if it looks like a continuation of a number with commas
+                if (addressEndIndex < rawSplit.length && rawSplit[addressEndIndex].trim().matches("\\d{3}")) {
+                    amount.append(",").append(rawSplit[addressEndIndex++]);
+                }
+                result[13] = amount.toString(); // Basic Salary WITH commas
+            }
+
+            // Rice Subsidy (field 14)
+            if (addressEndIndex < rawSplit.length) {
+                StringBuilder amount = new StringBuilder(rawSplit[addressEndIndex++]);
+                if (addressEndIndex < rawSplit.length && rawSplit[addressEndIndex].trim().matches("\\d{3}")) {
+                    amount.append(",").append(rawSplit[addressEndIndex++]);
+                }
+                result[14] = amount.toString(); // Rice Subsidy WITH commas
+            }
+
+            // Phone Allowance (field 15)
+            if (addressEndIndex < rawSplit.length) {
+                StringBuilder amount = new StringBuilder(rawSplit[addressEndIndex++]);
+                if (addressEndIndex < rawSplit.length && rawSplit[addressEndIndex].trim().matches("\\d{3}")) {
+                    amount.append(",").append(rawSplit[addressEndIndex++]);
+                }
+                result[15] = amount.toString(); // Phone Allowance WITH commas
+            }
+
+            // Clothing Allowance (field 16)
+            if (addressEndIndex < rawSplit.length) {
+                StringBuilder amount = new StringBuilder(rawSplit[addressEndIndex++]);
+                if (addressEndIndex < rawSplit.length && rawSplit[addressEndIndex].trim().matches("\\d{3}")) {
+                    amount.append(",").append(rawSplit[addressEndIndex++]);
+                }
+                result[16] = amount.toString(); // Clothing Allowance WITH commas
+            }
+
+            // Gross Semi-monthly Rate (field 17)
+            if (addressEndIndex < rawSplit.length) {
+                StringBuilder amount = new StringBuilder(rawSplit[addressEndIndex++]);
+                if (addressEndIndex < rawSplit.length && rawSplit[addressEndIndex].trim().matches("\\d{3}")) {
+                    amount.append(",").append(rawSplit[addressEndIndex++]);
+                }
+                result[17] = amount.toString(); // Gross Semi-monthly Rate WITH commas
+            }
+
+            // Hourly Rate (field 18)
+            if (addressEndIndex < rawSplit.length) {
+                StringBuilder amount = new StringBuilder(rawSplit[addressEndIndex++]);
+                if (addressEndIndex < rawSplit.length && rawSplit[addressEndIndex].trim().matches("\\d{3}")) {
+                    amount.append(",").append(rawSplit[addressEndIndex++]);
+                }
+                result[18] = amount.toString(); // Hourly Rate WITH commas
+            }
+
+            return result;
+        } catch (Exception e) {
+            System.err.println("Error parsing employee CSV line: " + line);
+            e.printStackTrace();
+
+            // Fallback to basic parsing if special parsing fails
+            String[] basicSplit = line.split(",");
+
+            // Just copy what we can
+            for (int i = 0; i < Math.min(basicSplit.length, result.length); i++) {
+                result[i] = basicSplit[i];
+            }
+
+            return result;
+        }
+    }
+}
@@ -0,0 +1,721 @@
+package CSV;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.IntStream;
+
+/**
+ * Reads the attendance CSV straight from a memory-mapped file into an AttendanceTable.
+ * Fields are tokenized over the mapped bytes; employee IDs, dates and times are decoded in place and
+ * only the name fields (which are kept) become Strings, once per distinct name per employee.
+ * Fields that are not in the expected fixed format are decoded through the same String-based
+ * parsers as the BufferedReader path, so both paths produce the same rows.
+ * Large files are split into record-aligned byte ranges that are parsed in parallel and merged in file order.
+ * A partition pass finds the byte ranges of each month's rows, so a single month can later be parsed on its own.
+ */
+class MappedAttendanceScanner {
+
+    // Fixed column order of the attendance CSV
+    private static final int EMPLOYEE_ID = 0;
+    private static final int LAST_NAME = 1;
+    private static final int FIRST_NAME = 2;
+    private static final int DATE = 3;
+    private static final int LOG_IN = 4;
+    private static final int LOG_OUT = 5;
+    private static final int FIELD_COUNT = 6;
+
+    // Files smaller than this are always parsed on the calling thread
+    private static final long PARALLEL_THRESHOLD_BYTES = 4L * 1024 * 1024;
+    private static final long MIN_CHUNK_BYTES = 1024 * 1024;
+    private static final int CHUNKS_PER_THREAD = 4; // extra chunks let faster threads steal work
+
+    private final ByteBuffer buffer;
+    private final AttendanceTable table;
+    private final Charset charset = Charset.defaultCharset(); // same charset the reader path decodes with
+
+    // Bounds of the current record's fields
+    private final int[] fieldStart = new int[FIELD_COUNT];
+    private final int[] fieldEnd = new int[FIELD_COUNT];
+    private final boolean[] fieldQuoted = new boolean[FIELD_COUNT];
+    private int fieldCount;
+    private boolean recordTerminated; // whether the last tokenized record ended with a newline
+
+    // Position after the last newline-terminated record, and rows appended after it
+    private int completeEnd;
+    private int pendingRows;
+
+    // Scratch space for turning bytes into Strings
+    private byte[] scratch = new byte[256];
+
+    // Employee ID -> the name Strings last seen for that employee, reused while the bytes match
+    private final Map<Integer, CachedName> namesByEmployee = new HashMap<>();
+
+    private MappedAttendanceScanner(ByteBuffer buffer, AttendanceTable table) {
+        this.buffer = buffer;
+        this.table = table;
+    }
+
+    /**
+     * Maps the file and appends every data row (header skipped) to the table.
+     * @param file The attendance CSV file
+     * @param table The table to append rows to
+     * @param parallelism Number of threads to parse with; files under the parallel threshold use one
+     * @return Where the scan stopped and how many rows it appended
+     * @throws IOException If the file cannot be mapped
+     */
+    static ScanResult scanFile(File file, AttendanceTable table, int parallelism) throws IOException {
+        return scanFile(file, 0, table, parallelism);
+    }
+
+    /**
+     * Maps the file and appends every row that starts at or after the given byte offset to the table.
+     * An offset of 0 means the whole file, with the header line skipped; any other offset must be the
+     * start of a record, such as the completeEnd of an earlier scan.
+     * @param file The attendance CSV file
+     * @param startOffset Byte offset to start reading from
+     * @param table The table to append rows to
+     * @param parallelism Number of threads to parse with; files under the parallel threshold use one
+     * @return Where the scan stopped and how many rows it appended
+     * @throws IOException If the file cannot be mapped
+     */
+    static ScanResult scanFile(File file, long startOffset, AttendanceTable table, int parallelism) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File is too large to map in one piece: " + file);
+            }
+            if (startOffset > size) {
+                throw new IOException("Start offset " + startOffset + " is past the end of " + file);
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            MappedAttendanceScanner scanner = new MappedAttendanceScanner(buffer, table);
+            int firstRow = startOffset == 0 ? scanner.tokenizeRecord(0, (int) size) : (int) startOffset; // skip header line
+
+            int chunkCount = chunkCount(size - firstRow, parallelism);
+            if (chunkCount <= 1) {
+                int rows = scanner.scan(firstRow, (int) size);
+                return new ScanResult(rows, scanner.completeEnd, scanner.pendingRows, size);
+            }
+            return scanParallel(buffer, firstRow, (int) size, chunkCount, parallelism, table);
+        }
+    }
+
+    /**
+     * Maps one byte range of the file and appends the rows that start in it to the table.
+     * The range must begin at the start of a record, such as a range found by partitionFile.
+     * @param file The attendance CSV file
+     * @param start Byte offset of the first record
+     * @param end Byte offset just past the last record
+     * @param table The table to append rows to
+     * @param parallelism Number of threads to parse with; ranges under the parallel threshold use one
+     * @return The number of rows appended
+     * @throws IOException If the file cannot be mapped or is shorter than the range
+     */
+    static int scanRange(File file, long start, long end, AttendanceTable table, int parallelism) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (end > channel.size() || start > end || end - start > Integer.MAX_VALUE) {
+                throw new IOException("Byte range " + start + "-" + end + " is not within " + file);
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            int length = (int) (end - start);
+            int chunkCount = chunkCount(length, parallelism);
+            if (chunkCount <= 1) {
+                return new MappedAttendanceScanner(buffer, table).scan(0, length);
+            }
+            return scanParallel(buffer, 0, length, chunkCount, parallelism, table).rows;
+        }
+    }
+
+    /**
+     * Finds where each month's rows are in the file, decoding only the Employee ID and Date of each row.
+     * Neighbouring rows of the same month are merged into one range, so a date-sorted file yields one
+     * range per month.
+     * @param file The attendance CSV file
+     * @param startOffset Byte offset to start from: 0 for the whole file (header skipped), or the start of a record
+     * @param parallelism Number of threads to use; files under the parallel threshold use one
+     * @return The month ranges in file order, and where the pass stopped
+     * @throws IOException If the file cannot be mapped
+     */
+    static Partition partitionFile(File file, long startOffset, int parallelism) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File is too large to map in one piece: " + file);
+            }
+            if (startOffset > size) {
+                throw new IOException("Start offset " + startOffset + " is past the end of " + file);
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            MappedAttendanceScanner scanner = new MappedAttendanceScanner(buffer, null);
+            int firstRow = startOffset == 0 ? scanner.tokenizeRecord(0, (int) size) : (int) startOffset; // skip header line
+
+            int chunkCount = chunkCount(size - firstRow, parallelism);
+            if (chunkCount <= 1) {
+                List<MonthRange> ranges = new ArrayList<>();
+                int rows = scanner.partition(firstRow, (int) size, ranges);
+                return new Partition(ranges, new ScanResult(rows, scanner.completeEnd, scanner.pendingRows, size));
+            }
+            return partitionParallel(buffer, firstRow, (int) size, chunkCount, parallelism);
+        }
+    }
+
+    /**
+     * Number of chunks to split a scan of the given size into; 1 means the calling thread does it alone.
+     */
+    private static int chunkCount(long bytes, int parallelism) {
+        if (parallelism <= 1 || bytes < PARALLEL_THRESHOLD_BYTES) {
+            return 1;
+        }
+        return (int) Math.min((long) parallelism * CHUNKS_PER_THREAD, bytes / MIN_CHUNK_BYTES);
+    }
+
+    /**
+     * Parses [start, end) as independent chunks on a ForkJoin pool and appends the results in file order.
+     */
+    private static ScanResult scanParallel(ByteBuffer buffer, int start, int end, int chunkCount, int parallelism,
+                                           AttendanceTable table) {
+        int[] bounds = recordAlignedBounds(buffer, start, end, chunkCount);
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<ForkJoinTask<MappedAttendanceScanner>> tasks = new ArrayList<>();
+            for (int i = 0; i < chunkCount; i++) {
+                int chunkStart = bounds[i];
+                int chunkEnd = bounds[i + 1];
+                tasks.add(pool.submit(() -> {
+                    MappedAttendanceScanner chunkScanner = new MappedAttendanceScanner(buffer.duplicate(), new AttendanceTable());
+                    chunkScanner.scan(chunkStart, chunkEnd);
+                    return chunkScanner;
+                }));
+            }
+
+            // Join in submission order so rows keep their file order
+            int rows = 0;
+            MappedAttendanceScanner last = null;
+            for (int i = 0; i < chunkCount; i++) {
+                MappedAttendanceScanner chunkScanner = tasks.get(i).join();
+                table.addAll(chunkScanner.table);
+                rows += chunkScanner.table.size();
+                if (bounds[i] < bounds[i + 1]) {
+                    last = chunkScanner; // the last non-empty chunk holds the end of the file
+                }
+            }
+            return last == null
+                    ? new ScanResult(rows, start, 0, end)
+                    : new ScanResult(rows, last.completeEnd, last.pendingRows, end);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Partitions [start, end) as independent chunks on a ForkJoin pool and joins the ranges in file order.
+     */
+    private static Partition partitionParallel(ByteBuffer buffer, int start, int end, int chunkCount, int parallelism) {
+        int[] bounds = recordAlignedBounds(buffer, start, end, chunkCount);
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<ForkJoinTask<MappedAttendanceScanner>> tasks = new ArrayList<>();
+            List<List<MonthRange>> chunkRanges = new ArrayList<>();
+            for (int i = 0; i < chunkCount; i++) {
+                int chunkStart = bounds[i];
+                int chunkEnd = bounds[i + 1];
+                List<MonthRange> ranges = new ArrayList<>();
+                chunkRanges.add(ranges);
+                tasks.add(pool.submit(() -> {
+                    MappedAttendanceScanner chunkScanner = new MappedAttendanceScanner(buffer.duplicate(), null);
+                    chunkScanner.partition(chunkStart, chunkEnd, ranges);
+                    return chunkScanner;
+                }));
+            }
+
+            int rows = 0;
+            List<MonthRange> ranges = new ArrayList<>();
+            MappedAttendanceScanner last = null;
+            for (int i = 0; i < chunkCount; i++) {
+                MappedAttendanceScanner chunkScanner = tasks.get(i).join();
+                for (MonthRange range : chunkRanges.get(i)) {
+                    rows += range.rows;
+                    MonthRange previous = ranges.isEmpty() ? null : ranges.get(ranges.size() - 1);
+                    if (previous != null && previous.monthKey == range.monthKey && previous.end == range.start) {
+                        previous.end = range.end; // a month that runs across a chunk boundary
+                        previous.rows += range.rows;
+                    } else {
+                        ranges.add(range);
+                    }
+                }
+                if (bounds[i] < bounds[i + 1]) {
+                    last = chunkScanner;
+                }
+            }
+            ScanResult result = last == null
+                    ? new ScanResult(rows, start, 0, end)
+                    : new ScanResult(rows, last.completeEnd, last.pendingRows, end);
+            return new Partition(ranges, result);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Splits [start, end) into chunks that each begin at the start of a record.
+     * A newline only ends a record when it is outside quotes, so the quote state at each nominal split
+     * point is worked out first: the quote count of every nominal chunk is taken in parallel, and the
+     * running parity of those counts gives the state at each split.
+     * @return chunkCount + 1 positions; chunk i is [bounds[i], bounds[i + 1])
+     */
+    private static int[] recordAlignedBounds(ByteBuffer buffer, int start, int end, int chunkCount) {
+        int[] nominal = new int[chunkCount + 1];
+        for (int i = 0; i <= chunkCount; i++) {
+            nominal[i] = (int) (start + (long) (end - start) * i / chunkCount);
+        }
+
+        boolean[] oddQuotes = new boolean[chunkCount];
+        IntStream.range(0, chunkCount).parallel().forEach(i -> {
+            int quotes = 0;
+            for (int p = nominal[i]; p < nominal[i + 1]; p++) {
+                if (buffer.get(p) == '"') {
+                    quotes++;
+                }
+            }
+            oddQuotes[i] = (quotes & 1) == 1;
+        });
+
+        int[] bounds = new int[chunkCount + 1];
+        bounds[0] = start;
+        bounds[chunkCount] = end;
+        boolean inQuotes = false;
+        for (int i = 1; i < chunkCount; i++) {
+            inQuotes ^= oddQuotes[i - 1];
+
+            // A record that started before the previous split ran past this one: leave this chunk empty
+            if (bounds[i - 1] >= nominal[i]) {
+                bounds[i] = bounds[i - 1];
+                continue;
+            }
+
+            // Move forward to just past the first newline that is outside quotes
+            boolean quoted = inQuotes;
+            int p = nominal[i];
+            while (p < end) {
+                byte b = buffer.get(p++);
+                if (b == '"') {
+                    quoted = !quoted;
+                } else if (b == '\n' && !quoted) {
+                    break;
+                }
+            }
+            bounds[i] = p;
+        }
+        return bounds;
+    }
+
+    /**
+     * Parses every record that starts in [start, end).
+     * @return The number of rows appended to the table
+     */
+    private int scan(int start, int end) {
+        int rows = 0;
+        int position = start;
+        completeEnd = start;
+        pendingRows = 0;
+        while (position < end) {
+            int next = tokenizeRecord(position, end);
+            boolean appended = !isBlankRecord() && appendRecord(position, next);
+            if (appended) {
+                rows++;
+            }
+
+            // A record with no newline yet may still be being written; remember it so it can be re-read
+            if (recordTerminated) {
+                completeEnd = next;
+                pendingRows = 0;
+            } else if (appended) {
+                pendingRows++;
+            }
+            position = next;
+        }
+        return rows;
+    }
+
+    /**
+     * Records the month of every record that starts in [start, end), without building rows.
+     * Counts rows, completeEnd and pendingRows exactly as scan does.
+     * @return The number of rows scan would append
+     */
+    private int partition(int start, int end, List<MonthRange> ranges) {
+        int rows = 0;
+        int position = start;
+        completeEnd = start;
+        pendingRows = 0;
+        while (position < end) {
+            int next = tokenizeRecord(position, end);
+            boolean isRow = !isBlankRecord() && decodeEmployeeId() >= 0;
+            int monthKey = isBlankRecord() ? -1 : AttendanceSegmentCatalog.monthKey(decodeDateQuietly());
+            MonthRange last = ranges.isEmpty() ? null : ranges.get(ranges.size() - 1);
+            if (last != null && last.end == position && (monthKey < 0 || monthKey == last.monthKey)) {
+                last.end = next; // blank lines and rows of the same month extend the current range
+            } else if (monthKey >= 0) {
+                last = new MonthRange(monthKey, position, next);
+                ranges.add(last);
+            }
+            if (isRow) {
+                rows++;
+                last.rows++;
+            }
+
+            if (recordTerminated) {
+                completeEnd = next;
+                pendingRows = 0;
+            } else if (isRow) {
+                pendingRows++;
+            }
+            position = next;
+        }
+        return rows;
+    }
+
+    /**
+     * Splits one record into field bounds. Commas and newlines inside quotes do not end a field.
+     * @return The position just after the record's terminating newline (or end)
+     */
+    private int tokenizeRecord(int position, int end) {
+        fieldCount = 0;
+        recordTerminated = false;
+        int start = position;
+        boolean inQuotes = false;
+        boolean quoted = false;
+        while (position < end) {
+            byte b = buffer.get(position);
+            if (b == '"') {
+                inQuotes = !inQuotes;
+                quoted = true;
+            } else if (!inQuotes && (b == ',' || b == '\n')) {
+                addField(start, position, quoted);
+                position++;
+                if (b == '\n') {
+                    recordTerminated = true;
+                    return position;
+                }
+                start = position;
+                quoted = false;
+                continue;
+            }
+            position++;
+        }
+        addField(start, position, quoted);
+        return position;
+    }
+
+    private void addField(int start, int end, boolean quoted) {
+        if (fieldCount < FIELD_COUNT) {
+            fieldStart[fieldCount] = start;
+            fieldEnd[fieldCount] = end;
+            fieldQuoted[fieldCount] = quoted;
+        }
+        fieldCount++;
+    }
+
+    private boolean isBlankRecord() {
+        return fieldCount == 1 && trimmedEnd(0) <= trimmedStart(0);
+    }
+
+    /**
+     * Decodes the current record and appends it to the table.
+     * @return true if a row was appended
+     */
+    private boolean appendRecord(int recordStart, int recordEnd) {
+        int employeeId = decodeEmployeeId();
+        if (employeeId < 0) {
+            System.err.println("Skipping attendance row with invalid Employee ID: "
+                    + decodeRaw(recordStart, recordEnd).trim());
+            return false;
+        }
+        CachedName name = cachedName(employeeId);
+        table.add(employeeId, decodeDate(), decodeTime(LOG_IN), decodeTime(LOG_OUT),
+                name.lastName, name.firstName);
+        return true;
+    }
+
+    private int decodeEmployeeId() {
+        if (!fieldQuoted[EMPLOYEE_ID] && EMPLOYEE_ID < fieldCount) {
+            int start = trimmedStart(EMPLOYEE_ID);
+            int end = trimmedEnd(EMPLOYEE_ID);
+            if (end > start && end - start <= 9) {
+                int value = 0;
+                for (int i = start; i < end; i++) {
+                    int digit = buffer.get(i) - '0';
+                    if (digit < 0 || digit > 9) {
+                        return decodeEmployeeIdSlow();
+                    }
+                    value = value * 10 + digit;
+                }
+                return value;
+            }
+        }
+        return decodeEmployeeIdSlow();
+    }
+
+    private int decodeEmployeeIdSlow() {
+        try {
+            int value = Integer.parseInt(fieldString(EMPLOYEE_ID));
+            return value < 0 ? -1 : value;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Decodes an MM/dd/yyyy date field to an epoch day.
+     */
+    private int decodeDate() {
+        int epochDay = decodeFixedDate();
+        return epochDay != FieldDecoder.INVALID ? epochDay : CSVDatabaseProcessor.decodeDate(fieldString(DATE));
+    }
+
+    /**
+     * Decodes the date field like decodeDate, but without reporting invalid dates, which are reported
+     * when their rows are parsed.
+     */
+    private int decodeDateQuietly() {
+        int epochDay = decodeFixedDate();
+        if (epochDay == FieldDecoder.INVALID) {
+            epochDay = FieldDecoder.decodeDate(fieldString(DATE));
+        }
+        return epochDay == FieldDecoder.INVALID ? AttendanceTable.NO_DATE : epochDay;
+    }
+
+    /**
+     * Decodes a date field in the fixed MM/dd/yyyy layout in place.
+     * @return The epoch day, or FieldDecoder.INVALID if the field is not in that layout
+     */
+    private int decodeFixedDate() {
+        int start = trimmedStart(DATE);
+        int end = trimmedEnd(DATE);
+        if (DATE < fieldCount && !fieldQuoted[DATE] && end - start == 10
+                && buffer.get(start + 2) == '/' && buffer.get(start + 5) == '/') {
+            int month = digits(start, 2);
+            int day = digits(start + 3, 2);
+            int year = digits(start + 6, 4);
+            if (month >= 1 && month <= 12 && day >= 1 && day <= 31 && year >= 0) {
+                // Same as the formatter's smart resolving: a day past month end becomes the last day
+                day = Math.min(day, FieldDecoder.lengthOfMonth(year, month));
+                return (int) FieldDecoder.epochDay(year, month, day);
+            }
+        }
+        return FieldDecoder.INVALID;
+    }
+
+    /**
+     * Decodes an H:mm time field to a minute of day.
+     */
+    private int decodeTime(int field) {
+        int start = trimmedStart(field);
+        int end = trimmedEnd(field);
+        int length = end - start;
+        if (field < fieldCount && !fieldQuoted[field] && (length == 4 || length == 5)
+                && buffer.get(end - 3) == ':') {
+            int hour = digits(start, length - 3);
+            int minute = digits(end - 2, 2);
+            if (hour >= 0 && hour <= 23 && minute >= 0 && minute <= 59) {
+                return hour * 60 + minute;
+            }
+        }
+        return CSVDatabaseProcessor.decodeTime(fieldString(field));
+    }
+
+    /**
+     * Parses a run of ASCII digits, returning -1 if any byte is not a digit.
+     */
+    private int digits(int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Returns the name Strings for this employee, creating new ones only when the row's bytes differ.
+     */
+    private CachedName cachedName(int employeeId) {
+        CachedName name = namesByEmployee.get(employeeId);
+        if (name == null || !name.matches(this)) {
+            name = new CachedName(fieldBytes(LAST_NAME), fieldBytes(FIRST_NAME),
+                    fieldString(LAST_NAME), fieldString(FIRST_NAME));
+            namesByEmployee.put(employeeId, name);
+        }
+        return name;
+    }
+
+    private int trimmedStart(int field) {
+        if (field >= fieldCount) {
+            return 0;
+        }
+        int start = fieldStart[field];
+        int end = fieldEnd[field];
+        while (start < end && (buffer.get(start) & 0xFF) <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    private int trimmedEnd(int field) {
+        if (field >= fieldCount) {
+            return 0;
+        }
+        int start = fieldStart[field];
+        int end = fieldEnd[field];
+        while (end > start && (buffer.get(end - 1) & 0xFF) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    /**
+     * Raw bytes of a field, used to detect repeated names without creating Strings.
+     */
+    private byte[] fieldBytes(int field) {
+        if (field >= fieldCount) {
+            return new byte[0];
+        }
+        byte[] bytes = new byte[fieldEnd[field] - fieldStart[field]];
+        buffer.get(fieldStart[field], bytes);
+        return bytes;
+    }
+
+    private boolean fieldBytesEqual(int field, byte[] bytes) {
+        int length = field < fieldCount ? fieldEnd[field] - fieldStart[field] : 0;
+        if (length != bytes.length) {
+            return false;
+        }
+        int start = fieldStart[field];
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(start + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decodes a field the way CsvTokenizer does: quotes removed, a doubled quote inside a quoted
+     * section kept as one quote character, then trimmed.
+     */
+    private String fieldString(int field) {
+        if (field >= fieldCount) {
+            return "";
+        }
+        int length = 0;
+        boolean inQuotes = false;
+        int end = fieldEnd[field];
+        for (int i = fieldStart[field]; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b == '"') {
+                if (inQuotes && i + 1 < end && buffer.get(i + 1) == '"') {
+                    i++; // doubled quote
+                } else {
+                    inQuotes = !inQuotes;
+                    continue;
+                }
+            }
+            if (length == scratch.length) {
+                scratch = java.util.Arrays.copyOf(scratch, scratch.length * 2);
+            }
+            scratch[length++] = b;
+        }
+        return new String(scratch, 0, length, charset).trim();
+    }
+
+    private String decodeRaw(int start, int end) {
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        return new String(bytes, charset);
+    }
+
+    /**
+     * Name Strings for one employee together with the bytes they were decoded from.
+     */
+    private static final class CachedName {
+        final byte[] lastNameBytes;
+        final byte[] firstNameBytes;
+        final String lastName;
+        final String firstName;
+
+        CachedName(byte[] lastNameBytes, byte[] firstNameBytes, String lastName, String firstName) {
+            this.lastNameBytes = lastNameBytes;
+            this.firstNameBytes = firstNameBytes;
+            this.lastName = lastName;
+            this.firstName = firstName;
+        }
+
+        boolean matches(MappedAttendanceScanner scanner) {
+            return scanner.fieldBytesEqual(LAST_NAME, lastNameBytes)
+                    && scanner.fieldBytesEqual(FIRST_NAME, firstNameBytes);
+        }
+    }
+
+    /**
+     * Byte range of consecutive rows of one month, with the number of rows in it.
+     */
+    static final class MonthRange {
+        final int monthKey;
+        final long start;
+        long end;
+        int rows;
+
+        MonthRange(int monthKey, long start, long end) {
+            this.monthKey = monthKey;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    /**
+     * Outcome of a partition pass: the month ranges in file order, and where the pass stopped.
+     */
+    static final class Partition {
+        final List<MonthRange> ranges;
+        final ScanResult result;
+
+        Partition(List<MonthRange> ranges, ScanResult result) {
+            this.ranges = ranges;
+            this.result = result;
+        }
+    }
+
+    /**
+     * Outcome of a scan.
+     * completeEnd is the byte offset just after the last newline-terminated record; pendingRows counts
+     * rows appended from after that offset (a last line with no newline yet). A later scan that starts
+     * at completeEnd must first drop those pending rows.
+     */
+    static final class ScanResult {
+        final int rows;
+        final long completeEnd;
+        final int pendingRows;
+        final long fileLength;
+
+        ScanResult(int rows, long completeEnd, int pendingRows, long fileLength) {
+            this.rows = rows;
+            this.completeEnd = completeEnd;
+            this.pendingRows = pendingRows;
+            this.fileLength = fileLength;
+        }
+    }
+}
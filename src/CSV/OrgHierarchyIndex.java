@@ -0,0 +1,308 @@
+package CSV;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reporting lines between employees, keyed by employee ID.
+ * Each "Immediate Supervisor" name is resolved to an Employee ID once, when the index is built. The reporting
+ * forest is stored as an Euler tour: an employee's direct and indirect reports occupy the tour positions right
+ * after the employee. Checking whether someone is in a supervisor's team is one interval comparison, and a team
+ * is listed by reading one slice of the tour. A supervisor change moves the employee's block of the tour
+ * instead of rebuilding the index: the move shifts part of the tour arrays, but no name is resolved again.
+ */
+class OrgHierarchyIndex {
+
+    private static final int NONE = -1;
+    private static final int AMBIGUOUS = -2;
+
+    // Node number -> Employee ID, and back
+    private final List<String> employeeIds = new ArrayList<>();
+    private final Map<String, Integer> nodes = new HashMap<>();
+
+    // Normalized "last first" and "first last" names -> node, or AMBIGUOUS if two employees share the name
+    private final Map<String, Integer> nodesByName = new HashMap<>();
+
+    private int[] parent = new int[0];   // node -> supervisor's node, or NONE
+    private int[] tour = new int[0];     // nodes in pre-order, each supervisor before its reports
+    private int[] position = new int[0]; // node -> its position in tour
+    private int[] size = new int[0];     // node -> nodes in its subtree, itself included
+
+    // Whether a supervisor link was ignored to break a cycle; such an index only changes by rebuilding
+    private boolean cycleBroken;
+
+    /**
+     * Rebuilds the index from the employee records, resolving every supervisor name.
+     * Names that match no employee, or more than one, leave the employee without a supervisor.
+     * @param employees The employee records, in file order
+     */
+    void rebuild(Collection<EmployeeRecord> employees) {
+        employeeIds.clear();
+        nodes.clear();
+        nodesByName.clear();
+        for (EmployeeRecord employee : employees) {
+            int node = employeeIds.size();
+            employeeIds.add(employee.getEmployeeId());
+            nodes.put(employee.getEmployeeId(), node);
+            addName(normalizeName(employee.getLastName() + " " + employee.getFirstName()), node);
+            addName(normalizeName(employee.getFirstName() + " " + employee.getLastName()), node);
+        }
+
+        int count = employeeIds.size();
+        parent = new int[count];
+        int node = 0;
+        for (EmployeeRecord employee : employees) {
+            int supervisor = resolve(employee.getImmediateSupervisor());
+            if (supervisor == NONE && isNamed(employee.getImmediateSupervisor())) {
+                System.err.println("Cannot resolve Immediate Supervisor '" + employee.getImmediateSupervisor()
+                        + "' of employee " + employee.getEmployeeId());
+            }
+            parent[node] = supervisor == node ? NONE : supervisor;
+            node++;
+        }
+        buildTour();
+    }
+
+    /**
+     * Changes an employee's supervisor, moving the employee and all their reports under the new supervisor.
+     * @param employeeId The employee
+     * @param supervisorName The new "Immediate Supervisor" value; blank or N/A for none
+     * @return false if nothing was changed and the index has to be rebuilt instead: the employee is unknown,
+     *         the new supervisor is one of the employee's own reports, or a cycle was broken when the index was built
+     */
+    boolean setSupervisor(String employeeId, String supervisorName) {
+        Integer moved = nodes.get(employeeId);
+        if (moved == null || cycleBroken) {
+            return false;
+        }
+        int v = moved;
+        int newParent = resolve(supervisorName);
+        if (newParent == v) {
+            newParent = NONE;
+        }
+        if (newParent != NONE && contains(v, newParent)) {
+            return false;
+        }
+        if (parent[v] == newParent) {
+            return true;
+        }
+
+        // Take the employee's block out of the tour
+        int blockSize = size[v];
+        int from = position[v];
+        for (int ancestor = parent[v]; ancestor != NONE; ancestor = parent[ancestor]) {
+            size[ancestor] -= blockSize;
+        }
+        int[] block = Arrays.copyOfRange(tour, from, from + blockSize);
+        int remaining = tour.length - blockSize;
+        System.arraycopy(tour, from + blockSize, tour, from, remaining - from);
+
+        // Put it back after the new supervisor's other reports, or at the end as a new root
+        int insertAt;
+        if (newParent == NONE) {
+            insertAt = remaining;
+        } else {
+            int parentPosition = position[newParent] > from ? position[newParent] - blockSize : position[newParent];
+            insertAt = parentPosition + size[newParent];
+        }
+        System.arraycopy(tour, insertAt, tour, insertAt + blockSize, remaining - insertAt);
+        System.arraycopy(block, 0, tour, insertAt, blockSize);
+        parent[v] = newParent;
+        for (int ancestor = newParent; ancestor != NONE; ancestor = parent[ancestor]) {
+            size[ancestor] += blockSize;
+        }
+
+        // Only the tour positions between the old and new place of the block have shifted
+        int low = Math.min(from, insertAt);
+        int high = Math.max(from, insertAt) + blockSize;
+        for (int i = low; i < high; i++) {
+            position[tour[i]] = i;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the Employee ID of an employee's supervisor.
+     * @return The supervisor's ID, or null if the employee has none or is unknown
+     */
+    String getSupervisorId(String employeeId) {
+        Integer node = nodes.get(employeeId);
+        return node == null || parent[node] == NONE ? null : employeeIds.get(parent[node]);
+    }
+
+    /**
+     * Returns the IDs of a supervisor's direct reports, in file order where unchanged. Takes O(k) for k reports.
+     */
+    List<String> getDirectReports(String supervisorId) {
+        Integer node = nodes.get(supervisorId);
+        if (node == null) {
+            return Collections.emptyList();
+        }
+        List<String> reports = new ArrayList<>();
+        int end = position[node] + size[node];
+        for (int i = position[node] + 1; i < end; i += size[tour[i]]) {
+            reports.add(employeeIds.get(tour[i]));
+        }
+        return reports;
+    }
+
+    /**
+     * Returns the IDs of everyone who reports to a supervisor directly or indirectly, each supervisor before
+     * their own reports. Takes O(k) for k reports.
+     */
+    List<String> getAllReports(String supervisorId) {
+        Integer node = nodes.get(supervisorId);
+        if (node == null) {
+            return Collections.emptyList();
+        }
+        List<String> reports = new ArrayList<>(size[node] - 1);
+        int end = position[node] + size[node];
+        for (int i = position[node] + 1; i < end; i++) {
+            reports.add(employeeIds.get(tour[i]));
+        }
+        return reports;
+    }
+
+    /**
+     * Number of direct and indirect reports of a supervisor, in O(1).
+     */
+    int countAllReports(String supervisorId) {
+        Integer node = nodes.get(supervisorId);
+        return node == null ? 0 : size[node] - 1;
+    }
+
+    /**
+     * Checks in O(1) whether an employee reports to a supervisor, directly or indirectly.
+     */
+    boolean isInTeam(String supervisorId, String employeeId) {
+        Integer supervisor = nodes.get(supervisorId);
+        Integer employee = nodes.get(employeeId);
+        return supervisor != null && employee != null && !supervisor.equals(employee) && contains(supervisor, employee);
+    }
+
+    /**
+     * Whether node lies in the subtree of root (a node is in its own subtree).
+     */
+    private boolean contains(int root, int node) {
+        return position[node] >= position[root] && position[node] < position[root] + size[root];
+    }
+
+    /**
+     * Lays out the tour from the parent links: roots in file order, each followed by its reports.
+     * Employees caught in a supervisor cycle are detached from their supervisor so that the tour stays a forest.
+     */
+    private void buildTour() {
+        int count = parent.length;
+
+        // Children of each node, in file order, as one array indexed by childStart
+        int[] childStart = new int[count + 1];
+        for (int node = 0; node < count; node++) {
+            if (parent[node] != NONE) {
+                childStart[parent[node] + 1]++;
+            }
+        }
+        for (int node = 0; node < count; node++) {
+            childStart[node + 1] += childStart[node];
+        }
+        int[] children = new int[childStart[count]];
+        int[] next = Arrays.copyOf(childStart, count);
+        for (int node = 0; node < count; node++) {
+            if (parent[node] != NONE) {
+                children[next[parent[node]]++] = node;
+            }
+        }
+
+        tour = new int[count];
+        position = new int[count];
+        size = new int[count];
+        cycleBroken = false;
+        boolean[] visited = new boolean[count];
+        int[] stack = new int[count];
+        int length = 0;
+        for (int pass = 0; pass < 2; pass++) {
+            for (int root = 0; root < count; root++) {
+                if (visited[root] || (pass == 0 && parent[root] != NONE)) {
+                    continue;
+                }
+                if (pass == 1) {
+                    // Not reachable from any root: the supervisor chain loops back to this employee
+                    System.err.println("Supervisor chain of employee " + employeeIds.get(root) + " forms a cycle; ignoring their supervisor");
+                    parent[root] = NONE;
+                    cycleBroken = true;
+                }
+                int depth = 0;
+                stack[depth++] = root;
+                while (depth > 0) {
+                    int node = stack[--depth];
+                    visited[node] = true;
+                    position[node] = length;
+                    tour[length++] = node;
+                    // Push children in reverse so they come out in file order
+                    for (int i = childStart[node + 1] - 1; i >= childStart[node]; i--) {
+                        if (!visited[children[i]]) {
+                            stack[depth++] = children[i];
+                        }
+                    }
+                }
+            }
+        }
+
+        for (int i = count - 1; i >= 0; i--) {
+            int node = tour[i];
+            size[node] += 1;
+            if (parent[node] != NONE) {
+                size[parent[node]] += size[node];
+            }
+        }
+    }
+
+    private void addName(String name, int node) {
+        Integer existing = nodesByName.putIfAbsent(name, node);
+        if (existing != null && existing != node) {
+            nodesByName.put(name, AMBIGUOUS);
+        }
+    }
+
+    /**
+     * Resolves an "Immediate Supervisor" value such as "Garcia, Manuel III" to a node.
+     * @return The node, or NONE if the value is blank, N/A, unknown or ambiguous
+     */
+    private int resolve(String supervisorName) {
+        if (!isNamed(supervisorName)) {
+            return NONE;
+        }
+        Integer node = nodesByName.get(normalizeName(supervisorName));
+        return node == null || node == AMBIGUOUS ? NONE : node;
+    }
+
+    private static boolean isNamed(String supervisorName) {
+        return supervisorName != null && !supervisorName.trim().isEmpty() && !supervisorName.trim().equalsIgnoreCase("N/A");
+    }
+
+    /**
+     * Lower case, with commas treated as spaces and runs of spaces collapsed, so "San Jose, Brad",
+     * "San, Jose Brad" and "san jose brad" all compare equal.
+     */
+    static String normalizeName(String name) {
+        StringBuilder normalized = new StringBuilder(name.length());
+        boolean space = false;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == ',' || Character.isWhitespace(c)) {
+                space = normalized.length() > 0;
+            } else {
+                if (space) {
+                    normalized.append(' ');
+                    space = false;
+                }
+                normalized.append(Character.toLowerCase(c));
+            }
+        }
+        return normalized.toString();
+    }
+}
@@ -0,0 +1,255 @@
+package CSV;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * One row of a dataset that was added, changed or removed on disk.
+ * Rows are matched by the dataset's key columns (the Employee ID, or for attendance the Employee ID and date),
+ * so a screen can find the row it shows and update just that row.
+ */
+public final class RowChange {
+
+    /**
+     * What happened to the row.
+     */
+    public enum Kind {
+        ADDED, UPDATED, REMOVED
+    }
+
+    private final Kind kind;
+    private final String key;
+    private final Map<String, String> oldRow;
+    private final Map<String, String> newRow;
+
+    private RowChange(Kind kind, String key, Map<String, String> oldRow, Map<String, String> newRow) {
+        this.kind = kind;
+        this.key = key;
+        this.oldRow = oldRow;
+        this.newRow = newRow;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * The values of the row's key columns, joined with "|"; the same before and after an update.
+     * @return The row key
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * The row before the change.
+     * @return The old row, or null if the row was added
+     */
+    public Map<String, String> getOldRow() {
+        return oldRow;
+    }
+
+    /**
+     * The row after the change.
+     * @return The new row, or null if the row was removed
+     */
+    public Map<String, String> getNewRow() {
+        return newRow;
+    }
+
+    /**
+     * The row as it is now, or as it was before it was removed.
+     * @return The new row, or the old row for a removal
+     */
+    public Map<String, String> getRow() {
+        return newRow != null ? newRow : oldRow;
+    }
+
+    @Override
+    public String toString() {
+        return kind + " " + key;
+    }
+
+    /**
+     * Compares the rows of a dataset before and after a reload.
+     * Removals come first, then additions and updates in the new file order. Rows that share a key are matched
+     * in file order, so the second row for a key is compared with the second row for that key.
+     * @param dataset The dataset, whose key columns identify rows
+     * @param before The rows before the reload
+     * @param after The rows after the reload
+     * @return The changes, empty if the rows are the same
+     */
+    static List<RowChange> diff(Dataset dataset, List<Map<String, String>> before, List<Map<String, String>> after) {
+        String[] keyColumns = dataset.keyColumns();
+        Map<String, Map<String, String>> oldRows = new HashMap<>(before.size() * 2);
+        Map<String, Integer> occurrences = new HashMap<>();
+        for (Map<String, String> row : before) {
+            oldRows.put(occurrenceKey(keyOf(row, keyColumns), occurrences), row);
+        }
+
+        List<RowChange> added = new ArrayList<>();
+        occurrences.clear();
+        for (Map<String, String> row : after) {
+            String key = keyOf(row, keyColumns);
+            Map<String, String> old = oldRows.remove(occurrenceKey(key, occurrences));
+            if (old == null) {
+                added.add(new RowChange(Kind.ADDED, key, null, row));
+            } else if (old != row && !old.equals(row)) {
+                added.add(new RowChange(Kind.UPDATED, key, old, row));
+            }
+        }
+        if (oldRows.isEmpty()) {
+            return added;
+        }
+
+        // The old rows left over were removed; list them in the old file order
+        List<RowChange> changes = new ArrayList<>(oldRows.size() + added.size());
+        occurrences.clear();
+        for (Map<String, String> row : before) {
+            String key = keyOf(row, keyColumns);
+            if (oldRows.containsKey(occurrenceKey(key, occurrences))) {
+                changes.add(new RowChange(Kind.REMOVED, key, row, null));
+            }
+        }
+        changes.addAll(added);
+        return changes;
+    }
+
+    /**
+     * Compares the attendance rows of two reloads, looking only at the months whose version differs between them.
+     * Rows are compared column by column, and only rows that changed are converted to text rows, so the result is
+     * what diff() gives for the text rows of every month, in the same order. A changed month that either reload
+     * did not load cannot be compared and is skipped.
+     * @param before The months of the earlier reload
+     * @param after The months of the later reload
+     * @return The changes, empty if the rows are the same
+     */
+    static List<RowChange> diffAttendance(AttendanceMonths before, AttendanceMonths after) {
+        Set<Integer> changedMonths = new TreeSet<>();
+        for (int monthKey : unionOf(before.getMonths().keySet(), after.getMonths().keySet())) {
+            AttendanceMonths.Month oldMonth = before.getMonths().get(monthKey);
+            AttendanceMonths.Month newMonth = after.getMonths().get(monthKey);
+            if (oldMonth != null && newMonth != null && oldMonth.version == newMonth.version) {
+                continue;
+            }
+            if ((oldMonth != null && !oldMonth.isLoaded()) || (newMonth != null && !newMonth.isLoaded())) {
+                System.err.println("Could not compare attendance for " + AttendanceSegmentCatalog.describe(monthKey)
+                        + "; it is not loaded");
+                continue;
+            }
+            changedMonths.add(monthKey);
+        }
+        if (changedMonths.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // Old rows of the changed months by (employee ID, date), in file order
+        AttendanceTable oldTable = before.getRows();
+        Map<Long, Deque<Integer>> oldRows = new HashMap<>();
+        for (AttendanceTable.Cursor cursor : cursorsOf(before, changedMonths)) {
+            while (cursor.next()) {
+                oldRows.computeIfAbsent(attendanceKey(cursor.employeeId(), cursor.epochDay()), k -> new ArrayDeque<>())
+                        .add(cursor.row());
+            }
+        }
+
+        String[] keyColumns = Dataset.ATTENDANCE.keyColumns();
+        BitSet matched = new BitSet(oldTable.size());
+        List<RowChange> added = new ArrayList<>();
+        for (AttendanceTable.Cursor cursor : cursorsOf(after, changedMonths)) {
+            while (cursor.next()) {
+                Deque<Integer> sameKey = oldRows.get(attendanceKey(cursor.employeeId(), cursor.epochDay()));
+                Integer old = sameKey == null ? null : sameKey.poll();
+                if (old == null) {
+                    Map<String, String> row = CsvDatasetStorage.toRow(cursor);
+                    added.add(new RowChange(Kind.ADDED, keyOf(row, keyColumns), null, row));
+                } else {
+                    matched.set(old);
+                    if (!isSameAttendance(oldTable, old, cursor)) {
+                        Map<String, String> row = CsvDatasetStorage.toRow(cursor);
+                        added.add(new RowChange(Kind.UPDATED, keyOf(row, keyColumns), attendanceRow(oldTable, old), row));
+                    }
+                }
+            }
+        }
+
+        // The old rows left over were removed; list them in the old order
+        List<RowChange> changes = new ArrayList<>();
+        for (AttendanceTable.Cursor cursor : cursorsOf(before, changedMonths)) {
+            while (cursor.next()) {
+                if (!matched.get(cursor.row())) {
+                    Map<String, String> row = CsvDatasetStorage.toRow(cursor);
+                    changes.add(new RowChange(Kind.REMOVED, keyOf(row, keyColumns), row, null));
+                }
+            }
+        }
+        changes.addAll(added);
+        return changes;
+    }
+
+    private static Set<Integer> unionOf(Set<Integer> first, Set<Integer> second) {
+        Set<Integer> union = new TreeSet<>(first);
+        union.addAll(second);
+        return union;
+    }
+
+    /**
+     * Cursors over the rows of the given months that the reload has, in month order.
+     */
+    private static List<AttendanceTable.Cursor> cursorsOf(AttendanceMonths months, Set<Integer> monthKeys) {
+        List<AttendanceTable.Cursor> cursors = new ArrayList<>();
+        for (int monthKey : monthKeys) {
+            AttendanceMonths.Month month = months.getMonths().get(monthKey);
+            if (month != null) {
+                cursors.add(months.getRows().cursor(month.firstRow, month.firstRow + month.rowCount));
+            }
+        }
+        return cursors;
+    }
+
+    private static long attendanceKey(int employeeId, int epochDay) {
+        return ((long) employeeId << 32) | (epochDay & 0xffffffffL);
+    }
+
+    private static boolean isSameAttendance(AttendanceTable table, int row, AttendanceTable.Cursor cursor) {
+        return table.getLogInMinute(row) == cursor.logInMinute()
+                && table.getLogOutMinute(row) == cursor.logOutMinute()
+                && table.getLastName(row).equals(cursor.lastName())
+                && table.getFirstName(row).equals(cursor.firstName());
+    }
+
+    private static Map<String, String> attendanceRow(AttendanceTable table, int row) {
+        AttendanceTable.Cursor cursor = table.cursor(row, row + 1);
+        cursor.next();
+        return CsvDatasetStorage.toRow(cursor);
+    }
+
+    private static String keyOf(Map<String, String> row, String[] keyColumns) {
+        if (keyColumns.length == 1) {
+            return row.getOrDefault(keyColumns[0], "");
+        }
+        StringBuilder key = new StringBuilder();
+        for (int i = 0; i < keyColumns.length; i++) {
+            if (i > 0) {
+                key.append('|');
+            }
+            key.append(row.getOrDefault(keyColumns[i], ""));
+        }
+        return key.toString();
+    }
+
+    /**
+     * The key with the number of earlier rows that had it, so rows sharing a key are matched in order.
+     */
+    private static String occurrenceKey(String key, Map<String, Integer> occurrences) {
+        int occurrence = occurrences.merge(key, 1, Integer::sum);
+        return occurrence == 1 ? key : key + '\0' + occurrence;
+    }
+}
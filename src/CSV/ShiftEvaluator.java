@@ -0,0 +1,67 @@
+package CSV;
+
+/**
+ * The shift rules for one attendance row, on minutes of the day as stored in AttendanceTable.
+ * Everything here is static and works on ints, so payroll loops can evaluate millions of rows without
+ * creating an object per row. AttendanceDetails and AttendanceAggregate both use these rules.
+ * Times are minutes since midnight, or AttendanceTable.NO_TIME when missing.
+ */
+public final class ShiftEvaluator {
+
+    public static final int SHIFT_START_MINUTE = 8 * 60;       // 8:00 AM
+    public static final int GRACE_END_MINUTE = 8 * 60 + 10;    // 8:10 AM; a log in after this is late
+    public static final int LUNCH_BREAK_MINUTES = 60;          // Unpaid lunch break
+    public static final int STANDARD_WORK_MINUTES = 8 * 60;    // Minutes beyond this are overtime
+
+    private static final int LAST_MINUTE = 23 * 60 + 59;
+
+    private ShiftEvaluator() {
+    }
+
+    /**
+     * Minutes worked: the time between log in and log out minus the unpaid lunch break.
+     * A log out before the log in is taken to be after midnight.
+     * @param logInMinute Log in time
+     * @param logOutMinute Log out time
+     * @return The minutes worked, 0 if either time is missing
+     */
+    public static int workedMinutes(int logInMinute, int logOutMinute) {
+        if (logInMinute == AttendanceTable.NO_TIME || logOutMinute == AttendanceTable.NO_TIME) {
+            return 0;
+        }
+        int minutes = logOutMinute >= logInMinute
+                ? logOutMinute - logInMinute
+                : (LAST_MINUTE - logInMinute) + logOutMinute; // past midnight, counted up to 23:59
+        return Math.max(0, minutes - LUNCH_BREAK_MINUTES);
+    }
+
+    /**
+     * Minutes worked beyond the standard work day.
+     * @param workedMinutes Minutes worked, as returned by workedMinutes()
+     * @return The overtime minutes
+     */
+    public static int overtimeMinutes(int workedMinutes) {
+        return Math.max(0, workedMinutes - STANDARD_WORK_MINUTES);
+    }
+
+    /**
+     * Minutes late: a log in after the grace period is late by the time since the start of the shift.
+     * @param logInMinute Log in time
+     * @return The late minutes, 0 if on time or missing
+     */
+    public static int lateMinutes(int logInMinute) {
+        return logInMinute != AttendanceTable.NO_TIME && logInMinute > GRACE_END_MINUTE
+                ? logInMinute - SHIFT_START_MINUTE : 0;
+    }
+
+    /**
+     * Whether a row can be paid: both times are present and the log out is not before the log in.
+     * @param logInMinute Log in time
+     * @param logOutMinute Log out time
+     * @return true for a valid day
+     */
+    public static boolean isValidDay(int logInMinute, int logOutMinute) {
+        return logInMinute != AttendanceTable.NO_TIME && logOutMinute != AttendanceTable.NO_TIME
+                && logOutMinute >= logInMinute;
+    }
+}
@@ -0,0 +1,106 @@
+package CSV;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Load-time deduplication table for CSV field values.
+ * Values such as positions, statuses, supervisor names and employee names repeat across rows and datasets;
+ * intern() returns one shared instance for equal values, so each distinct value is kept in memory once.
+ * Entries are held weakly and disappear once no loaded row uses them, so reloads do not make the table grow.
+ */
+final class StringPool {
+
+    private final Map<String, WeakReference<String>> values = new WeakHashMap<>();
+
+    /**
+     * Returns the shared instance equal to a value, making the value the shared instance if there is none yet.
+     * @param value The value, or null
+     * @return The shared instance, or null
+     */
+    synchronized String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        WeakReference<String> reference = values.get(value);
+        String shared = reference == null ? null : reference.get();
+        if (shared == null) {
+            values.put(value, new WeakReference<>(value));
+            return value;
+        }
+        return shared;
+    }
+
+    /**
+     * Starts counting the savings of one dataset load.
+     * @return A session that interns values and counts the copies it made redundant
+     */
+    Session startSession() {
+        return new Session();
+    }
+
+    /**
+     * Approximate heap size of a String with compressed object pointers: the String object itself plus its
+     * byte array, one byte per character when every character fits in Latin-1 and two otherwise.
+     */
+    static long estimateSize(String value) {
+        boolean latin1 = true;
+        for (int i = 0; i < value.length() && latin1; i++) {
+            latin1 = value.charAt(i) <= 0xFF;
+        }
+        long arrayBytes = 16 + (long) value.length() * (latin1 ? 1 : 2);
+        return 24 + ((arrayBytes + 7) & ~7L);
+    }
+
+    /**
+     * Interns the values of one dataset load and counts how much memory sharing them saves.
+     */
+    final class Session {
+        private long fieldCount;
+        private long sharedCount;
+        private long savedBytes;
+
+        /**
+         * Interns a field value, counting it as saved if an equal instance was already shared.
+         */
+        String intern(String value) {
+            if (value == null) {
+                return null;
+            }
+            String shared = StringPool.this.intern(value);
+            fieldCount++;
+            if (shared != value) {
+                sharedCount++;
+                savedBytes += estimateSize(value);
+            }
+            return shared;
+        }
+
+        /**
+         * Counts fields that already refer to a shared value instead of holding their own copy.
+         * @param value The shared value
+         * @param references Number of such fields
+         */
+        void countShared(String value, int references) {
+            if (value == null || references <= 0) {
+                return;
+            }
+            fieldCount += references;
+            sharedCount += references;
+            savedBytes += references * estimateSize(value);
+        }
+
+        long getFieldCount() {
+            return fieldCount;
+        }
+
+        long getSharedCount() {
+            return sharedCount;
+        }
+
+        long getSavedBytes() {
+            return savedBytes;
+        }
+    }
+}
@@ -2,10 +2,11 @@
 package gui;
 
 import CSV.CSVDatabaseProcessor;
+import CSV.CSVDatasetRegistry;
+import CSV.DatasetView;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
 import java.util.Map;
 import javax.swing.JOptionPane;
 import javax.swing.table.DefaultTableModel;
@@ -48,7 +49,7 @@ public class AttendanceDetailsGUI extends javax.swing.JFrame {
         this.setLocationRelativeTo(null);
         
         // Initialize CSV processor
-        csvProcessor = new CSVDatabaseProcessor();
+        csvProcessor = CSVDatasetRegistry.getInstance().getProcessor();
         
         // Load employee and attendance data
         csvProcessor.loadEmployeeCSVData();
@@ -78,7 +79,7 @@ public class AttendanceDetailsGUI extends javax.swing.JFrame {
         this.setLocationRelativeTo(null);
 
         // Initialize CSV processor
-        csvProcessor = new CSVDatabaseProcessor();
+        csvProcessor = CSVDatasetRegistry.getInstance().getProcessor();
         
         // For testing purposes only - use a default employee ID
         this.employeeId = "10001"; // Example ID for testing
@@ -119,7 +120,7 @@ public class AttendanceDetailsGUI extends javax.swing.JFrame {
             csvProcessor.loadAttendanceData();
 
             // Get attendance records for the specific employee only
-            List<Map<String, Object>> attendanceRecords = csvProcessor.getAttendanceRecordsByEmployeeId(employeeId);
+            DatasetView<Map<String, Object>> attendanceRecords = csvProcessor.getAttendanceRecordView(employeeId);
 
             if (attendanceRecords == null || attendanceRecords.isEmpty()) {
                 JOptionPane.showMessageDialog(this,
@@ -5,6 +5,11 @@
 package gui;
 
 import CSV.CSVDatabaseProcessor;
+import CSV.CSVDatasetRegistry;
+import CSV.Dataset;
+import CSV.DatasetChangeListener;
+import CSV.EmployeeRecord;
+import CSV.RowChange;
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.event.*;
@@ -33,6 +38,11 @@ public class AttendanceTrackingGUI extends javax.swing.JFrame {
     private AttendanceTracking attendanceTracker;
     private List<AttendanceRecord> attendanceRecords = new ArrayList<>();
     private int selectedAttendanceID = -1;
+    private int nextAttendanceID = 1;
+
+    // Called on the watcher thread; the table is only touched on the event dispatch thread
+    private final DatasetChangeListener attendanceChangeListener =
+            (dataset, changes) -> SwingUtilities.invokeLater(() -> applyAttendanceChanges(changes));
     
     /**
      * Inner class to represent an attendance record
@@ -119,6 +129,15 @@ public class AttendanceTrackingGUI extends javax.swing.JFrame {
         
         // Load attendance data from CSV
         loadAttendanceData();
+
+        // Keep the table current when the attendance file is changed elsewhere
+        CSVDatasetRegistry.getInstance().addChangeListener(Dataset.ATTENDANCE, attendanceChangeListener);
+    }
+
+    @Override
+    public void dispose() {
+        CSVDatasetRegistry.getInstance().removeChangeListener(Dataset.ATTENDANCE, attendanceChangeListener);
+        super.dispose();
     }
     
     /**
@@ -229,6 +248,9 @@ public class AttendanceTrackingGUI extends javax.swing.JFrame {
                 return;
             }
 
+            CSVDatabaseProcessor supervisorTeam = CSVDatasetRegistry.getInstance().getProcessor();
+            nextAttendanceID = 1;
+
             try (BufferedReader br = new BufferedReader(new FileReader(file))) {
                 // Skip header line
                 br.readLine();
@@ -244,7 +266,6 @@ public class AttendanceTrackingGUI extends javax.swing.JFrame {
                 model.addColumn("Log Out");
                 model.addColumn("Status");
 
-                int id = 1; // We'll still use this internally even though we don't display it
 
                 // Read each line from the CSV
                 while ((line = br.readLine()) != null) {
@@ -259,48 +280,14 @@ public class AttendanceTrackingGUI extends javax.swing.JFrame {
                         String logOut = data[5].trim();
                         String status = "Pending"; // Default status for new records
 
-                        // Look up employee details using CSVDatabaseProcessor
-                        Map<String, String> employeeDetails = getEmployeeDetails(employeeID);
-                        String department = "Unknown";
-                        String supervisorName = "Unknown";
-
-                        if (employeeDetails != null) {
-                            department = getDepartmentForEmployee(employeeID);
-                            supervisorName = employeeDetails.get("Immediate Supervisor");
-                        }
+                        // Look up the employee by ID in the processor's employee index
+                        String department = getDepartmentForEmployee(supervisorTeam, employeeID);
 
                         // Apply polymorphic filtering based on user role
-                        boolean shouldInclude = false;
-
-                        if (loggedInUser instanceof HR) {
-                            // HR can see all attendance records
-                            shouldInclude = true;
-                            System.out.println("HR user, including all records");
-                        } else if (loggedInUser instanceof ImmediateSupervisor) {
-                            // Get supervisor's full name (for comparison with employee's supervisor field)
-                            String supervisorFullName = loggedInUser.getLastName() + ", " + loggedInUser.getFirstName();
-
-                            // Get supervisor's department
-                            String supervisorDept = ((ImmediateSupervisor) loggedInUser).getDepartment();
-
-                            // Debug logging
-                            System.out.println("Checking employee: " + firstName + " " + lastName);
-                            System.out.println("  Employee supervisor: " + supervisorName);
-                            System.out.println("  Logged-in supervisor: " + supervisorFullName);
-                            System.out.println("  Employee department: " + department);
-                            System.out.println("  Supervisor department: " + supervisorDept);
-
-                            // Include record if either:
-                            // 1. The employee's supervisor name matches the logged-in user's name, OR
-                            // 2. They're in the same department (as a fallback)
-                            shouldInclude = supervisorName.equalsIgnoreCase(supervisorFullName) ||
-                                            department.equals(supervisorDept);
-                        }
-
-                        if (shouldInclude) {
+                        if (isVisibleToUser(supervisorTeam, employeeID, firstName + " " + lastName, department)) {
                             // Create a new attendance record and add to our collection
                             AttendanceRecord record = new AttendanceRecord(
-                                id,
+                                nextAttendanceID++, // We'll still use this internally even though we don't display it
                                 Integer.parseInt(employeeID),
                                 firstName + " " + lastName,
                                 department,
@@ -321,8 +308,6 @@ public class AttendanceTrackingGUI extends javax.swing.JFrame {
                                 logOut,
                                 status
                             });
-
-                            id++; // Increment record ID
                         }
                     }
                 }
@@ -355,25 +340,111 @@ public class AttendanceTrackingGUI extends javax.swing.JFrame {
     }
 
     /**
-     * Helper method to get complete employee details from the database
+     * Decides whether the logged-in user may see an employee's attendance:
+     * - HR can view all attendance records
+     * - Immediate Supervisor can only view records of their subordinates
      */
-    private Map<String, String> getEmployeeDetails(String employeeId) {
-        CSVDatabaseProcessor csvProcessor = new CSVDatabaseProcessor();
-        return csvProcessor.getEmployeeRecordsByEmployeeId(employeeId);
+    private boolean isVisibleToUser(CSVDatabaseProcessor supervisorTeam, String employeeID, String employeeName,
+                                    String department) {
+        if (loggedInUser instanceof HR) {
+            // HR can see all attendance records
+            System.out.println("HR user, including all records");
+            return true;
+        } else if (loggedInUser instanceof ImmediateSupervisor) {
+            // Get supervisor's department
+            String supervisorDept = ((ImmediateSupervisor) loggedInUser).getDepartment();
+
+            // Debug logging
+            System.out.println("Checking employee: " + employeeName);
+            System.out.println("  Employee department: " + department);
+            System.out.println("  Supervisor department: " + supervisorDept);
+
+            // Include record if either:
+            // 1. The employee reports directly to the logged-in user, OR
+            // 2. They're in the same department (as a fallback)
+            return supervisorTeam.isDirectReportOf(String.valueOf(loggedInUser.getEmployeeID()), employeeID) ||
+                   department.equals(supervisorDept);
+        }
+        return false;
     }
 
+    /**
+     * Applies attendance rows changed on disk to the records and the table without reading the file again.
+     * Added rows start as Pending; approval status of existing rows is kept.
+     */
+    private void applyAttendanceChanges(List<RowChange> changes) {
+        CSVDatabaseProcessor supervisorTeam = CSVDatasetRegistry.getInstance().getProcessor();
+        DefaultTableModel model = (DefaultTableModel) AttendanceTrckrHRTbl.getModel();
+        for (RowChange change : changes) {
+            Map<String, String> row = change.getRow();
+            String employeeID = row.get("Employee ID");
+            String date = row.get("Date");
+
+            // Find the record and its table row by employee ID and date
+            AttendanceRecord existing = null;
+            for (AttendanceRecord record : attendanceRecords) {
+                if (String.valueOf(record.getEmployeeID()).equals(employeeID) && record.getDate().equals(date)) {
+                    existing = record;
+                    break;
+                }
+            }
+            int tableRow = -1;
+            for (int i = 0; i < model.getRowCount(); i++) {
+                if (employeeID.equals(String.valueOf(model.getValueAt(i, 0))) && date.equals(model.getValueAt(i, 3))) {
+                    tableRow = i;
+                    break;
+                }
+            }
+
+            if (change.getKind() == RowChange.Kind.REMOVED) {
+                attendanceRecords.remove(existing);
+                if (tableRow != -1) {
+                    model.removeRow(tableRow);
+                }
+                continue;
+            }
+
+            String employeeName = row.get("First Name") + " " + row.get("Last Name");
+            String department = getDepartmentForEmployee(supervisorTeam, employeeID);
+            if (existing == null && !isVisibleToUser(supervisorTeam, employeeID, employeeName, department)) {
+                continue;
+            }
+            AttendanceRecord record = new AttendanceRecord(
+                existing != null ? existing.getId() : nextAttendanceID++,
+                Integer.parseInt(employeeID),
+                employeeName,
+                department,
+                date,
+                row.get("Log In"),
+                row.get("Log Out"),
+                existing != null ? existing.getStatus() : "Pending"
+            );
+            if (existing != null) {
+                attendanceRecords.set(attendanceRecords.indexOf(existing), record);
+            } else {
+                attendanceRecords.add(record);
+            }
+
+            Object[] rowData = {employeeID, employeeName, department, date, record.getLogIn(), record.getLogOut(), record.getStatus()};
+            if (tableRow == -1) {
+                model.addRow(rowData);
+            } else {
+                for (int column = 0; column < rowData.length; column++) {
+                    model.setValueAt(rowData[column], tableRow, column);
+                }
+            }
+        }
+    }
 
-    // Helper method to get department for an employee
-    private String getDepartmentForEmployee(String employeeId) {
-        // Implement based on your data structure or return a default
-        CSVDatabaseProcessor csvProcessor = new CSVDatabaseProcessor();
-        Map<String, String> empRecord = csvProcessor.getEmployeeRecordsByEmployeeId(employeeId);
-        if (empRecord != null && empRecord.containsKey("Position")) {
-            String position = empRecord.get("Position");
-            // Use your existing logic to determine department from position
-            return determineDepartmentFromPosition(position);
+    // Helper method to get department for an employee, or "Unknown" if there is no such employee.
+    // Takes the processor the caller already has, so rendering a row does not check the CSV files again.
+    private String getDepartmentForEmployee(CSVDatabaseProcessor csvProcessor, String employeeId) {
+        EmployeeRecord employee = csvProcessor.getEmployeeRecord(employeeId);
+        if (employee == null) {
+            return "Unknown";
         }
-        return "Other"; // Default department
+        // Use your existing logic to determine department from position
+        return determineDepartmentFromPosition(employee.getPosition());
     }
 
     // Reuse your existing department determination logic
@@ -1,10 +1,15 @@
 package gui;
 
 import CSV.CSVDatabaseProcessor;
+import CSV.CSVDatasetRegistry;
+import CSV.CsvWriteConflictException;
+import CSV.Dataset;
+import CSV.DatasetChangeListener;
+import CSV.RowChange;
 import java.awt.Component;
 import java.awt.HeadlessException;
-import java.io.File;
-import java.io.FileWriter;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.io.IOException;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
@@ -16,6 +21,8 @@ import java.util.Map;
 import javax.swing.JOptionPane;
 import javax.swing.JTable;
 import javax.swing.RowFilter;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import javax.swing.table.DefaultTableModel;
 import javax.swing.table.TableCellRenderer;
 import javax.swing.table.TableModel;
@@ -34,6 +41,16 @@ public class EmployeeManagement extends javax.swing.JFrame {
     private String userRole; // Store the user role
     private CSVDatabaseProcessor csvProcessor;
     private List<Map<String, String>> employeeRecords;
+
+    // Edits are written to the CSV file once they stop for this long, so a burst of edits is a single write
+    private static final int SAVE_DELAY_MILLIS = 750;
+    private final Timer saveTimer = createSaveTimer();
+    // Edits made since the last save, as "Employee <ID> <saved|deleted|updated>", reported once the save finishes
+    private final List<String> pendingEdits = new ArrayList<>();
+
+    // Called on the watcher thread; the table is only touched on the event dispatch thread
+    private final DatasetChangeListener employeeChangeListener =
+            (dataset, changes) -> SwingUtilities.invokeLater(() -> applyEmployeeChanges(changes));
     
     public EmployeeManagement(String fullName, int employeeID, String userRole) {
         try {
@@ -54,10 +71,13 @@ public class EmployeeManagement extends javax.swing.JFrame {
             this.userRole = userRole;
 
             // Initialize the CSV processor and load data
-            csvProcessor = new CSVDatabaseProcessor();
+            csvProcessor = CSVDatasetRegistry.getInstance().getProcessor();
             csvProcessor.loadEmployeeCSVData();
             loadEmployeeData();
 
+            // Keep the table current when the employee file is changed elsewhere
+            CSVDatasetRegistry.getInstance().addChangeListener(Dataset.EMPLOYEE, employeeChangeListener);
+
             // Setup department filter
             setupDepartmentFilter();
 
@@ -120,7 +140,7 @@ public class EmployeeManagement extends javax.swing.JFrame {
         this.userRole = null;
 
         // Initialize the CSV processor and load data
-        csvProcessor = new CSVDatabaseProcessor();
+        csvProcessor = CSVDatasetRegistry.getInstance().getProcessor();
         csvProcessor.loadEmployeeCSVData();
         loadEmployeeData();
 
@@ -158,48 +178,7 @@ public class EmployeeManagement extends javax.swing.JFrame {
 
         // Loop through employee records and add to table model
         for (Map<String, String> record : employeeRecords) {
-            Object[] rowData = new Object[18]; // 18 columns as per your table model
-
-            // Basic employee information
-            rowData[0] = record.get("Employee ID");
-            rowData[1] = record.get("Last Name");
-            rowData[2] = record.get("First Name");
-            rowData[3] = record.get("Birthday");
-            rowData[4] = record.get("Address");
-            rowData[5] = record.get("Phone Number");
-            rowData[6] = record.get("SSS #");
-            rowData[7] = record.get("Philhealth #");
-            rowData[8] = record.get("Pag-ibig #");
-            rowData[9] = record.get("TIN #");
-            rowData[10] = record.get("Status");
-            rowData[11] = record.get("Position");
-            rowData[12] = record.get("Immediate Supervisor");
-
-            // Monetary values - format with commas for display
-            String[] monetaryFields = {
-                "Basic Salary", "Rice Subsidy", "Phone Allowance", 
-                "Clothing Allowance", "Hourly Rate"
-            };
-
-            for (int i = 0; i < monetaryFields.length; i++) {
-                String value = record.get(monetaryFields[i]);
-
-                // If the value doesn't have commas but is numeric, format it with commas
-                if (value != null && !value.contains(",") && value.matches("\\d+")) {
-                    try {
-                        // Parse as double and format with commas
-                        double numValue = Double.parseDouble(value);
-                        // Format with commas for thousands
-                        value = String.format("%,.0f", numValue);
-                    } catch (NumberFormatException e) {
-                        // Just use the original value if parsing fails
-                    }
-                }
-
-                rowData[13 + i] = value;
-            }
-
-            model.addRow(rowData);
+            model.addRow(toTableRow(record));
         }
 
         // Adjust row heights and column widths
@@ -207,6 +186,102 @@ public class EmployeeManagement extends javax.swing.JFrame {
         adjustColumnWidths();
     }
     
+    /**
+     * Converts an employee record to a table row, with monetary values formatted with commas
+     */
+    private Object[] toTableRow(Map<String, String> record) {
+        Object[] rowData = new Object[18]; // 18 columns as per your table model
+
+        // Basic employee information
+        rowData[0] = record.get("Employee ID");
+        rowData[1] = record.get("Last Name");
+        rowData[2] = record.get("First Name");
+        rowData[3] = record.get("Birthday");
+        rowData[4] = record.get("Address");
+        rowData[5] = record.get("Phone Number");
+        rowData[6] = record.get("SSS #");
+        rowData[7] = record.get("Philhealth #");
+        rowData[8] = record.get("Pag-ibig #");
+        rowData[9] = record.get("TIN #");
+        rowData[10] = record.get("Status");
+        rowData[11] = record.get("Position");
+        rowData[12] = record.get("Immediate Supervisor");
+
+        // Monetary values - format with commas for display
+        String[] monetaryFields = {
+            "Basic Salary", "Rice Subsidy", "Phone Allowance", 
+            "Clothing Allowance", "Hourly Rate"
+        };
+
+        for (int i = 0; i < monetaryFields.length; i++) {
+            String value = record.get(monetaryFields[i]);
+
+            // If the value doesn't have commas but is numeric, format it with commas
+            if (value != null && !value.contains(",") && value.matches("\\d+")) {
+                try {
+                    // Parse as double and format with commas
+                    double numValue = Double.parseDouble(value);
+                    // Format with commas for thousands
+                    value = String.format("%,.0f", numValue);
+                } catch (NumberFormatException e) {
+                    // Just use the original value if parsing fails
+                }
+            }
+
+            rowData[13 + i] = value;
+        }
+
+        return rowData;
+    }
+
+    /**
+     * Applies employee rows changed on disk, by another user or another screen, to the table and the
+     * records this screen edits, without reloading the whole table
+     */
+    private void applyEmployeeChanges(List<RowChange> changes) {
+        DefaultTableModel model = (DefaultTableModel) tblERecords.getModel();
+        for (RowChange change : changes) {
+            String changedID = change.getRow().get("Employee ID");
+            int tableRow = -1;
+            for (int i = 0; i < model.getRowCount(); i++) {
+                if (changedID.equals(model.getValueAt(i, 0))) {
+                    tableRow = i;
+                    break;
+                }
+            }
+            int recordIndex = -1;
+            for (int i = 0; i < employeeRecords.size(); i++) {
+                if (changedID.equals(employeeRecords.get(i).get("Employee ID"))) {
+                    recordIndex = i;
+                    break;
+                }
+            }
+
+            if (change.getKind() == RowChange.Kind.REMOVED) {
+                if (tableRow != -1) {
+                    model.removeRow(tableRow);
+                }
+                if (recordIndex != -1) {
+                    employeeRecords.remove(recordIndex);
+                }
+                continue;
+            }
+            Object[] rowData = toTableRow(change.getNewRow());
+            if (tableRow == -1) {
+                model.addRow(rowData);
+            } else {
+                for (int column = 0; column < rowData.length; column++) {
+                    model.setValueAt(rowData[column], tableRow, column);
+                }
+            }
+            if (recordIndex == -1) {
+                employeeRecords.add(new HashMap<>(change.getNewRow()));
+            } else {
+                employeeRecords.set(recordIndex, new HashMap<>(change.getNewRow()));
+            }
+        }
+    }
+
     /**
      * Display employee details in the form fields when a row is selected
      * @param selectedRow The selected row index
@@ -414,84 +489,79 @@ public class EmployeeManagement extends javax.swing.JFrame {
     }
     
     /**
-     * Save employee data to CSV file
+     * Creates the timer that saves pending edits, and makes sure edits still waiting are saved
+     * before the window closes.
      */
-    private void saveToCSV() {
-        try {
-            // Get the file path - using the CSV processor's default path
-            String filePath = "src/CSV/" + csvProcessor.getEmployeeDetailsFilePath();
-            File file = new File(filePath);
-
-            try (FileWriter writer = new FileWriter(file)) {
-                // Write header
-                writer.write("""
-                             Employee ID,Last Name,First Name,Birthday,Address,Phone Number,SSS #,Philhealth #,TIN #,Pag-ibig #,Status,Position,Immediate Supervisor,Basic Salary,Rice Subsidy,Phone Allowance,Clothing Allowance,Gross Semi-monthly Rate,Hourly Rate
-                             """);
-
-                // Inside saveToCSV method, modify the writing loop:
-                for (Map<String, String> employee : employeeRecords) {
-                    StringBuilder line = new StringBuilder();
-
-                    // Process each field, using quotes where needed
-                    String[] fieldNames = {
-                        "Employee ID", "Last Name", "First Name", "Birthday", 
-                        "Address", "Phone Number", "SSS #", "Philhealth #", 
-                        "TIN #", "Pag-ibig #", "Status", "Position", 
-                        "Immediate Supervisor", "Basic Salary", "Rice Subsidy", 
-                        "Phone Allowance", "Clothing Allowance", 
-                        "Gross Semi-monthly Rate", "Hourly Rate"
-                    };
-
-                    for (int i = 0; i < fieldNames.length; i++) {
-                        String fieldName = fieldNames[i];
-                        String value = employee.getOrDefault(fieldName, "");
-
-                        // Special handling for various field types
-                        switch (fieldName) {
-                            case "Address", "Immediate Supervisor" -> // These fields may contain commas, always quote them
-                                line.append("\"").append(value).append("\"");
-                            case "Basic Salary", "Rice Subsidy", "Phone Allowance", "Clothing Allowance", "Gross Semi-monthly Rate", "Hourly Rate" -> {
-                                // Monetary values - preserve format with commas but ensure they're quoted
-                                // Remove existing quotes first
-                                value = value.replaceAll("^\"|\"$", "");
-                                if (value.contains(",")) {
-                                    line.append("\"").append(value).append("\"");
-                                } else {
-                                    line.append(value);
-                                }
-                            }
-                            default -> {
-                                // Handle other fields - quote only if they contain commas
-                                if (value.contains(",")) {
-                                    line.append("\"").append(value).append("\"");
-                                } else {
-                                    line.append(value);
-                                }
-                            }
-                        }
-
-                        // Add comma separator unless this is the last field
-                        if (i < fieldNames.length - 1) {
-                            line.append(",");
-                        }
-                    }
-
-                    writer.write(line.toString() + "\n");
-                }
+    private Timer createSaveTimer() {
+        Timer timer = new Timer(SAVE_DELAY_MILLIS, e -> saveToCSV());
+        timer.setRepeats(false);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                savePendingEdits();
             }
+        });
+        return timer;
+    }
 
-            // Reload employee data from the CSV
-            csvProcessor.loadEmployeeCSVData();
-            loadEmployeeData(); // Reload the table data
+    /**
+     * Saves the edits shortly after the last one, so several quick edits are written together.
+     * The CSV processor already holds the edited records, so other screens see them right away; the user is
+     * told the edit was saved, or that it failed, once the file has been written.
+     * @param employeeId The ID of the edited employee
+     * @param action What was done to the employee: "saved", "deleted" or "updated"
+     */
+    private void scheduleSave(String employeeId, String action) {
+        pendingEdits.add("Employee " + employeeId + " " + action);
+        saveTimer.restart();
+    }
 
-            JOptionPane.showMessageDialog(this, "Employee records saved successfully!", 
-                    "Success", JOptionPane.INFORMATION_MESSAGE);
+    /**
+     * Saves edits that are still waiting for the save timer.
+     */
+    private void savePendingEdits() {
+        if (saveTimer.isRunning()) {
+            saveTimer.stop();
+            saveToCSV();
+        }
+    }
 
+    @Override
+    public void dispose() {
+        CSVDatasetRegistry.getInstance().removeChangeListener(Dataset.EMPLOYEE, employeeChangeListener);
+        savePendingEdits();
+        super.dispose();
+    }
+
+    /**
+     * Save employee data to CSV file, then tell the user which pending edits were saved or failed
+     */
+    private void saveToCSV() {
+        List<String> edits = new ArrayList<>(pendingEdits);
+        pendingEdits.clear();
+        try {
+            // Changed rows are patched in place when possible; otherwise the file is replaced atomically
+            csvProcessor.saveEmployeeRecords();
+            JOptionPane.showMessageDialog(this, String.join(" successfully!\n", edits) + " successfully!",
+                    "Success", JOptionPane.INFORMATION_MESSAGE);
+        } catch (CsvWriteConflictException e) {
+            // Another user saved the same employees first: show their version so the edit can be made again
+            JOptionPane.showMessageDialog(this, describeUnsaved(edits) + e.getMessage(),
+                    "Employee Changed", JOptionPane.WARNING_MESSAGE);
+            csvProcessor.loadEmployeeCSVData();
+            loadEmployeeData();
         } catch (IOException e) {
-            JOptionPane.showMessageDialog(this, "Error saving to CSV: " + e.getMessage(), 
+            JOptionPane.showMessageDialog(this, describeUnsaved(edits) + "Error saving to CSV: " + e.getMessage(), 
                     "Error", JOptionPane.ERROR_MESSAGE);
         }
     }
+
+    /**
+     * Lists edits that were not written to the CSV file, for the start of an error message.
+     */
+    private static String describeUnsaved(List<String> edits) {
+        return "These changes were not saved:\n" + String.join("\n", edits) + "\n\n";
+    }
     
     /**
      * Determines the department based on the position
@@ -1117,10 +1187,10 @@ public class EmployeeManagement extends javax.swing.JFrame {
             JOptionPane.showMessageDialog(this, "Employee ID " + TFenum.getText() + " already exists.", 
                     "Duplicate Employee ID", JOptionPane.ERROR_MESSAGE);
         } else {
+            String newID = TFenum.getText();
             addEmployee();
-            saveToCSV();
-            JOptionPane.showMessageDialog(this, "Employee saved successfully!", 
-                    "Success", JOptionPane.INFORMATION_MESSAGE);
+            csvProcessor.setEmployeeRecords(employeeRecords);
+            scheduleSave(newID, "saved");
         }
     } else {
         JOptionPane.showMessageDialog(this, "Please fill in all fields to save the record.", 
@@ -1157,10 +1227,8 @@ public class EmployeeManagement extends javax.swing.JFrame {
                 model.removeRow(selectedRow);
                 
                 // Save changes to CSV
-                saveToCSV();
-                
-                JOptionPane.showMessageDialog(this, "Employee deleted successfully!", 
-                        "Success", JOptionPane.INFORMATION_MESSAGE);
+                csvProcessor.setEmployeeRecords(employeeRecords);
+                scheduleSave(employeeIDToRemove, "deleted");
                 
                 // Clear the form fields
                 clearFields();
@@ -1262,10 +1330,8 @@ public class EmployeeManagement extends javax.swing.JFrame {
             model.setValueAt(TFhourlyrate.getText(), selectedRow, 17);
             
             // Save changes to CSV
-            saveToCSV();
-            
-            JOptionPane.showMessageDialog(this, "Employee record updated successfully!", 
-                    "Success", JOptionPane.INFORMATION_MESSAGE);
+            csvProcessor.updateEmployeeRecord(currentID, recordToUpdate);
+            scheduleSave(newID, "updated");
         }
     } else {
         JOptionPane.showMessageDialog(this, "Please select a row to update.", 
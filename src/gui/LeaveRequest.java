@@ -1,14 +1,16 @@
 package gui;
 
 import CSV.CSVDatabaseProcessor;
+import CSV.CSVDatasetRegistry;
+import CSV.DatasetView;
 import com.toedter.calendar.JDateChooser; // JCalendar import
+import java.io.IOException;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import javax.swing.JOptionPane;
 import javax.swing.JScrollPane;
@@ -70,7 +72,7 @@ public class LeaveRequest extends javax.swing.JFrame {
         this.setLocationRelativeTo(null);
         
         // Initialize CSV processor
-        csvProcessor = new CSVDatabaseProcessor();
+        csvProcessor = CSVDatasetRegistry.getInstance().getProcessor();
         
         // Load employee data from CSV
         csvProcessor.loadEmployeeCSVData();
@@ -154,7 +156,7 @@ public class LeaveRequest extends javax.swing.JFrame {
         this.employeeId = "10001";
         
         // Initialize CSV processor
-        csvProcessor = new CSVDatabaseProcessor();
+        csvProcessor = CSVDatasetRegistry.getInstance().getProcessor();
         
         // Load employee data from CSV
         csvProcessor.loadEmployeeCSVData();
@@ -251,7 +253,7 @@ public class LeaveRequest extends javax.swing.JFrame {
     System.out.println("Loading leave requests for employee ID: " + employeeId);
 
     boolean foundRecords = false;
-    List<Map<String, String>> requests = csvProcessor.getAllLeaveRequestRecords();
+    DatasetView<Map<String, String>> requests = csvProcessor.getLeaveRequestRecordView();
     
     // Debug log
     System.out.println("Total leave requests in system: " + requests.size());
@@ -447,25 +449,6 @@ private void formatTable() {
             // Set initial status
             newRequest.setStatus(ApprovalStatus.PENDING);
 
-            // Add to the table for display
-            DefaultTableModel model = (DefaultTableModel) jTable1.getModel();
-            model.addRow(new Object[]{
-                LocalDate.now().format(dateFormatter),
-                employeeId,
-                jTextField1.getText(),
-                jTextField4.getText(),
-                jTextField5.getText(),
-                jTextField6.getText(),
-                supervisorName,  // Use the supervisor name from employee data
-                leaveTypeStr,
-                reason,
-                startDate.format(dateFormatter),
-                endDate.format(dateFormatter),
-                "Pending",
-                "5",
-                "5"
-            });
-
             // Create a new leave request record map
             Map<String, String> leaveRequestRecord = new HashMap<>();
             leaveRequestRecord.put("Date of Submission", LocalDate.now().format(dateFormatter));
@@ -483,19 +466,38 @@ private void formatTable() {
             leaveRequestRecord.put("Remaining Vacation Leave", "5");
             leaveRequestRecord.put("Remaining Sick Leave", "5");
 
-            // To save to CSV file, add the record to the existing records list
+            // Save the request; it is on disk once this returns
             try {
-                // Add to the leave request records
-                List<Map<String, String>> allRecords = csvProcessor.getAllLeaveRequestRecords();
-                allRecords.add(leaveRequestRecord);
-
-                // Save the updated records
-                System.out.println("Leave request added to records. Needs CSV file saving implementation.");
-            } catch (Exception ex) {
+                csvProcessor.submitLeaveRequest(leaveRequestRecord);
+            } catch (IOException ex) {
                 System.err.println("Error saving leave request to CSV: " + ex.getMessage());
                 ex.printStackTrace();
+                JOptionPane.showMessageDialog(this, 
+                        "Could not save leave request: " + ex.getMessage(), 
+                        "Error", 
+                        JOptionPane.ERROR_MESSAGE);
+                return;
             }
 
+            // Add to the table for display
+            DefaultTableModel model = (DefaultTableModel) jTable1.getModel();
+            model.addRow(new Object[]{
+                LocalDate.now().format(dateFormatter),
+                employeeId,
+                jTextField1.getText(),
+                jTextField4.getText(),
+                jTextField5.getText(),
+                jTextField6.getText(),
+                supervisorName,  // Use the supervisor name from employee data
+                leaveTypeStr,
+                reason,
+                startDate.format(dateFormatter),
+                endDate.format(dateFormatter),
+                "Pending",
+                "5",
+                "5"
+            });
+
             // Show success message
             JOptionPane.showMessageDialog(this, 
                     "Leave request submitted successfully!\nRequest ID: " + newRequest.getRequestId(), 
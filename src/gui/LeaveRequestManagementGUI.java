@@ -3,14 +3,15 @@ package gui;
 
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
-import java.io.IOException;
+import CSV.CSVDatabaseProcessor;
+import CSV.CSVDatasetRegistry;
+import CSV.FieldDecoder;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import oop.classes.actors.User;
 import oop.classes.management.LeaveRequestManagement;
@@ -172,174 +173,119 @@ public class LeaveRequestManagementGUI extends javax.swing.JFrame {
     }
 
     /**
-     * Load leave request data from CSV file
+     * Load leave request data through the shared CSV processor, including requests still in its leave log
      * Implements polymorphic behavior by filtering data based on user role:
      * - HR can view all leave request records
      * - Immediate Supervisor can only view records of their subordinates
      */
     private void loadLeaveRequestData() {
         leaveRequestRecords.clear();
-        String line;
-        String csvSplitBy = ",";
 
         try {
-            // Try all possible file paths to locate the CSV file
-            String[] possiblePaths = {
-                "OOP CSV Database - Leave Requests.csv",
-                "src/CSV/OOP CSV Database - Leave Requests.csv",
-                "./OOP CSV Database - Leave Requests.csv",
-                "../OOP CSV Database - Leave Requests.csv"
-            };
-
-            File file = null;
-            for (String path : possiblePaths) {
-                file = new File(path);
-                if (file.exists()) {
-                    System.out.println("Found leave requests file at: " + path);
-                    break;
-                }
-            }
-
-            if (file == null || !file.exists()) {
-                JOptionPane.showMessageDialog(this,
-                    "Leave request file not found. Tried multiple paths.",
-                    "File Error", JOptionPane.ERROR_MESSAGE);
-                return;
-            }
-
             // Add debug output to help identify issues
             System.out.println("User role: " + (loggedInUser != null ? loggedInUser.getRole() : "null"));
             System.out.println("User name: " + 
                               (loggedInUser != null ? loggedInUser.getFirstName() + " " + loggedInUser.getLastName() : "null"));
 
-            try (BufferedReader br = new BufferedReader(new FileReader(file))) {
-                // Skip header line
-                br.readLine();
-
-                int id = 1; // Use internal ID for tracking
-                int recordsLoaded = 0;
-                int recordsFiltered = 0;
-
-                // Read each line from the CSV
-                while ((line = br.readLine()) != null) {
-                    String[] data = line.split(csvSplitBy);
-                    recordsLoaded++;
-
-                    if (data.length >= 14) {
-                        String date = data[0].trim();
-                        String employeeID = data[1].trim();
-                        String firstName = data[2].trim();
-                        String lastName = data[3].trim();
-                        String position = data[4].trim();
-                        String status = data[5].trim();
-                        String supervisor = data[6].trim();
-                        String leaveType = data[7].trim();
-                        String note = data[8].trim();
-                        String startDate = data[9].trim();
-                        String endDate = data[10].trim();
-                        String leaveStatus = data[11].trim();
-                        String vlRemaining = data[12].trim();
-                        String slRemaining = data[13].trim();
-
-                        // Apply polymorphic filtering based on user role
-                        boolean shouldInclude = false;
-
-                        // HR users see all records
-                        if ("HR".equals(loggedInUser.getRole())) {
-                            shouldInclude = true;
-                            System.out.println("Including record for HR user (all records visible)");
-                        }
-                        
-                        // Supervisors see records for their subordinates
-                        else if ("IMMEDIATE SUPERVISOR".equals(loggedInUser.getRole())) {
-                            // Get the full name of the supervisor in multiple formats for comparison
-                            String supervisorFullName = loggedInUser.getFirstName() + " " + loggedInUser.getLastName();
-                            String supervisorLastFirst = loggedInUser.getLastName() + ", " + loggedInUser.getFirstName();
-                            String supervisorLastFirstNoComma = loggedInUser.getLastName() + " " + loggedInUser.getFirstName();
-
-                            // Normalize supervisor name from record for better comparison
-                            String normalizedSupervisor = supervisor.replace(",", " ").trim();
-
-                            // Debug output to see what we're comparing
-                            System.out.println("  Record supervisor: '" + supervisor + "'");
-                            System.out.println("  Normalized: '" + normalizedSupervisor + "'");
-                            System.out.println("  Logged-in supervisor: '" + supervisorFullName + "' or '" + 
-                                              supervisorLastFirst + "' or '" + supervisorLastFirstNoComma + "'");
-
-                            // Comparison with case-insensitive contains checks
-                            if (normalizedSupervisor.equalsIgnoreCase(supervisorFullName) ||
-                                normalizedSupervisor.equalsIgnoreCase(supervisorLastFirst) ||
-                                normalizedSupervisor.equalsIgnoreCase(supervisorLastFirstNoComma) ||
-                                normalizedSupervisor.toLowerCase().contains(loggedInUser.getLastName().toLowerCase()) ||
-                                supervisor.toLowerCase().contains(loggedInUser.getLastName().toLowerCase())) {
-
-                                shouldInclude = true;
-                                System.out.println("  -> Supervisor name matched!");
-                            } else {
-                                System.out.println("  -> Supervisor name did not match");
-                            }
-                        }
-                        // Regular employees only see their own records
-                        else {
-                            String recordEmpId = employeeID; // We already parsed this above
-                            String userEmpId = String.valueOf(loggedInUser.getEmployeeID());
-
-                            if (recordEmpId.equals(userEmpId)) {
-                                shouldInclude = true;
-                                System.out.println("Including own record for employee ID: " + userEmpId);
-                            }
-                        }
+            // The processor replays requests still in the leave request log, which the CSV file does not have yet
+            CSVDatabaseProcessor csvProcessor = CSVDatasetRegistry.getInstance().getProcessor();
+            csvProcessor.loadLeaveRequestData();
+
+            int id = 1; // Use internal ID for tracking
+            int recordsLoaded = 0;
+            int recordsFiltered = 0;
+
+            for (Map<String, String> row : csvProcessor.getLeaveRequestRecordView()) {
+                recordsLoaded++;
+
+                String date = valueOf(row, "Date of Submission");
+                String employeeID = valueOf(row, "Employee ID");
+                String firstName = valueOf(row, "First Name");
+                String lastName = valueOf(row, "Last Name");
+                String position = valueOf(row, "Position");
+                String status = valueOf(row, "Status");
+                String supervisor = valueOf(row, "Immediate Supervisor");
+                String leaveType = valueOf(row, "Type of Leave");
+                String note = valueOf(row, "Note");
+                String startDate = valueOf(row, "Start");
+                String endDate = valueOf(row, "End");
+                String leaveStatus = valueOf(row, "Leave Status");
+                String vlRemaining = valueOf(row, "Remaining Vacation Leave");
+                String slRemaining = valueOf(row, "Remaining Sick Leave");
+                if (employeeID.isEmpty()) {
+                    continue;
+                }
 
-                        if (shouldInclude) {
-                            // Create a new leave request record and add to our collection
-                            LeaveRequestRecord record = new LeaveRequestRecord(
-                                id,
-                                Integer.parseInt(employeeID),
-                                firstName,
-                                lastName,
-                                position,
-                                status,
-                                supervisor,
-                                leaveType,
-                                note,
-                                startDate,
-                                endDate,
-                                leaveStatus,
-                                vlRemaining,
-                                slRemaining,
-                                date
-                            );
-                            leaveRequestRecords.add(record);
-                            id++; // Increment record ID
-                            recordsFiltered++;
-                        }
+                // Apply polymorphic filtering based on user role
+                boolean shouldInclude = false;
+
+                // HR users see all records
+                if ("HR".equals(loggedInUser.getRole())) {
+                    shouldInclude = true;
+                    System.out.println("Including record for HR user (all records visible)");
+                }
+                
+                // Supervisors see records for their subordinates
+                else if ("IMMEDIATE SUPERVISOR".equals(loggedInUser.getRole())) {
+                    // Reporting lines are resolved to Employee IDs once when the employee file loads
+                    if (csvProcessor.isDirectReportOf(String.valueOf(loggedInUser.getEmployeeID()), employeeID)) {
+                        shouldInclude = true;
+                        System.out.println("  -> Employee " + employeeID + " reports to the supervisor");
+                    }
+                }
+                // Regular employees only see their own records
+                else {
+                    String recordEmpId = employeeID; // We already parsed this above
+                    String userEmpId = String.valueOf(loggedInUser.getEmployeeID());
+
+                    if (recordEmpId.equals(userEmpId)) {
+                        shouldInclude = true;
+                        System.out.println("Including own record for employee ID: " + userEmpId);
                     }
                 }
 
-                System.out.println("Total records in CSV: " + recordsLoaded);
-                System.out.println("Records after filtering: " + recordsFiltered);
-                System.out.println("Records in leaveRequestRecords: " + leaveRequestRecords.size());
+                if (shouldInclude) {
+                    // Create a new leave request record and add to our collection
+                    LeaveRequestRecord record = new LeaveRequestRecord(
+                        id,
+                        Integer.parseInt(employeeID),
+                        firstName,
+                        lastName,
+                        position,
+                        status,
+                        supervisor,
+                        leaveType,
+                        note,
+                        startDate,
+                        endDate,
+                        leaveStatus,
+                        vlRemaining,
+                        slRemaining,
+                        date
+                    );
+                    leaveRequestRecords.add(record);
+                    id++; // Increment record ID
+                    recordsFiltered++;
+                }
+            }
 
-                // Initialize combo boxes with valid options
-                initializeComboBoxes();
+            System.out.println("Total leave request records: " + recordsLoaded);
+            System.out.println("Records after filtering: " + recordsFiltered);
+            System.out.println("Records in leaveRequestRecords: " + leaveRequestRecords.size());
 
-                // Update the table model after loading data
-                updateTableModel();
+            // Initialize combo boxes with valid options
+            initializeComboBoxes();
 
-                // Add a message if no data was loaded
-                if (leaveRequestRecords.isEmpty()) {
-                    JOptionPane.showMessageDialog(this,
-                        "No leave request records found for your role.",
-                        "No Data", JOptionPane.INFORMATION_MESSAGE);
-                } else {
-                    System.out.println("Loaded " + leaveRequestRecords.size() + " leave request records.");
-                }
+            // Update the table model after loading data
+            updateTableModel();
 
-            } catch (IOException e) {
+            // Add a message if no data was loaded
+            if (leaveRequestRecords.isEmpty()) {
                 JOptionPane.showMessageDialog(this,
-                    "Error reading leave request data: " + e.getMessage(),
-                    "File Error", JOptionPane.ERROR_MESSAGE);
-                e.printStackTrace();
+                    "No leave request records found for your role.",
+                    "No Data", JOptionPane.INFORMATION_MESSAGE);
+            } else {
+                System.out.println("Loaded " + leaveRequestRecords.size() + " leave request records.");
             }
 
         } catch (Exception e) {
@@ -350,6 +296,14 @@ public class LeaveRequestManagementGUI extends javax.swing.JFrame {
         }
     }
 
+    /**
+     * Returns a column of a leave request row, trimmed, or "" if the row does not have it.
+     */
+    private static String valueOf(Map<String, String> row, String column) {
+        String value = row.get(column);
+        return value == null ? "" : value.trim();
+    }
+
     /**
      * Initialize combo boxes with appropriate values from loaded data
      */
@@ -452,20 +406,17 @@ public class LeaveRequestManagementGUI extends javax.swing.JFrame {
                 boolean matchesEmployeeID = selectedEmployeeID.equals("All") || 
                                           String.valueOf(record.getEmployeeID()).equals(selectedEmployeeID);
 
-                // Extract month and year from the date (assuming format MM/DD/YYYY)
+                // Extract month and year from the date (MM/dd/yyyy or d/M/yyyy, see FieldDecoder)
                 boolean matchesMonth = true;
                 boolean matchesYear = true;
 
                 if (!selectedMonth.equals("All")) {
                     String dateStr = record.getDate();
-                    try {
-                        String[] dateParts = dateStr.split("/");
-                        if (dateParts.length >= 3) {
-                            int monthNum = Integer.parseInt(dateParts[0]);
-                            String monthName = getMonthName(monthNum);
-                            matchesMonth = selectedMonth.equals(monthName);
-                        }
-                    } catch (Exception e) {
+                    LocalDate date = FieldDecoder.parseDate(dateStr);
+                    if (date != null) {
+                        String monthName = getMonthName(date.getMonthValue());
+                        matchesMonth = selectedMonth.equals(monthName);
+                    } else {
                         System.err.println("Error parsing date: " + dateStr);
                     }
                 }
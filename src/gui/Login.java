@@ -2,6 +2,7 @@
 package gui;
 
 import CSV.CSVDatabaseProcessor;
+import CSV.CSVDatasetRegistry;
 import oop.classes.management.UserAuthentication;
 import javax.swing.*;
 import oop.classes.actors.User;
@@ -17,10 +18,11 @@ public class Login extends javax.swing.JFrame {
     private final UserAuthentication userAuth;
 
     public Login() {
-        CSVDatabaseProcessor csvProcessor = new CSVDatabaseProcessor();
+        CSVDatabaseProcessor csvProcessor = CSVDatasetRegistry.getInstance().getProcessor();
         csvProcessor.loadUserCredentialData(); // Load user credentials here!
+        CSVDatasetRegistry.getInstance().warmUp(); // Attendance and leave data load while the user logs in
  
-        userAuth = new UserAuthentication(csvProcessor);
+        userAuth = new UserAuthentication(CSVDatasetRegistry.getInstance().getStorage());
         initComponents();
     }
 
@@ -8,17 +8,22 @@ import oop.classes.actors.User;
 import oop.classes.actors.Employee;
 import oop.classes.calculations.SalaryCalculation;
 import oop.classes.calculations.DeductionCalculation;
+import oop.classes.calculations.BatchPayrollEngine;
+import oop.classes.calculations.PayrollResult;
+import oop.classes.calculations.PayrollRun;
+import oop.classes.calculations.PayrollResultCache;
 import oop.classes.empselfservice.Payslip;
 import CSV.CSVDatabaseProcessor;
+import CSV.CSVDatasetRegistry;
+import CSV.DatasetVersion;
+import CSV.FieldDecoder;
 import com.itextpdf.text.DocumentException;
 import java.io.IOException;
 import java.time.YearMonth;
 import java.time.Month;
 import java.time.format.TextStyle;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 import javax.swing.table.DefaultTableModel;
 import javax.swing.JOptionPane;
 import javax.swing.JScrollPane;
@@ -32,6 +37,8 @@ public class PayrollManagement extends javax.swing.JFrame {
     private User loggedInUser;
     private SalaryCalculation salaryCalculation;
     private DeductionCalculation deductionCalculation;
+    private BatchPayrollEngine batchPayrollEngine;
+    private PayrollResultCache payrollCache;
     private CSVDatabaseProcessor csvProcessor;
     private YearMonth currentPayrollMonth;
     private boolean payslipsGenerated = false;
@@ -45,7 +52,10 @@ public class PayrollManagement extends javax.swing.JFrame {
         this.loggedInUser = user;
         this.salaryCalculation = new SalaryCalculation();
         this.deductionCalculation = new DeductionCalculation();
-        this.csvProcessor = new CSVDatabaseProcessor();
+        this.payrollCache = PayrollResultCache.getInstance();
+        this.batchPayrollEngine = new BatchPayrollEngine();
+        this.batchPayrollEngine.setResultCache(payrollCache);
+        this.csvProcessor = CSVDatasetRegistry.getInstance().getProcessor();
 
         // Load attendance data - important for payroll calculations
         this.csvProcessor.loadAttendanceData();
@@ -53,6 +63,9 @@ public class PayrollManagement extends javax.swing.JFrame {
         // Initialize to current payroll month
         this.currentPayrollMonth = YearMonth.now();
 
+        // Calculate the current month in the background, so it is cached by the time payslips are generated
+        payrollCache.warmUpInBackground(currentPayrollMonth, csvProcessor);
+
         initComponents();
         setupTableColumns();
         setupTableProperties();
@@ -106,23 +119,12 @@ public class PayrollManagement extends javax.swing.JFrame {
             // Add "All" option
             selectEmpJComboBox1.addItem("All");
             
-            // Get all employees from the database
-            List<Map<String, String>> allEmployees = csvProcessor.getAllEmployeeRecords();
-            
-            // Sort employees by ID
-            allEmployees.sort((emp1, emp2) -> {
-                String id1 = emp1.get("Employee ID");
-                String id2 = emp2.get("Employee ID");
-                return id1.compareTo(id2);
-            });
-            
-            // Add each employee ID to the dropdown
-            for (Map<String, String> employee : allEmployees) {
-                String empId = employee.get("Employee ID");
-                if (empId != null && !empId.isEmpty()) {
-                    selectEmpJComboBox1.addItem(empId);
-                }
-            }
+            // Add each employee ID to the dropdown, sorted by ID
+            csvProcessor.getEmployeeRecordView().stream()
+                    .map(employee -> employee.get("Employee ID"))
+                    .filter(empId -> empId != null && !empId.isEmpty())
+                    .sorted()
+                    .forEach(selectEmpJComboBox1::addItem);
         } catch (Exception e) {
             System.err.println("Error populating employee dropdown: " + e.getMessage());
             e.printStackTrace();
@@ -165,26 +167,20 @@ public class PayrollManagement extends javax.swing.JFrame {
             int selectedYear = Integer.parseInt(selectedYearStr);
             currentPayrollMonth = YearMonth.of(selectedYear, selectedMonth);
 
-            // Get employee IDs to process
-            List<String> employeeIds = new ArrayList<>();
-
-            if ("ALL".equalsIgnoreCase(selectedEmployeeId) || "All".equals(selectedEmployeeId)) {
-                // Process all employees by getting IDs from CSVDatabaseProcessor
-                List<Map<String, String>> allEmployees = csvProcessor.getAllEmployeeRecords();
-                for (Map<String, String> employee : allEmployees) {
-                    String empId = employee.get("Employee ID");
-                    if (empId != null && !empId.isEmpty()) {
-                        employeeIds.add(empId);
+            // The whole run reads one version of the data, so edits made meanwhile on other screens
+            // cannot leave some rows calculated from old data and others from new
+            try (DatasetVersion data = csvProcessor.pinVersion(currentPayrollMonth)) {
+                if ("ALL".equalsIgnoreCase(selectedEmployeeId) || "All".equals(selectedEmployeeId)) {
+                    // Calculate every employee in one pass over the month's attendance, split across threads
+                    PayrollRun run = batchPayrollEngine.calculatePayroll(currentPayrollMonth, data);
+                    for (PayrollResult result : run.getResults()) {
+                        addPayrollRow(model, result);
                     }
+                    showPayrollFailures(run.getFailures());
+                } else {
+                    // Process only the selected employee
+                    loadEmployeePayrollData(selectedEmployeeId, model, data);
                 }
-            } else {
-                // Process only the selected employee
-                employeeIds.add(selectedEmployeeId);
-            }
-
-            // Load data for each employee
-            for (String employeeId : employeeIds) {
-                loadEmployeePayrollData(employeeId, model);
             }
 
             // Mark payslips as generated
@@ -204,89 +200,22 @@ public class PayrollManagement extends javax.swing.JFrame {
          * 
          * @param employeeId The employee ID to load data for
          * @param model The table model to add the data to
+         * @param data The data version pinned for the payroll run
          */
-        private void loadEmployeePayrollData(String employeeId, DefaultTableModel model) {
+        private void loadEmployeePayrollData(String employeeId, DefaultTableModel model, DatasetVersion data) {
             try {
-                // Get employee details
-                Map<String, String> employeeData = csvProcessor.getEmployeeRecordsByEmployeeId(employeeId);
-
-                if (employeeData == null) {
-                    System.err.println("No employee record found for ID: " + employeeId);
-                    return;
-                }
-
-                // Extract employee information
-                String lastName = employeeData.get("Last Name");
-                String firstName = employeeData.get("First Name");
-                String position = employeeData.get("Position");
-
-                // Extract allowances (remove commas and convert to numeric)
-                double riceSubsidy = parseAmount(employeeData.get("Rice Subsidy"));
-                double phoneAllowance = parseAmount(employeeData.get("Phone Allowance"));
-                double clothingAllowance = parseAmount(employeeData.get("Clothing Allowance"));
-                double totalAllowances = riceSubsidy + phoneAllowance + clothingAllowance;
-
-                // Calculate gross pay
-                double grossPay = salaryCalculation.calculateGrossMonthlySalary(
-                    employeeId, currentPayrollMonth, csvProcessor);
+                // Reuses the employee's month if a payslip or an earlier run calculated it from the same data
+                PayrollResult result = payrollCache.get(employeeId, currentPayrollMonth, data);
 
                 // Debug logging
-                System.out.println("Employee ID: " + employeeId + ", Gross Pay: " + grossPay);
-
-                // Get hourly rate for late deduction calculation
-                double hourlyRate = parseAmount(employeeData.get("Hourly Rate"));
-
-                // Calculate government deductions
-                double sssDeduction = deductionCalculation.calculateSSS(grossPay);
-                double philHealthDeduction = deductionCalculation.calculatePhilHealth(grossPay);
-                double pagIbigDeduction = deductionCalculation.calculatePagibig(grossPay);
-
-                // Calculate late deductions from attendance records
-                double lateHours = csvProcessor.getTotalLateHours(employeeId, currentPayrollMonth);
-                double lateDeduction = 0.0;
-                if (lateHours > 0) {
-                    lateDeduction = deductionCalculation.calculateLateDeductions(lateHours, hourlyRate);
-                    System.out.println("Late hours: " + lateHours + ", Late deduction: " + lateDeduction);
+                System.out.println("Employee ID: " + employeeId + ", Gross Pay: " + result.getGrossPay());
+                if (result.getLateHours() > 0) {
+                    System.out.println("Late hours: " + result.getLateHours() + ", Late deduction: " + result.getLateDeduction());
                 }
+                System.out.println("SSS: " + result.getSssDeduction() + ", PhilHealth: " + result.getPhilHealthDeduction() + 
+                    ", Pag-Ibig: " + result.getPagIbigDeduction() + ", Tax: " + result.getWithholdingTax());
 
-                // Calculate total government contributions (without late deductions)
-                double totalContributions = sssDeduction + philHealthDeduction + pagIbigDeduction;
-
-                // Calculate taxable income (gross pay minus government contributions AND late deductions)
-                double taxableIncome = grossPay - totalContributions - lateDeduction;
-
-                // Calculate withholding tax based on taxable income
-                double withholdingTax = deductionCalculation.calculateTax(taxableIncome);
-
-                // Debug logging for deductions
-                System.out.println("SSS: " + sssDeduction + ", PhilHealth: " + philHealthDeduction + 
-                    ", Pag-Ibig: " + pagIbigDeduction + ", Tax: " + withholdingTax);
-
-                // Calculate total deductions (government + late + tax)
-                double totalDeductions = totalContributions + lateDeduction + withholdingTax;
-
-                // Calculate net pay
-                double netPay = grossPay - totalDeductions;
-
-                // Add row to the table
-                model.addRow(new Object[]{
-                    employeeId,
-                    lastName,
-                    firstName,
-                    position,
-                    formatCurrency(riceSubsidy),
-                    formatCurrency(phoneAllowance),
-                    formatCurrency(clothingAllowance),
-                    formatCurrency(totalAllowances),
-                    formatCurrency(grossPay),
-                    formatCurrency(sssDeduction),
-                    formatCurrency(philHealthDeduction),
-                    formatCurrency(pagIbigDeduction),
-                    formatCurrency(lateDeduction),  // Added late deduction column
-                    formatCurrency(withholdingTax),
-                    formatCurrency(totalDeductions),
-                    formatCurrency(netPay)
-                });
+                addPayrollRow(model, result);
 
             } catch (Exception e) {
                 System.err.println("Error processing employee ID " + employeeId + ": " + e.getMessage());
@@ -294,6 +223,58 @@ public class PayrollManagement extends javax.swing.JFrame {
             }
         }
 
+        /**
+         * Tells the user which employees were left out of the payroll run and why.
+         * 
+         * @param failures The employees the batch payroll engine could not calculate
+         */
+        private void showPayrollFailures(List<PayrollRun.Failure> failures) {
+            if (failures.isEmpty()) {
+                return;
+            }
+            StringBuilder message = new StringBuilder("Payroll could not be calculated for "
+                + failures.size() + " employee(s):\n");
+            int shown = 0;
+            for (PayrollRun.Failure failure : failures) {
+                System.err.println("Error processing employee ID " + failure.getEmployeeId() + ": " + failure.getMessage());
+                if (shown++ < 10) {
+                    message.append("\n").append(failure);
+                }
+            }
+            if (failures.size() > 10) {
+                message.append("\n... and ").append(failures.size() - 10).append(" more");
+            }
+            JOptionPane.showMessageDialog(this, message.toString(),
+                "Payroll Data Warning", JOptionPane.WARNING_MESSAGE);
+        }
+
+        /**
+         * Adds a row for an employee's calculated payroll.
+         * 
+         * @param model The table model to add the data to
+         * @param result The employee's payroll for the month
+         */
+        private void addPayrollRow(DefaultTableModel model, PayrollResult result) {
+            model.addRow(new Object[]{
+                result.getEmployeeId(),
+                result.getLastName(),
+                result.getFirstName(),
+                result.getPosition(),
+                formatCurrency(result.getRiceSubsidy()),
+                formatCurrency(result.getPhoneAllowance()),
+                formatCurrency(result.getClothingAllowance()),
+                formatCurrency(result.getTotalAllowances()),
+                formatCurrency(result.getGrossPay()),
+                formatCurrency(result.getSssDeduction()),
+                formatCurrency(result.getPhilHealthDeduction()),
+                formatCurrency(result.getPagIbigDeduction()),
+                formatCurrency(result.getLateDeduction()),
+                formatCurrency(result.getWithholdingTax()),
+                formatCurrency(result.getTotalDeductions()),
+                formatCurrency(result.getNetPay())
+            });
+        }
+
             /**
              * Helper method to parse currency amounts from strings, handling commas.
              * 
@@ -304,14 +285,13 @@ public class PayrollManagement extends javax.swing.JFrame {
                 if (amountStr == null || amountStr.isEmpty()) {
                     return 0.0;
                 }
-                // Remove commas and other non-numeric characters except decimal point
-                String cleanedAmount = amountStr.replaceAll("[^0-9.]", "");
-                try {
-                    return Double.parseDouble(cleanedAmount);
-                } catch (NumberFormatException e) {
+                // Skips commas and other non-numeric characters except decimal point
+                double amount = FieldDecoder.decodeAmount(amountStr);
+                if (Double.isNaN(amount)) {
                     System.err.println("Error parsing amount: " + amountStr);
                     return 0.0;
                 }
+                return amount;
             }
 
             /**
@@ -2,6 +2,7 @@
 package gui;
 
 import CSV.CSVDatabaseProcessor;
+import CSV.CSVDatasetRegistry;
 import java.util.Map;
 import javax.swing.JOptionPane;
 import oop.classes.actors.User;
@@ -61,7 +62,7 @@ public class PersonalDetailsPage extends javax.swing.JFrame {
             System.out.println("Loading employee details for ID: " + employeeID);
             
             // Create a new CSV processor to access employee data
-            CSVDatabaseProcessor csvProcessor = new CSVDatabaseProcessor();
+            CSVDatabaseProcessor csvProcessor = CSVDatasetRegistry.getInstance().getProcessor();
             
             // Get employee record by ID
             Map<String, String> employeeRecord = csvProcessor.getEmployeeRecordsByEmployeeId(employeeID);
@@ -5,10 +5,10 @@
 package gui;
 
 import CSV.CSVDatabaseProcessor;
+import CSV.CSVDatasetRegistry;
 import java.awt.GridLayout;
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
-import java.util.List;
 import java.util.Map;
 import oop.classes.actors.User;
 
@@ -25,7 +25,7 @@ public class UserManagement extends javax.swing.JFrame {
     public UserManagement(User user) {
         this.loggedInUser = user; //passed user details
         initComponents(); // Initialize GUI components
-        csvProcessor = new CSVDatabaseProcessor(); // Create CSV processor
+        csvProcessor = CSVDatasetRegistry.getInstance().getProcessor(); // Create CSV processor
         csvProcessor.loadUserCredentialData(); // Load user credentials
         initializeTable(); // Populate table with user data
     }
@@ -38,37 +38,30 @@ public class UserManagement extends javax.swing.JFrame {
         UserMgmtTbl.setModel(tableModel);
 
         // Fetch all user credentials from CSV
-        List<Map<String, String>> userCredentials = csvProcessor.getAllUserCredentialRecords();
-        for (Map<String, String> user : userCredentials) {
-            tableModel.addRow(new Object[]{
-                user.get("Employee ID"),
-                user.get("Last Name"),
-                user.get("First Name"),
-                user.get("Email"),
-                user.get("Password")
-            });
-        }
+        csvProcessor.getUserCredentialRecordView().forEach(this::addUserRow);
+    }
+
+    // Add one user credential record to the table
+    private void addUserRow(Map<String, String> user) {
+        tableModel.addRow(new Object[]{
+            user.get("Employee ID"),
+            user.get("Last Name"),
+            user.get("First Name"),
+            user.get("Email"),
+            user.get("Password")
+        });
     }
 
 
     // Filter table by employee ID
     private void filterByEmployeeID(String id) {
     tableModel.setRowCount(0); // Clear the table
-    List<Map<String, String>> userCredentials = csvProcessor.getAllUserCredentialRecords();
-    boolean foundMatch = false; // Track if any match is found
-
-    for (Map<String, String> user : userCredentials) {
-        if (user.get("Employee ID").equals(id)) { // Match exact ID
-            tableModel.addRow(new Object[]{
-                user.get("Employee ID"),
-                user.get("Last Name"),
-                user.get("First Name"),
-                user.get("Email"),
-                user.get("Password")
-            });
-            foundMatch = true; // At least one match found
-            break; // Stop after finding the matching ID
-        }
+    // Stop at the first record with a matching ID
+    Map<String, String> match = csvProcessor.getUserCredentialRecordView()
+            .findFirst(user -> user.get("Employee ID").equals(id)); // Match exact ID
+    boolean foundMatch = match != null; // Track if any match is found
+    if (foundMatch) {
+        addUserRow(match);
     }
 
     // If no match is found, show a message
@@ -82,20 +75,14 @@ public class UserManagement extends javax.swing.JFrame {
     // Filter table by employee name
     private void filterByEmployeeName(String name) {
     tableModel.setRowCount(0); // Clear the table
-    List<Map<String, String>> userCredentials = csvProcessor.getAllUserCredentialRecords();
+    String lowerCaseName = name.toLowerCase();
     boolean foundMatch = false; // Track if any match is found
 
-    for (Map<String, String> user : userCredentials) {
+    for (Map<String, String> user : csvProcessor.getUserCredentialRecordView()) {
         // Check if the name matches either first or last name (case-insensitive)
-        if (user.get("First Name").toLowerCase().contains(name.toLowerCase()) ||
-            user.get("Last Name").toLowerCase().contains(name.toLowerCase())) {
-            tableModel.addRow(new Object[]{
-                user.get("Employee ID"),
-                user.get("Last Name"),
-                user.get("First Name"),
-                user.get("Email"),
-                user.get("Password")
-            });
+        if (user.get("First Name").toLowerCase().contains(lowerCaseName) ||
+            user.get("Last Name").toLowerCase().contains(lowerCaseName)) {
+            addUserRow(user);
             foundMatch = true; // At least one match found
         }
     }
@@ -111,17 +98,7 @@ public class UserManagement extends javax.swing.JFrame {
         //Method to reset table to show all records
         private void updateTableModel() {
         tableModel.setRowCount(0); // Clear the table
-        List<Map<String, String>> userCredentials = csvProcessor.getAllUserCredentialRecords();
-
-        for (Map<String, String> user : userCredentials) {
-            tableModel.addRow(new Object[]{
-                user.get("Employee ID"),
-                user.get("Last Name"),
-                user.get("First Name"),
-                user.get("Email"),
-                user.get("Password")
-            });
-        }
+        csvProcessor.getUserCredentialRecordView().forEach(this::addUserRow);
     }
         
         // Get the next available employee ID
@@ -149,10 +126,9 @@ public class UserManagement extends javax.swing.JFrame {
         }
         
         private int getHighestEmployeeID() {
-            List<Map<String, String>> userCredentials = csvProcessor.getAllUserCredentialRecords();
             int highestID = 0;
 
-            for (Map<String, String> user : userCredentials) {
+            for (Map<String, String> user : csvProcessor.getUserCredentialRecordView()) {
                 try {
                     int currentID = Integer.parseInt(user.get("Employee ID"));
                     if (currentID > highestID) {
@@ -178,14 +154,9 @@ public class UserManagement extends javax.swing.JFrame {
 
             // Second, check if the ID exists in the CSV data
             // Important in case there are records that haven't been loaded to the table yet
-            List<Map<String, String>> userCredentials = csvProcessor.getAllUserCredentialRecords();
-            for (Map<String, String> user : userCredentials) {
-                if (user.get("Employee ID").equals(id)) {
-                    return true; // ID already exists in the CSV data
-                }
-            }
-
-            return false; // ID is unique
+            // Stops at the first match, without copying the records
+            return csvProcessor.getUserCredentialRecordView()
+                    .anyMatch(user -> user.get("Employee ID").equals(id));
         }
  
 
@@ -6,6 +6,7 @@ import oop.classes.actors.Employee;
 import oop.classes.calculations.PayrollSummary;
 import oop.classes.empselfservice.Payslip;
 import CSV.CSVDatabaseProcessor;
+import CSV.CSVDatasetRegistry;
 import com.itextpdf.text.DocumentException;
 import java.io.IOException;
 import java.time.YearMonth;
@@ -59,7 +60,7 @@ public class ViewPayslip extends javax.swing.JFrame {
     private void setupComponents() {
         try {
             // Initialize CSV processor
-            this.csvProcessor = new CSVDatabaseProcessor();
+            this.csvProcessor = CSVDatasetRegistry.getInstance().getProcessor();
             
             // Center the form on screen
             this.setLocationRelativeTo(null);
@@ -4,6 +4,8 @@
  */
 package oop.classes.actors;
 
+import CSV.EmployeeRecord;
+import CSV.FieldDecoder;
 import java.util.List;
 import oop.classes.calculations.LeaveBalance;
 import oop.classes.empselfservice.LeaveRequest;
@@ -72,7 +74,7 @@ public class Employee extends User {
         String password = record.get("Password");
         String role = String.valueOf(record.get("Role"));
 
-        LocalDate birthday = LocalDate.parse(record.get("Birthday"), java.time.format.DateTimeFormatter.ofPattern("MM/dd/yyyy"));
+        LocalDate birthday = FieldDecoder.parseDate(record.get("Birthday"));
         String address = record.get("Address");
         String phoneNo = record.get("Phone Number");
         String sssNo = record.get("SSS #");
@@ -82,12 +84,12 @@ public class Employee extends User {
         String position = String.valueOf(record.get("Position"));
         String empStatus = String.valueOf(record.get("Status"));
 
-        double basicSalary = Double.parseDouble(record.get("Basic Salary").replace(",", ""));
-        double riceSubsidy = Double.parseDouble(record.get("Rice Subsidy").replace(",", ""));
-        double phoneAllowance = Double.parseDouble(record.get("Phone Allowance").replace(",", ""));
-        double clothingAllowance = Double.parseDouble(record.get("Clothing Allowance").replace(",", ""));
-        double grossSemiMthlyRate = Double.parseDouble(record.get("Gross Semi-monthly Rate").replace(",", ""));
-        double hourlyRate = Double.parseDouble(record.get("Hourly Rate").replace(",", ""));
+        double basicSalary = decodeAmount(record, "Basic Salary");
+        double riceSubsidy = decodeAmount(record, "Rice Subsidy");
+        double phoneAllowance = decodeAmount(record, "Phone Allowance");
+        double clothingAllowance = decodeAmount(record, "Clothing Allowance");
+        double grossSemiMthlyRate = decodeAmount(record, "Gross Semi-monthly Rate");
+        double hourlyRate = decodeAmount(record, "Hourly Rate");
 
         Employee employee = new Employee(employeeID, firstName, lastName, email, password, role, birthday, address, phoneNo, sssNo, philhealthNo, position, pagibigNo, empStatus, basicSalary, riceSubsidy, phoneAllowance, clothingAllowance, grossSemiMthlyRate, hourlyRate);
 
@@ -100,6 +102,35 @@ public class Employee extends User {
         return employee;
     }
 
+    // Amount column of a CSV record, e.g. "90,000"
+    private static double decodeAmount(Map<String, String> record, String column) {
+        double amount = FieldDecoder.decodeAmount(record.get(column));
+        if (Double.isNaN(amount)) {
+            throw new NumberFormatException("Invalid " + column + ": " + record.get(column));
+        }
+        return amount;
+    }
+
+    // Static factory method to create Employee from an already-decoded employee record
+    public static Employee createEmployeeFromRecord(EmployeeRecord record) {
+        Employee employee = new Employee(record.getNumericId(), record.getFirstName(), record.getLastName(),
+                record.get("Email"), record.get("Password"), String.valueOf(record.get("Role")),
+                record.getBirthday(), record.get("Address"), record.get("Phone Number"), record.get("SSS #"),
+                record.get("Philhealth #"), record.getPosition(), record.get("Pag-ibig #"),
+                String.valueOf(record.get("Status")),
+                EmployeeRecord.orZero(record.getBasicSalary()), EmployeeRecord.orZero(record.getRiceSubsidy()),
+                EmployeeRecord.orZero(record.getPhoneAllowance()), EmployeeRecord.orZero(record.getClothingAllowance()),
+                EmployeeRecord.orZero(record.getGrossSemiMonthlyRate()), EmployeeRecord.orZero(record.getHourlyRate()));
+
+        // Set supervisor name (if available)
+        String supervisorName = record.getImmediateSupervisor();
+        if (!supervisorName.isEmpty() && !supervisorName.equals("N/A")) {
+            employee.setSupervisorName(supervisorName);
+        }
+
+        return employee;
+    }
+
     // getters for all the attributes to return respective values
     public LocalDate getBirthday() {
         return birthday;
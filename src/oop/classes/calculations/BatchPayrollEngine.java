@@ -0,0 +1,282 @@
+package oop.classes.calculations;
+
+import CSV.AttendanceAggregate;
+import CSV.CSVDatabaseProcessor;
+import CSV.DatasetVersion;
+import CSV.EmployeeRecord;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Calculates the payroll of every employee for a month in one run.
+ * Each employee's attendance rows for the month are added up once by AttendanceAggregate, and gross pay, late
+ * deductions and days worked are all calculated from those totals. The rows come from the attendance index,
+ * which keeps them grouped by employee and sorted by date, so finding them is a hash lookup and a binary
+ * search and the whole run is linear in the number of attendance rows of the month.
+ * The amounts are the same as SalaryCalculation and DeductionCalculation give employee by employee.
+ * Large runs are split into slices of employees, which the calling thread and helper tasks on the common
+ * ForkJoin pool take in turn; no pool is started per run. Every employee is calculated by one thread from the
+ * same pinned data, and the slices are joined in employee ID order, so the results are identical whatever the
+ * number of threads.
+ * With a result cache set, employees whose month is cached for the current data are not recalculated.
+ * @author Admin
+ */
+public class BatchPayrollEngine {
+
+    // Slices smaller than this are not worth handing to another thread
+    private static final int MIN_EMPLOYEES_PER_TASK = 64;
+    // More slices than threads, so threads that finish early can take over the rest of the work
+    private static final int TASKS_PER_THREAD = 4;
+
+    // Employees in ID order: numeric IDs by value, then any other IDs alphabetically
+    private static final Comparator<EmployeeRecord> EMPLOYEE_ID_ORDER = Comparator
+            .comparingInt((EmployeeRecord employee) -> employee.getNumericId() < 0 ? Integer.MAX_VALUE : employee.getNumericId())
+            .thenComparing(EmployeeRecord::getEmployeeId);
+
+    private final SalaryCalculation salaryCalculation = new SalaryCalculation();
+    private final DeductionCalculation deductionCalculation = new DeductionCalculation();
+    private int parallelism = Integer.getInteger("payroll.parallelism", Runtime.getRuntime().availableProcessors());
+    private PayrollResultCache resultCache;
+
+    /**
+     * Sets how many threads a run may use: the calling thread and up to parallelism - 1 threads of the common
+     * ForkJoin pool, so no more than the pool has. Runs with few employees always use the calling thread only.
+     * @param parallelism Number of threads (1 calculates every employee on the calling thread)
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1: " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Sets the cache to look results up in and store calculated results in.
+     * @param resultCache The cache, or null to calculate every employee each run
+     */
+    public void setResultCache(PayrollResultCache resultCache) {
+        this.resultCache = resultCache;
+    }
+
+    /**
+     * Calculates one employee's payroll for a month from a pinned version of the data.
+     *
+     * @param employeeId   The ID of the employee.
+     * @param payrollMonth The payroll month and year.
+     * @param data         The pinned data version; its attendance must include the payroll month.
+     * @return The employee's payroll.
+     * @throws IllegalArgumentException If the employee does not exist or cannot be paid.
+     */
+    public PayrollResult calculateEmployee(String employeeId, YearMonth payrollMonth, DatasetVersion data) {
+        Objects.requireNonNull(employeeId, "Employee ID cannot be null.");
+        Objects.requireNonNull(payrollMonth, "Payroll Month cannot be null.");
+        Objects.requireNonNull(data, "Data version cannot be null.");
+
+        EmployeeRecord employee = data.getEmployeeRecord(employeeId);
+        if (employee == null) {
+            throw new IllegalArgumentException("Employee data not found for ID: " + employeeId);
+        }
+        return calculateEmployee(employee, payrollMonth, data, new Slice(1));
+    }
+
+    /**
+     * Calculates the payroll of every employee for a month from the current data.
+     *
+     * @param payrollMonth The payroll month and year.
+     * @param csvProcessor The CSV processor to fetch employee and attendance records.
+     * @return The results and failures, in employee ID order.
+     */
+    public PayrollRun calculatePayroll(YearMonth payrollMonth, CSVDatabaseProcessor csvProcessor) {
+        Objects.requireNonNull(payrollMonth, "Payroll Month cannot be null.");
+        Objects.requireNonNull(csvProcessor, "CSV Processor cannot be null.");
+
+        try (DatasetVersion data = csvProcessor.pinVersion(payrollMonth)) {
+            return calculatePayroll(payrollMonth, data);
+        }
+    }
+
+    /**
+     * Calculates the payroll of every employee for a month from a pinned version of the data.
+     * An employee that cannot be paid, for example one without a usable hourly rate, is reported as a failure
+     * and the others are still calculated.
+     *
+     * @param payrollMonth The payroll month and year.
+     * @param data         The pinned data version; its attendance must include the payroll month.
+     * @return The results and failures, in employee ID order.
+     */
+    public PayrollRun calculatePayroll(YearMonth payrollMonth, DatasetVersion data) {
+        Objects.requireNonNull(payrollMonth, "Payroll Month cannot be null.");
+        Objects.requireNonNull(data, "Data version cannot be null.");
+
+        List<EmployeeRecord> allEmployees = data.getAllEmployees();
+        List<EmployeeRecord> employees = new ArrayList<>(allEmployees.size());
+        for (EmployeeRecord employee : allEmployees) {
+            if (!employee.getEmployeeId().isEmpty()) {
+                employees.add(employee);
+            }
+        }
+        employees.sort(EMPLOYEE_ID_ORDER);
+
+        int taskCount = Math.min(parallelism * TASKS_PER_THREAD, employees.size() / MIN_EMPLOYEES_PER_TASK);
+        Slice total = taskCount <= 1
+                ? calculateSlice(employees, 0, employees.size(), payrollMonth, data)
+                : calculateParallel(employees, taskCount, payrollMonth, data);
+
+        System.out.println("Calculated payroll for " + total.results.size() + " employees in " + payrollMonth
+                + " (" + total.cached + " cached, " + total.failures.size() + " failed, " + total.withoutAttendance
+                + " without attendance, " + total.invalidRows + " attendance rows with invalid log in/out times)");
+        return new PayrollRun(payrollMonth, total.results.toArray(new PayrollResult[0]), total.failures);
+    }
+
+    /**
+     * Calculates slices of the employees on the calling thread and helper tasks on the common ForkJoin pool,
+     * and joins them in order.
+     */
+    private Slice calculateParallel(List<EmployeeRecord> employees, int taskCount, YearMonth payrollMonth,
+                                    DatasetVersion data) {
+        Slice[] slices = new Slice[taskCount];
+        AtomicInteger nextSlice = new AtomicInteger();
+        Runnable worker = () -> {
+            for (int i = nextSlice.getAndIncrement(); i < taskCount; i = nextSlice.getAndIncrement()) {
+                int from = (int) ((long) employees.size() * i / taskCount);
+                int to = (int) ((long) employees.size() * (i + 1) / taskCount);
+                slices[i] = calculateSlice(employees, from, to, payrollMonth, data);
+            }
+        };
+
+        int helperCount = Math.min(parallelism, taskCount) - 1;
+        List<ForkJoinTask<?>> helpers = new ArrayList<>(helperCount);
+        for (int i = 0; i < helperCount; i++) {
+            helpers.add(ForkJoinPool.commonPool().submit(worker));
+        }
+        worker.run();
+        for (ForkJoinTask<?> helper : helpers) {
+            helper.join();
+        }
+
+        // Join in slice order so the results stay in employee ID order
+        Slice total = new Slice(employees.size());
+        for (Slice slice : slices) {
+            total.add(slice);
+        }
+        return total;
+    }
+
+    /**
+     * Calculates employees [from, to) on the calling thread.
+     */
+    private Slice calculateSlice(List<EmployeeRecord> employees, int from, int to, YearMonth payrollMonth,
+                                 DatasetVersion data) {
+        Slice slice = new Slice(to - from);
+        for (int i = from; i < to; i++) {
+            EmployeeRecord employee = employees.get(i);
+            try {
+                slice.results.add(calculateEmployee(employee, payrollMonth, data, slice));
+            } catch (RuntimeException e) {
+                slice.failures.add(new PayrollRun.Failure(employee.getEmployeeId(), e));
+            }
+        }
+        return slice;
+    }
+
+    /**
+     * Returns the employee's cached result for the data, or calculates and caches it.
+     */
+    private PayrollResult calculateEmployee(EmployeeRecord employee, YearMonth payrollMonth, DatasetVersion data,
+                                            Slice slice) {
+        PayrollResultCache cache = resultCache;
+        if (cache == null) {
+            return calculateUncached(employee, payrollMonth, data, slice);
+        }
+        long stamp = PayrollResultCache.stampOf(employee, payrollMonth, data);
+        PayrollResult result = cache.lookup(employee.getEmployeeId(), payrollMonth, stamp);
+        if (result != null) {
+            slice.cached++;
+            return result;
+        }
+        result = calculateUncached(employee, payrollMonth, data, slice);
+        cache.store(payrollMonth, stamp, result);
+        return result;
+    }
+
+    /**
+     * Adds up an employee's attendance for the month in one scan and applies the deductions.
+     */
+    private PayrollResult calculateUncached(EmployeeRecord employee, YearMonth payrollMonth, DatasetVersion data,
+                                            Slice slice) {
+        double hourlyRate = salaryCalculation.getHourlyRate(employee);
+        boolean isRankAndFile = employee.isRankAndFile();
+
+        AttendanceAggregate attendance = data.aggregateAttendance(
+                employee.getEmployeeId(), payrollMonth.atDay(1), payrollMonth.atEndOfMonth());
+        if (attendance.getRows() == 0) {
+            slice.withoutAttendance++;
+        }
+        slice.invalidRows += attendance.getInvalidDays();
+
+        double grossPay = salaryCalculation.calculateGrossPay(attendance, hourlyRate, isRankAndFile);
+        double overtimePay = isRankAndFile
+                ? salaryCalculation.calculateOvertimePay(attendance.getOvertimeHours(), hourlyRate) : 0;
+
+        return applyDeductions(employee, grossPay, overtimePay, attendance.getLateHours(), attendance.getValidDays());
+    }
+
+    /**
+     * Applies the government contributions, late deduction and withholding tax to an employee's month.
+     */
+    private PayrollResult applyDeductions(EmployeeRecord employee, double grossPay, double overtimePay,
+                                          double lateHours, int daysWorked) {
+        double lateDeduction = lateHours > 0
+                ? deductionCalculation.calculateLateDeductions(lateHours, employee.getHourlyRate()) : 0.0;
+
+        double sssDeduction = deductionCalculation.calculateSSS(grossPay);
+        double philHealthDeduction = deductionCalculation.calculatePhilHealth(grossPay);
+        double pagIbigDeduction = deductionCalculation.calculatePagibig(grossPay);
+
+        // Taxable income is gross pay minus government contributions and late deductions
+        double taxableIncome = grossPay - (sssDeduction + philHealthDeduction + pagIbigDeduction) - lateDeduction;
+        double withholdingTax = deductionCalculation.calculateTax(taxableIncome);
+
+        return new PayrollResult(employee.getEmployeeId(), employee.getLastName(), employee.getFirstName(),
+                employee.getPosition(),
+                EmployeeRecord.orZero(employee.getRiceSubsidy()),
+                EmployeeRecord.orZero(employee.getPhoneAllowance()),
+                EmployeeRecord.orZero(employee.getClothingAllowance()),
+                grossPay, overtimePay, lateHours, daysWorked,
+                sssDeduction, philHealthDeduction, pagIbigDeduction, lateDeduction, taxableIncome, withholdingTax);
+    }
+
+    /**
+     * Results, failures and counts of a slice of employees; only touched by the thread calculating it until
+     * it is joined.
+     */
+    private static final class Slice {
+        final List<PayrollResult> results;
+        final List<PayrollRun.Failure> failures = new ArrayList<>();
+        int cached;
+        int withoutAttendance;
+        int invalidRows;
+
+        Slice(int employees) {
+            results = new ArrayList<>(employees);
+        }
+
+        void add(Slice other) {
+            results.addAll(other.results);
+            failures.addAll(other.failures);
+            cached += other.cached;
+            withoutAttendance += other.withoutAttendance;
+            invalidRows += other.invalidRows;
+        }
+    }
+}
@@ -1,8 +1,9 @@
 package oop.classes.calculations;
 
 import CSV.CSVDatabaseProcessor;
+import CSV.DatasetVersion;
+import CSV.EmployeeRecord;
 import java.time.YearMonth;
-import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -27,42 +28,57 @@ public class DeductionCalculation {
             YearMonth payrollMonth,
             String employeeId,
             CSVDatabaseProcessor csvProcessor) {
+        Objects.requireNonNull(payrollMonth, "Payroll Month cannot be null.");
+        Objects.requireNonNull(csvProcessor, "CSV Processor cannot be null.");
+
+        // Gross pay, hourly rate and late hours all come from one version of the data
+        try (DatasetVersion data = csvProcessor.pinVersion(payrollMonth)) {
+            return calculateTotalDeductions(salaryCalculation, payrollMonth, employeeId, data);
+        }
+    }
+
+    /**
+     * Calculates the total deductions for a given payroll month from a pinned version of the data.
+     *
+     * @param salaryCalculation The SalaryCalculation instance to use for gross pay calculation.
+     * @param payrollMonth The payroll period (month and year).
+     * @param employeeId The employee ID.
+     * @param data The pinned data version; its attendance must include the payroll month.
+     * @return The total deductions for the payroll month.
+     */
+    public double calculateTotalDeductions(
+            SalaryCalculation salaryCalculation,
+            YearMonth payrollMonth,
+            String employeeId,
+            DatasetVersion data) {
         
         Objects.requireNonNull(salaryCalculation, "SalaryCalculation cannot be null.");
         Objects.requireNonNull(payrollMonth, "Payroll Month cannot be null.");
         Objects.requireNonNull(employeeId, "Employee ID cannot be null.");
-        Objects.requireNonNull(csvProcessor, "CSV Processor cannot be null.");
+        Objects.requireNonNull(data, "Data version cannot be null.");
 
-        // Retrieve employee details
-        Map<String, String> employeeData = csvProcessor.getEmployeeRecordsByEmployeeId(employeeId);
-        if (employeeData == null) {
+        // Retrieve the pre-parsed employee record
+        EmployeeRecord employee = data.getEmployeeRecord(employeeId);
+        if (employee == null) {
             throw new IllegalArgumentException("Employee data not found for ID: " + employeeId);
         }
-        
-        // Get employee position
-        String position = employeeData.get("Position");
-        if (position == null) {
-            throw new IllegalArgumentException("Position is missing in employee data for ID: " + employeeId);
-        }
 
         // Calculate gross pay for the payroll month
-        double grossPay = salaryCalculation.calculateGrossMonthlySalary(employeeId, payrollMonth, csvProcessor);
+        double grossPay = salaryCalculation.calculateGrossMonthlySalary(employeeId, payrollMonth, data);
         
         // Retrieve hourly rate
-        String hourlyRateStr = employeeData.get("Hourly Rate");
+        String hourlyRateStr = employee.get("Hourly Rate");
         if (hourlyRateStr == null || hourlyRateStr.isEmpty()) {
             throw new IllegalArgumentException("Hourly Rate is missing for employee ID: " + employeeId);
         }
         
-        double hourlyRate;
-        try {
-            hourlyRate = Double.parseDouble(hourlyRateStr);
-        } catch (NumberFormatException e) {
-            throw new IllegalArgumentException("Invalid Hourly Rate format: " + hourlyRateStr, e);
+        double hourlyRate = employee.getHourlyRate();
+        if (Double.isNaN(hourlyRate)) {
+            throw new IllegalArgumentException("Invalid Hourly Rate format: " + hourlyRateStr);
         }
         
         // Calculate total late hours
-        double lateHours = csvProcessor.getTotalLateHours(employeeId, payrollMonth);
+        double lateHours = data.getTotalLateHours(employeeId, payrollMonth);
         
         // Calculate late deductions
         double lateDeduction = calculateLateDeductions(lateHours, hourlyRate);
@@ -0,0 +1,98 @@
+package oop.classes.calculations;
+
+/**
+ * The payroll of one employee for one month, as calculated by BatchPayrollEngine.
+ * Amounts are in pesos and not rounded; net pay is gross pay minus total deductions, as on the payroll screen.
+ * @author Admin
+ */
+public final class PayrollResult {
+
+    // Employee information
+    private final String employeeId;
+    private final String lastName;
+    private final String firstName;
+    private final String position;
+
+    // Allowances
+    private final double riceSubsidy;
+    private final double phoneAllowance;
+    private final double clothingAllowance;
+
+    // Attendance totals for the month
+    private final double grossPay; // Pay for hours worked, overtime included
+    private final double overtimePay; // Overtime part of the gross pay
+    private final double lateHours;
+    private final int daysWorked;
+
+    // Deductions
+    private final double sssDeduction;
+    private final double philHealthDeduction;
+    private final double pagIbigDeduction;
+    private final double lateDeduction;
+    private final double taxableIncome;
+    private final double withholdingTax;
+
+    PayrollResult(String employeeId, String lastName, String firstName, String position,
+                  double riceSubsidy, double phoneAllowance, double clothingAllowance,
+                  double grossPay, double overtimePay, double lateHours, int daysWorked,
+                  double sssDeduction, double philHealthDeduction, double pagIbigDeduction,
+                  double lateDeduction, double taxableIncome, double withholdingTax) {
+        this.employeeId = employeeId;
+        this.lastName = lastName;
+        this.firstName = firstName;
+        this.position = position;
+        this.riceSubsidy = riceSubsidy;
+        this.phoneAllowance = phoneAllowance;
+        this.clothingAllowance = clothingAllowance;
+        this.grossPay = grossPay;
+        this.overtimePay = overtimePay;
+        this.lateHours = lateHours;
+        this.daysWorked = daysWorked;
+        this.sssDeduction = sssDeduction;
+        this.philHealthDeduction = philHealthDeduction;
+        this.pagIbigDeduction = pagIbigDeduction;
+        this.lateDeduction = lateDeduction;
+        this.taxableIncome = taxableIncome;
+        this.withholdingTax = withholdingTax;
+    }
+
+    // GETTERS
+    public String getEmployeeId() { return employeeId; }
+    public String getLastName() { return lastName; }
+    public String getFirstName() { return firstName; }
+    public String getPosition() { return position; }
+    public double getRiceSubsidy() { return riceSubsidy; }
+    public double getPhoneAllowance() { return phoneAllowance; }
+    public double getClothingAllowance() { return clothingAllowance; }
+    public double getTotalAllowances() { return riceSubsidy + phoneAllowance + clothingAllowance; }
+    public double getGrossPay() { return grossPay; }
+    public double getOvertimePay() { return overtimePay; }
+    public double getLateHours() { return lateHours; }
+    public int getDaysWorked() { return daysWorked; }
+    public double getSssDeduction() { return sssDeduction; }
+    public double getPhilHealthDeduction() { return philHealthDeduction; }
+    public double getPagIbigDeduction() { return pagIbigDeduction; }
+    public double getLateDeduction() { return lateDeduction; }
+    public double getTaxableIncome() { return taxableIncome; }
+    public double getWithholdingTax() { return withholdingTax; }
+
+    /**
+     * Government contributions, withholding tax and late deduction.
+     * @return The total deductions
+     */
+    public double getTotalDeductions() {
+        return sssDeduction + philHealthDeduction + pagIbigDeduction + lateDeduction + withholdingTax;
+    }
+
+    /**
+     * @return Gross pay minus total deductions
+     */
+    public double getNetPay() {
+        return grossPay - getTotalDeductions();
+    }
+
+    @Override
+    public String toString() {
+        return "PayrollResult{" + employeeId + ", gross=" + grossPay + ", net=" + getNetPay() + "}";
+    }
+}
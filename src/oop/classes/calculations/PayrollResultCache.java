@@ -0,0 +1,392 @@
+package oop.classes.calculations;
+
+import CSV.AttendanceTable;
+import CSV.CSVDatabaseProcessor;
+import CSV.DatasetVersion;
+import CSV.EmployeeRecord;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.YearMonth;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Cache of calculated payrolls, so payslips, the payroll screen and payroll summaries do not recalculate an
+ * employee's month every time they are opened.
+ * An entry is keyed by employee ID and month and carries the data version it was calculated from: a 64-bit
+ * stamp of exactly the inputs of that employee's month, namely the employee's pay fields and their attendance
+ * rows of the month. A lookup computes the stamp from the pinned data (one walk of the employee's rows, no
+ * calculation) and drops the entry if it differs, so entries go stale exactly when the employee's row or
+ * their attendance for the month changes, and edits to other employees or other months keep them.
+ * Entries live in a bounded in-memory LRU tier and, if a directory is configured, in an on-disk tier of one
+ * small file per employee and month, written on a background thread. Stamps do not depend on when or in which
+ * process the data was loaded, so disk entries stay valid across restarts.
+ * The shared instance is sized by the payroll.cache.entries system property and keeps a disk tier only if
+ * payroll.cache.dir is set.
+ * @author Admin
+ */
+public class PayrollResultCache {
+
+    // Bump whenever a payroll rule changes, so cached results from the old rules are no longer used
+    static final int CALCULATION_VERSION = 3;
+
+    private static final int MAGIC = 0x50415943; // "PAYC"
+    private static final String SUFFIX = ".payroll";
+
+    private static PayrollResultCache instance;
+
+    // One daemon thread writes disk entries, so caching never delays a screen or keeps the JVM alive
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "payroll-cache-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final int capacity;
+    private final File directory; // null without a disk tier
+    private final BatchPayrollEngine engine = new BatchPayrollEngine();
+
+    // "employee ID|yyyy-MM" -> entry, least recently used first; guarded by this
+    private final LinkedHashMap<String, Entry> entries;
+
+    // Guarded by this
+    private long memoryHits;
+    private long diskHits;
+    private long misses;
+    private long staleDrops;
+
+    /**
+     * Creates a cache with an in-memory tier only.
+     * @param capacity Maximum number of employee-months kept in memory
+     */
+    public PayrollResultCache(int capacity) {
+        this(capacity, null);
+    }
+
+    /**
+     * Creates a cache with an in-memory tier and an on-disk tier.
+     * @param capacity Maximum number of employee-months kept in memory
+     * @param directory Directory for the disk tier (created if needed), or null for none
+     */
+    public PayrollResultCache(int capacity, File directory) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1: " + capacity);
+        }
+        this.capacity = capacity;
+        this.directory = directory;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > PayrollResultCache.this.capacity;
+            }
+        };
+        engine.setResultCache(this);
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+            System.err.println("Could not create payroll cache directory " + directory + "; caching in memory only");
+        }
+    }
+
+    /**
+     * Returns the cache shared by every payroll screen.
+     * @return The shared cache
+     */
+    public static synchronized PayrollResultCache getInstance() {
+        if (instance == null) {
+            String directory = System.getProperty("payroll.cache.dir");
+            instance = new PayrollResultCache(Integer.getInteger("payroll.cache.entries", 16384),
+                    directory == null || directory.isEmpty() ? null : new File(directory));
+        }
+        return instance;
+    }
+
+    /**
+     * Returns an employee's payroll for a month, calculating and caching it if it is not cached for the data
+     * as it is in the given version.
+     *
+     * @param employeeId   The ID of the employee.
+     * @param payrollMonth The payroll month and year.
+     * @param data         The pinned data version; its attendance must include the payroll month.
+     * @return The employee's payroll.
+     * @throws IllegalArgumentException If the employee does not exist or cannot be paid.
+     */
+    public PayrollResult get(String employeeId, YearMonth payrollMonth, DatasetVersion data) {
+        return engine.calculateEmployee(employeeId, payrollMonth, data);
+    }
+
+    /**
+     * Calculates the payroll of every employee for a month, so later lookups for the month are hits.
+     * Employees already cached for the current data are not recalculated.
+     *
+     * @param payrollMonth The payroll month and year, usually the current month.
+     * @param csvProcessor The CSV processor to fetch employee and attendance records.
+     * @return The run, including employees that could not be paid.
+     */
+    public PayrollRun warmUp(YearMonth payrollMonth, CSVDatabaseProcessor csvProcessor) {
+        PayrollRun run = engine.calculatePayroll(payrollMonth, csvProcessor);
+        System.out.println("Warmed up payroll cache for " + payrollMonth + ": " + this);
+        return run;
+    }
+
+    /**
+     * Warms up the cache for a month on a background thread.
+     *
+     * @param payrollMonth The payroll month and year, usually the current month.
+     * @param csvProcessor The CSV processor to fetch employee and attendance records.
+     */
+    public void warmUpInBackground(YearMonth payrollMonth, CSVDatabaseProcessor csvProcessor) {
+        Thread thread = new Thread(() -> {
+            try {
+                warmUp(payrollMonth, csvProcessor);
+            } catch (RuntimeException e) {
+                System.err.println("Could not warm up payroll cache for " + payrollMonth + " - " + e.getMessage());
+            }
+        }, "payroll-cache-warm-up");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Computes the data version of an employee's month: a stamp of the employee's pay fields and their
+     * attendance rows of the month, in date order.
+     */
+    static long stampOf(EmployeeRecord employee, YearMonth payrollMonth, DatasetVersion data) {
+        long hash = 0xcbf29ce484222325L; // 64-bit FNV-1a
+        hash = mix(hash, CALCULATION_VERSION);
+        hash = mix(hash, employee.getEmployeeId());
+        hash = mix(hash, employee.getLastName());
+        hash = mix(hash, employee.getFirstName());
+        hash = mix(hash, employee.getPosition());
+        hash = mix(hash, Double.doubleToLongBits(employee.getHourlyRate()));
+        hash = mix(hash, Double.doubleToLongBits(employee.getRiceSubsidy()));
+        hash = mix(hash, Double.doubleToLongBits(employee.getPhoneAllowance()));
+        hash = mix(hash, Double.doubleToLongBits(employee.getClothingAllowance()));
+        String hourlyRate = employee.get("Hourly Rate");
+        hash = mix(hash, hourlyRate == null || hourlyRate.isEmpty() ? 0 : 1);
+
+        AttendanceTable.Cursor attendance = data.getAttendanceCursor(
+                employee.getEmployeeId(), payrollMonth.atDay(1), payrollMonth.atEndOfMonth());
+        hash = mix(hash, attendance.size());
+        while (attendance.next()) {
+            hash = mix(hash, attendance.epochDay());
+            hash = mix(hash, ((long) attendance.logInMinute() << 32) | (attendance.logOutMinute() & 0xffffffffL));
+        }
+        return hash;
+    }
+
+    /**
+     * Looks up a result calculated from data with the given stamp; a result for other data is dropped.
+     * @return The result, or null if it has to be calculated
+     */
+    PayrollResult lookup(String employeeId, YearMonth payrollMonth, long stamp) {
+        String key = employeeId + '|' + payrollMonth;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (entry.stamp == stamp) {
+                    memoryHits++;
+                    return entry.result;
+                }
+                entries.remove(key);
+                staleDrops++;
+            }
+        }
+
+        PayrollResult result = readFromDisk(employeeId, payrollMonth, stamp);
+        synchronized (this) {
+            if (result == null) {
+                misses++;
+                return null;
+            }
+            diskHits++;
+            entries.put(key, new Entry(stamp, result));
+            return result;
+        }
+    }
+
+    /**
+     * Caches a result calculated from data with the given stamp.
+     */
+    void store(YearMonth payrollMonth, long stamp, PayrollResult result) {
+        synchronized (this) {
+            entries.put(result.getEmployeeId() + '|' + payrollMonth, new Entry(stamp, result));
+        }
+        File file = diskFile(result.getEmployeeId(), payrollMonth);
+        if (file != null) {
+            WRITER.execute(() -> writeToDisk(file, stamp, result));
+        }
+    }
+
+    /**
+     * Empties the in-memory tier. The disk tier is kept.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getMemoryHits() {
+        return memoryHits;
+    }
+
+    public synchronized long getDiskHits() {
+        return diskHits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Number of cached results dropped because the employee's data changed after they were calculated.
+     * @return The stale drop count
+     */
+    public synchronized long getStaleDrops() {
+        return staleDrops;
+    }
+
+    /**
+     * Share of lookups answered by either tier.
+     * @return The hit ratio from 0 to 1, or 0 before the first lookup
+     */
+    public synchronized double getHitRatio() {
+        long lookups = memoryHits + diskHits + misses;
+        return lookups == 0 ? 0.0 : (double) (memoryHits + diskHits) / lookups;
+    }
+
+    /**
+     * Share of lookups answered by the in-memory tier.
+     * @return The memory hit ratio from 0 to 1, or 0 before the first lookup
+     */
+    public synchronized double getMemoryHitRatio() {
+        long lookups = memoryHits + diskHits + misses;
+        return lookups == 0 ? 0.0 : (double) memoryHits / lookups;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%d of %d entries, %.1f%% hits (%d memory, %d disk), %d misses, %d stale",
+                entries.size(), capacity, getHitRatio() * 100, memoryHits, diskHits, misses, staleDrops);
+    }
+
+    private File diskFile(String employeeId, YearMonth payrollMonth) {
+        if (directory == null || !employeeId.matches("[A-Za-z0-9_-]+")) {
+            return null;
+        }
+        return new File(directory, employeeId + "-" + payrollMonth + SUFFIX);
+    }
+
+    private PayrollResult readFromDisk(String employeeId, YearMonth payrollMonth, long stamp) {
+        File file = diskFile(employeeId, payrollMonth);
+        if (file == null) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != CALCULATION_VERSION || in.readLong() != stamp) {
+                return null; // from other data or older rules; overwritten when recalculated
+            }
+            return new PayrollResult(in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF(),
+                    in.readDouble(), in.readDouble(), in.readDouble(),
+                    in.readDouble(), in.readDouble(), in.readDouble(), in.readInt(),
+                    in.readDouble(), in.readDouble(), in.readDouble(),
+                    in.readDouble(), in.readDouble(), in.readDouble());
+        } catch (FileNotFoundException e) {
+            return null;
+        } catch (EOFException e) {
+            System.err.println("Ignoring truncated payroll cache entry " + file.getName());
+            return null;
+        } catch (IOException e) {
+            System.err.println("Could not read payroll cache entry " + file.getName() + " - " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Writes an entry to a temporary file and renames it over the old one, so readers never see half an entry.
+     */
+    private static void writeToDisk(File file, long stamp, PayrollResult result) {
+        File temp = new File(file.getPath() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(CALCULATION_VERSION);
+                out.writeLong(stamp);
+                out.writeUTF(result.getEmployeeId());
+                out.writeUTF(result.getLastName());
+                out.writeUTF(result.getFirstName());
+                out.writeUTF(result.getPosition());
+                out.writeDouble(result.getRiceSubsidy());
+                out.writeDouble(result.getPhoneAllowance());
+                out.writeDouble(result.getClothingAllowance());
+                out.writeDouble(result.getGrossPay());
+                out.writeDouble(result.getOvertimePay());
+                out.writeDouble(result.getLateHours());
+                out.writeInt(result.getDaysWorked());
+                out.writeDouble(result.getSssDeduction());
+                out.writeDouble(result.getPhilHealthDeduction());
+                out.writeDouble(result.getPagIbigDeduction());
+                out.writeDouble(result.getLateDeduction());
+                out.writeDouble(result.getTaxableIncome());
+                out.writeDouble(result.getWithholdingTax());
+            }
+            try {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            System.err.println("Could not write payroll cache entry " + file.getName() + " - " + e.getMessage());
+            temp.delete();
+        }
+    }
+
+    private static long mix(long hash, long value) {
+        for (int i = 0; i < 8; i++) {
+            hash ^= (value >>> (i * 8)) & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, String value) {
+        Objects.requireNonNull(value);
+        hash = mix(hash, value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            hash ^= c & 0xff;
+            hash *= 0x100000001b3L;
+            hash ^= c >>> 8;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * A cached result and the stamp of the data it was calculated from.
+     */
+    private static final class Entry {
+        final long stamp;
+        final PayrollResult result;
+
+        Entry(long stamp, PayrollResult result) {
+            this.stamp = stamp;
+            this.result = result;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package oop.classes.calculations;
+
+import java.time.YearMonth;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of a BatchPayrollEngine run: a result for every employee that could be paid, in employee ID
+ * order, and a failure for every employee that could not. One employee's bad data never stops the others.
+ * @author Admin
+ */
+public final class PayrollRun {
+
+    /**
+     * An employee whose payroll could not be calculated.
+     */
+    public static final class Failure {
+        private final String employeeId;
+        private final RuntimeException error;
+
+        Failure(String employeeId, RuntimeException error) {
+            this.employeeId = employeeId;
+            this.error = error;
+        }
+
+        public String getEmployeeId() { return employeeId; }
+        public RuntimeException getError() { return error; }
+
+        /**
+         * @return Why the payroll could not be calculated
+         */
+        public String getMessage() {
+            return error.getMessage() != null ? error.getMessage() : error.toString();
+        }
+
+        @Override
+        public String toString() {
+            return employeeId + ": " + getMessage();
+        }
+    }
+
+    private final YearMonth payrollMonth;
+    private final PayrollResult[] results;
+    private final List<Failure> failures;
+
+    PayrollRun(YearMonth payrollMonth, PayrollResult[] results, List<Failure> failures) {
+        this.payrollMonth = payrollMonth;
+        this.results = results;
+        this.failures = Collections.unmodifiableList(failures);
+    }
+
+    public YearMonth getPayrollMonth() { return payrollMonth; }
+
+    /**
+     * The calculated payrolls, in employee ID order. Each run returns a new array.
+     * @return The results
+     */
+    public PayrollResult[] getResults() { return results; }
+
+    /**
+     * The employees that could not be paid, in employee ID order.
+     * @return An unmodifiable list of failures, empty if every employee was calculated
+     */
+    public List<Failure> getFailures() { return failures; }
+}
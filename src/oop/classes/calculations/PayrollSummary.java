@@ -2,7 +2,9 @@ package oop.classes.calculations;
 import oop.classes.actors.Employee;
 import java.time.YearMonth;
 import CSV.CSVDatabaseProcessor;
-import java.util.Map;
+import CSV.CSVDatasetRegistry;
+import CSV.DatasetVersion;
+import CSV.EmployeeRecord;
 
 /**
  * Calculates the overall payroll details = net pay
@@ -60,16 +62,16 @@ public class PayrollSummary {
         // Initialize the helper classes
         this.salaryCalculation = new SalaryCalculation();
         this.deductionCalculation = new DeductionCalculation();
-        this.csvProcessor = new CSVDatabaseProcessor();
+        this.csvProcessor = CSVDatasetRegistry.getInstance().getProcessor();
 
         // Load attendance data explicitly 
         this.csvProcessor.loadAttendanceData();
     
-        // Load employee data for position, department, and allowances
-        loadEmployeeData();
-        
-        // Calculate the payroll values
-        calculatePayroll();
+        // Load employee data and calculate the payroll values from one version of the data
+        try (DatasetVersion data = csvProcessor.pinVersion(this.payrollMonth)) {
+            loadEmployeeData(data);
+            calculatePayroll(data);
+        }
     }
     
     /**
@@ -85,16 +87,16 @@ public class PayrollSummary {
         // Initialize the helper classes
         this.salaryCalculation = new SalaryCalculation();
         this.deductionCalculation = new DeductionCalculation();
-        this.csvProcessor = new CSVDatabaseProcessor();
+        this.csvProcessor = CSVDatasetRegistry.getInstance().getProcessor();
 
         // Load attendance data 
         this.csvProcessor.loadAttendanceData();
     
-        // Load employee data for position, department, and allowances
-        loadEmployeeData();
-        
-        // Calculate the payroll values
-        calculatePayroll();
+        // Load employee data and calculate the payroll values from one version of the data
+        try (DatasetVersion data = csvProcessor.pinVersion(this.payrollMonth)) {
+            loadEmployeeData(data);
+            calculatePayroll(data);
+        }
     }
     
     /**
@@ -133,21 +135,21 @@ public class PayrollSummary {
      * Load employee data from CSV database
      * Loads position, department, hourly rate, and allowances
      */
-    private void loadEmployeeData() {
+    private void loadEmployeeData(DatasetVersion data) {
         try {
-            Map<String, String> employeeData = csvProcessor.getEmployeeRecordsByEmployeeId(employeeId);
+            EmployeeRecord employee = data.getEmployeeRecord(employeeId);
             
             // Load position and department
-            this.position = employeeData.getOrDefault("Position", "");
-            this.department = employeeData.getOrDefault("Department", "");
+            this.position = employee.getPosition();
+            this.department = employee.asMap().getOrDefault("Department", "");
             
             // Load hourly rate
-            this.hourlyRate = parseAmount(employeeData.get("Hourly Rate"));
+            this.hourlyRate = EmployeeRecord.orZero(employee.getHourlyRate());
             
             // Load allowances
-            this.riceSubsidy = parseAmount(employeeData.get("Rice Subsidy"));
-            this.phoneAllowance = parseAmount(employeeData.get("Phone Allowance"));
-            this.clothingAllowance = parseAmount(employeeData.get("Clothing Allowance"));
+            this.riceSubsidy = EmployeeRecord.orZero(employee.getRiceSubsidy());
+            this.phoneAllowance = EmployeeRecord.orZero(employee.getPhoneAllowance());
+            this.clothingAllowance = EmployeeRecord.orZero(employee.getClothingAllowance());
             this.totalAllowances = riceSubsidy + phoneAllowance + clothingAllowance;
         } catch (Exception e) {
             System.err.println("Error loading employee data: " + e.getMessage());
@@ -169,67 +171,48 @@ public class PayrollSummary {
      * Uses actual attendance records to calculate basic salary
      * Modified to match PayrollManagement calculations and sample calculator
      */
-    private void calculatePayroll() {
+    private void calculatePayroll(DatasetVersion data) {
         try {
-            // Calculate gross salary using SalaryCalculation based on attendance records
-            // This calculates hours worked * hourly rate + overtime
-            this.grossSalary = salaryCalculation.calculateGrossMonthlySalary(employeeId, payrollMonth, csvProcessor);
+            // The employee's month is calculated once per version of their data and then shared through the
+            // payroll cache with the payroll screen and other payslips
+            PayrollResult result = PayrollResultCache.getInstance().get(employeeId, payrollMonth, data);
+            this.grossSalary = result.getGrossPay();
             
             // Check if grossSalary is zero (no attendance records)
             if (this.grossSalary <= 0) {
-                // If no attendance records are found, leave the values as zero
                 System.out.println("No valid attendance records found for employee ID: " + 
                     employeeId + " in " + payrollMonth.getMonth() + " " + payrollMonth.getYear());
-
-                // Reset all values to zero to ensure consistency with PayrollManagement
-                this.grossSalary = 0.0;
-                this.basicSalary = 0.0;
-                this.sssDeduction = 0.0;
-                this.philHealthDeduction = 0.0;
-                this.pagIbigDeduction = 0.0;
-                this.withholdingTax = 0.0;
-                this.lateDeductions = 0.0;
-                this.totalDeductions = 0.0;
-                this.taxableIncome = 0.0;
-                this.netMonthlyPay = 0.0;
             }
             
             // Store the calculated value as basic salary
             this.basicSalary = grossSalary;
             
-            // Calculate government deductions based on gross salary BEFORE adding allowances
-            this.sssDeduction = deductionCalculation.calculateSSS(grossSalary);
-            this.philHealthDeduction = deductionCalculation.calculatePhilHealth(grossSalary);
-            this.pagIbigDeduction = deductionCalculation.calculatePagibig(grossSalary);
-            
-            // Calculate late deductions from attendance records
-            double lateHours = csvProcessor.getTotalLateHours(employeeId, payrollMonth);
-            this.lateDeductions = deductionCalculation.calculateLateDeductions(lateHours, hourlyRate);
+            // Government deductions are based on gross salary BEFORE adding allowances
+            this.sssDeduction = result.getSssDeduction();
+            this.philHealthDeduction = result.getPhilHealthDeduction();
+            this.pagIbigDeduction = result.getPagIbigDeduction();
+            this.lateDeductions = result.getLateDeduction();
             
-            // Calculate taxable income (gross salary minus government contributions AND late deductions)
-            // UPDATED: Now subtracting late deductions before calculating taxable income
-            double totalContributions = sssDeduction + philHealthDeduction + pagIbigDeduction;
-            this.taxableIncome = grossSalary - totalContributions - lateDeductions;
-            
-            // Calculate withholding tax based on taxable income
-            this.withholdingTax = deductionCalculation.calculateTax(taxableIncome);
+            // Taxable income is gross salary minus government contributions AND late deductions
+            this.taxableIncome = result.getTaxableIncome();
+            this.withholdingTax = result.getWithholdingTax();
             
             // Debug output
             System.out.println("Employee ID: " + employeeId + ", Gross Pay: " + grossSalary);
             System.out.println("SSS: " + sssDeduction + ", PhilHealth: " + philHealthDeduction + 
                 ", Pag-Ibig: " + pagIbigDeduction + ", Tax: " + withholdingTax);
-            if (lateHours > 0) {
-                System.out.println("Late hours: " + lateHours + ", Late deduction: " + lateDeductions);
+            if (result.getLateHours() > 0) {
+                System.out.println("Late hours: " + result.getLateHours() + ", Late deduction: " + lateDeductions);
             }
             
-            // Calculate total deductions (government contributions + late deductions + tax)
-            this.totalDeductions = totalContributions + lateDeductions + withholdingTax;
+            // Total deductions (government contributions + late deductions + tax)
+            this.totalDeductions = result.getTotalDeductions();
             
             // Set gross monthly salary (including allowances) AFTER calculating deductions
             this.grossMonthlySalary = grossSalary + totalAllowances;
             
             // Calculate net pay: gross salary + allowances - deductions
-            this.netMonthlyPay = grossSalary - totalDeductions;
+            this.netMonthlyPay = result.getNetPay();
             
         } catch (Exception e) {
             System.err.println("Error calculating payroll: " + e.getMessage());
@@ -256,24 +239,6 @@ public class PayrollSummary {
         return this.hourlyRate;
     }
     
-    /**
-     * Helper method to parse amount from string
-     */
-    private double parseAmount(String amountStr) {
-        if (amountStr == null || amountStr.isEmpty()) {
-            return 0.0;
-        }
-        
-        // Remove any commas, currency symbols, etc.
-        String cleanedAmount = amountStr.replaceAll("[^0-9.]", "");
-        try {
-            return Double.parseDouble(cleanedAmount);
-        } catch (NumberFormatException e) {
-            System.err.println("Couldn't parse this as a number: " + amountStr);
-            return 0.0;
-        }
-    }
-    
     /**
      * Generate tax explanation based on tax bracket
      */
@@ -311,7 +276,9 @@ public class PayrollSummary {
     // Setter for payroll month
     public void setPayrollMonth(YearMonth payrollMonth) {
         this.payrollMonth = payrollMonth;
-        calculatePayroll(); // Recalculate with new month
+        try (DatasetVersion data = csvProcessor.pinVersion(payrollMonth)) {
+            calculatePayroll(data); // Recalculate with new month
+        }
     }
     
     // Getter methods for all payroll components
@@ -0,0 +1,27 @@
+package oop.classes.enums;
+
+/**
+ * Employment status as written in the Status column of the employee CSV.
+ */
+public enum EmploymentStatus {
+    REGULAR,
+    PROBATIONARY,
+    UNKNOWN;
+
+    /**
+     * Decodes the Status column value, ignoring case and surrounding spaces.
+     * @param text The status text, e.g. "Regular"
+     * @return The matching status, or UNKNOWN if the text is empty or not recognized
+     */
+    public static EmploymentStatus fromText(String text) {
+        if (text != null) {
+            String trimmed = text.trim();
+            for (EmploymentStatus status : values()) {
+                if (status != UNKNOWN && status.name().equalsIgnoreCase(trimmed)) {
+                    return status;
+                }
+            }
+        }
+        return UNKNOWN;
+    }
+}
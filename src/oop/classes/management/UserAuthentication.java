@@ -1,6 +1,10 @@
 package oop.classes.management;
 
 import CSV.CSVDatabaseProcessor;
+import CSV.CsvDatasetStorage;
+import CSV.Dataset;
+import CSV.DatasetStorage;
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import oop.classes.actors.Accounting;
@@ -21,14 +25,22 @@ import oop.classes.actors.User;
  * It determines the user's role and creates the appropriate user object.
  */
 public class UserAuthentication {
-   private final CSVDatabaseProcessor databaseProcessor;
+   private final DatasetStorage storage;
 
     /**
      * Initializes the authentication system with a database processor.
      * @param databaseProcessor The CSV database handler.
      */
     public UserAuthentication(CSVDatabaseProcessor databaseProcessor) {
-        this.databaseProcessor = databaseProcessor;
+        this(new CsvDatasetStorage(databaseProcessor));
+    }
+
+    /**
+     * Initializes the authentication system with the storage holding the credential and employee datasets.
+     * @param storage The dataset storage.
+     */
+    public UserAuthentication(DatasetStorage storage) {
+        this.storage = storage;
     }
 
      /**
@@ -39,16 +51,14 @@ public class UserAuthentication {
      */
     public User validateCredentials(String email, String password) {
         
-        // Get all stored user credentials from the database
-        List<Map<String, String>> userCredentialRecords = databaseProcessor.getAllUserCredentialRecords();
-        
-        // If no credentials exist, return null
-        if (userCredentialRecords == null || userCredentialRecords.isEmpty()) {
-            System.out.println("No user credentials found. Please check if the CSV file is loaded.");
+        // Look up the stored credentials for this email
+        List<Map<String, String>> userCredentialRecords;
+        try {
+            userCredentialRecords = storage.find(Dataset.USER_CREDENTIAL, "Email", email);
+        } catch (IOException e) {
+            System.err.println("Could not read user credentials: " + e.getMessage());
             return null;
         }
-        
-        
 
         // Loop through the credentials and check if the input matches any stored record        
         for (Map<String, String> record : userCredentialRecords) {
@@ -76,7 +86,14 @@ public class UserAuthentication {
      */
     private User getUserByID(int employeeID) {
         // Fetch the employee's record from the database
-        Map<String, String> employeeRecord = databaseProcessor.getEmployeeRecordsByEmployeeId(String.valueOf(employeeID));
+        Map<String, String> employeeRecord;
+        try {
+            List<Map<String, String>> matches = storage.find(Dataset.EMPLOYEE, "Employee ID", String.valueOf(employeeID));
+            employeeRecord = matches.isEmpty() ? null : matches.get(0);
+        } catch (IOException e) {
+            System.err.println("Could not read employee " + employeeID + ": " + e.getMessage());
+            return null;
+        }
 
         if (employeeRecord != null) {
             try {
@@ -0,0 +1,130 @@
+package oop.test;
+
+import CSV.AttendanceTable;
+import CSV.CSVDatabaseProcessor;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Reloads the attendance file after changing it on disk and checks that the loaded rows match the file:
+ * - An in-place edit that keeps the file's length, in the middle of the file, must be picked up by a full reload.
+ * - A row appended afterwards must be picked up as well.
+ * Works on a copy of the attendance file in a temporary directory.
+ * Usage: AttendanceReloadTest [csv directory]
+ */
+public class AttendanceReloadTest {
+
+    private static final String ATTENDANCE_FILE = "Attendance Record 2024.csv";
+    private static final String EMPLOYEE_FILE = "Employee Details 2024 (2).csv";
+
+    public static void main(String[] args) throws IOException {
+        String directory = args.length > 0 ? args[0] : "src/CSV/";
+        Path workDirectory = Files.createTempDirectory("attendance-reload-test");
+        // Snapshots and locks go to a data directory inside the temporary directory
+        System.setProperty("csv.data.dir", workDirectory.resolve("data").toString());
+        Path csv = workDirectory.resolve(ATTENDANCE_FILE);
+        Files.copy(Paths.get(directory, ATTENDANCE_FILE), csv);
+        Files.copy(Paths.get(directory, EMPLOYEE_FILE), workDirectory.resolve(EMPLOYEE_FILE));
+
+        PrintStream out = System.out;
+        boolean passed;
+        try {
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            CSVDatabaseProcessor processor = new CSVDatabaseProcessor(workDirectory.toString(), true);
+            processor.setUseSnapshots(false);
+            processor.loadAttendanceData();
+            processor.getAttendanceCursor(); // parse every month
+
+            // Edit the log in of the middle row without changing the file's length or line endings
+            List<String> lines = new ArrayList<>(Arrays.asList(
+                    new String(Files.readAllBytes(csv), StandardCharsets.UTF_8).split("\n", -1)));
+            int line = lines.size() / 2;
+            String[] fields = lines.get(line).split(",");
+            String oldLogIn = fields[4];
+            String newLogIn = (oldLogIn.charAt(0) == '9' ? '8' : '9') + oldLogIn.substring(1);
+            fields[4] = newLogIn;
+            lines.set(line, String.join(",", fields));
+            long length = Files.size(csv);
+            File file = csv.toFile();
+            long lastModified = file.lastModified();
+            Files.write(csv, String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+            file.setLastModified(lastModified + 2000);
+            if (Files.size(csv) != length) {
+                throw new IllegalStateException("The edit changed the file's length");
+            }
+
+            processor.loadAttendanceData();
+            int employeeId = Integer.parseInt(fields[0]);
+            int editedMinute = minuteOf(newLogIn);
+            passed = check(out, "In-place edit of row " + line + " (" + oldLogIn + " -> " + newLogIn + ")",
+                    countRows(processor, employeeId, editedMinute) == countMatching(lines, fields[0], newLogIn));
+
+            // Append a row and reload again; the file may not end with a newline
+            String appended = "\n" + fields[0] + "," + fields[1] + "," + fields[2] + ",12/31/2024,7:07,17:07";
+            Files.write(csv, appended.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+            file.setLastModified(lastModified + 4000);
+            processor.loadAttendanceData();
+            passed &= check(out, "Appended row", countRows(processor, employeeId, minuteOf("7:07"))
+                    == countMatching(lines, fields[0], "7:07") + 1
+                    && processor.getAttendanceCursor().size() == lines.size());
+        } finally {
+            System.setOut(out);
+            try (Stream<Path> paths = Files.walk(workDirectory)) {
+                paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+        if (!passed) {
+            System.exit(1);
+        }
+    }
+
+    private static boolean check(PrintStream out, String name, boolean passed) {
+        out.println((passed ? "PASS " : "FAIL ") + name);
+        return passed;
+    }
+
+    /**
+     * Number of loaded rows of the employee with the given log in minute.
+     */
+    private static int countRows(CSVDatabaseProcessor processor, int employeeId, int logInMinute) {
+        int count = 0;
+        AttendanceTable.Cursor cursor = processor.getAttendanceCursor();
+        while (cursor.next()) {
+            if (cursor.employeeId() == employeeId && cursor.logInMinute() == logInMinute) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Number of lines of the file with the given employee ID and log in.
+     */
+    private static int countMatching(List<String> lines, String employeeId, String logIn) {
+        int count = 0;
+        for (String line : lines) {
+            String[] fields = line.split(",");
+            if (fields.length > 4 && fields[0].equals(employeeId) && fields[4].equals(logIn)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static int minuteOf(String time) {
+        String[] parts = time.split(":");
+        return Integer.parseInt(parts[0]) * 60 + Integer.parseInt(parts[1]);
+    }
+}
@@ -0,0 +1,147 @@
+package oop.test;
+
+import CSV.CSVDatabaseProcessor;
+import CSV.DatasetVersion;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+import oop.classes.calculations.BatchPayrollEngine;
+import oop.classes.calculations.PayrollResult;
+import oop.classes.calculations.PayrollRun;
+
+/**
+ * Scaling benchmark for BatchPayrollEngine: calculates one month's payroll for a generated company with 1, 2,
+ * 4, ... threads up to the number of processors (or the given maximum), and checks that every thread count gives exactly the same
+ * results and failures as one thread.
+ * The company is written to a temporary directory: every weekday of the month has a row per employee, and
+ * every 1000th employee has no hourly rate so failures are collected too.
+ * Usage: BatchPayrollBenchmark [employees] [iterations] [max threads]
+ */
+public class BatchPayrollBenchmark {
+
+    private static final YearMonth MONTH = YearMonth.of(2024, 6);
+
+    public static void main(String[] args) throws IOException {
+        int employees = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int maxThreads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        Path directory = Files.createTempDirectory("batch-payroll-benchmark");
+        // Snapshots of the generated files go in the temporary directory too
+        System.setProperty("csv.data.dir", directory.resolve("data").toString());
+        PrintStream out = System.out;
+        try {
+            int attendanceRows = writeCompany(directory, employees);
+
+            // The processor and engine log as they go; keep the table readable
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            CSVDatabaseProcessor processor = new CSVDatabaseProcessor(directory.toString(), true);
+            processor.setUseSnapshots(false);
+            processor.loadAttendanceData();
+            BatchPayrollEngine engine = new BatchPayrollEngine();
+
+            out.printf("%d employees, %d attendance rows in %s, best of %d runs, %d processors%n", employees,
+                    attendanceRows, MONTH, iterations, Runtime.getRuntime().availableProcessors());
+            out.printf("%8s %10s %9s %8s%n", "Threads", "ms", "Speedup", "Output");
+            try (DatasetVersion data = processor.pinVersion(MONTH)) {
+                String expected = null;
+                double singleThreadMillis = 0;
+                for (int threads = 1; threads <= maxThreads; threads = nextThreadCount(threads, maxThreads)) {
+                    engine.setParallelism(threads);
+                    String digest = digest(engine.calculatePayroll(MONTH, data)); // warm up
+
+                    long best = Long.MAX_VALUE;
+                    for (int i = 0; i < iterations; i++) {
+                        long start = System.nanoTime();
+                        engine.calculatePayroll(MONTH, data);
+                        best = Math.min(best, System.nanoTime() - start);
+                    }
+                    double millis = best / 1e6;
+                    if (expected == null) {
+                        expected = digest;
+                        singleThreadMillis = millis;
+                    }
+                    out.printf("%8d %10.1f %8.2fx %8s%n", threads, millis, singleThreadMillis / millis,
+                            digest.equals(expected) ? "same" : "DIFFERS");
+                }
+            }
+        } finally {
+            System.setOut(out);
+            try (Stream<Path> paths = Files.walk(directory)) {
+                paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+
+    /**
+     * 1, 2, 4, ... and finally the maximum itself.
+     */
+    private static int nextThreadCount(int threads, int maxThreads) {
+        return threads < maxThreads && threads * 2 > maxThreads ? maxThreads : threads * 2;
+    }
+
+    /**
+     * Writes the employee and attendance files of a generated company and returns the attendance row count.
+     */
+    private static int writeCompany(Path directory, int employees) throws IOException {
+        try (PrintWriter writer = new PrintWriter(directory.resolve("Employee Details 2024 (2).csv").toFile())) {
+            writer.println("Employee ID,Last Name,First Name,Birthday,Address,Phone Number,SSS #,Philhealth #,TIN #,"
+                    + "Pag-ibig #,Status,Position,Immediate Supervisor,Basic Salary,Rice Subsidy,Phone Allowance,"
+                    + "Clothing Allowance,Gross Semi-monthly Rate,Hourly Rate");
+            for (int i = 0; i < employees; i++) {
+                String position = i % 3 == 0 ? "Account Manager" : "Account Rank and File";
+                String hourlyRate = i % 1000 == 999 ? "" : String.valueOf(150 + i % 400);
+                writer.println((20001 + i) + ",Last" + i + ",First" + i + ",01/15/1990,\"Makati City\",555-0100,"
+                        + "00-0000000-0,000000000000,000-000-000-000,000000000000,Regular," + position + ",N/A,"
+                        + "\"50,000\",\"1,500\",\"1,000\",\"1,000\",\"25,000\"," + hourlyRate);
+            }
+        }
+
+        Random random = new Random(42);
+        int rows = 0;
+        try (PrintWriter writer = new PrintWriter(directory.resolve("Attendance Record 2024.csv").toFile())) {
+            writer.println("Employee ID,Last Name,First Name,Date,Log In,Log Out");
+            for (LocalDate date = MONTH.atDay(1); !date.isAfter(MONTH.atEndOfMonth()); date = date.plusDays(1)) {
+                if (date.getDayOfWeek().getValue() > 5) {
+                    continue;
+                }
+                String day = String.format("%02d/%02d/%d", date.getMonthValue(), date.getDayOfMonth(), date.getYear());
+                for (int i = 0; i < employees; i++) {
+                    writer.printf("%d,Last%d,First%d,%s,%d:%02d,%d:%02d%n", 20001 + i, i, i, day,
+                            7 + random.nextInt(3), random.nextInt(60), 16 + random.nextInt(4), random.nextInt(60));
+                    rows++;
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Every result and failure of a run, exactly, in order.
+     */
+    private static String digest(PayrollRun run) {
+        StringBuilder digest = new StringBuilder();
+        for (PayrollResult result : run.getResults()) {
+            digest.append(result.getEmployeeId()).append(' ')
+                    .append(Double.doubleToLongBits(result.getGrossPay())).append(' ')
+                    .append(Double.doubleToLongBits(result.getOvertimePay())).append(' ')
+                    .append(Double.doubleToLongBits(result.getLateHours())).append(' ')
+                    .append(result.getDaysWorked()).append(' ')
+                    .append(Double.doubleToLongBits(result.getTotalDeductions())).append(' ')
+                    .append(Double.doubleToLongBits(result.getNetPay())).append('\n');
+        }
+        for (PayrollRun.Failure failure : run.getFailures()) {
+            digest.append(failure).append('\n');
+        }
+        return digest.toString();
+    }
+}
@@ -0,0 +1,132 @@
+package oop.test;
+
+import CSV.CSVDatabaseProcessor;
+import CSV.CsvWriteConflictException;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Several processes edit the employee file at once: each worker process repeatedly loads the file, adds one
+ * to a counter kept in a random employee's Phone Number and saves, retrying when the save reports a conflict.
+ * Afterwards the counters must add up to the number of saves that succeeded, so no save overwrote another,
+ * and no employee row may have been lost or duplicated.
+ * Works on a copy of the employee file in a temporary directory.
+ * Usage: CsvConcurrencyStressTest [csv directory] [processes] [increments per process]
+ */
+public class CsvConcurrencyStressTest {
+
+    private static final String EMPLOYEE_FILE = "Employee Details 2024 (2).csv";
+    private static final String COUNTER_COLUMN = "Phone Number";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("--worker")) {
+            runWorker(args[1], Integer.parseInt(args[2]), Long.parseLong(args[3]));
+            return;
+        }
+        String directory = args.length > 0 ? args[0] : "src/CSV/";
+        int processes = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int increments = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+
+        Path workDirectory = Files.createTempDirectory("csv-concurrency-test");
+        // The workers are given the same data directory, which holds the write lock
+        System.setProperty("csv.data.dir", workDirectory.resolve("data").toString());
+        Files.copy(Paths.get(directory, EMPLOYEE_FILE), workDirectory.resolve(EMPLOYEE_FILE),
+                StandardCopyOption.REPLACE_EXISTING);
+
+        // Start every counter at zero
+        CSVDatabaseProcessor processor = new CSVDatabaseProcessor(workDirectory.toString(), true);
+        processor.setUseSnapshots(false);
+        List<Map<String, String>> rows = new ArrayList<>();
+        for (Map<String, String> row : processor.getAllEmployeeRecords()) {
+            Map<String, String> reset = new HashMap<>(row);
+            reset.put(COUNTER_COLUMN, "0");
+            rows.add(reset);
+        }
+        processor.setEmployeeRecords(rows);
+        processor.saveEmployeeRecords();
+
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        List<Process> workers = new ArrayList<>();
+        long startTime = System.nanoTime();
+        for (int p = 0; p < processes; p++) {
+            workers.add(new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                    "-Dcsv.data.dir=" + System.getProperty("csv.data.dir"), CsvConcurrencyStressTest.class.getName(),
+                    "--worker", workDirectory.toString(), String.valueOf(increments), String.valueOf(p))
+                    .redirectErrorStream(true).start());
+        }
+        long commits = 0;
+        long conflicts = 0;
+        for (Process worker : workers) {
+            String result = null;
+            StringBuilder log = new StringBuilder();
+            try (BufferedReader output = new BufferedReader(new InputStreamReader(worker.getInputStream()))) {
+                for (String line; (line = output.readLine()) != null; ) {
+                    log.append(line).append('\n');
+                    if (line.startsWith("RESULT ")) {
+                        result = line;
+                    }
+                }
+            }
+            if (worker.waitFor() != 0 || result == null) {
+                throw new IllegalStateException("A worker process failed:\n" + log);
+            }
+            String[] counts = result.split(" ");
+            commits += Long.parseLong(counts[1]);
+            conflicts += Long.parseLong(counts[2]);
+        }
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+
+        CSVDatabaseProcessor checker = new CSVDatabaseProcessor(workDirectory.toString(), true);
+        long total = 0;
+        for (Map<String, String> row : checker.getAllEmployeeRecords()) {
+            total += Long.parseLong(row.get(COUNTER_COLUMN));
+        }
+        int rowsAfter = checker.getAllEmployeeRecords().size();
+        System.out.printf("%d processes, %d saves, %d conflicts retried, %.3f s%n", processes, commits, conflicts, seconds);
+        System.out.println("Rows before: " + rows.size() + ", rows after: " + rowsAfter + ", counter total: " + total
+                + (total == commits && commits == (long) processes * increments && rowsAfter == rows.size()
+                        ? " (OK)" : " (MISMATCH)"));
+
+        try (Stream<Path> paths = Files.walk(workDirectory)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    /**
+     * Adds one to random counters until the given number of saves succeeded, then prints its counts.
+     */
+    private static void runWorker(String directory, int increments, long seed) throws Exception {
+        CSVDatabaseProcessor processor = new CSVDatabaseProcessor(directory, true);
+        processor.setUseSnapshots(false);
+        Random random = new Random(seed);
+        int commits = 0;
+        int conflicts = 0;
+        while (commits < increments) {
+            processor.loadEmployeeCSVData();
+            List<Map<String, String>> rows = processor.getAllEmployeeRecords();
+            String employeeId = rows.get(random.nextInt(rows.size())).get("Employee ID");
+            Map<String, String> row = new HashMap<>(processor.getEmployeeRecordsByEmployeeId(employeeId));
+            row.put(COUNTER_COLUMN, String.valueOf(Long.parseLong(row.get(COUNTER_COLUMN)) + 1));
+            processor.updateEmployeeRecord(employeeId, row);
+            try {
+                processor.saveEmployeeRecords();
+                commits++;
+            } catch (CsvWriteConflictException e) {
+                conflicts++;
+            }
+        }
+        System.out.println("RESULT " + commits + " " + conflicts);
+    }
+}
@@ -0,0 +1,97 @@
+package oop.test;
+
+import CSV.CsvTokenizer;
+import CSV.LegacyCsvLineParser;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Throughput benchmark comparing CsvTokenizer with the line-based parsers it replaced.
+ * Each CSV file is read into memory once, then tokenized repeatedly by both parsers.
+ * Usage: CsvTokenizerBenchmark [csv directory] [iterations]
+ */
+public class CsvTokenizerBenchmark {
+
+    private static final String[][] FILES = {
+        {"Employee Details 2024 (2).csv", "employee"},
+        {"Attendance Record 2024.csv", "attendance"},
+        {"OOP CSV Database - Leave Requests.csv", "leave"},
+        {"OOP CSV Database - User Credentials.csv", "credential"}
+    };
+
+    public static void main(String[] args) throws IOException {
+        String directory = args.length > 0 ? args[0] : "src/CSV/";
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+
+        System.out.printf("%-42s %12s %14s %8s%n", "File", "Legacy MB/s", "Tokenizer MB/s", "Speedup");
+        for (String[] file : FILES) {
+            Path path = Paths.get(directory, file[0]);
+            if (!Files.isRegularFile(path)) {
+                System.out.println("Skipping missing file: " + path);
+                continue;
+            }
+            String text = Files.readString(path);
+            List<String> lines = text.lines().toList();
+            double megabytes = text.length() / (1024.0 * 1024.0);
+
+            // Both parsers must agree on the number of fields before their speed is worth comparing
+            long legacyFields = runLegacy(lines, file[1]);
+            long tokenizerFields = runTokenizer(text);
+            if (legacyFields != tokenizerFields) {
+                System.out.println("Note: field counts differ for " + file[0] + " (legacy " + legacyFields
+                        + ", tokenizer " + tokenizerFields + ")");
+            }
+
+            // Warm up both paths before timing them
+            for (int i = 0; i < iterations; i++) {
+                runLegacy(lines, file[1]);
+                runTokenizer(text);
+            }
+
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                runLegacy(lines, file[1]);
+            }
+            double legacySeconds = (System.nanoTime() - start) / 1e9;
+
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                runTokenizer(text);
+            }
+            double tokenizerSeconds = (System.nanoTime() - start) / 1e9;
+
+            double legacyRate = megabytes * iterations / legacySeconds;
+            double tokenizerRate = megabytes * iterations / tokenizerSeconds;
+            System.out.printf("%-42s %12.1f %14.1f %7.1fx%n", file[0], legacyRate, tokenizerRate, tokenizerRate / legacyRate);
+        }
+    }
+
+    /**
+     * Parses every data line with the legacy parser and returns the number of fields seen.
+     */
+    private static long runLegacy(List<String> lines, String context) {
+        long fields = 0;
+        for (int i = 1; i < lines.size(); i++) { // skip header
+            fields += LegacyCsvLineParser.parseLine(lines.get(i), context).length;
+        }
+        return fields;
+    }
+
+    /**
+     * Tokenizes every data record and returns the number of fields seen.
+     */
+    private static long runTokenizer(String text) throws IOException {
+        CsvTokenizer tokenizer = new CsvTokenizer(new StringReader(text));
+        long fields = 0;
+        if (tokenizer.next()) { // skip header
+            while (tokenizer.next()) {
+                fields += tokenizer.fieldCount();
+            }
+        }
+        return fields;
+    }
+}
@@ -0,0 +1,116 @@
+package oop.test;
+
+import CSV.CsvFormat;
+import CSV.CsvTokenizer;
+import CSV.LeaveRequestLog;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Stream;
+
+/**
+ * Simulates everyone filing leave at once: N threads submit leave requests through the leave request log
+ * at the same time, for several thread counts. Reports submissions per second and how many requests shared
+ * each fsync, then merges the log and checks that every request reached the CSV file exactly once.
+ * Works on a copy of the leave request file in a temporary directory.
+ * Usage: LeaveRequestLogBenchmark [csv directory] [requests per thread]
+ */
+public class LeaveRequestLogBenchmark {
+
+    private static final int[] THREAD_COUNTS = {1, 4, 16, 64};
+
+    public static void main(String[] args) throws Exception {
+        String directory = args.length > 0 ? args[0] : "src/CSV/";
+        int requestsPerThread = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+
+        Path source = Paths.get(directory, "OOP CSV Database - Leave Requests.csv");
+        Path workDirectory = Files.createTempDirectory("leave-log-benchmark");
+        // The log and its lock files go in the temporary directory too
+        System.setProperty("csv.data.dir", workDirectory.resolve("data").toString());
+        Path csv = workDirectory.resolve(source.getFileName());
+        Files.copy(source, csv, StandardCopyOption.REPLACE_EXISTING);
+        long rowsBefore = countRows(csv);
+
+        LeaveRequestLog log = LeaveRequestLog.forFile(csv.toFile());
+        long submitted = 0;
+
+        System.out.printf("%8s %10s %12s %12s %14s%n", "Threads", "Requests", "Seconds", "Requests/s", "Requests/sync");
+        for (int threads : THREAD_COUNTS) {
+            long syncsBefore = log.getSyncCount();
+            CountDownLatch start = new CountDownLatch(1);
+            List<Thread> workers = new ArrayList<>();
+            List<Throwable> failures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int worker = t;
+                Thread thread = new Thread(() -> {
+                    try {
+                        start.await();
+                        for (int i = 0; i < requestsPerThread; i++) {
+                            log.append(CsvFormat.formatRecord("12/31/2024", String.valueOf(20000 + worker),
+                                    "Test", "Employee " + worker, "Rank and File", "Regular", "Garcia, Manuel III",
+                                    "Vacation Leave", "Year-end leave, request " + i, "12/31/2024", "01/02/2025",
+                                    "Pending", "5", "5"));
+                        }
+                    } catch (InterruptedException | IOException e) {
+                        synchronized (failures) {
+                            failures.add(e);
+                        }
+                    }
+                });
+                workers.add(thread);
+                thread.start();
+            }
+
+            long startTime = System.nanoTime();
+            start.countDown();
+            for (Thread thread : workers) {
+                thread.join();
+            }
+            double seconds = (System.nanoTime() - startTime) / 1e9;
+            if (!failures.isEmpty()) {
+                throw new IllegalStateException("Submissions failed", failures.get(0));
+            }
+
+            int requests = threads * requestsPerThread;
+            submitted += requests;
+            long syncs = log.getSyncCount() - syncsBefore;
+            System.out.printf("%8d %10d %12.3f %12.0f %14.1f%n", threads, requests, seconds, requests / seconds,
+                    (double) requests / Math.max(1, syncs));
+        }
+
+        log.compact();
+        long rowsAfter = countRows(csv);
+        System.out.println("Rows before: " + rowsBefore + ", submitted: " + submitted + ", rows after merge: " + rowsAfter
+                + (rowsAfter == rowsBefore + submitted ? " (OK)" : " (MISMATCH)"));
+
+        try (Stream<Path> paths = Files.walk(workDirectory)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    /**
+     * Counts the data records of a CSV file, skipping the header and blank lines.
+     */
+    private static long countRows(Path csv) throws IOException {
+        long rows = 0;
+        try (Reader reader = Files.newBufferedReader(csv)) {
+            CsvTokenizer tokenizer = new CsvTokenizer(reader);
+            if (tokenizer.next()) {
+                while (tokenizer.next()) {
+                    if (!tokenizer.isBlank()) {
+                        rows++;
+                    }
+                }
+            }
+        }
+        return rows;
+    }
+}
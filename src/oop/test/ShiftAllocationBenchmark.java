@@ -0,0 +1,141 @@
+package oop.test;
+
+import CSV.AttendanceAggregate;
+import CSV.AttendanceTable;
+import CSV.CSVDatabaseProcessor;
+import CSV.DatasetVersion;
+import CSV.EmployeeRecord;
+import CSV.ShiftEvaluator;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.time.YearMonth;
+import oop.classes.calculations.BatchPayrollEngine;
+import oop.classes.empselfservice.AttendanceDetails;
+
+/**
+ * Counts the bytes allocated per attendance row by the payroll's per-shift calculation, using the
+ * per-thread allocation counter of the JVM's ThreadMXBean.
+ * Compares creating an AttendanceDetails for every row, as the payroll loop used to, with evaluating the rows
+ * through ShiftEvaluator and AttendanceAggregate, which should allocate nothing per row. Also reports what a
+ * whole batch payroll run allocates per employee.
+ * Usage: ShiftAllocationBenchmark [csv directory] [iterations]
+ */
+public class ShiftAllocationBenchmark {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // Keeps results alive so the JIT cannot drop the work being measured
+    private static double sink;
+
+    public static void main(String[] args) {
+        String directory = args.length > 0 ? args[0] : "src/CSV/";
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        if (!THREADS.isThreadAllocatedMemorySupported()) {
+            System.out.println("This JVM cannot count allocated bytes per thread");
+            return;
+        }
+        THREADS.setThreadAllocatedMemoryEnabled(true);
+
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        CSVDatabaseProcessor processor = new CSVDatabaseProcessor(directory, true);
+        processor.loadAttendanceData();
+        int rows = processor.getAttendanceCursor().size();
+        BatchPayrollEngine engine = new BatchPayrollEngine();
+        engine.setParallelism(1); // so everything is allocated on this thread
+        System.setOut(out);
+
+        System.out.printf("%d attendance rows, %d iterations%n", rows, iterations);
+        System.out.printf("%-28s %12s %10s%n", "Path", "Bytes/row", "ns/row");
+
+        // Warm up every path so the JIT has compiled them before anything is counted
+        for (int i = 0; i < iterations; i++) {
+            perRowDetails(processor);
+            shiftEvaluator(processor);
+            aggregate(processor);
+        }
+        measure("AttendanceDetails per row", rows, iterations, () -> perRowDetails(processor));
+        measure("ShiftEvaluator", rows, iterations, () -> shiftEvaluator(processor));
+        measure("AttendanceAggregate", rows, iterations, () -> aggregate(processor));
+
+        // Batch payroll runs for a whole year; what they allocate is per employee (cursor, totals, result)
+        // and should not grow with the number of rows
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        int employees;
+        long bytes;
+        int monthRows = 0;
+        try (DatasetVersion data = processor.pinVersion()) {
+            employees = data.getAllEmployees().size();
+            for (int month = 1; month <= 12; month++) {
+                YearMonth payrollMonth = YearMonth.of(2024, month);
+                for (EmployeeRecord employee : data.getAllEmployees()) {
+                    monthRows += data.getAttendanceCursor(employee.getEmployeeId(), payrollMonth.atDay(1),
+                            payrollMonth.atEndOfMonth()).size();
+                }
+            }
+            for (int i = 0; i < 5; i++) {
+                payrollForEveryMonth(engine, data); // warm up
+            }
+            long start = THREADS.getCurrentThreadAllocatedBytes();
+            payrollForEveryMonth(engine, data);
+            bytes = THREADS.getCurrentThreadAllocatedBytes() - start;
+        } finally {
+            System.setOut(out);
+        }
+        System.out.printf("Batch payroll, 12 months: %d bytes per employee-month (%.1f attendance rows each)%n",
+                bytes / (12L * employees), monthRows / (12.0 * employees));
+    }
+
+    private static void measure(String name, int rows, int iterations, Runnable path) {
+        long startBytes = THREADS.getCurrentThreadAllocatedBytes();
+        long startTime = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            path.run();
+        }
+        long nanos = System.nanoTime() - startTime;
+        long bytes = THREADS.getCurrentThreadAllocatedBytes() - startBytes;
+        double total = (double) rows * iterations;
+        System.out.printf("%-28s %12.2f %10.2f%n", name, bytes / total, nanos / total);
+    }
+
+    /**
+     * The old per-row path: an AttendanceDetails with LocalDate and LocalTime values for every row.
+     */
+    private static void perRowDetails(CSVDatabaseProcessor processor) {
+        AttendanceTable.Cursor cursor = processor.getAttendanceCursor();
+        double hours = 0;
+        while (cursor.next()) {
+            if (cursor.hasLogIn() && cursor.hasLogOut()) {
+                AttendanceDetails details = new AttendanceDetails(String.valueOf(cursor.employeeId()), cursor.date(),
+                        cursor.logIn(), cursor.logOut());
+                hours += details.getHoursWorked() + details.getOvertimeHours() + details.getLateHours();
+            }
+        }
+        sink += hours;
+    }
+
+    private static void shiftEvaluator(CSVDatabaseProcessor processor) {
+        AttendanceTable.Cursor cursor = processor.getAttendanceCursor();
+        long minutes = 0;
+        while (cursor.next()) {
+            int worked = ShiftEvaluator.workedMinutes(cursor.logInMinute(), cursor.logOutMinute());
+            minutes += worked + ShiftEvaluator.overtimeMinutes(worked) + ShiftEvaluator.lateMinutes(cursor.logInMinute());
+        }
+        sink += minutes;
+    }
+
+    private static void aggregate(CSVDatabaseProcessor processor) {
+        sink += AttendanceAggregate.of(processor.getAttendanceCursor()).getHoursWorked();
+    }
+
+    /**
+     * Runs the payroll of every month of 2024.
+     */
+    private static void payrollForEveryMonth(BatchPayrollEngine engine, DatasetVersion data) {
+        for (int month = 1; month <= 12; month++) {
+            sink += engine.calculatePayroll(YearMonth.of(2024, month), data).getResults().length;
+        }
+    }
+}